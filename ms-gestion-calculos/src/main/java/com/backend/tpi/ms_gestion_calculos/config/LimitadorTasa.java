@@ -0,0 +1,62 @@
+package com.backend.tpi.ms_gestion_calculos.config;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Limitador de tasa tipo token bucket
+ * Se recargan {@code porSegundo} permisos por segundo hasta {@code capacidad} (ráfaga máxima). Cada llamada
+ * reserva el próximo permiso: si no hay uno disponible espera exactamente hasta que se genere, así las llamadas
+ * quedan espaciadas a la tasa configurada sin importar desde cuántos hilos se hagan. Si la espera superaría el
+ * máximo indicado no se reserva nada y se rechaza.
+ */
+public final class LimitadorTasa {
+
+    private final double capacidad;
+    private final double nanosPorPermiso;
+    private final LongSupplier reloj;
+
+    // Puede ser negativo: permisos ya reservados por llamadas que están esperando
+    private double permisos;
+    private long ultimaRecarga;
+
+    public LimitadorTasa(double porSegundo, int capacidad) {
+        this(porSegundo, capacidad, System::nanoTime);
+    }
+
+    LimitadorTasa(double porSegundo, int capacidad, LongSupplier reloj) {
+        if (porSegundo <= 0) throw new IllegalArgumentException("La tasa debe ser positiva");
+        this.capacidad = Math.max(1, capacidad);
+        this.nanosPorPermiso = TimeUnit.SECONDS.toNanos(1) / porSegundo;
+        this.reloj = reloj;
+        this.permisos = this.capacidad;
+        this.ultimaRecarga = reloj.getAsLong();
+    }
+
+    /**
+     * Obtiene un permiso, esperando lo necesario
+     * @param esperaMaxMs espera máxima aceptada
+     * @return true si se obtuvo (ya se esperó), false si la espera superaría el máximo
+     */
+    public boolean adquirir(long esperaMaxMs) throws InterruptedException {
+        long espera = reservar(TimeUnit.MILLISECONDS.toNanos(esperaMaxMs));
+        if (espera < 0) return false;
+        if (espera > 0) TimeUnit.NANOSECONDS.sleep(espera);
+        return true;
+    }
+
+    /**
+     * Reserva un permiso sin esperar
+     * @param esperaMaxNanos espera máxima aceptada
+     * @return nanosegundos a esperar antes de usar el permiso, o -1 si la espera superaría el máximo
+     */
+    synchronized long reservar(long esperaMaxNanos) {
+        long ahora = reloj.getAsLong();
+        permisos = Math.min(capacidad, permisos + (ahora - ultimaRecarga) / nanosPorPermiso);
+        ultimaRecarga = ahora;
+        long espera = permisos >= 1 ? 0 : (long) Math.ceil((1 - permisos) * nanosPorPermiso);
+        if (espera > esperaMaxNanos) return -1;
+        permisos -= 1;
+        return espera;
+    }
+}
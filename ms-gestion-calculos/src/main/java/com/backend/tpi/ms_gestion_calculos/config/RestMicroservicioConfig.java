@@ -5,29 +5,38 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.web.client.RestClient;
 
+// Los clientes usan el HttpClient compartido de ClienteHttpFactory (pool, timeouts y límite por destino)
 @Configuration
 public class RestMicroservicioConfig {
 
     @Bean
-    public RestClient rutasClient(@Value("${app.rutas.base-url:http://localhost:8082}") String baseUrl) {
-        return RestClient.builder()
-                .baseUrl(baseUrl)
+    public RestClient rutasClient(@Value("${app.rutas.base-url:http://localhost:8082}") String baseUrl,
+                                  ClienteHttpFactory clientes) {
+        return clientes.builder("rutas", baseUrl)
+                .build();
+    }
+
+    @Bean
+    public RestClient solicitudesClient(@Value("${app.solicitudes.base-url:http://localhost:8083}") String baseUrl,
+                                        ClienteHttpFactory clientes) {
+        return clientes.builder("solicitudes", baseUrl)
                 .build();
     }
 
+    // Cliente para Nominatim (geocodificación de direcciones)
     @Bean
-    public RestClient solicitudesClient(@Value("${app.solicitudes.base-url:http://localhost:8083}") String baseUrl) {
-        return RestClient.builder()
-                .baseUrl(baseUrl)
+    public RestClient nominatimClient(@Value("${app.nominatim.base-url:https://nominatim.openstreetmap.org}") String baseUrl,
+                                      ClienteHttpFactory clientes) {
+        return clientes.builder("nominatim", baseUrl)
+                .defaultHeader("User-Agent", "TPI-Backend-Geocoder/1.0 (contacto@dominio.example)")
                 .build();
     }
 
         // Proveer un RestTemplate simple para inyección en servicios que lo requieran
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(ClienteHttpFactory clientes) {
+        return clientes.restTemplate("legacy");
     }
 
 }
@@ -29,6 +29,18 @@ public class CalculoController {
     @Autowired
     private CalculoService calculoService;
 
+    @Autowired
+    private com.backend.tpi.ms_gestion_calculos.config.ClienteHttpFactory clientesHttp;
+
+    @Autowired
+    private com.backend.tpi.ms_gestion_calculos.services.GeocodificacionCache geocodificacionCache;
+
+    @Autowired
+    private com.backend.tpi.ms_gestion_calculos.services.GeocodificadorInversoLocal geocodificadorInversoLocal;
+
+    @Autowired
+    private com.backend.tpi.ms_gestion_calculos.services.ColaGeocodificacionInversa colaGeocodificacionInversa;
+
     /**
     * POST /api/v1/gestion/distancia - Calcula la distancia entre dos ubicaciones
     * Requiere rol CLIENTE u OPERADOR
@@ -47,16 +59,56 @@ public class CalculoController {
     /**
     * GET /api/v1/gestion/geocode?direccion=... - Geocodifica una dirección de texto o coordenadas
     * Requiere rol CLIENTE u OPERADOR
+    * Responde 404 si la dirección no se encontró y 503 si Nominatim no respondió (no se sabe si existe)
      */
     @GetMapping("/geocode")
     @PreAuthorize("hasAnyRole('CLIENTE','OPERADOR')")
     public ResponseEntity<com.backend.tpi.ms_gestion_calculos.dtos.CoordenadaDTO> geocode(@RequestParam String direccion) {
         logger.info("GET /api/v1/gestion/geocode - Geocodificando: {}", direccion);
-        com.backend.tpi.ms_gestion_calculos.dtos.CoordenadaDTO coord = calculoService.geocodificarPublic(direccion);
+        com.backend.tpi.ms_gestion_calculos.dtos.CoordenadaDTO coord;
+        try {
+            coord = calculoService.geocodificarPublic(direccion);
+        } catch (com.backend.tpi.ms_gestion_calculos.services.CalculoService.GeocodificacionNoDisponibleException e) {
+            logger.warn("GET /api/v1/gestion/geocode - Respuesta: 503 - {}", e.getMessage());
+            return ResponseEntity.status(org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
         if (coord == null) {
             logger.warn("No se pudo geocodificar la dirección: {}", direccion);
             return ResponseEntity.notFound().build();
         }
         return ResponseEntity.ok(coord);
     }
+
+    /**
+    * GET /api/v1/gestion/geocode/cache - Métricas de la caché de geocodificación
+    * Requiere rol ADMIN
+     */
+    @GetMapping("/geocode/cache")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<java.util.Map<String, Object>> geocodeCache() {
+        return ResponseEntity.ok(geocodificacionCache.estadisticas());
+    }
+
+    /**
+    * GET /api/v1/gestion/geocode/inversa - Métricas del índice local de localidades y de la cola de Nominatim
+    * Requiere rol ADMIN
+     */
+    @GetMapping("/geocode/inversa")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<java.util.Map<String, Object>> geocodeInversa() {
+        java.util.Map<String, Object> stats = new java.util.LinkedHashMap<>();
+        stats.put("indiceLocal", geocodificadorInversoLocal.estadisticas());
+        stats.put("colaNominatim", colaGeocodificacionInversa.estadisticas());
+        return ResponseEntity.ok(stats);
+    }
+
+    /**
+    * GET /api/v1/gestion/clientes-http - Métricas de saturación de los clientes HTTP salientes
+    * Requiere rol ADMIN
+     */
+    @GetMapping("/clientes-http")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<java.util.Map<String, Object>> clientesHttp() {
+        return ResponseEntity.ok(clientesHttp.estadisticas());
+    }
 }
@@ -25,11 +25,12 @@ public class DepositoController {
 
     /**
     * GET /api/v1/depositos - Lista todos los depósitos del sistema
-    * Requiere rol CLIENTE, OPERADOR o ADMIN
+    * Requiere rol CLIENTE, OPERADOR, ADMIN o TRANSPORTISTA (ms-rutas-transportistas descarga el catálogo
+    * con el token del request que lo necesita, que puede ser de un transportista)
      * @return Lista de depósitos
      */
     @GetMapping
-    @PreAuthorize("hasAnyRole('CLIENTE','OPERADOR','ADMIN')")
+    @PreAuthorize("hasAnyRole('CLIENTE','OPERADOR','ADMIN','TRANSPORTISTA')")
     public List<DepositoDTO> getAllDepositos() {
         logger.info("GET /api/v1/depositos - Listando todos los depósitos");
         List<DepositoDTO> result = depositoService.findAll();
@@ -52,6 +53,47 @@ public class DepositoController {
         return result;
     }
 
+    /**
+    * POST /api/v1/depositos/importar - Importa depósitos en forma masiva desde un CSV con encabezado
+    * Requiere rol OPERADOR o ADMIN
+     * @param entrada Cuerpo del request (text/csv, UTF-8)
+     * @return Resumen de la importación (importadas, IDs, errores por línea) o Bad Request (400) si está vacío
+     *         o el encabezado no tiene la columna nombre
+     */
+    @PostMapping(value = "/importar", consumes = "text/csv")
+    @PreAuthorize("hasAnyRole('OPERADOR','ADMIN')")
+    public org.springframework.http.ResponseEntity<java.util.Map<String, Object>> importarCsv(java.io.InputStream entrada) throws java.io.IOException {
+        logger.info("POST /api/v1/depositos/importar - Importando depósitos desde CSV");
+        try {
+            java.util.Map<String, Object> result = depositoService.importarCsv(entrada);
+            logger.info("POST /api/v1/depositos/importar - Respuesta: 200 - {} depósitos importados", result.get("importadas"));
+            return org.springframework.http.ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            logger.warn("POST /api/v1/depositos/importar - Respuesta: 400 - {}", e.getMessage());
+            return org.springframework.http.ResponseEntity.badRequest().body(java.util.Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+    * POST /api/v1/depositos/importar - Importa depósitos en forma masiva desde NDJSON (un depósito por línea)
+    * Requiere rol OPERADOR o ADMIN
+     * @param entrada Cuerpo del request (application/x-ndjson, UTF-8)
+     * @return Resumen de la importación (importadas, IDs, errores por línea) o Bad Request (400) si está vacío
+     */
+    @PostMapping(value = "/importar", consumes = "application/x-ndjson")
+    @PreAuthorize("hasAnyRole('OPERADOR','ADMIN')")
+    public org.springframework.http.ResponseEntity<java.util.Map<String, Object>> importarNdjson(java.io.InputStream entrada) throws java.io.IOException {
+        logger.info("POST /api/v1/depositos/importar - Importando depósitos desde NDJSON");
+        try {
+            java.util.Map<String, Object> result = depositoService.importarNdjson(entrada);
+            logger.info("POST /api/v1/depositos/importar - Respuesta: 200 - {} depósitos importados", result.get("importadas"));
+            return org.springframework.http.ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            logger.warn("POST /api/v1/depositos/importar - Respuesta: 400 - {}", e.getMessage());
+            return org.springframework.http.ResponseEntity.badRequest().body(java.util.Map.of("error", e.getMessage()));
+        }
+    }
+
     /**
     * GET /api/v1/depositos/{id} - Obtiene un depósito específico por ID
     * Requiere rol ADMIN u OPERADOR
@@ -83,6 +125,43 @@ public class DepositoController {
         return result;
     }
 
+    /**
+    * GET /api/v1/depositos/version - Obtiene la versión actual del catálogo de depósitos
+    * La versión viaja también como ETag; si coincide con If-None-Match se responde 304 sin cuerpo
+     * @param ifNoneMatch ETag de la versión que ya tiene el cliente (opcional)
+     * @return Versión del catálogo
+     */
+    @GetMapping("/version")
+    @PreAuthorize("hasAnyRole('CLIENTE','OPERADOR','ADMIN','TRANSPORTISTA')")
+    public org.springframework.http.ResponseEntity<java.util.Map<String, Object>> getVersionCatalogo(
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        long version = depositoService.getVersionCatalogo();
+        String etag = "\"" + version + "\"";
+        if (etag.equals(ifNoneMatch)) {
+            logger.debug("GET /api/v1/depositos/version - Respuesta: 304 - Catálogo sin cambios ({})", etag);
+            return org.springframework.http.ResponseEntity.status(org.springframework.http.HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        java.util.Map<String, Object> body = new java.util.HashMap<>();
+        body.put("version", version);
+        logger.info("GET /api/v1/depositos/version - Respuesta: 200 - Versión {}", version);
+        return org.springframework.http.ResponseEntity.ok().eTag(etag).body(body);
+    }
+
+    /**
+    * GET /api/v1/depositos/coordenadas?ids=1,2,3 - Obtiene las coordenadas de varios depósitos
+    * Requiere rol OPERADOR, ADMIN o TRANSPORTISTA
+     * @param ids IDs de los depósitos
+     * @return Lista con depositoId, nombre, latitud y longitud de cada depósito encontrado
+     */
+    @GetMapping("/coordenadas")
+    @PreAuthorize("hasAnyRole('OPERADOR','ADMIN','TRANSPORTISTA')")
+    public List<java.util.Map<String, Object>> getCoordenadasDepositos(@RequestParam List<Long> ids) {
+        logger.info("GET /api/v1/depositos/coordenadas - Consultando coordenadas de {} depósitos", ids.size());
+        List<java.util.Map<String, Object>> result = depositoService.findCoordenadasByIds(ids);
+        logger.info("GET /api/v1/depositos/coordenadas - Respuesta: 200 - {} depósitos encontrados", result.size());
+        return result;
+    }
+
     /**
     * GET /api/v1/depositos/{id}/coordenadas - Obtiene las coordenadas de un depósito
     * Requiere rol OPERADOR o ADMIN
@@ -26,11 +26,11 @@ public class TarifaController {
 
     /**
      * GET /api/v1/tarifas - Lista todas las tarifas del sistema
-    * Requiere rol CLIENTE, OPERADOR o ADMIN
+    * Requiere rol CLIENTE, OPERADOR, ADMIN o TRANSPORTISTA (ms-rutas-transportistas la usa al finalizar tramos)
      * @return Lista de tarifas con sus rangos
      */
     @GetMapping
-    @PreAuthorize("hasAnyRole('CLIENTE','OPERADOR','ADMIN')")
+    @PreAuthorize("hasAnyRole('CLIENTE','OPERADOR','ADMIN','TRANSPORTISTA')")
     public List<TarifaDTO> getAllTarifas() {
         logger.info("GET /api/v1/tarifas - Listando todas las tarifas");
         List<TarifaDTO> result = tarifaService.findAll();
@@ -38,6 +38,28 @@ public class TarifaController {
         return result;
     }
 
+    /**
+    * GET /api/v1/tarifas/version - Obtiene la versión actual de las tarifas
+    * La versión viaja también como ETag; si coincide con If-None-Match se responde 304 sin cuerpo
+     * @param ifNoneMatch ETag de la versión que ya tiene el cliente (opcional)
+     * @return Versión de las tarifas
+     */
+    @GetMapping("/version")
+    @PreAuthorize("hasAnyRole('CLIENTE','OPERADOR','ADMIN','TRANSPORTISTA')")
+    public org.springframework.http.ResponseEntity<java.util.Map<String, Object>> getVersionTarifas(
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        long version = tarifaService.getVersionTarifas();
+        String etag = "\"" + version + "\"";
+        if (etag.equals(ifNoneMatch)) {
+            logger.debug("GET /api/v1/tarifas/version - Respuesta: 304 - Tarifas sin cambios ({})", etag);
+            return org.springframework.http.ResponseEntity.status(org.springframework.http.HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        java.util.Map<String, Object> body = new java.util.HashMap<>();
+        body.put("version", version);
+        logger.info("GET /api/v1/tarifas/version - Respuesta: 200 - Versión {}", version);
+        return org.springframework.http.ResponseEntity.ok().eTag(etag).body(body);
+    }
+
     /**
      * GET /api/v1/tarifas/{id} - Obtiene una tarifa específica por ID
     * Requiere rol CLIENTE, OPERADOR o ADMIN
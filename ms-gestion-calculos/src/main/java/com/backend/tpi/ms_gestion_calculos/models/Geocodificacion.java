@@ -0,0 +1,27 @@
+package com.backend.tpi.ms_gestion_calculos.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Resultado guardado de una geocodificación externa (Nominatim)
+ * La clave es la dirección normalizada; latitud/longitud en null indican que Nominatim no encontró la dirección
+ * (caché negativa, vence antes que los resultados positivos).
+ */
+@Entity
+@Data
+@Table(name = "geocodificaciones")
+public class Geocodificacion {
+    @Id
+    @Column(name = "direccion_normalizada", length = 512)
+    private String direccionNormalizada;
+
+    private Double latitud;
+
+    private Double longitud;
+
+    @Column(name = "fecha_consulta", nullable = false)
+    private LocalDateTime fechaConsulta;
+}
@@ -19,4 +19,12 @@ public interface CiudadRepository extends JpaRepository<Ciudad, Long> {
      * @return Ciudad si existe
      */
     Optional<Ciudad> findByNombreIgnoreCase(String nombre);
+
+    /**
+     * Busca varias ciudades por nombre en una sola consulta (case-insensitive)
+     * @param nombres Nombres en minúsculas
+     * @return Ciudades encontradas
+     */
+    @org.springframework.data.jpa.repository.Query("select c from Ciudad c where lower(c.nombre) in :nombres")
+    java.util.List<Ciudad> findByNombresEnMinusculas(@org.springframework.data.repository.query.Param("nombres") java.util.Collection<String> nombres);
 }
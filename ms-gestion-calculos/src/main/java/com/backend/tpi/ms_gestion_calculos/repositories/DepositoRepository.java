@@ -10,4 +10,17 @@ import org.springframework.stereotype.Repository;
  */
 @Repository
 public interface DepositoRepository extends JpaRepository<Deposito, Long> {
+
+    /**
+     * Asigna la ciudad a varios depósitos en un solo UPDATE, solo a los que todavía no tienen una
+     * (no pisa una ciudad cargada a mano)
+     * @param ids IDs de los depósitos
+     * @param ciudad Ciudad a asignar
+     * @return cantidad de depósitos actualizados
+     */
+    @org.springframework.transaction.annotation.Transactional
+    @org.springframework.data.jpa.repository.Modifying
+    @org.springframework.data.jpa.repository.Query("update Deposito d set d.ciudad = :ciudad where d.id in :ids and d.ciudad is null")
+    int asignarCiudadSiFalta(@org.springframework.data.repository.query.Param("ids") java.util.Collection<Long> ids,
+                             @org.springframework.data.repository.query.Param("ciudad") com.backend.tpi.ms_gestion_calculos.models.Ciudad ciudad);
 }
@@ -0,0 +1,12 @@
+package com.backend.tpi.ms_gestion_calculos.repositories;
+
+import com.backend.tpi.ms_gestion_calculos.models.Geocodificacion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repositorio de geocodificaciones guardadas (persistencia de la caché de geocodificación)
+ */
+@Repository
+public interface GeocodificacionRepository extends JpaRepository<Geocodificacion, String> {
+}
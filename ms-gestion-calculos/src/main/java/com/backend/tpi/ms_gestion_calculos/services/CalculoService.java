@@ -26,6 +26,12 @@ public class CalculoService {
     
     @Autowired
     private RestClient rutasClient;
+
+    @Autowired
+    private RestClient nominatimClient;
+
+    @Autowired
+    private GeocodificacionCache geocodificacionCache;
     
     // Nota: ya no usamos búsqueda por depósitos en la geocodificación; eliminada.
     
@@ -89,15 +95,38 @@ public class CalculoService {
         }
     }
 
+    /**
+     * Nominatim no respondió (o respondió con error) y no hubo heurística aplicable: no se sabe si la
+     * dirección existe, a diferencia de un resultado null (Nominatim respondió sin resultados)
+     */
+    public static class GeocodificacionNoDisponibleException extends RuntimeException {
+        public GeocodificacionNoDisponibleException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
     /**
      * Método público expuesto a controladores para geocodificar una dirección de texto o coordenadas
      * @param direccion texto o coordenadas
-     * @return CoordenadaDTO o null si no se pudo geocodificar
+     * @return CoordenadaDTO o null si la dirección no se encontró
+     * @throws GeocodificacionNoDisponibleException si Nominatim falló y no se pudo resolver de otra forma
      */
     public CoordenadaDTO geocodificarPublic(String direccion) {
-        return geocodificar(direccion);
+        return resolverDireccion(direccion);
+    }
+
+    /**
+     * Geocodifica para uso interno (cálculo de distancias): un error de Nominatim se trata como sin resultado
+     * @param direccion texto o coordenadas
+     * @return Coordenadas encontradas, o null si no se pudo geocodificar
+     */
+    private CoordenadaDTO geocodificar(String direccion) {
+        try {
+            return resolverDireccion(direccion);
+        } catch (GeocodificacionNoDisponibleException e) {
+            return null;
+        }
     }
-    
 
     /**
      * Geocodifica una dirección a coordenadas lat/long
@@ -107,8 +136,9 @@ public class CalculoService {
      * @param direccion ID de depósito o coordenadas
      * @return Coordenadas encontradas, o null si no se encuentra
      * @throws IllegalArgumentException si el formato no es válido
+     * @throws GeocodificacionNoDisponibleException si Nominatim falló y la heurística no aplica
      */
-    private CoordenadaDTO geocodificar(String direccion) {
+    private CoordenadaDTO resolverDireccion(String direccion) {
         if (direccion == null || direccion.trim().isEmpty()) {
             logger.error("La dirección no puede ser null o vacía");
             throw new IllegalArgumentException("La dirección es obligatoria");
@@ -140,36 +170,15 @@ public class CalculoService {
         }
         
         // 2. Intentar geocodificación externa (Nominatim) COMO PRIMERA OPCIÓN
+        CoordenadaDTO externa = null;
+        RuntimeException errorExterno = null;
         try {
-            String q = java.net.URLEncoder.encode(direccion, java.nio.charset.StandardCharsets.UTF_8);
-            String url = "https://nominatim.openstreetmap.org/search?q=" + q + "&format=json&limit=1&addressdetails=0";
-            logger.debug("Intentando geocodificación externa (Nominatim) para: {}", direccion);
-
-            java.net.http.HttpClient http = java.net.http.HttpClient.newBuilder().build();
-            java.net.http.HttpRequest req = java.net.http.HttpRequest.newBuilder()
-                    .uri(java.net.URI.create(url))
-                    .header("User-Agent", "TPI-Backend-Geocoder/1.0 (contacto@dominio.example)")
-                    .GET()
-                    .build();
-            java.net.http.HttpResponse<String> resp = http.send(req, java.net.http.HttpResponse.BodyHandlers.ofString());
-            if (resp.statusCode() == 200) {
-                String body = resp.body();
-                java.util.regex.Pattern pLat = java.util.regex.Pattern.compile("\\\"lat\\\"\\s*:\\s*\\\"([0-9+\\-\\.]+)\\\"");
-                java.util.regex.Pattern pLon = java.util.regex.Pattern.compile("\\\"lon\\\"\\s*:\\s*\\\"([0-9+\\-\\.]+)\\\"");
-                java.util.regex.Matcher mLat = pLat.matcher(body);
-                java.util.regex.Matcher mLon = pLon.matcher(body);
-                if (mLat.find() && mLon.find()) {
-                    double lat = Double.parseDouble(mLat.group(1));
-                    double lon = Double.parseDouble(mLon.group(1));
-                    logger.info("Geocodificación externa exitosa para '{}': lat={}, lon={}", direccion, lat, lon);
-                    return new CoordenadaDTO(lat, lon);
-                }
-            } else {
-                logger.debug("Nominatim respondió con status {}", resp.statusCode());
-            }
-        } catch (Exception e) {
-            logger.debug("Error en geocodificación externa: {}", e.getMessage());
+            externa = geocodificarExterno(direccion);
+        } catch (RuntimeException e) {
+            logger.warn("Error en geocodificación externa para '{}': {}", direccion, e.getMessage());
+            errorExterno = e;
         }
+        if (externa != null) return externa;
 
         // 3. Si la geocodificación externa no devuelve resultado, aplicar SOLO
         // heurística por nombre de ciudad como fallback.
@@ -191,10 +200,64 @@ public class CalculoService {
             return new CoordenadaDTO(-32.8908, -68.8272);
         }
 
+        if (errorExterno != null) {
+            throw new GeocodificacionNoDisponibleException("Geocodificación externa no disponible para: " + direccion, errorExterno);
+        }
         logger.warn("No se pudo geocodificar la dirección de texto (sin resultados externos ni heurística de ciudad): {}", direccion);
         return null;
     }
     
+    /**
+     * Geocodifica una dirección de texto con Nominatim pasando por la caché de geocodificación
+     * Las direcciones ya consultadas (encontradas o no) se resuelven desde la caché sin llamar a Nominatim;
+     * los errores de red no se cachean y se propagan.
+     * @param direccion dirección de texto
+     * @return Coordenadas encontradas, o null si Nominatim no la encontró
+     * @throws RuntimeException si Nominatim no respondió o respondió con error
+     */
+    private CoordenadaDTO geocodificarExterno(String direccion) {
+        GeocodificacionCache.Resultado cacheado = geocodificacionCache.buscar(direccion);
+        if (cacheado != null) {
+            logger.debug("Geocodificación desde caché para '{}': {}", direccion,
+                    cacheado.encontrada() ? cacheado.coordenada() : "no encontrada");
+            return cacheado.coordenada();
+        }
+        logger.debug("Intentando geocodificación externa (Nominatim) para: {}", direccion);
+        CoordenadaDTO coordenada = consultarNominatim(direccion);
+        geocodificacionCache.guardar(direccion, coordenada);
+        if (coordenada != null) {
+            logger.info("Geocodificación externa exitosa para '{}': lat={}, lon={}", direccion,
+                    coordenada.getLatitud(), coordenada.getLongitud());
+        }
+        return coordenada;
+    }
+
+    /**
+     * Consulta Nominatim /search y toma el primer resultado
+     * @param direccion dirección de texto
+     * @return Coordenadas del primer resultado, o null si no hubo resultados
+     * @throws org.springframework.web.client.RestClientException si Nominatim falla o responde con error
+     */
+    private CoordenadaDTO consultarNominatim(String direccion) {
+        // Cliente compartido: timeouts y límite de llamadas simultáneas a Nominatim
+        com.fasterxml.jackson.databind.JsonNode resultados = nominatimClient.get()
+                .uri(b -> b.path("/search")
+                        .queryParam("q", direccion)
+                        .queryParam("format", "json")
+                        .queryParam("limit", 1)
+                        .queryParam("addressdetails", 0)
+                        .build())
+                .retrieve()
+                .body(com.fasterxml.jackson.databind.JsonNode.class);
+        if (resultados == null || !resultados.isArray() || resultados.isEmpty()) return null;
+        com.fasterxml.jackson.databind.JsonNode primero = resultados.get(0);
+        // Nominatim devuelve lat/lon como texto
+        String lat = primero.path("lat").asText(null);
+        String lon = primero.path("lon").asText(null);
+        if (lat == null || lon == null) return null;
+        return new CoordenadaDTO(Double.parseDouble(lat), Double.parseDouble(lon));
+    }
+
     // Nota: ya no soportamos IDs de depósito como entrada directa para geocodificación
     // (la lógica que buscaba por ID fue retirada en favor de búsqueda por dirección/texto).
 
@@ -0,0 +1,114 @@
+package com.backend.tpi.ms_gestion_calculos.services;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cola asíncrona de geocodificación inversa (coordenadas -> ciudad) contra Nominatim
+ * Las consultas se resuelven de a una en un hilo propio, así ningún hilo de Tomcat queda esperando a Nominatim;
+ * la tasa de 1 request/segundo la impone el límite de tasa del cliente HTTP "nominatim" (compartido por todo el
+ * proceso). Pedidos para las mismas coordenadas mientras una consulta está pendiente reciben el mismo resultado
+ * (una sola llamada).
+ */
+@Component
+@Slf4j
+public class ColaGeocodificacionInversa {
+
+    // Decimales de las coordenadas que se consideran "las mismas" (5 decimales ~ 1 metro)
+    private static final int DECIMALES_CLAVE = 5;
+
+    @Autowired
+    private NominatimService nominatimService;
+
+    private final ThreadPoolExecutor worker;
+    private final Map<String, CompletableFuture<NominatimService.UbicacionDTO>> enCurso = new ConcurrentHashMap<>();
+
+    private final AtomicLong encoladas = new AtomicLong();
+    private final AtomicLong deduplicadas = new AtomicLong();
+    private final AtomicLong rechazadas = new AtomicLong();
+    private final AtomicLong fallidas = new AtomicLong();
+
+    public ColaGeocodificacionInversa(@Value("${app.nominatim.cola.capacidad:1000}") int capacidad) {
+        this.worker = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, capacidad)), r -> {
+                    Thread t = new Thread(r, "geocodificacion-inversa");
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    /**
+     * Encola la geocodificación inversa de unas coordenadas
+     * @return futuro con la ubicación (null si Nominatim no la resolvió); falla si la cola está llena
+     */
+    public CompletableFuture<NominatimService.UbicacionDTO> resolver(BigDecimal latitud, BigDecimal longitud) {
+        String clave = clave(latitud, longitud);
+        CompletableFuture<NominatimService.UbicacionDTO> nuevo = new CompletableFuture<>();
+        CompletableFuture<NominatimService.UbicacionDTO> existente = enCurso.putIfAbsent(clave, nuevo);
+        if (existente != null) {
+            deduplicadas.incrementAndGet();
+            log.debug("Geocodificación inversa ya pendiente para {}, se reutiliza", clave);
+            return existente;
+        }
+        try {
+            worker.execute(() -> {
+                try {
+                    NominatimService.UbicacionDTO ubicacion = nominatimService.obtenerUbicacion(latitud, longitud);
+                    if (ubicacion == null) fallidas.incrementAndGet();
+                    nuevo.complete(ubicacion);
+                } catch (Throwable t) {
+                    fallidas.incrementAndGet();
+                    nuevo.completeExceptionally(t);
+                } finally {
+                    enCurso.remove(clave, nuevo);
+                }
+            });
+            encoladas.incrementAndGet();
+        } catch (RejectedExecutionException e) {
+            rechazadas.incrementAndGet();
+            enCurso.remove(clave, nuevo);
+            log.warn("Cola de geocodificación inversa llena ({} pendientes); se descarta {}", worker.getQueue().size(), clave);
+            nuevo.completeExceptionally(e);
+        }
+        return nuevo;
+    }
+
+    /**
+     * Devuelve las métricas de la cola
+     */
+    public Map<String, Object> estadisticas() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pendientes", worker.getQueue().size());
+        stats.put("enCurso", enCurso.size());
+        stats.put("encoladas", encoladas.get());
+        stats.put("deduplicadas", deduplicadas.get());
+        stats.put("rechazadas", rechazadas.get());
+        stats.put("fallidas", fallidas.get());
+        return stats;
+    }
+
+    @PreDestroy
+    public void detener() {
+        worker.shutdownNow();
+    }
+
+    private static String clave(BigDecimal latitud, BigDecimal longitud) {
+        return latitud.setScale(DECIMALES_CLAVE, RoundingMode.HALF_UP).toPlainString() + ","
+                + longitud.setScale(DECIMALES_CLAVE, RoundingMode.HALF_UP).toPlainString();
+    }
+}
@@ -29,7 +29,43 @@ public class DepositoService {
     private CiudadRepository ciudadRepository;
 
     @Autowired
-    private NominatimService nominatimService;
+    private ColaGeocodificacionInversa colaGeocodificacionInversa;
+
+    @Autowired
+    private GeocodificadorInversoLocal geocodificadorInversoLocal;
+
+    @Autowired
+    private org.springframework.jdbc.core.JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private com.fasterxml.jackson.databind.ObjectMapper objectMapper;
+
+    // Nominatim para las coordenadas que el índice local de localidades no resuelve; con false (sin red) solo el índice
+    @org.springframework.beans.factory.annotation.Value("${app.geocodificacion.inversa.nominatim-respaldo:true}")
+    private boolean nominatimRespaldo;
+
+    // Filas por lote de INSERT en la importación masiva
+    @org.springframework.beans.factory.annotation.Value("${app.depositos.importacion.tamano-lote:500}")
+    private int tamanoLoteImportacion;
+
+    // Decimales de la grilla con que se agrupan coordenadas al geocodificar en la importación (2 decimales ~ 1 km)
+    @org.springframework.beans.factory.annotation.Value("${app.depositos.importacion.precision-decimales:2}")
+    private int precisionGrilla;
+
+    /**
+     * Punto de la grilla de geocodificación: los depósitos que caen en la misma celda comparten la búsqueda
+     */
+    private record Celda(BigDecimal latitud, BigDecimal longitud) {
+    }
+
+    private static final String SQL_INSERTAR_DEPOSITO = "INSERT INTO depositos "
+            + "(id_deposito, nombre, direccion, latitud, longitud, id_ciudad, costo_estadia_diario) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    // Versión del catálogo de depósitos: cambia con cada alta/modificación para que los
+    // consumidores con copia local (ms-rutas-transportistas) sepan cuándo volver a descargarlo.
+    // Se inicializa con la hora de arranque para que un reinicio también invalide las copias.
+    private final java.util.concurrent.atomic.AtomicLong versionCatalogo =
+            new java.util.concurrent.atomic.AtomicLong(System.currentTimeMillis());
 
     /**
      * Obtiene todos los depósitos del sistema
@@ -48,6 +84,9 @@ public class DepositoService {
      * Crea un nuevo depósito
      * Automáticamente detecta y asigna la ciudad usando geocodificación inversa si no se proporciona
      * Prioridad: nombreCiudad > idCiudad > geocodificación automática
+     * La geocodificación automática usa el índice local de localidades (sin red, en el momento). Si el punto no
+     * está cerca de ninguna localidad conocida y el respaldo está habilitado se consulta a Nominatim en forma
+     * asíncrona: el depósito se crea sin ciudad (el DTO devuelto no la trae) y se asigna cuando Nominatim responde.
      * @param dto Datos del depósito a crear
      * @return DTO del depósito creado
      */
@@ -69,30 +108,271 @@ public class DepositoService {
                 .orElseThrow(() -> new RuntimeException("Ciudad no encontrada con id: " + dto.getIdCiudad()));
             logger.info("Ciudad asignada por ID: {} (ID: {})", ciudad.getNombre(), ciudad.getId());
         }
-        // Prioridad 3: Si hay coordenadas, intentar geocodificación inversa
-        else if (dto.getLatitud() != null && dto.getLongitud() != null) {
-            logger.info("Intentando geocodificación automática para coordenadas lat={}, lon={}", 
-                dto.getLatitud(), dto.getLongitud());
-            ciudad = obtenerOCrearCiudadPorCoordenadas(
-                BigDecimal.valueOf(dto.getLatitud()), 
-                BigDecimal.valueOf(dto.getLongitud())
-            );
-            
+        // Prioridad 3: Si hay coordenadas, geocodificación inversa local; si no la resuelve, Nominatim en segundo plano
+        boolean geocodificar = false;
+        if (ciudad == null && deposito.getLatitud() != null && deposito.getLongitud() != null) {
+            ciudad = obtenerCiudadLocal(deposito.getLatitud(), deposito.getLongitud());
             if (ciudad != null) {
-                logger.info("Ciudad asignada automáticamente: {} (ID: {})", ciudad.getNombre(), ciudad.getId());
+                logger.info("Ciudad asignada por geocodificación local: {} (ID: {})", ciudad.getNombre(), ciudad.getId());
             } else {
-                logger.warn("No se pudo determinar la ciudad automáticamente. El depósito se creará sin ciudad asignada.");
+                geocodificar = nominatimRespaldo;
             }
         }
         
         deposito.setCiudad(ciudad);
         Deposito saved = depositoRepository.save(deposito);
+        cambioCatalogo();
         logger.info("Depósito creado exitosamente con ID: {} {}", 
             saved.getId(), 
-            ciudad != null ? "(Ciudad: " + ciudad.getNombre() + ")" : "(sin ciudad)");
+            ciudad != null ? "(Ciudad: " + ciudad.getNombre() + ")" : geocodificar ? "(ciudad pendiente de geocodificación)" : "(sin ciudad)");
+        if (geocodificar) {
+            asignarCiudadesPorCoordenadas(java.util.Map.of(
+                    new Celda(deposito.getLatitud(), deposito.getLongitud()), List.of(saved.getId())));
+        }
         return toDto(saved);
     }
 
+    /**
+     * Importa depósitos desde un archivo CSV (ver {@link LectorDepositos} para el formato)
+     * @param entrada Contenido del archivo en UTF-8
+     * @return Resumen de la importación
+     */
+    @org.springframework.transaction.annotation.Transactional
+    public java.util.Map<String, Object> importarCsv(java.io.InputStream entrada) throws java.io.IOException {
+        return importar(LectorDepositos.leerCsv(lector(entrada)));
+    }
+
+    /**
+     * Importa depósitos desde un archivo NDJSON (un DepositoDTO por línea)
+     * @param entrada Contenido del archivo en UTF-8
+     * @return Resumen de la importación
+     */
+    @org.springframework.transaction.annotation.Transactional
+    public java.util.Map<String, Object> importarNdjson(java.io.InputStream entrada) throws java.io.IOException {
+        return importar(LectorDepositos.leerNdjson(lector(entrada), objectMapper));
+    }
+
+    private static java.io.BufferedReader lector(java.io.InputStream entrada) {
+        return new java.io.BufferedReader(new java.io.InputStreamReader(entrada, java.nio.charset.StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Importación masiva de depósitos
+     * A diferencia de {@link #save}, que hace varias consultas por depósito, acá el costo no depende de la
+     * cantidad de filas sino de la cantidad de ciudades y zonas distintas:
+     * 1. Se determina el nombre de ciudad de cada fila: nombreCiudad o, por coordenadas, el índice local de
+     *    localidades una vez por celda de la grilla ({@code precision-decimales}), no una vez por fila
+     * 2. Las ciudades se buscan todas juntas (una consulta por nombres y otra por IDs) y se crean las que faltan
+     * 3. Los IDs se reservan de la secuencia con una sola consulta y los depósitos se insertan por lotes JDBC
+     *    (con reWriteBatchedInserts el driver los envía como INSERTs de varias filas), ya con su ciudad
+     * 4. Las celdas que el índice no resolvió se encolan para Nominatim al confirmar (si está habilitado): una
+     *    consulta por celda y un solo UPDATE para todos los depósitos de la celda
+     * Las filas inválidas (sin nombre, coordenadas incompletas, idCiudad inexistente) se informan y se omiten.
+     * @param lectura Filas leídas del archivo
+     * @return Resumen: recibidas, importadas, conCiudad, geocodificacionPendiente, consultasNominatim, ids, errores y duracionMs
+     */
+    private java.util.Map<String, Object> importar(LectorDepositos.Lectura lectura) {
+        long inicio = System.currentTimeMillis();
+        List<LectorDepositos.ErrorLinea> errores = new java.util.ArrayList<>(lectura.errores());
+        List<LectorDepositos.Fila> validas = new java.util.ArrayList<>();
+        for (LectorDepositos.Fila fila : lectura.filas()) {
+            DepositoDTO dto = fila.deposito();
+            if (dto.getNombre() == null || dto.getNombre().isBlank()) {
+                errores.add(new LectorDepositos.ErrorLinea(fila.linea(), "El nombre es obligatorio"));
+            } else if ((dto.getLatitud() == null) != (dto.getLongitud() == null)) {
+                errores.add(new LectorDepositos.ErrorLinea(fila.linea(), "Latitud y longitud deben informarse juntas"));
+            } else {
+                validas.add(fila);
+            }
+        }
+
+        // 1. Nombre de ciudad de cada fila (estandarizado), por nombre explícito o por geocodificación local
+        //    (una búsqueda por celda de la grilla; las filas de una misma zona reutilizan el resultado)
+        String[] nombresCiudad = new String[validas.size()];
+        java.util.Set<Long> idsCiudad = new java.util.HashSet<>();
+        java.util.Map<Celda, String> ciudadPorCelda = new java.util.HashMap<>();
+        for (int i = 0; i < validas.size(); i++) {
+            DepositoDTO dto = validas.get(i).deposito();
+            if (dto.getNombreCiudad() != null && !dto.getNombreCiudad().isBlank()) {
+                nombresCiudad[i] = estandarizarNombreCiudad(dto.getNombreCiudad());
+            } else if (dto.getIdCiudad() != null) {
+                idsCiudad.add(dto.getIdCiudad());
+            } else if (dto.getLatitud() != null) {
+                Celda celda = celda(BigDecimal.valueOf(dto.getLatitud()), BigDecimal.valueOf(dto.getLongitud()));
+                if (!ciudadPorCelda.containsKey(celda)) {
+                    String local = geocodificadorInversoLocal.buscarCiudad(celda.latitud(), celda.longitud());
+                    ciudadPorCelda.put(celda, local != null ? estandarizarNombreCiudad(local) : null);
+                }
+                nombresCiudad[i] = ciudadPorCelda.get(celda);
+            }
+        }
+
+        // 2. Ciudades en bloque
+        java.util.Map<String, Ciudad> ciudadesPorNombre = obtenerOCrearCiudadesPorNombre(java.util.Arrays.stream(nombresCiudad)
+                .filter(java.util.Objects::nonNull).collect(java.util.stream.Collectors.toSet()));
+        java.util.Map<Long, Ciudad> ciudadesPorId = new java.util.HashMap<>();
+        if (!idsCiudad.isEmpty()) {
+            ciudadRepository.findAllById(idsCiudad).forEach(c -> ciudadesPorId.put(c.getId(), c));
+        }
+
+        // 3. Depósitos a insertar
+        List<Deposito> depositos = new java.util.ArrayList<>(validas.size());
+        for (int i = 0; i < validas.size(); i++) {
+            DepositoDTO dto = validas.get(i).deposito();
+            Ciudad ciudad = null;
+            if (nombresCiudad[i] != null) {
+                ciudad = ciudadesPorNombre.get(nombresCiudad[i].toLowerCase());
+            } else if (dto.getIdCiudad() != null) {
+                ciudad = ciudadesPorId.get(dto.getIdCiudad());
+                if (ciudad == null) {
+                    errores.add(new LectorDepositos.ErrorLinea(validas.get(i).linea(), "Ciudad no encontrada con id: " + dto.getIdCiudad()));
+                    continue;
+                }
+            }
+            Deposito deposito = toEntity(dto);
+            deposito.setId(null);
+            deposito.setCiudad(ciudad);
+            depositos.add(deposito);
+        }
+        insertarEnLotes(depositos);
+
+        // 4. Nominatim para las celdas que quedaron sin ciudad (una consulta por celda)
+        List<Long> ids = new java.util.ArrayList<>(depositos.size());
+        java.util.Map<Celda, List<Long>> sinCiudad = new java.util.LinkedHashMap<>();
+        int conCiudad = 0;
+        int pendientes = 0;
+        for (Deposito d : depositos) {
+            ids.add(d.getId());
+            boolean conCoordenadas = d.getLatitud() != null && d.getLongitud() != null;
+            if (d.getCiudad() != null) {
+                conCiudad++;
+            } else if (conCoordenadas && nominatimRespaldo) {
+                pendientes++;
+                sinCiudad.computeIfAbsent(celda(d.getLatitud(), d.getLongitud()), c -> new java.util.ArrayList<>()).add(d.getId());
+            }
+        }
+        asignarCiudadesPorCoordenadas(sinCiudad);
+        if (!depositos.isEmpty()) cambioCatalogo();
+
+        errores.sort(java.util.Comparator.comparingInt(LectorDepositos.ErrorLinea::linea));
+        long duracion = System.currentTimeMillis() - inicio;
+        logger.info("Importación de depósitos: {} importados ({} con ciudad, {} pendientes de Nominatim en {} consultas), {} errores, en {} ms",
+                depositos.size(), conCiudad, pendientes, sinCiudad.size(), errores.size(), duracion);
+
+        java.util.Map<String, Object> resumen = new java.util.LinkedHashMap<>();
+        resumen.put("recibidas", lectura.filas().size() + lectura.errores().size());
+        resumen.put("importadas", depositos.size());
+        resumen.put("conCiudad", conCiudad);
+        resumen.put("geocodificacionPendiente", pendientes);
+        resumen.put("consultasNominatim", sinCiudad.size());
+        resumen.put("ids", ids);
+        resumen.put("errores", errores);
+        resumen.put("duracionMs", duracion);
+        return resumen;
+    }
+
+    /**
+     * Busca varias ciudades por nombre (ya estandarizado) en una consulta y crea las que faltan
+     * @param nombres Nombres de las ciudades
+     * @return Ciudades por nombre en minúsculas
+     */
+    private java.util.Map<String, Ciudad> obtenerOCrearCiudadesPorNombre(java.util.Set<String> nombres) {
+        java.util.Map<String, Ciudad> porNombre = new java.util.HashMap<>();
+        if (nombres.isEmpty()) return porNombre;
+        java.util.Map<String, String> pedidos = new java.util.HashMap<>();
+        for (String nombre : nombres) pedidos.putIfAbsent(nombre.toLowerCase(), nombre);
+        for (Ciudad c : ciudadRepository.findByNombresEnMinusculas(pedidos.keySet())) {
+            porNombre.putIfAbsent(c.getNombre().toLowerCase(), c);
+        }
+        List<Ciudad> nuevas = new java.util.ArrayList<>();
+        pedidos.forEach((clave, nombre) -> {
+            if (!porNombre.containsKey(clave)) {
+                Ciudad ciudad = new Ciudad();
+                ciudad.setNombre(nombre);
+                nuevas.add(ciudad);
+            }
+        });
+        if (!nuevas.isEmpty()) {
+            for (Ciudad c : ciudadRepository.saveAll(nuevas)) porNombre.put(c.getNombre().toLowerCase(), c);
+            logger.info("Importación: {} ciudades nuevas creadas", nuevas.size());
+        }
+        return porNombre;
+    }
+
+    /**
+     * Inserta depósitos con lotes JDBC, reservando antes sus IDs con una sola consulta a la secuencia
+     * @param depositos Depósitos sin ID (se les asigna el reservado)
+     */
+    private void insertarEnLotes(List<Deposito> depositos) {
+        if (depositos.isEmpty()) return;
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT nextval(pg_get_serial_sequence('depositos', 'id_deposito')) FROM generate_series(1, ?)",
+                Long.class, depositos.size());
+        for (int i = 0; i < depositos.size(); i++) depositos.get(i).setId(ids.get(i));
+        jdbcTemplate.batchUpdate(SQL_INSERTAR_DEPOSITO, depositos, Math.max(1, tamanoLoteImportacion), (ps, d) -> {
+            ps.setLong(1, d.getId());
+            ps.setString(2, d.getNombre());
+            ps.setString(3, d.getDireccion());
+            ps.setBigDecimal(4, d.getLatitud());
+            ps.setBigDecimal(5, d.getLongitud());
+            if (d.getCiudad() != null) ps.setLong(6, d.getCiudad().getId());
+            else ps.setNull(6, java.sql.Types.BIGINT);
+            ps.setBigDecimal(7, d.getCostoEstadiaDiario());
+        });
+    }
+
+    /**
+     * Celda de la grilla de importación que contiene unas coordenadas
+     */
+    private Celda celda(BigDecimal latitud, BigDecimal longitud) {
+        return new Celda(latitud.setScale(precisionGrilla, java.math.RoundingMode.HALF_UP),
+                longitud.setScale(precisionGrilla, java.math.RoundingMode.HALF_UP));
+    }
+
+    /**
+     * Encola en Nominatim la geocodificación inversa de depósitos que el índice local no resolvió y les asigna la
+     * ciudad cuando se resuelve: una consulta por punto y un solo UPDATE para todos los depósitos del punto.
+     * Si hay una transacción activa se encola al confirmarse, así los depósitos ya son visibles al asignar.
+     * @param pendientes IDs de depósitos por punto a geocodificar
+     */
+    private void asignarCiudadesPorCoordenadas(java.util.Map<Celda, List<Long>> pendientes) {
+        if (pendientes.isEmpty()) return;
+        Runnable encolar = () -> pendientes.forEach((celda, depositoIds) ->
+                obtenerOCrearCiudadPorCoordenadas(celda.latitud(), celda.longitud())
+                        .thenAccept(ciudad -> {
+                            if (ciudad == null) {
+                                logger.warn("No se pudo determinar la ciudad de {} depósito(s) en lat={}, lon={}; quedan sin ciudad",
+                                        depositoIds.size(), celda.latitud(), celda.longitud());
+                                return;
+                            }
+                            int asignados = depositoRepository.asignarCiudadSiFalta(depositoIds, ciudad);
+                            if (asignados > 0) {
+                                cambioCatalogo();
+                                logger.info("Ciudad asignada automáticamente a {} depósito(s) en lat={}, lon={}: {} (ID: {})",
+                                        asignados, celda.latitud(), celda.longitud(), ciudad.getNombre(), ciudad.getId());
+                            }
+                        })
+                        .exceptionally(e -> {
+                            logger.warn("Error al asignar ciudad a {} depósito(s) en lat={}, lon={}: {}",
+                                    depositoIds.size(), celda.latitud(), celda.longitud(), e.getMessage());
+                            return null;
+                        }));
+        if (org.springframework.transaction.support.TransactionSynchronizationManager.isSynchronizationActive()) {
+            org.springframework.transaction.support.TransactionSynchronizationManager.registerSynchronization(
+                    new org.springframework.transaction.support.TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            // Fuera del hilo de la transacción terminada: si un resultado ya está disponible (o la
+                            // cola lo rechaza) el futuro se completa en este hilo, y sus escrituras no deben unirse
+                            // a esa transacción (ya confirmada). Una sola tarea para todos los puntos.
+                            java.util.concurrent.CompletableFuture.runAsync(encolar);
+                        }
+                    });
+        } else {
+            encolar.run();
+        }
+    }
+
     /**
      * Estandariza el nombre de una ciudad para evitar duplicados
      * - Elimina espacios al inicio y final
@@ -147,17 +427,42 @@ public class DepositoService {
     }
 
     /**
-     * Obtiene o crea una ciudad usando geocodificación inversa
-     * Este método es tolerante a fallos - retorna null si no puede obtener la ciudad
+     * Obtiene o crea la ciudad más cercana según el índice local de localidades (sin llamar a Nominatim)
+     * @param latitud Latitud del depósito
+     * @param longitud Longitud del depósito
+     * @return Ciudad encontrada o creada, null si no hay una localidad conocida cerca
+     */
+    private Ciudad obtenerCiudadLocal(BigDecimal latitud, BigDecimal longitud) {
+        String nombreCiudad = geocodificadorInversoLocal.buscarCiudad(latitud, longitud);
+        return nombreCiudad != null ? obtenerOCrearCiudadPorNombre(estandarizarNombreCiudad(nombreCiudad)) : null;
+    }
+
+    /**
+     * Obtiene o crea una ciudad usando geocodificación inversa con Nominatim (asíncrono, vía la cola)
+     * Solo para coordenadas que el índice local no resolvió.
+     * Este método es tolerante a fallos - el resultado es null si no puede obtener la ciudad
      * @param latitud Latitud del depósito
      * @param longitud Longitud del depósito
-     * @return Ciudad encontrada o creada, null si no se pudo determinar
+     * @return Futuro con la ciudad encontrada o creada, null si no se pudo determinar
+     */
+    private java.util.concurrent.CompletableFuture<Ciudad> obtenerOCrearCiudadPorCoordenadas(BigDecimal latitud, BigDecimal longitud) {
+        return colaGeocodificacionInversa.resolver(latitud, longitud)
+                .handle((ubicacion, error) -> {
+                    if (error != null) {
+                        logger.error("Error al obtener ciudad para coordenadas lat={}, lon={}: {}", latitud, longitud, error.getMessage());
+                        return null;
+                    }
+                    return obtenerOCrearCiudadPorUbicacion(ubicacion);
+                });
+    }
+
+    /**
+     * Obtiene o crea la ciudad de una ubicación devuelta por Nominatim
+     * @param ubicacion Ubicación resuelta (puede ser null)
+     * @return Ciudad encontrada o creada, null si la ubicación no trae ciudad
      */
-    private Ciudad obtenerOCrearCiudadPorCoordenadas(BigDecimal latitud, BigDecimal longitud) {
+    private Ciudad obtenerOCrearCiudadPorUbicacion(NominatimService.UbicacionDTO ubicacion) {
         try {
-            // Consultar servicio de geocodificación
-            NominatimService.UbicacionDTO ubicacion = nominatimService.obtenerUbicacion(latitud, longitud);
-            
             if (ubicacion == null || ubicacion.getCiudad() == null || ubicacion.getCiudad().isEmpty()) {
                 logger.warn("No se obtuvo información de ciudad desde Nominatim");
                 return null;
@@ -180,7 +485,7 @@ public class DepositoService {
                 });
                 
         } catch (Exception e) {
-            logger.error("Error al obtener/crear ciudad para coordenadas lat={}, lon={}", latitud, longitud, e);
+            logger.error("Error al obtener/crear ciudad para ubicación {}", ubicacion.getDireccionCompleta(), e);
             return null;
         }
     }
@@ -202,6 +507,60 @@ public class DepositoService {
         return toDto(deposito);
     }
 
+    /**
+     * Obtiene la versión actual del catálogo de depósitos
+     * @return Versión que cambia ante cualquier alta o modificación de depósitos
+     */
+    public long getVersionCatalogo() {
+        return versionCatalogo.get();
+    }
+
+    /**
+     * Cambia la versión del catálogo de depósitos
+     * Dentro de una transacción (importación) se cambia al confirmarse: si se cambiara antes, un consumidor
+     * podría descargar el catálogo sin los depósitos nuevos y quedarse con esa copia bajo la versión nueva.
+     */
+    private void cambioCatalogo() {
+        if (org.springframework.transaction.support.TransactionSynchronizationManager.isSynchronizationActive()) {
+            org.springframework.transaction.support.TransactionSynchronizationManager.registerSynchronization(
+                    new org.springframework.transaction.support.TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            versionCatalogo.incrementAndGet();
+                        }
+                    });
+        } else {
+            versionCatalogo.incrementAndGet();
+        }
+    }
+
+    /**
+     * Obtiene las coordenadas de varios depósitos en una sola consulta
+     * Los depósitos inexistentes o sin coordenadas se omiten del resultado
+     * @param ids IDs de los depósitos
+     * @return Lista de mapas con depositoId, nombre, latitud, longitud y costoEstadiaDiario
+     */
+    public List<java.util.Map<String, Object>> findCoordenadasByIds(List<Long> ids) {
+        logger.info("Buscando coordenadas de {} depósitos", ids != null ? ids.size() : 0);
+        if (ids == null || ids.isEmpty()) return List.of();
+        List<java.util.Map<String, Object>> resultado = new java.util.ArrayList<>();
+        for (Deposito deposito : depositoRepository.findAllById(ids)) {
+            if (deposito.getLatitud() == null || deposito.getLongitud() == null) {
+                logger.warn("Depósito {} sin coordenadas, se omite", deposito.getId());
+                continue;
+            }
+            java.util.Map<String, Object> coordenadas = new java.util.HashMap<>();
+            coordenadas.put("depositoId", deposito.getId());
+            coordenadas.put("nombre", deposito.getNombre());
+            coordenadas.put("latitud", deposito.getLatitud().doubleValue());
+            coordenadas.put("longitud", deposito.getLongitud().doubleValue());
+            coordenadas.put("costoEstadiaDiario", deposito.getCostoEstadiaDiario() != null ? deposito.getCostoEstadiaDiario().doubleValue() : null);
+            resultado.add(coordenadas);
+        }
+        logger.debug("Coordenadas obtenidas: {} de {} depósitos solicitados", resultado.size(), ids.size());
+        return resultado;
+    }
+
     /**
      * Actualiza un depósito existente
      * @param id ID del depósito a actualizar
@@ -251,6 +610,7 @@ public class DepositoService {
         }
         
         Deposito saved = depositoRepository.save(deposito);
+        cambioCatalogo();
         logger.info("Depósito actualizado exitosamente: ID={}, nombre={}", saved.getId(), saved.getNombre());
         return toDto(saved);
     }
@@ -0,0 +1,194 @@
+package com.backend.tpi.ms_gestion_calculos.services;
+
+import com.backend.tpi.ms_gestion_calculos.dtos.CoordenadaDTO;
+import com.backend.tpi.ms_gestion_calculos.models.Geocodificacion;
+import com.backend.tpi.ms_gestion_calculos.repositories.GeocodificacionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Caché de geocodificaciones externas (Nominatim): LRU en memoria respaldada por la tabla geocodificaciones
+ * La clave es la dirección normalizada (minúsculas, sin acentos ni puntuación, espacios simples), así
+ * "Av. Colón 1234, Córdoba" y "av colon 1234 , CORDOBA" comparten la entrada.
+ * Se guardan también las direcciones que Nominatim no encontró (caché negativa, con vencimiento más corto);
+ * los errores de red no se guardan. Una dirección repetida se resuelve en memoria; al reiniciar, desde la tabla.
+ */
+@Component
+@Slf4j
+public class GeocodificacionCache {
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern NO_ALFANUMERICO = Pattern.compile("[^a-z0-9,]+");
+    private static final Pattern COMAS = Pattern.compile("\\s*,[\\s,]*");
+    private static final int LARGO_MAXIMO_CLAVE = 512;
+
+    /**
+     * Resultado cacheado: coordenada null indica que la dirección no se encontró
+     */
+    public record Resultado(CoordenadaDTO coordenada) {
+        public boolean encontrada() {
+            return coordenada != null;
+        }
+    }
+
+    @Autowired
+    private GeocodificacionRepository geocodificacionRepository;
+
+    private final int maxEntradas;
+    private final long ttlPositivoMillis;
+    private final long ttlNegativoMillis;
+
+    // accessOrder=true: el primer elemento es siempre el menos usado recientemente
+    private final LinkedHashMap<String, Entrada> entradas = new LinkedHashMap<>(256, 0.75f, true);
+
+    private final AtomicLong hitsMemoria = new AtomicLong();
+    private final AtomicLong hitsTabla = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong negativas = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public GeocodificacionCache(
+            @Value("${app.geocodificacion.cache.max-entradas:10000}") int maxEntradas,
+            @Value("${app.geocodificacion.cache.ttl-positivo-horas:4320}") long ttlPositivoHoras,
+            @Value("${app.geocodificacion.cache.ttl-negativo-horas:24}") long ttlNegativoHoras) {
+        this.maxEntradas = Math.max(1, maxEntradas);
+        this.ttlPositivoMillis = ttlPositivoHoras * 3_600_000L;
+        this.ttlNegativoMillis = ttlNegativoHoras * 3_600_000L;
+    }
+
+    /**
+     * Normaliza una dirección para usarla como clave
+     * @param direccion dirección de texto
+     * @return forma normalizada (vacía si no tiene letras ni números)
+     */
+    public static String normalizar(String direccion) {
+        if (direccion == null) return "";
+        String s = MARCAS.matcher(Normalizer.normalize(direccion, Normalizer.Form.NFD)).replaceAll("");
+        s = NO_ALFANUMERICO.matcher(s.toLowerCase(Locale.ROOT)).replaceAll(" ");
+        s = COMAS.matcher(s).replaceAll(",").trim();
+        while (s.startsWith(",")) s = s.substring(1).trim();
+        while (s.endsWith(",")) s = s.substring(0, s.length() - 1).trim();
+        return s;
+    }
+
+    /**
+     * Busca una dirección en memoria y, si no está, en la tabla
+     * @param direccion dirección de texto (se normaliza)
+     * @return resultado cacheado (que puede indicar "no encontrada"), o null si hay que consultar a Nominatim
+     */
+    public Resultado buscar(String direccion) {
+        String clave = normalizar(direccion);
+        if (clave.isEmpty()) return null;
+        long ahora = System.currentTimeMillis();
+        synchronized (entradas) {
+            Entrada entrada = entradas.get(clave);
+            if (entrada != null) {
+                if (entrada.venceEn >= ahora) {
+                    hitsMemoria.incrementAndGet();
+                    return entrada.resultado;
+                }
+                entradas.remove(clave);
+            }
+        }
+        Geocodificacion guardada = leerTabla(clave);
+        if (guardada != null) {
+            Resultado resultado = aResultado(guardada);
+            long venceEn = guardada.getFechaConsulta().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                    + (resultado.encontrada() ? ttlPositivoMillis : ttlNegativoMillis);
+            if (venceEn >= ahora) {
+                hitsTabla.incrementAndGet();
+                recordar(clave, resultado, venceEn);
+                return resultado;
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Guarda el resultado de una consulta a Nominatim en memoria y en la tabla
+     * @param direccion dirección consultada
+     * @param coordenada coordenadas encontradas, o null si Nominatim no encontró la dirección
+     */
+    public void guardar(String direccion, CoordenadaDTO coordenada) {
+        String clave = normalizar(direccion);
+        if (clave.isEmpty()) return;
+        Resultado resultado = new Resultado(coordenada);
+        if (!resultado.encontrada()) negativas.incrementAndGet();
+        recordar(clave, resultado, System.currentTimeMillis() + (resultado.encontrada() ? ttlPositivoMillis : ttlNegativoMillis));
+        if (clave.length() > LARGO_MAXIMO_CLAVE) return;
+        try {
+            Geocodificacion fila = new Geocodificacion();
+            fila.setDireccionNormalizada(clave);
+            fila.setLatitud(coordenada != null ? coordenada.getLatitud() : null);
+            fila.setLongitud(coordenada != null ? coordenada.getLongitud() : null);
+            fila.setFechaConsulta(LocalDateTime.now());
+            geocodificacionRepository.save(fila);
+        } catch (Exception e) {
+            // La tabla es solo respaldo: si falla, la entrada queda en memoria
+            log.warn("No se pudo guardar la geocodificación de '{}': {}", clave, e.getMessage());
+        }
+    }
+
+    /**
+     * Devuelve las métricas de uso de la caché
+     */
+    public Map<String, Object> estadisticas() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (entradas) {
+            stats.put("entradas", entradas.size());
+        }
+        long hm = hitsMemoria.get();
+        long ht = hitsTabla.get();
+        long m = misses.get();
+        stats.put("maxEntradas", maxEntradas);
+        stats.put("hitsMemoria", hm);
+        stats.put("hitsTabla", ht);
+        stats.put("misses", m);
+        stats.put("hitRatio", hm + ht + m == 0 ? 0.0 : Math.round((double) (hm + ht) / (hm + ht + m) * 10000.0) / 10000.0);
+        stats.put("negativasGuardadas", negativas.get());
+        stats.put("evictions", evictions.get());
+        return stats;
+    }
+
+    private Geocodificacion leerTabla(String clave) {
+        if (clave.length() > LARGO_MAXIMO_CLAVE) return null;
+        try {
+            return geocodificacionRepository.findById(clave).orElse(null);
+        } catch (Exception e) {
+            log.warn("No se pudo leer la geocodificación guardada de '{}': {}", clave, e.getMessage());
+            return null;
+        }
+    }
+
+    private void recordar(String clave, Resultado resultado, long venceEn) {
+        synchronized (entradas) {
+            entradas.put(clave, new Entrada(resultado, venceEn));
+            Iterator<Map.Entry<String, Entrada>> it = entradas.entrySet().iterator();
+            while (entradas.size() > maxEntradas && it.hasNext()) {
+                it.next();
+                it.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private static Resultado aResultado(Geocodificacion fila) {
+        if (fila.getLatitud() == null || fila.getLongitud() == null) return new Resultado(null);
+        return new Resultado(new CoordenadaDTO(fila.getLatitud(), fila.getLongitud()));
+    }
+
+    private record Entrada(Resultado resultado, long venceEn) {}
+}
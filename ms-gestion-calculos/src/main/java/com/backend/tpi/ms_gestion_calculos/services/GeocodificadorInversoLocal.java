@@ -0,0 +1,127 @@
+package com.backend.tpi.ms_gestion_calculos.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Geocodificación inversa local (coordenadas -> ciudad) sin llamar a Nominatim
+ * Es el camino principal de la asignación de ciudades (funciona sin red): al iniciar carga un archivo de
+ * localidades (por defecto el de localidades argentinas incluido en el jar) en un {@link IndiceLocalidades}.
+ * Una consulta devuelve la localidad más cercana dentro de {@code app.geocodificacion.inversa.radio-max-km}.
+ * Un punto no conoce los límites de la localidad, por eso el archivo es denso (en el conurbano, cada localidad
+ * con su centroide) y las ciudades grandes tienen varios puntos con el mismo nombre: la más cercana aproxima
+ * así el límite real. Lo que queda fuera del radio se consulta a Nominatim si está habilitado.
+ * El índice no se alimenta con ciudades de depósitos: un error de asignación se repetiría en toda la zona.
+ */
+@Component
+@Slf4j
+public class GeocodificadorInversoLocal {
+
+    @Autowired
+    private ResourceLoader resourceLoader;
+
+    @Value("${app.geocodificacion.inversa.localidades:classpath:geodatos/localidades-ar.csv}")
+    private String archivoLocalidades;
+
+    @Value("${app.geocodificacion.inversa.radio-max-km:8}")
+    private double radioMaxKm;
+
+    private volatile IndiceLocalidades indice = IndiceLocalidades.vacio();
+
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong sinResultado = new AtomicLong();
+
+    /**
+     * Carga el índice al iniciar la aplicación (archivo de localidades)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void cargar() {
+        long inicio = System.currentTimeMillis();
+        indice = IndiceLocalidades.desde(leerArchivo());
+        log.info("Índice de localidades cargado: {} localidades en {} ms", indice.size(), System.currentTimeMillis() - inicio);
+    }
+
+    /**
+     * Busca la ciudad más cercana a unas coordenadas dentro del radio configurado
+     * @param latitud Latitud del punto
+     * @param longitud Longitud del punto
+     * @return Nombre de la ciudad, null si no hay ninguna conocida cerca
+     */
+    public String buscarCiudad(BigDecimal latitud, BigDecimal longitud) {
+        IndiceLocalidades.Cercana cercana = indice.masCercana(latitud.doubleValue(), longitud.doubleValue(), radioMaxKm);
+        if (cercana == null) {
+            sinResultado.incrementAndGet();
+            log.debug("Sin localidad conocida a menos de {} km de lat={}, lon={}", radioMaxKm, latitud, longitud);
+            return null;
+        }
+        aciertos.incrementAndGet();
+        log.debug("Localidad resuelta localmente para lat={}, lon={}: {} ({} km)",
+                latitud, longitud, cercana.localidad().nombre(), String.format("%.1f", cercana.distanciaKm()));
+        return cercana.localidad().nombre();
+    }
+
+    /**
+     * Devuelve las métricas del índice
+     */
+    public Map<String, Object> estadisticas() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("localidades", indice.size());
+        stats.put("radioMaxKm", radioMaxKm);
+        stats.put("aciertos", aciertos.get());
+        stats.put("sinResultado", sinResultado.get());
+        return stats;
+    }
+
+    /**
+     * Lee el archivo de localidades (CSV con encabezado: nombre,latitud,longitud)
+     * Una localidad puede aparecer en varias líneas (varios puntos de una ciudad extensa).
+     * Las líneas mal formadas se omiten; si el archivo no existe el índice queda vacío (todo va a Nominatim).
+     */
+    private List<IndiceLocalidades.Localidad> leerArchivo() {
+        List<IndiceLocalidades.Localidad> localidades = new ArrayList<>();
+        if (archivoLocalidades == null || archivoLocalidades.isBlank()) return localidades;
+        Resource recurso = resourceLoader.getResource(archivoLocalidades);
+        if (!recurso.exists()) {
+            log.warn("Archivo de localidades no encontrado: {}", archivoLocalidades);
+            return localidades;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(recurso.getInputStream(), StandardCharsets.UTF_8))) {
+            String linea = reader.readLine(); // encabezado
+            int numero = 1;
+            while ((linea = reader.readLine()) != null) {
+                numero++;
+                if (linea.isBlank()) continue;
+                // La coma separa las coordenadas del final; el nombre puede contener comas
+                int c2 = linea.lastIndexOf(',');
+                int c1 = c2 > 0 ? linea.lastIndexOf(',', c2 - 1) : -1;
+                try {
+                    if (c1 <= 0) throw new NumberFormatException("faltan columnas");
+                    localidades.add(new IndiceLocalidades.Localidad(linea.substring(0, c1).trim(),
+                            Double.parseDouble(linea.substring(c1 + 1, c2).trim()),
+                            Double.parseDouble(linea.substring(c2 + 1).trim())));
+                } catch (NumberFormatException e) {
+                    log.warn("Línea {} de {} inválida, se omite: {}", numero, archivoLocalidades, linea);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Error al leer el archivo de localidades {}: {}", archivoLocalidades, e.getMessage());
+        }
+        return localidades;
+    }
+}
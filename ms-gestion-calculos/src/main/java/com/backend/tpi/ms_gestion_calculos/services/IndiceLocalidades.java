@@ -0,0 +1,179 @@
+package com.backend.tpi.ms_gestion_calculos.services;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Índice espacial inmutable de localidades para geocodificación inversa sin red
+ * Cada localidad es un punto (centroide) con su nombre. Los puntos se pasan a vectores unitarios 3D y se
+ * guardan en un árbol k-d implícito (arreglo ordenado por la mediana de cada nivel): la distancia euclídea
+ * entre vectores (cuerda) crece con la distancia sobre la esfera, así el vecino más cercano es exacto y no
+ * hay problemas en el antimeridiano ni cerca de los polos. Una búsqueda es O(log n) en promedio.
+ * Los cambios devuelven un índice nuevo (copy-on-write), así las lecturas no necesitan sincronización.
+ */
+public final class IndiceLocalidades {
+
+    /** Radio medio de la Tierra en km */
+    public static final double RADIO_TIERRA_KM = 6371.0;
+
+    private static final IndiceLocalidades VACIO = new IndiceLocalidades(List.of());
+
+    /**
+     * Localidad con su centroide en grados
+     */
+    public record Localidad(String nombre, double latitud, double longitud) {
+    }
+
+    /**
+     * Resultado de una búsqueda: la localidad más cercana y su distancia en km
+     */
+    public record Cercana(Localidad localidad, double distanciaKm) {
+    }
+
+    private final Localidad[] localidades;
+    // Coordenadas 3D de cada nodo (x, y, z consecutivos), en el mismo orden que localidades
+    private final double[] puntos;
+
+    private IndiceLocalidades(Collection<Localidad> entrada) {
+        this.localidades = entrada.toArray(new Localidad[0]);
+        this.puntos = new double[localidades.length * 3];
+        for (int i = 0; i < localidades.length; i++) cargarPunto(i);
+        construir(0, localidades.length, 0);
+    }
+
+    public static IndiceLocalidades vacio() {
+        return VACIO;
+    }
+
+    public static IndiceLocalidades desde(Collection<Localidad> localidades) {
+        return localidades.isEmpty() ? VACIO : new IndiceLocalidades(localidades);
+    }
+
+    public int size() {
+        return localidades.length;
+    }
+
+    /**
+     * Índice con las localidades agregadas
+     */
+    public IndiceLocalidades con(Collection<Localidad> nuevas) {
+        if (nuevas.isEmpty()) return this;
+        List<Localidad> todas = new ArrayList<>(localidades.length + nuevas.size());
+        todas.addAll(List.of(localidades));
+        todas.addAll(nuevas);
+        return new IndiceLocalidades(todas);
+    }
+
+    /**
+     * Busca la localidad más cercana a un punto dentro de un radio
+     * @param latitud latitud en grados
+     * @param longitud longitud en grados
+     * @param radioMaxKm distancia máxima aceptada
+     * @return la más cercana con su distancia, o null si no hay ninguna dentro del radio
+     */
+    public Cercana masCercana(double latitud, double longitud, double radioMaxKm) {
+        if (localidades.length == 0 || radioMaxKm < 0) return null;
+        double[] q = aVector(latitud, longitud);
+        // Cuerda equivalente al radio (el arco máximo es media vuelta)
+        double arco = Math.min(radioMaxKm / RADIO_TIERRA_KM, Math.PI);
+        double cuerda = 2 * Math.sin(arco / 2);
+        Busqueda b = new Busqueda(q, cuerda * cuerda * (1 + 1e-12));
+        buscar(0, localidades.length, 0, b);
+        if (b.mejor < 0) return null;
+        double distancia = 2 * Math.asin(Math.min(1.0, Math.sqrt(b.mejorDistancia2) / 2)) * RADIO_TIERRA_KM;
+        return new Cercana(localidades[b.mejor], distancia);
+    }
+
+    private static final class Busqueda {
+        final double[] q;
+        double mejorDistancia2;
+        int mejor = -1;
+
+        Busqueda(double[] q, double maxDistancia2) {
+            this.q = q;
+            this.mejorDistancia2 = maxDistancia2;
+        }
+    }
+
+    private void buscar(int lo, int hi, int eje, Busqueda b) {
+        if (lo >= hi) return;
+        int mid = (lo + hi) >>> 1;
+        double d2 = distancia2(mid, b.q);
+        if (d2 <= b.mejorDistancia2) {
+            b.mejorDistancia2 = d2;
+            b.mejor = mid;
+        }
+        double delta = b.q[eje] - puntos[mid * 3 + eje];
+        int siguiente = (eje + 1) % 3;
+        // Primero el lado del punto buscado; el otro solo si el plano de corte está dentro del mejor radio
+        if (delta < 0) {
+            buscar(lo, mid, siguiente, b);
+            if (delta * delta <= b.mejorDistancia2) buscar(mid + 1, hi, siguiente, b);
+        } else {
+            buscar(mid + 1, hi, siguiente, b);
+            if (delta * delta <= b.mejorDistancia2) buscar(lo, mid, siguiente, b);
+        }
+    }
+
+    /**
+     * Ordena [lo, hi) para que la mediana según el eje quede en el medio y recursivamente cada mitad
+     */
+    private void construir(int lo, int hi, int eje) {
+        if (hi - lo <= 1) return;
+        int mid = (lo + hi) >>> 1;
+        seleccionar(lo, hi - 1, mid, eje);
+        int siguiente = (eje + 1) % 3;
+        construir(lo, mid, siguiente);
+        construir(mid + 1, hi, siguiente);
+    }
+
+    /**
+     * Quickselect: deja en k el elemento que iría ahí ordenando [izq, der] por el eje
+     */
+    private void seleccionar(int izq, int der, int k, int eje) {
+        while (der > izq) {
+            double pivote = puntos[((izq + der) >>> 1) * 3 + eje];
+            int i = izq;
+            int j = der;
+            while (i <= j) {
+                while (puntos[i * 3 + eje] < pivote) i++;
+                while (puntos[j * 3 + eje] > pivote) j--;
+                if (i <= j) intercambiar(i++, j--);
+            }
+            if (k <= j) der = j;
+            else if (k >= i) izq = i;
+            else return;
+        }
+    }
+
+    private void intercambiar(int i, int j) {
+        Localidad l = localidades[i];
+        localidades[i] = localidades[j];
+        localidades[j] = l;
+        for (int e = 0; e < 3; e++) {
+            double p = puntos[i * 3 + e];
+            puntos[i * 3 + e] = puntos[j * 3 + e];
+            puntos[j * 3 + e] = p;
+        }
+    }
+
+    private void cargarPunto(int i) {
+        double[] v = aVector(localidades[i].latitud(), localidades[i].longitud());
+        System.arraycopy(v, 0, puntos, i * 3, 3);
+    }
+
+    private double distancia2(int i, double[] q) {
+        double dx = puntos[i * 3] - q[0];
+        double dy = puntos[i * 3 + 1] - q[1];
+        double dz = puntos[i * 3 + 2] - q[2];
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private static double[] aVector(double latitud, double longitud) {
+        double lat = Math.toRadians(latitud);
+        double lon = Math.toRadians(longitud);
+        double cosLat = Math.cos(lat);
+        return new double[]{cosLat * Math.cos(lon), cosLat * Math.sin(lon), Math.sin(lat)};
+    }
+}
@@ -0,0 +1,161 @@
+package com.backend.tpi.ms_gestion_calculos.services;
+
+import com.backend.tpi.ms_gestion_calculos.dtos.DepositoDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Lectura de archivos de depósitos para la importación masiva
+ * Formatos:
+ * - CSV con encabezado; las columnas se identifican por nombre (mismos nombres que {@link DepositoDTO}: nombre,
+ *   direccion, latitud, longitud, idCiudad, nombreCiudad, costoEstadiaDiario) en cualquier orden. Separador coma,
+ *   campos con comas entre comillas dobles ("" para una comilla).
+ * - NDJSON: un {@link DepositoDTO} en JSON por línea.
+ * Las líneas que no se pueden leer no cortan la importación: se informan como errores con su número de línea.
+ */
+public final class LectorDepositos {
+
+    /**
+     * Depósito leído con la línea del archivo de donde salió
+     */
+    public record Fila(int linea, DepositoDTO deposito) {
+    }
+
+    /**
+     * Línea que no se pudo leer o importar
+     */
+    public record ErrorLinea(int linea, String mensaje) {
+    }
+
+    /**
+     * Resultado de la lectura
+     */
+    public record Lectura(List<Fila> filas, List<ErrorLinea> errores) {
+    }
+
+    private LectorDepositos() {
+    }
+
+    /**
+     * Lee un archivo NDJSON
+     * @throws IllegalArgumentException si el archivo está vacío (sin ninguna línea con contenido)
+     */
+    public static Lectura leerNdjson(BufferedReader reader, ObjectMapper objectMapper) throws IOException {
+        List<Fila> filas = new ArrayList<>();
+        List<ErrorLinea> errores = new ArrayList<>();
+        String linea;
+        int numero = 0;
+        while ((linea = reader.readLine()) != null) {
+            numero++;
+            if (linea.isBlank()) continue;
+            try {
+                filas.add(new Fila(numero, objectMapper.readValue(linea, DepositoDTO.class)));
+            } catch (com.fasterxml.jackson.core.JsonProcessingException e) {
+                errores.add(new ErrorLinea(numero, "JSON inválido: " + e.getOriginalMessage()));
+            }
+        }
+        if (filas.isEmpty() && errores.isEmpty()) throw new IllegalArgumentException("El archivo NDJSON está vacío");
+        return new Lectura(filas, errores);
+    }
+
+    /**
+     * Lee un archivo CSV con encabezado
+     * @throws IllegalArgumentException si el archivo está vacío o el encabezado no tiene la columna nombre
+     */
+    public static Lectura leerCsv(BufferedReader reader) throws IOException {
+        String encabezado = reader.readLine();
+        if (encabezado == null) throw new IllegalArgumentException("El archivo CSV está vacío");
+        if (!encabezado.isEmpty() && encabezado.charAt(0) == '\uFEFF') encabezado = encabezado.substring(1); // BOM de Excel
+        Map<String, Integer> columnas = new HashMap<>();
+        List<String> nombres = separar(encabezado);
+        for (int i = 0; i < nombres.size(); i++) columnas.put(nombres.get(i).trim().toLowerCase(Locale.ROOT), i);
+        if (!columnas.containsKey("nombre")) {
+            throw new IllegalArgumentException("El encabezado del CSV debe incluir la columna 'nombre'");
+        }
+
+        List<Fila> filas = new ArrayList<>();
+        List<ErrorLinea> errores = new ArrayList<>();
+        String linea;
+        int numero = 1;
+        while ((linea = reader.readLine()) != null) {
+            numero++;
+            if (linea.isBlank()) continue;
+            try {
+                List<String> campos = separar(linea);
+                DepositoDTO dto = new DepositoDTO();
+                dto.setNombre(texto(campos, columnas, "nombre"));
+                dto.setDireccion(texto(campos, columnas, "direccion"));
+                dto.setLatitud(decimal(campos, columnas, "latitud"));
+                dto.setLongitud(decimal(campos, columnas, "longitud"));
+                String idCiudad = texto(campos, columnas, "idciudad");
+                try {
+                    dto.setIdCiudad(idCiudad != null ? Long.valueOf(idCiudad) : null);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Valor inválido en idCiudad: " + idCiudad);
+                }
+                dto.setNombreCiudad(texto(campos, columnas, "nombreciudad"));
+                dto.setCostoEstadiaDiario(decimal(campos, columnas, "costoestadiadiario"));
+                filas.add(new Fila(numero, dto));
+            } catch (IllegalArgumentException e) {
+                errores.add(new ErrorLinea(numero, e.getMessage()));
+            }
+        }
+        return new Lectura(filas, errores);
+    }
+
+    /**
+     * Separa una línea CSV respetando comillas dobles
+     */
+    static List<String> separar(String linea) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (entreComillas) {
+                if (c == '"' && i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                    actual.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreComillas = false;
+                } else {
+                    actual.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == ',') {
+                campos.add(actual.toString());
+                actual.setLength(0);
+            } else {
+                actual.append(c);
+            }
+        }
+        if (entreComillas) throw new IllegalArgumentException("Comillas sin cerrar");
+        campos.add(actual.toString());
+        return campos;
+    }
+
+    private static String texto(List<String> campos, Map<String, Integer> columnas, String columna) {
+        Integer i = columnas.get(columna);
+        if (i == null || i >= campos.size()) return null;
+        String valor = campos.get(i).trim();
+        return valor.isEmpty() ? null : valor;
+    }
+
+    private static Double decimal(List<String> campos, Map<String, Integer> columnas, String columna) {
+        String valor = texto(campos, columnas, columna);
+        if (valor == null) return null;
+        try {
+            return Double.valueOf(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Valor inválido en " + columna + ": " + valor);
+        }
+    }
+}
@@ -24,10 +24,10 @@ public class NominatimService {
 
     private final RestClient restClient;
 
-    public NominatimService(@Value("${app.nominatim.base-url:https://nominatim.openstreetmap.org}") String nominatimBaseUrl) {
+    public NominatimService(@Value("${app.nominatim.base-url:https://nominatim.openstreetmap.org}") String nominatimBaseUrl,
+                            com.backend.tpi.ms_gestion_calculos.config.ClienteHttpFactory clientes) {
         this.nominatimBaseUrl = nominatimBaseUrl;
-        this.restClient = RestClient.builder()
-                .baseUrl(nominatimBaseUrl)
+        this.restClient = clientes.builder("nominatim", nominatimBaseUrl)
                 .build();
     }
 
@@ -35,7 +35,8 @@ public class NominatimService {
      * Obtiene información de ubicación a partir de coordenadas geográficas
      * Este método incluye protección contra bloqueos de Nominatim:
      * - User-Agent descriptivo con información del proyecto
-     * - Delay de 1 segundo entre peticiones (política de Nominatim)
+     * - Máximo 1 petición por segundo (política de Nominatim), impuesto por el límite de tasa del cliente
+     *   HTTP "nominatim" para todo el proceso; los llamadores asíncronos usan {@link ColaGeocodificacionInversa}
      * - Manejo robusto de errores
      * 
      * @param latitud Latitud del punto
@@ -44,10 +45,6 @@ public class NominatimService {
      */
     public UbicacionDTO obtenerUbicacion(BigDecimal latitud, BigDecimal longitud) {
         try {
-            // Nominatim requiere máximo 1 request por segundo
-            // Agregamos un pequeño delay para cumplir con la política de uso
-            Thread.sleep(1100);
-            
             log.info("Consultando Nominatim para coordenadas: lat={}, lon={}", latitud, longitud);
             
             // Nominatim reverse endpoint: /reverse?lat={lat}&lon={lon}&format=json
@@ -83,10 +80,6 @@ public class NominatimService {
             
             return ubicacion;
 
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            log.error("Interrupción durante delay de Nominatim", e);
-            return null;
         } catch (org.springframework.web.client.HttpClientErrorException.Forbidden e) {
             log.error("Acceso bloqueado por Nominatim. Esto puede deberse a: " +
                 "1) Demasiadas peticiones (máx 1/segundo), " +
@@ -5,10 +5,6 @@ import com.backend.tpi.ms_gestion_calculos.dtos.CostoResponseDTO;
 import com.backend.tpi.ms_gestion_calculos.dtos.DistanciaRequestDTO;
 import com.backend.tpi.ms_gestion_calculos.dtos.DistanciaResponseDTO;
 import com.backend.tpi.ms_gestion_calculos.dtos.SolicitudIntegrationDTO;
-import com.backend.tpi.ms_gestion_calculos.models.Tarifa;
-import com.backend.tpi.ms_gestion_calculos.models.TarifaVolumenPeso;
-import com.backend.tpi.ms_gestion_calculos.repositories.TarifaRepository;
-import com.backend.tpi.ms_gestion_calculos.repositories.TarifaVolumenPesoRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,7 +16,6 @@ import org.springframework.security.oauth2.server.resource.authentication.JwtAut
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.util.List;
 
 /**
  * Servicio de negocio para cálculo de Precios
@@ -33,10 +28,7 @@ public class PrecioService {
     private static final Logger logger = LoggerFactory.getLogger(PrecioService.class);
 
     @Autowired
-    private TarifaRepository tarifaRepository;
-
-    @Autowired
-    private TarifaVolumenPesoRepository tarifaVolumenPesoRepository;
+    private TarifasVigentes tarifasVigentes;
 
     @Autowired
     private CalculoService calculoService;
@@ -47,6 +39,7 @@ public class PrecioService {
     /**
      * Calcula un costo estimado en base a distancia, tarifas y una tabla por volumen/peso.
      * Algoritmo (simple): costo = costoBaseGestionFijo + precioPorKm * distancia + cargoPorVolumenPeso
+     * La tarifa y los rangos salen de la copia en memoria ({@link TarifasVigentes}), sin consultar la base.
      */
     public CostoResponseDTO calcularCostoEstimado(CostoRequestDTO request) {
         logger.info("Calculando costo estimado - origen: {}, destino: {}, peso: {}, volumen: {}", 
@@ -62,27 +55,14 @@ public class PrecioService {
         logger.debug("Distancia obtenida: {} km", distancia);
 
         // obtener tarifa base (la más reciente si existe)
-        logger.debug("Obteniendo tarifa base desde repositorio");
-        Tarifa tarifa = tarifaRepository.findTopByOrderByIdDesc();
-        double costoBase = tarifa != null && tarifa.getCostoBaseGestionFijo() != null ? tarifa.getCostoBaseGestionFijo().doubleValue() : 0.0;
-        double precioPorKm = tarifa != null && tarifa.getValorLitroCombustible() != null ? tarifa.getValorLitroCombustible().doubleValue() : 1.0;
+        TablaTarifas tarifas = tarifasVigentes.obtener();
+        double costoBase = tarifas.costoBase();
+        double precioPorKm = tarifas.precioPorKm();
         logger.debug("Tarifa aplicada - costoBase: {}, precioPorKm: {}", costoBase, precioPorKm);
 
-        // buscar cargo por volumen/peso aplicable
-        logger.debug("Buscando cargo por volumen/peso aplicable");
-        List<TarifaVolumenPeso> tvps = tarifaVolumenPesoRepository.findAll();
-        double cargoVolumenPeso = 0.0;
-        if (tvps != null && !tvps.isEmpty()) {
-            for (TarifaVolumenPeso t : tvps) {
-                boolean aplicaPeso = request.getPeso() == null || t.getPesoMax() == null || request.getPeso() <= t.getPesoMax();
-                boolean aplicaVolumen = request.getVolumen() == null || t.getVolumenMax() == null || request.getVolumen() <= t.getVolumenMax();
-                if (aplicaPeso && aplicaVolumen) {
-                    cargoVolumenPeso = t.getCostoPorKmBase() != null ? t.getCostoPorKmBase() : 0.0;
-                    logger.debug("Cargo por volumen/peso encontrado: {}", cargoVolumenPeso);
-                    break;
-                }
-            }
-        }
+        // buscar cargo por volumen/peso aplicable (rango de menor ID que cubre peso y volumen)
+        double cargoVolumenPeso = tarifas.cargoVolumenPeso(request.getPeso(), request.getVolumen());
+        logger.debug("Cargo por volumen/peso aplicado: {}", cargoVolumenPeso);
 
         double costo = costoBase + (precioPorKm * distancia) + cargoVolumenPeso;
         logger.debug("Costo calculado (antes de redondeo): {}", costo);
@@ -0,0 +1,151 @@
+package com.backend.tpi.ms_gestion_calculos.services;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+
+/**
+ * Foto inmutable de la tarifa vigente y de los rangos por volumen/peso para calcular precios sin ir a la base
+ * Un rango aplica a una carga si su pesoMax y su volumenMax la cubren (un máximo null no limita); entre los
+ * que aplican se usa el de menor ID. Es una consulta de dominancia en dos dimensiones y se resuelve con:
+ * - los rangos ordenados por pesoMax descendente: los que cubren el peso son un prefijo (búsqueda binaria)
+ * - un árbol de segmentos sobre ese orden donde cada nodo guarda sus rangos ordenados por volumenMax
+ *   descendente con el menor ID acumulado: en cada nodo del prefijo, otra búsqueda binaria da el menor ID
+ *   de los que cubren el volumen
+ * Una consulta es O(log² n) sin recorrer los rangos.
+ */
+public final class TablaTarifas {
+
+    private static final TablaTarifas VACIA = new TablaTarifas(0.0, 1.0, java.util.List.of());
+
+    /**
+     * Rango por volumen/peso
+     * @param pesoMax peso máximo (null = sin límite)
+     * @param volumenMax volumen máximo (null = sin límite)
+     * @param cargo cargo fijo del rango (costoPorKmBase)
+     */
+    public record Rango(long id, Double pesoMax, Double volumenMax, double cargo) {
+    }
+
+    private final double costoBase;
+    private final double precioPorKm;
+
+    // Rangos ordenados por pesoMax descendente (sin límite = +infinito)
+    private final Rango[] rangos;
+    private final double[] pesoMax;
+    // Por nodo del árbol de segmentos: volumenMax descendente y posición (en rangos) del menor ID hasta ahí
+    private final double[][] volumenNodo;
+    private final int[][] mejorNodo;
+
+    private TablaTarifas(double costoBase, double precioPorKm, Collection<Rango> entrada) {
+        this.costoBase = costoBase;
+        this.precioPorKm = precioPorKm;
+        this.rangos = entrada.toArray(new Rango[0]);
+        Arrays.sort(rangos, Comparator.comparingDouble((Rango r) -> -limite(r.pesoMax())).thenComparingLong(Rango::id));
+        this.pesoMax = new double[rangos.length];
+        for (int i = 0; i < rangos.length; i++) pesoMax[i] = limite(rangos[i].pesoMax());
+        int nodos = Math.max(1, 4 * rangos.length);
+        this.volumenNodo = new double[nodos][];
+        this.mejorNodo = new int[nodos][];
+        if (rangos.length > 0) construir(1, 0, rangos.length);
+    }
+
+    public static TablaTarifas vacia() {
+        return VACIA;
+    }
+
+    /**
+     * @param costoBase costo base de gestión fijo de la tarifa vigente
+     * @param precioPorKm precio por km de la tarifa vigente
+     * @param rangos rangos por volumen/peso
+     */
+    public static TablaTarifas desde(double costoBase, double precioPorKm, Collection<Rango> rangos) {
+        return new TablaTarifas(costoBase, precioPorKm, rangos);
+    }
+
+    public double costoBase() {
+        return costoBase;
+    }
+
+    public double precioPorKm() {
+        return precioPorKm;
+    }
+
+    public int size() {
+        return rangos.length;
+    }
+
+    /**
+     * Cargo por volumen/peso aplicable a una carga
+     * @param peso peso de la carga (null = cualquiera aplica)
+     * @param volumen volumen de la carga (null = cualquiera aplica)
+     * @return cargo del rango de menor ID que cubre la carga, 0 si ninguno la cubre
+     */
+    public double cargoVolumenPeso(Double peso, Double volumen) {
+        Rango rango = rangoAplicable(peso, volumen);
+        return rango != null ? rango.cargo() : 0.0;
+    }
+
+    /**
+     * Rango de menor ID que cubre la carga, o null si ninguno
+     */
+    public Rango rangoAplicable(Double peso, Double volumen) {
+        if (rangos.length == 0) return null;
+        int prefijo = peso == null ? rangos.length : cantidadMayoresOIguales(pesoMax, 0, rangos.length, peso);
+        if (prefijo == 0) return null;
+        int mejor = mejorEnPrefijo(1, 0, rangos.length, prefijo, volumen);
+        return mejor >= 0 ? rangos[mejor] : null;
+    }
+
+    private void construir(int nodo, int lo, int hi) {
+        Integer[] orden = new Integer[hi - lo];
+        for (int i = lo; i < hi; i++) orden[i - lo] = i;
+        Arrays.sort(orden, Comparator.comparingDouble((Integer i) -> -limite(rangos[i].volumenMax())));
+        double[] volumen = new double[orden.length];
+        int[] mejor = new int[orden.length];
+        for (int j = 0; j < orden.length; j++) {
+            volumen[j] = limite(rangos[orden[j]].volumenMax());
+            mejor[j] = j == 0 || rangos[orden[j]].id() < rangos[mejor[j - 1]].id() ? orden[j] : mejor[j - 1];
+        }
+        volumenNodo[nodo] = volumen;
+        mejorNodo[nodo] = mejor;
+        if (hi - lo <= 1) return;
+        int mid = (lo + hi) >>> 1;
+        construir(2 * nodo, lo, mid);
+        construir(2 * nodo + 1, mid, hi);
+    }
+
+    /**
+     * Menor ID (como posición en rangos) entre las posiciones [lo, min(hi, prefijo)) que cubren el volumen
+     */
+    private int mejorEnPrefijo(int nodo, int lo, int hi, int prefijo, Double volumen) {
+        if (lo >= prefijo) return -1;
+        if (hi <= prefijo) {
+            double[] v = volumenNodo[nodo];
+            int cantidad = volumen == null ? v.length : cantidadMayoresOIguales(v, 0, v.length, volumen);
+            return cantidad > 0 ? mejorNodo[nodo][cantidad - 1] : -1;
+        }
+        int mid = (lo + hi) >>> 1;
+        int izq = mejorEnPrefijo(2 * nodo, lo, mid, prefijo, volumen);
+        int der = mejorEnPrefijo(2 * nodo + 1, mid, hi, prefijo, volumen);
+        if (izq < 0) return der;
+        if (der < 0) return izq;
+        return rangos[izq].id() <= rangos[der].id() ? izq : der;
+    }
+
+    /**
+     * Cantidad de elementos >= valor al comienzo de un arreglo ordenado en forma descendente
+     */
+    private static int cantidadMayoresOIguales(double[] descendente, int lo, int hi, double valor) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (descendente[mid] >= valor) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private static double limite(Double maximo) {
+        return maximo == null ? Double.POSITIVE_INFINITY : maximo;
+    }
+}
@@ -26,6 +26,20 @@ public class TarifaService {
     @Autowired
     private TarifaRepository tarifaRepository;
 
+    @Autowired
+    private org.springframework.web.client.RestClient rutasClient;
+
+    @Autowired
+    private TarifasVigentes tarifasVigentes;
+
+    // Versión de las tarifas: cambia con cada alta/modificación (incluidos rangos) para que los
+    // consumidores con copia local (ms-rutas-transportistas) sepan cuándo volver a descargarlas.
+    // El valor viaja como ETag de /api/v1/tarifas/version y vuelve en If-None-Match: si el contador arrancara
+    // siempre en el mismo número, tras un reinicio un ETag viejo podría coincidir y responderse 304 con tarifas
+    // distintas; partir de la hora de arranque hace que el primer valor difiera de todos los anteriores.
+    private final java.util.concurrent.atomic.AtomicLong versionTarifas =
+            new java.util.concurrent.atomic.AtomicLong(System.currentTimeMillis());
+
     /**
      * Obtiene todas las tarifas del sistema
      * @return Lista de DTOs de tarifas con sus rangos
@@ -65,6 +79,7 @@ public class TarifaService {
         logger.info("Creando nueva tarifa");
         Tarifa tarifa = toEntity(dto);
         Tarifa saved = tarifaRepository.save(tarifa);
+        registrarCambio();
         logger.info("Tarifa creada exitosamente con ID: {}", saved.getId());
         return toDto(saved);
     }
@@ -94,6 +109,7 @@ public class TarifaService {
         }
         
         Tarifa saved = tarifaRepository.save(tarifa);
+        registrarCambio();
         logger.info("Tarifa actualizada exitosamente: ID={}", saved.getId());
         return toDto(saved);
     }
@@ -126,6 +142,7 @@ public class TarifaService {
         
         tarifa.getRangos().add(rango);
         Tarifa saved = tarifaRepository.save(tarifa);
+        registrarCambio();
         logger.info("Rango agregado exitosamente a tarifa ID: {}", tarifaId);
         return toDto(saved);
     }
@@ -176,10 +193,63 @@ public class TarifaService {
         }
         
         Tarifa saved = tarifaRepository.save(tarifa);
+        registrarCambio();
         logger.info("Rango actualizado exitosamente: ID={}", rangoId);
         return toDto(saved);
     }
 
+    /**
+     * Obtiene la versión actual de las tarifas
+     * @return Versión que cambia ante cualquier alta o modificación de tarifas o rangos
+     */
+    public long getVersionTarifas() {
+        return versionTarifas.get();
+    }
+
+    /**
+     * Cambia la versión, descarta la tabla de precios en memoria y avisa a ms-rutas-transportistas que
+     * descarte su copia de la tarifa
+     * Si hay una transacción en curso se hace recién después del commit, para que nadie
+     * descargue los datos viejos con la versión nueva. El aviso es best-effort: si falla,
+     * ms-rutas-transportistas igual detecta el cambio al verificar la versión.
+     */
+    private void registrarCambio() {
+        String token = extractBearerToken();
+        Runnable cambio = () -> {
+            versionTarifas.incrementAndGet();
+            tarifasVigentes.invalidar();
+            try {
+                rutasClient.delete()
+                        .uri("/api/v1/rutas/tarifas/cache")
+                        .headers(h -> { if (token != null) h.setBearerAuth(token); })
+                        .retrieve()
+                        .toBodilessEntity();
+                logger.debug("Caché de tarifas de ms-rutas-transportistas invalidada");
+            } catch (Exception e) {
+                logger.warn("No se pudo invalidar la caché de tarifas en ms-rutas-transportistas: {}", e.getMessage());
+            }
+        };
+        if (org.springframework.transaction.support.TransactionSynchronizationManager.isSynchronizationActive()) {
+            org.springframework.transaction.support.TransactionSynchronizationManager.registerSynchronization(
+                    new org.springframework.transaction.support.TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            cambio.run();
+                        }
+                    });
+        } else {
+            cambio.run();
+        }
+    }
+
+    private String extractBearerToken() {
+        var auth = org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
+        if (auth instanceof org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken) {
+            return ((org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken) auth).getToken().getTokenValue();
+        }
+        return null;
+    }
+
     /**
      * Convierte una entidad Tarifa a su DTO
      * @param tarifa Entidad tarifa
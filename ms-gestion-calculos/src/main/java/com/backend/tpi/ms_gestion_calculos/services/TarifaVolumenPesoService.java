@@ -19,6 +19,9 @@ public class TarifaVolumenPesoService {
     @Autowired
     private TarifaVolumenPesoRepository repository;
 
+    @Autowired
+    private TarifasVigentes tarifasVigentes;
+
     /**
      * Obtiene todos los rangos de tarifas por volumen/peso
      * @return Lista de DTOs de rangos
@@ -45,6 +48,7 @@ public class TarifaVolumenPesoService {
     public TarifaVolumenPesoDTO save(TarifaVolumenPesoDTO dto) {
         TarifaVolumenPeso e = toEntity(dto);
         TarifaVolumenPeso saved = repository.save(e);
+        tarifasVigentes.invalidar();
         return toDto(saved);
     }
 
@@ -62,6 +66,7 @@ public class TarifaVolumenPesoService {
             if (dto.getPesoMax() != null) existing.setPesoMax(dto.getPesoMax());
             if (dto.getCostoPorKmBase() != null) existing.setCostoPorKmBase(dto.getCostoPorKmBase());
             TarifaVolumenPeso saved = repository.save(existing);
+            tarifasVigentes.invalidar();
             return toDto(saved);
         }).orElse(null);
     }
@@ -72,6 +77,7 @@ public class TarifaVolumenPesoService {
      */
     public void delete(Long id) {
         repository.deleteById(id);
+        tarifasVigentes.invalidar();
     }
 
     /**
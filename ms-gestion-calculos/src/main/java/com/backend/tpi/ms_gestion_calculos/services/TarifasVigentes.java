@@ -0,0 +1,75 @@
+package com.backend.tpi.ms_gestion_calculos.services;
+
+import com.backend.tpi.ms_gestion_calculos.models.Tarifa;
+import com.backend.tpi.ms_gestion_calculos.repositories.TarifaRepository;
+import com.backend.tpi.ms_gestion_calculos.repositories.TarifaVolumenPesoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Copia en memoria de la tarifa vigente y sus rangos por volumen/peso ({@link TablaTarifas})
+ * Se construye con la primera cotización y se descarta con cada alta o modificación de tarifas o rangos
+ * ({@link TarifaService}, {@link TarifaVolumenPesoService}); la cotización siguiente la vuelve a armar.
+ * Así el cálculo de precios no consulta la base salvo después de un cambio.
+ */
+@Component
+public class TarifasVigentes {
+
+    private static final Logger logger = LoggerFactory.getLogger(TarifasVigentes.class);
+
+    @Autowired
+    private TarifaRepository tarifaRepository;
+
+    @Autowired
+    private TarifaVolumenPesoRepository tarifaVolumenPesoRepository;
+
+    private volatile TablaTarifas tabla;
+
+    // Cambia con cada invalidación: una tabla armada antes de un cambio no se publica
+    private final AtomicLong generacion = new AtomicLong();
+
+    /**
+     * Devuelve la tabla vigente, armándola si fue invalidada
+     */
+    public TablaTarifas obtener() {
+        TablaTarifas actual = tabla;
+        if (actual != null) return actual;
+        synchronized (this) {
+            if (tabla != null) return tabla;
+            long gen = generacion.get();
+            TablaTarifas nueva = construir();
+            if (generacion.get() == gen) tabla = nueva;
+            return nueva;
+        }
+    }
+
+    /**
+     * Descarta la tabla; la próxima consulta la vuelve a leer de la base
+     */
+    public void invalidar() {
+        generacion.incrementAndGet();
+        tabla = null;
+        logger.debug("Tabla de tarifas invalidada");
+    }
+
+    private TablaTarifas construir() {
+        long inicio = System.currentTimeMillis();
+        // Tarifa más reciente como tarifa activa, igual que antes de la caché
+        Tarifa tarifa = tarifaRepository.findTopByOrderByIdDesc();
+        double costoBase = tarifa != null && tarifa.getCostoBaseGestionFijo() != null ? tarifa.getCostoBaseGestionFijo().doubleValue() : 0.0;
+        double precioPorKm = tarifa != null && tarifa.getValorLitroCombustible() != null ? tarifa.getValorLitroCombustible().doubleValue() : 1.0;
+        List<TablaTarifas.Rango> rangos = tarifaVolumenPesoRepository.findAll().stream()
+                .map(t -> new TablaTarifas.Rango(t.getId(), t.getPesoMax(), t.getVolumenMax(),
+                        t.getCostoPorKmBase() != null ? t.getCostoPorKmBase() : 0.0))
+                .toList();
+        TablaTarifas nueva = TablaTarifas.desde(costoBase, precioPorKm, rangos);
+        logger.info("Tabla de tarifas armada: costoBase={}, precioPorKm={}, {} rangos, en {} ms",
+                costoBase, precioPorKm, nueva.size(), System.currentTimeMillis() - inicio);
+        return nueva;
+    }
+}
@@ -0,0 +1,44 @@
+package com.backend.tpi.ms_gestion_calculos.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LimitadorTasaTest {
+
+    private static final long SEGUNDO = 1_000_000_000L;
+
+    @Test
+    public void reservar_espaciaLasLlamadasALaTasaConfigurada() {
+        long[] ahora = {0};
+        LimitadorTasa limitador = new LimitadorTasa(1, 1, () -> ahora[0]);
+
+        assertEquals(0, limitador.reservar(5 * SEGUNDO));
+        assertEquals(SEGUNDO, limitador.reservar(5 * SEGUNDO));
+        assertEquals(2 * SEGUNDO, limitador.reservar(5 * SEGUNDO));
+    }
+
+    @Test
+    public void reservar_rechazaSiLaEsperaSuperaElMaximo() {
+        long[] ahora = {0};
+        LimitadorTasa limitador = new LimitadorTasa(1, 1, () -> ahora[0]);
+
+        assertEquals(0, limitador.reservar(0));
+        assertEquals(-1, limitador.reservar(SEGUNDO / 2));
+        // El rechazo no consume permisos
+        ahora[0] = SEGUNDO;
+        assertEquals(0, limitador.reservar(0));
+    }
+
+    @Test
+    public void reservar_acumulaHastaLaCapacidad() {
+        long[] ahora = {0};
+        LimitadorTasa limitador = new LimitadorTasa(2, 3, () -> ahora[0]);
+
+        ahora[0] = 100 * SEGUNDO;
+        assertEquals(0, limitador.reservar(0));
+        assertEquals(0, limitador.reservar(0));
+        assertEquals(0, limitador.reservar(0));
+        assertEquals(SEGUNDO / 2, limitador.reservar(SEGUNDO));
+    }
+}
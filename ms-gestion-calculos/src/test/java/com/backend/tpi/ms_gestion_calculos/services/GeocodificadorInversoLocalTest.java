@@ -0,0 +1,45 @@
+package com.backend.tpi.ms_gestion_calculos.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GeocodificadorInversoLocalTest {
+
+    private GeocodificadorInversoLocal geocodificador;
+
+    @BeforeEach
+    public void setUp() {
+        // Archivo de localidades incluido en el jar, con el radio por defecto
+        geocodificador = new GeocodificadorInversoLocal();
+        ReflectionTestUtils.setField(geocodificador, "resourceLoader", new DefaultResourceLoader());
+        ReflectionTestUtils.setField(geocodificador, "archivoLocalidades", "classpath:geodatos/localidades-ar.csv");
+        ReflectionTestUtils.setField(geocodificador, "radioMaxKm", 8.0);
+        geocodificador.cargar();
+    }
+
+    @Test
+    public void buscarCiudad_distingueLaCapitalDeLasLocalidadesDelConurbano() {
+        // Villa Devoto (CABA), a 12 km del centro y a 5 km de Caseros
+        assertEquals("Buenos Aires", buscar(-34.6010, -58.5150));
+        assertEquals("San Isidro", buscar(-34.4725, -58.5250));
+        assertEquals("Quilmes", buscar(-34.7230, -58.2560));
+        assertEquals("Córdoba", buscar(-31.4200, -64.1880));
+    }
+
+    @Test
+    public void buscarCiudad_lejosDeTodaLocalidadNoDevuelveNada() {
+        // Campo entre Saladillo y Las Flores
+        assertNull(buscar(-35.8500, -59.4500));
+        assertEquals(0, ((Number) geocodificador.estadisticas().get("aciertos")).intValue());
+    }
+
+    private String buscar(double latitud, double longitud) {
+        return geocodificador.buscarCiudad(BigDecimal.valueOf(latitud), BigDecimal.valueOf(longitud));
+    }
+}
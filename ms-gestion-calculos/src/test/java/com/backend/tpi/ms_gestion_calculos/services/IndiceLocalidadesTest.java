@@ -0,0 +1,48 @@
+package com.backend.tpi.ms_gestion_calculos.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IndiceLocalidadesTest {
+
+    private static IndiceLocalidades indice() {
+        return IndiceLocalidades.desde(List.of(
+                new IndiceLocalidades.Localidad("Buenos Aires", -34.6037, -58.3816),
+                new IndiceLocalidades.Localidad("La Plata", -34.9214, -57.9544),
+                new IndiceLocalidades.Localidad("Rosario", -32.9468, -60.6393),
+                new IndiceLocalidades.Localidad("Córdoba", -31.4167, -64.1833)));
+    }
+
+    @Test
+    public void masCercana_devuelveLaLocalidadMasProximaDentroDelRadio() {
+        IndiceLocalidades.Cercana cercana = indice().masCercana(-34.5800, -58.4200, 8);
+
+        assertNotNull(cercana);
+        assertEquals("Buenos Aires", cercana.localidad().nombre());
+        assertEquals(4.4, cercana.distanciaKm(), 0.1);
+        assertEquals("La Plata", indice().masCercana(-34.9205, -57.9536, 8).localidad().nombre());
+    }
+
+    @Test
+    public void masCercana_fueraDelRadioNoDevuelveNada() {
+        // San Isidro: a 20 km del centroide de Buenos Aires, pero es otra localidad
+        assertNull(indice().masCercana(-34.4925, -58.5519, 8));
+        assertNull(indice().masCercana(-38.9516, -68.0591, 25));
+        assertNull(IndiceLocalidades.vacio().masCercana(-34.6, -58.4, 1000));
+    }
+
+    @Test
+    public void con_devuelveUnIndiceNuevoSinModificarElOriginal() {
+        IndiceLocalidades original = indice();
+
+        IndiceLocalidades ampliado = original.con(List.of(new IndiceLocalidades.Localidad("Neuquén", -38.9516, -68.0591)));
+
+        assertEquals(5, ampliado.size());
+        assertEquals("Neuquén", ampliado.masCercana(-38.95, -68.06, 25).localidad().nombre());
+        assertEquals(4, original.size());
+        assertNull(original.masCercana(-38.95, -68.06, 25));
+    }
+}
@@ -0,0 +1,84 @@
+package com.backend.tpi.ms_gestion_calculos.services;
+
+import com.backend.tpi.ms_gestion_calculos.dtos.DepositoDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LectorDepositosTest {
+
+    private static BufferedReader texto(String contenido) {
+        return new BufferedReader(new StringReader(contenido));
+    }
+
+    @Test
+    public void separar_respetaComillasYComillasDobladas() {
+        assertEquals(List.of("a", "b, c", "d \"e\"", ""), LectorDepositos.separar("a,\"b, c\",\"d \"\"e\"\"\","));
+        assertEquals(List.of(""), LectorDepositos.separar(""));
+        assertThrows(IllegalArgumentException.class, () -> LectorDepositos.separar("a,\"b"));
+    }
+
+    @Test
+    public void leerCsv_columnasPorNombreEnCualquierOrden() throws IOException {
+        LectorDepositos.Lectura lectura = LectorDepositos.leerCsv(texto(
+                "\uFEFFLongitud,Nombre,latitud,nombreCiudad,costoEstadiaDiario\n"
+                        + "-64.18,\"Depósito Centro, Córdoba\",-31.41,Córdoba,1500\n"
+                        + "\n"
+                        + "-60.65,Rosario Norte,-32.94,,\n"));
+
+        assertTrue(lectura.errores().isEmpty());
+        assertEquals(2, lectura.filas().size());
+        DepositoDTO primero = lectura.filas().get(0).deposito();
+        assertEquals(2, lectura.filas().get(0).linea());
+        assertEquals("Depósito Centro, Córdoba", primero.getNombre());
+        assertEquals(-31.41, primero.getLatitud());
+        assertEquals(-64.18, primero.getLongitud());
+        assertEquals("Córdoba", primero.getNombreCiudad());
+        assertEquals(1500.0, primero.getCostoEstadiaDiario());
+        assertEquals(4, lectura.filas().get(1).linea());
+        assertNull(lectura.filas().get(1).deposito().getNombreCiudad());
+        assertNull(lectura.filas().get(1).deposito().getDireccion());
+    }
+
+    @Test
+    public void leerCsv_lineasInvalidasSeInformanSinCortarLaLectura() throws IOException {
+        LectorDepositos.Lectura lectura = LectorDepositos.leerCsv(texto(
+                "nombre,latitud,idCiudad\n"
+                        + "Uno,abc,\n"
+                        + "Dos,-31.4,x\n"
+                        + "\"Tres,-31.4,\n"
+                        + "Cuatro,-31.4,7\n"));
+
+        assertEquals(1, lectura.filas().size());
+        assertEquals(7L, lectura.filas().get(0).deposito().getIdCiudad());
+        assertEquals(3, lectura.errores().size());
+        assertEquals(2, lectura.errores().get(0).linea());
+        assertEquals("Valor inválido en latitud: abc", lectura.errores().get(0).mensaje());
+        assertEquals("Valor inválido en idCiudad: x", lectura.errores().get(1).mensaje());
+        assertEquals(4, lectura.errores().get(2).linea());
+    }
+
+    @Test
+    public void leerCsv_vacioOSinColumnaNombreEsError() {
+        assertThrows(IllegalArgumentException.class, () -> LectorDepositos.leerCsv(texto("")));
+        assertThrows(IllegalArgumentException.class, () -> LectorDepositos.leerCsv(texto("direccion,latitud\nx,1\n")));
+    }
+
+    @Test
+    public void leerNdjson_vacioEsErrorComoEnCsv() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        assertThrows(IllegalArgumentException.class, () -> LectorDepositos.leerNdjson(texto(""), objectMapper));
+        assertThrows(IllegalArgumentException.class, () -> LectorDepositos.leerNdjson(texto("\n  \n"), objectMapper));
+        LectorDepositos.Lectura lectura = LectorDepositos.leerNdjson(
+                texto("{\"nombre\":\"Uno\",\"latitud\":-31.4}\n{roto\n"), objectMapper);
+        assertEquals(1, lectura.filas().size());
+        assertEquals(2, lectura.errores().get(0).linea());
+    }
+}
@@ -0,0 +1,46 @@
+package com.backend.tpi.ms_gestion_calculos.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TablaTarifasTest {
+
+    private static TablaTarifas tabla() {
+        return TablaTarifas.desde(100.0, 2.5, List.of(
+                new TablaTarifas.Rango(4, null, null, 900.0),
+                new TablaTarifas.Rango(1, 1000.0, 10.0, 100.0),
+                new TablaTarifas.Rango(3, 5000.0, 20.0, 300.0),
+                new TablaTarifas.Rango(2, 20000.0, 5.0, 200.0)));
+    }
+
+    @Test
+    public void cargoVolumenPeso_usaElRangoDeMenorIdQueCubreLaCarga() {
+        TablaTarifas t = tabla();
+
+        assertEquals(100.0, t.cargoVolumenPeso(800.0, 8.0));
+        assertEquals(200.0, t.cargoVolumenPeso(3000.0, 4.0));
+        assertEquals(300.0, t.cargoVolumenPeso(3000.0, 15.0));
+        assertEquals(900.0, t.cargoVolumenPeso(30000.0, 1.0));
+    }
+
+    @Test
+    public void cargoVolumenPeso_sinPesoOVolumenNoRestringe() {
+        TablaTarifas t = tabla();
+
+        assertEquals(100.0, t.cargoVolumenPeso(null, null));
+        assertEquals(200.0, t.cargoVolumenPeso(15000.0, null));
+        assertEquals(3L, t.rangoAplicable(null, 12.0).id());
+    }
+
+    @Test
+    public void sinRangosQueCubranLaCarga_elCargoEsCero() {
+        TablaTarifas t = TablaTarifas.desde(0.0, 1.0, List.of(new TablaTarifas.Rango(1, 1000.0, 10.0, 100.0)));
+
+        assertEquals(0.0, t.cargoVolumenPeso(2000.0, 1.0));
+        assertEquals(0.0, TablaTarifas.vacia().cargoVolumenPeso(1.0, 1.0));
+        assertEquals(2.5, tabla().precioPorKm());
+    }
+}
@@ -0,0 +1,294 @@
+package com.backend.tpi.ms_rutas_transportistas.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fábrica de clientes HTTP para llamadas a otros servicios (microservicios, OSRM, Nominatim)
+ * Todos los clientes comparten el pool de conexiones keep-alive de la JDK con timeout de conexión: HTTP/2 para
+ * destinos https (si el servidor no lo negocia se usa HTTP/1.1) y HTTP/1.1 para destinos http, así no se intenta
+ * el upgrade a h2c en cada conexión nueva. El tiempo que una conexión ociosa queda abierta es una propiedad de la
+ * JVM que se lee al cargar el cliente, por eso se fija al arrancar (-Djdk.httpclient.keepalive.timeout en
+ * JAVA_TOOL_OPTIONS, ver Dockerfile) y no desde la configuración de Spring.
+ * Cada destino tiene su timeout de respuesta y un máximo de
+ * llamadas simultáneas: si el destino está saturado se espera a lo sumo {@code espera-max-ms} y luego se falla,
+ * así una dependencia lenta no deja bloqueados los hilos de Tomcat.
+ * Valores por destino: app.http.destinos.{nombre}.read-timeout-ms / plazo-total-ms / max-concurrencia / espera-max-ms
+ * (si no están, se usan los generales).
+ * El read-timeout acota la espera hasta recibir los encabezados de la respuesta; el plazo total
+ * ({@code plazo-total-ms}, también por destino) acota la llamada completa incluida la lectura del cuerpo: si vence
+ * antes de que se cierre la respuesta, un hilo vigilante cierra el cuerpo (la lectura en curso falla con
+ * IOException) y devuelve el permiso, así un destino que envía el cuerpo a goteo no retiene hilos ni permisos.
+ */
+@Component
+@Slf4j
+public class ClienteHttpFactory {
+
+    private final HttpClient httpClient;
+    private final HttpClient httpClientHttp11;
+    private final Environment environment;
+    private final long readTimeoutMs;
+    private final int maxConcurrencia;
+    private final long esperaMaxMs;
+    private final long plazoTotalMs;
+    private final ScheduledThreadPoolExecutor vigilante;
+    private final Map<String, Destino> destinos = new ConcurrentHashMap<>();
+
+    public ClienteHttpFactory(
+            Environment environment,
+            @Value("${app.http.connect-timeout-ms:2000}") long connectTimeoutMs,
+            @Value("${app.http.read-timeout-ms:10000}") long readTimeoutMs,
+            @Value("${app.http.max-concurrencia:20}") int maxConcurrencia,
+            @Value("${app.http.espera-max-ms:1000}") long esperaMaxMs,
+            @Value("${app.http.plazo-total-ms:30000}") long plazoTotalMs) {
+        this.environment = environment;
+        this.readTimeoutMs = readTimeoutMs;
+        this.maxConcurrencia = Math.max(1, maxConcurrencia);
+        this.esperaMaxMs = Math.max(0, esperaMaxMs);
+        this.plazoTotalMs = plazoTotalMs;
+        // Un solo hilo vigila los plazos de todas las respuestas abiertas; la tarea se quita al cerrar la respuesta
+        this.vigilante = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread hilo = new Thread(r, "http-plazo-total");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        this.vigilante.setRemoveOnCancelPolicy(true);
+        this.httpClient = crearCliente(HttpClient.Version.HTTP_2, connectTimeoutMs);
+        this.httpClientHttp11 = crearCliente(HttpClient.Version.HTTP_1_1, connectTimeoutMs);
+    }
+
+    private static HttpClient crearCliente(HttpClient.Version version, long connectTimeoutMs) {
+        return HttpClient.newBuilder()
+                .version(version)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    /**
+     * Crea un builder de RestClient ya configurado para el destino
+     * @param nombre nombre lógico del destino (clave de configuración y de métricas)
+     * @param baseUrl URL base del destino
+     */
+    public RestClient.Builder builder(String nombre, String baseUrl) {
+        Destino destino = destino(nombre);
+        return RestClient.builder()
+                .baseUrl(baseUrl)
+                .requestFactory(baseUrl != null && baseUrl.regionMatches(true, 0, "https:", 0, 6)
+                        ? destino.requestFactory : destino.requestFactoryHttp11)
+                .requestInterceptor(destino);
+    }
+
+    /**
+     * Crea un RestTemplate con la misma configuración (para código legacy)
+     * No conoce la URL de antemano: usa HTTP/1.1, que sirve tanto para destinos http como https.
+     * @param nombre nombre lógico del destino
+     */
+    public RestTemplate restTemplate(String nombre) {
+        Destino destino = destino(nombre);
+        RestTemplate restTemplate = new RestTemplate(destino.requestFactoryHttp11);
+        restTemplate.getInterceptors().add(destino);
+        return restTemplate;
+    }
+
+    /**
+     * Devuelve las métricas de saturación de cada destino
+     */
+    public Map<String, Object> estadisticas() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        destinos.forEach((nombre, destino) -> stats.put(nombre, destino.estadisticas()));
+        return stats;
+    }
+
+    private Destino destino(String nombre) {
+        return destinos.computeIfAbsent(nombre, n -> {
+            long timeout = environment.getProperty("app.http.destinos." + n + ".read-timeout-ms", Long.class, readTimeoutMs);
+            int concurrencia = environment.getProperty("app.http.destinos." + n + ".max-concurrencia", Integer.class, maxConcurrencia);
+            long espera = environment.getProperty("app.http.destinos." + n + ".espera-max-ms", Long.class, esperaMaxMs);
+            // El plazo total nunca es menor que el read-timeout: si no, cortaría llamadas que todavía esperan encabezados
+            long plazo = Math.max(timeout,
+                    environment.getProperty("app.http.destinos." + n + ".plazo-total-ms", Long.class, plazoTotalMs));
+            log.info("Cliente HTTP '{}': read-timeout={} ms, plazo-total={} ms, max-concurrencia={}, espera-max={} ms",
+                    n, timeout, plazo, concurrencia, espera);
+            return new Destino(n, timeout, plazo, Math.max(1, concurrencia), Math.max(0, espera));
+        });
+    }
+
+    /**
+     * Límite de llamadas simultáneas de un destino; el permiso se libera al cerrar la respuesta
+     */
+    private class Destino implements ClientHttpRequestInterceptor {
+        private final String nombre;
+        private final int maxConcurrencia;
+        private final long esperaMaxMs;
+        private final long plazoTotalMs;
+        private final Semaphore permisos;
+        private final JdkClientHttpRequestFactory requestFactory;
+        private final JdkClientHttpRequestFactory requestFactoryHttp11;
+        private final AtomicLong llamadas = new AtomicLong();
+        private final AtomicLong rechazadas = new AtomicLong();
+        private final AtomicLong timeouts = new AtomicLong();
+        private final AtomicLong vencidas = new AtomicLong();
+        private final AtomicLong esperaTotalMs = new AtomicLong();
+        private final AtomicInteger maxEnUso = new AtomicInteger();
+
+        Destino(String nombre, long readTimeoutMs, long plazoTotalMs, int maxConcurrencia, long esperaMaxMs) {
+            this.nombre = nombre;
+            this.maxConcurrencia = maxConcurrencia;
+            this.esperaMaxMs = esperaMaxMs;
+            this.plazoTotalMs = plazoTotalMs;
+            this.permisos = new Semaphore(maxConcurrencia, true);
+            this.requestFactory = new JdkClientHttpRequestFactory(httpClient);
+            this.requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+            this.requestFactoryHttp11 = new JdkClientHttpRequestFactory(httpClientHttp11);
+            this.requestFactoryHttp11.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+        }
+
+        @Override
+        public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+            long inicio = System.currentTimeMillis();
+            boolean obtenido;
+            try {
+                obtenido = permisos.tryAcquire(esperaMaxMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ResourceAccessException("Interrumpido esperando conexión a " + nombre);
+            }
+            if (!obtenido) {
+                rechazadas.incrementAndGet();
+                log.warn("Cliente HTTP '{}' saturado: {} llamadas en curso, {} en espera; se rechaza {} {}",
+                        nombre, maxConcurrencia, permisos.getQueueLength(), request.getMethod(), request.getURI().getPath());
+                throw new ResourceAccessException("Servicio " + nombre + " saturado, reintente más tarde");
+            }
+            esperaTotalMs.addAndGet(System.currentTimeMillis() - inicio);
+            llamadas.incrementAndGet();
+            maxEnUso.accumulateAndGet(maxConcurrencia - permisos.availablePermits(), Math::max);
+            long inicioLlamada = System.currentTimeMillis();
+            try {
+                RespuestaConPermiso respuesta = new RespuestaConPermiso(execution.execute(request, body), permisos);
+                long restante = Math.max(0, plazoTotalMs - (System.currentTimeMillis() - inicioLlamada));
+                respuesta.vencimiento = vigilante.schedule(() -> {
+                    if (respuesta.abortar()) {
+                        vencidas.incrementAndGet();
+                        log.warn("Cliente HTTP '{}': plazo total de {} ms vencido leyendo la respuesta de {} {}; se corta la lectura",
+                                nombre, plazoTotalMs, request.getMethod(), request.getURI().getPath());
+                    }
+                }, restante, TimeUnit.MILLISECONDS);
+                return respuesta;
+            } catch (IOException | RuntimeException e) {
+                permisos.release();
+                if (e instanceof HttpTimeoutException) {
+                    timeouts.incrementAndGet();
+                    log.warn("Cliente HTTP '{}': timeout en {} {}", nombre, request.getMethod(), request.getURI().getPath());
+                }
+                throw e;
+            }
+        }
+
+        Map<String, Object> estadisticas() {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            long total = llamadas.get();
+            stats.put("maxConcurrencia", maxConcurrencia);
+            stats.put("enUso", maxConcurrencia - permisos.availablePermits());
+            stats.put("enEspera", permisos.getQueueLength());
+            stats.put("maxEnUso", maxEnUso.get());
+            stats.put("llamadas", total);
+            stats.put("rechazadas", rechazadas.get());
+            stats.put("timeouts", timeouts.get());
+            stats.put("vencidas", vencidas.get());
+            stats.put("esperaPromedioMs", total == 0 ? 0.0 : Math.round((double) esperaTotalMs.get() / total * 100.0) / 100.0);
+            return stats;
+        }
+    }
+
+    /**
+     * Respuesta que devuelve el permiso del destino al cerrarse o al vencer su plazo total (una sola vez)
+     */
+    private static final class RespuestaConPermiso implements ClientHttpResponse {
+        private final ClientHttpResponse delegada;
+        private final Semaphore permisos;
+        private final AtomicBoolean liberado = new AtomicBoolean();
+        private volatile ScheduledFuture<?> vencimiento;
+
+        RespuestaConPermiso(ClientHttpResponse delegada, Semaphore permisos) {
+            this.delegada = delegada;
+            this.permisos = permisos;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegada.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegada.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegada.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return delegada.getBody();
+        }
+
+        /**
+         * Corta la lectura si la respuesta sigue abierta: cierra el cuerpo sin drenarlo (el close de la delegada
+         * lo drenaría y quedaría esperando al mismo destino lento) y devuelve el permiso
+         * @return true si la respuesta seguía abierta
+         */
+        boolean abortar() {
+            if (!liberado.compareAndSet(false, true)) return false;
+            try {
+                delegada.getBody().close();
+            } catch (IOException | RuntimeException e) {
+                log.debug("Error cerrando una respuesta vencida: {}", e.getMessage());
+            } finally {
+                permisos.release();
+            }
+            return true;
+        }
+
+        @Override
+        public void close() {
+            ScheduledFuture<?> v = vencimiento;
+            if (v != null) v.cancel(false);
+            try {
+                delegada.close();
+            } finally {
+                if (liberado.compareAndSet(false, true)) permisos.release();
+            }
+        }
+    }
+}
@@ -11,7 +11,9 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/v1/camiones")
@@ -37,6 +39,39 @@ public class CamionController {
         return result;
     }
 
+    /**
+     * Obtiene los camiones operativos sin tramos asignados en una franja horaria
+     * @param desde Inicio de la franja
+     * @param hasta Fin de la franja
+     * @return Lista de camiones libres
+     */
+    @GetMapping("/libres")
+    @PreAuthorize("hasAnyRole('OPERADOR','ADMIN')")
+    @Operation(summary = "Listar camiones libres en una franja horaria")
+    public List<CamionDTO> getCamionesLibres(
+            @RequestParam @org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam @org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta) {
+        logger.info("GET /api/v1/camiones/libres - Buscando camiones libres entre {} y {}", desde, hasta);
+        List<CamionDTO> result = camionService.findLibres(desde, hasta);
+        logger.info("GET /api/v1/camiones/libres - Respuesta: 200 - {} camiones libres", result.size());
+        return result;
+    }
+
+    /**
+     * Obtiene las reservas vigentes de un camión (tramos asignados no finalizados)
+     * @param dominio Dominio del camión
+     * @return Lista de reservas ordenadas por inicio
+     */
+    @GetMapping("/{dominio}/calendario")
+    @PreAuthorize("hasAnyRole('OPERADOR','TRANSPORTISTA','ADMIN')")
+    @Operation(summary = "Obtener calendario de reservas del camión")
+    public ResponseEntity<List<Map<String, Object>>> getCalendario(@PathVariable String dominio) {
+        logger.info("GET /api/v1/camiones/{}/calendario - Obteniendo reservas", dominio);
+        List<Map<String, Object>> reservas = camionService.getCalendario(dominio);
+        logger.info("GET /api/v1/camiones/{}/calendario - Respuesta: 200 - {} reservas", dominio, reservas.size());
+        return ResponseEntity.ok(reservas);
+    }
+
     /**
      * Obtiene un camión por su dominio o patente
      * @param dominio Dominio o patente del camión
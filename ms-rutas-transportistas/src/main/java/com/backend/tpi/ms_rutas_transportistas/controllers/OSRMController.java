@@ -2,6 +2,7 @@ package com.backend.tpi.ms_rutas_transportistas.controllers;
 
 import com.backend.tpi.ms_rutas_transportistas.dtos.osrm.CoordenadaDTO;
 import com.backend.tpi.ms_rutas_transportistas.dtos.osrm.RutaCalculadaDTO;
+import com.backend.tpi.ms_rutas_transportistas.services.OSRMRutaCache;
 import com.backend.tpi.ms_rutas_transportistas.services.OSRMService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -27,6 +28,12 @@ public class OSRMController {
     @Autowired
     private OSRMService osrmService;
 
+    @Autowired
+    private OSRMRutaCache rutaCache;
+
+    @Autowired
+    private com.backend.tpi.ms_rutas_transportistas.config.ClienteHttpFactory clientesHttp;
+
 
     /**
      * Calcula la distancia y duración entre dos puntos (endpoint de compatibilidad)
@@ -49,7 +56,8 @@ public class OSRMController {
         CoordenadaDTO origen = new CoordenadaDTO(origenLat, origenLong);
         CoordenadaDTO destino = new CoordenadaDTO(destinoLat, destinoLong);
         
-        RutaCalculadaDTO resultado = osrmService.calcularRuta(origen, destino);
+        // Solo se necesitan distancia y duración: se pide a OSRM sin geometría ni pasos
+        RutaCalculadaDTO resultado = osrmService.calcularRuta(origen, destino, OSRMService.Detalle.METRICAS);
         
         // Convertir a DistanciaResponseDTO para compatibilidad
         com.backend.tpi.ms_rutas_transportistas.dtos.DistanciaResponseDTO response = 
@@ -60,6 +68,41 @@ public class OSRMController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Devuelve las métricas de la caché de tramos OSRM (hits, misses, evictions)
+     * @return Estadísticas de la caché
+     */
+    @GetMapping("/cache")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Estadísticas de la caché de rutas OSRM")
+    public ResponseEntity<java.util.Map<String, Object>> getCacheEstadisticas() {
+        return ResponseEntity.ok(rutaCache.estadisticas());
+    }
+
+    /**
+     * Invalida la caché de tramos OSRM (usar tras recargar los datos de OSRM)
+     * @return Cantidad de entradas eliminadas
+     */
+    @DeleteMapping("/cache")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Invalidar la caché de rutas OSRM")
+    public ResponseEntity<java.util.Map<String, Object>> invalidarCache() {
+        int eliminadas = rutaCache.invalidar();
+        log.info("DELETE /api/v1/osrm/cache - {} entradas eliminadas", eliminadas);
+        return ResponseEntity.ok(java.util.Map.of("entradasEliminadas", eliminadas));
+    }
+
+    /**
+     * Devuelve las métricas de saturación de los clientes HTTP salientes (OSRM, microservicios)
+     * @return Llamadas en curso, en espera, rechazadas y timeouts por destino
+     */
+    @GetMapping("/clientes-http")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Estadísticas de los clientes HTTP salientes")
+    public ResponseEntity<java.util.Map<String, Object>> getClientesHttpEstadisticas() {
+        return ResponseEntity.ok(clientesHttp.estadisticas());
+    }
+
     // Only /distancia endpoint is kept for external use; other route calculation
     // capabilities are available internally via the OSRMService bean.
 }
@@ -47,6 +47,15 @@ public class RutaController {
     @Autowired
     private com.backend.tpi.ms_rutas_transportistas.repositories.RutaRepository rutaRepository;
 
+    @Autowired
+    private com.backend.tpi.ms_rutas_transportistas.services.TarifaService tarifaService;
+
+    @Autowired
+    private com.backend.tpi.ms_rutas_transportistas.services.CosteoRutasService costeoRutasService;
+
+    @Autowired
+    private com.backend.tpi.ms_rutas_transportistas.services.ExportacionService exportacionService;
+
     /**
      * Crea una nueva ruta para una solicitud de transporte
      * @param createRutaDTO Datos de la ruta a crear
@@ -82,14 +91,19 @@ public class RutaController {
 
     /**
      * Genera y persiste opciones (tentativas) para una solicitud sin crear una Ruta definitiva
-     * POST /api/v1/solicitudes/{solicitudId}/opciones
+     * POST /api/v1/solicitudes/{solicitudId}/opciones?criterio=distancia|duracion|costo&cantidad=N
      */
     @PostMapping("/solicitudes/{solicitudId}/opciones")
     @PreAuthorize("hasAnyRole('OPERADOR','ADMIN')")
-    public ResponseEntity<?> createOptionsForSolicitud(@PathVariable Long solicitudId) {
-        logger.info("POST /api/v1/solicitudes/{}/opciones - Generando y persistiendo opciones para solicitud", solicitudId);
+    public ResponseEntity<?> createOptionsForSolicitud(
+            @PathVariable Long solicitudId,
+            @RequestParam(required = false) String criterio,
+            @RequestParam(required = false) Integer cantidad) {
+        logger.info("POST /api/v1/solicitudes/{}/opciones - Generando y persistiendo opciones para solicitud (criterio={}, cantidad={})", solicitudId, criterio, cantidad);
         try {
-            java.util.List<com.backend.tpi.ms_rutas_transportistas.dtos.RutaTentativaDTO> variantes = rutaService.generateOptionsForSolicitud(solicitudId);
+            // Se valida antes de consultar la solicitud: un criterio desconocido es un 400, no un fallback silencioso
+            com.backend.tpi.ms_rutas_transportistas.services.OptimizadorRutas.Criterio.desde(criterio);
+            java.util.List<com.backend.tpi.ms_rutas_transportistas.dtos.RutaTentativaDTO> variantes = rutaService.generateOptionsForSolicitud(solicitudId, criterio, cantidad);
             java.util.List<com.backend.tpi.ms_rutas_transportistas.models.RutaOpcion> saved = rutaOpcionService.saveOptionsForSolicitud(solicitudId, variantes);
             return ResponseEntity.ok(saved);
         } catch (IllegalStateException e) {
@@ -356,6 +370,21 @@ public class RutaController {
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * Exporta todas las rutas con sus tramos en NDJSON (una ruta por línea), escribiendo a medida que se leen
+     * @param response Respuesta HTTP donde se escribe la exportación
+     */
+    @GetMapping(value = "/exportar", produces = "application/x-ndjson")
+    @PreAuthorize("hasAnyRole('OPERADOR','ADMIN')")
+    @Operation(summary = "Exportar rutas con sus tramos en NDJSON")
+    public void exportarRutas(jakarta.servlet.http.HttpServletResponse response) throws java.io.IOException {
+        logger.info("GET /api/v1/rutas/exportar - Exportando rutas");
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        long cantidad = exportacionService.exportarRutas(response.getOutputStream());
+        logger.info("GET /api/v1/rutas/exportar - Respuesta: 200 - {} rutas exportadas", cantidad);
+    }
+
     /**
      * Obtiene una ruta específica por su ID
      * @param id ID de la ruta
@@ -388,6 +417,19 @@ public class RutaController {
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Descarta la copia local de la tarifa vigente (ms-gestion-calculos la invoca al modificar tarifas)
+     * DELETE /api/v1/rutas/tarifas/cache
+     * @return Respuesta sin contenido
+     */
+    @DeleteMapping("/tarifas/cache")
+    @PreAuthorize("hasAnyRole('OPERADOR','ADMIN')")
+    public ResponseEntity<Void> invalidarCacheTarifas() {
+        logger.info("DELETE /api/v1/rutas/tarifas/cache - Invalidando tarifa vigente");
+        tarifaService.invalidar();
+        return ResponseEntity.noContent().build();
+    }
+
     // ---- Integration endpoints (delegan al service) ----
 
     /**
@@ -528,6 +570,40 @@ public class RutaController {
         }
     }
 
+    /**
+     * Recalcula los costos aproximados de muchas rutas a la vez (por ejemplo, tras un cambio en el precio del combustible)
+     * POST /api/v1/rutas/calcular-costos
+     * @param request Lista de rutas y/o rango de fechas de inicio estimado
+     * @return Resumen del costeo con el costo total por ruta
+     */
+    @PostMapping("/calcular-costos")
+    @PreAuthorize("hasAnyRole('OPERADOR','ADMIN')")
+    @Operation(summary = "Calcular costos de muchas rutas",
+            description = "Recalcula el costo aproximado de los tramos de las rutas indicadas o con inicio estimado en el rango [desde, hasta)")
+    public ResponseEntity<java.util.Map<String, Object>> calcularCostosMasivo(@RequestBody CosteoMasivoRequestDTO request) {
+        logger.info("POST /api/v1/rutas/calcular-costos - Rutas: {}, desde: {}, hasta: {}",
+                request.getRutaIds() != null ? request.getRutaIds().size() : 0, request.getDesde(), request.getHasta());
+        try {
+            java.util.Map<String, Object> resultado = costeoRutasService.calcularCostos(
+                    request.getRutaIds(), request.getDesde(), request.getHasta());
+            logger.info("POST /api/v1/rutas/calcular-costos - Respuesta: 200 - {} rutas, {} tramos",
+                    resultado.get("numeroRutas"), resultado.get("numeroTramos"));
+            return ResponseEntity.ok(resultado);
+        } catch (IllegalArgumentException e) {
+            logger.warn("POST /api/v1/rutas/calcular-costos - Respuesta: 400 - {}", e.getMessage());
+            java.util.Map<String, Object> error = new java.util.HashMap<>();
+            error.put("exitoso", false);
+            error.put("mensaje", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        } catch (Exception e) {
+            logger.error("POST /api/v1/rutas/calcular-costos - Respuesta: 500 - {}", e.getMessage());
+            java.util.Map<String, Object> error = new java.util.HashMap<>();
+            error.put("exitoso", false);
+            error.put("mensaje", "Error al calcular costos: " + e.getMessage());
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+
     /**
      * Calcula tanto las distancias como los costos de una ruta en una sola operación
      * @param id ID de la ruta
@@ -21,6 +21,15 @@ public class TramoController {
     @Autowired
     private TramoService tramoService;
 
+    @Autowired
+    private com.backend.tpi.ms_rutas_transportistas.services.SugerenciaCamionesService sugerenciaCamionesService;
+
+    @Autowired
+    private com.backend.tpi.ms_rutas_transportistas.services.AsignacionFlotaService asignacionFlotaService;
+
+    @Autowired
+    private com.backend.tpi.ms_rutas_transportistas.services.ExportacionService exportacionService;
+
     /**
      * Crea un nuevo tramo para una ruta
      * @param tramoRequestDTO Datos del tramo a crear
@@ -52,6 +61,20 @@ public class TramoController {
         return result;
     }
 
+    /**
+     * Exporta todos los tramos en NDJSON (un tramo por línea), escribiendo a medida que se leen
+     * @param response Respuesta HTTP donde se escribe la exportación
+     */
+    @GetMapping(value = "/exportar", produces = "application/x-ndjson")
+    @PreAuthorize("hasAnyRole('OPERADOR','ADMIN')")
+    public void exportarTramos(jakarta.servlet.http.HttpServletResponse response) throws java.io.IOException {
+        logger.info("GET /api/v1/tramos/exportar - Exportando tramos");
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        long cantidad = exportacionService.exportarTramos(response.getOutputStream());
+        logger.info("GET /api/v1/tramos/exportar - Respuesta: 200 - {} tramos exportados", cantidad);
+    }
+
     /**
      * Obtiene todos los tramos de una ruta específica
      * @param rutaId ID de la ruta
@@ -107,6 +130,72 @@ public class TramoController {
         }
     }
 
+    /**
+     * Sugiere los camiones disponibles más baratos que soportan la carga del tramo
+     * @param id ID del tramo
+     * @param cantidad Cantidad máxima de sugerencias (opcional)
+     * @return Carga del tramo y camiones sugeridos ordenados por costo estimado
+     */
+    @GetMapping("/{id}/camiones-sugeridos")
+    @PreAuthorize("hasAnyRole('OPERADOR','ADMIN')")
+    public ResponseEntity<?> sugerirCamiones(@PathVariable Long id,
+                                             @RequestParam(required = false) Integer cantidad) {
+        logger.info("GET /api/v1/tramos/{}/camiones-sugeridos - cantidad: {}", id, cantidad);
+        try {
+            java.util.Map<String, Object> resultado = sugerenciaCamionesService.sugerirParaTramo(id, cantidad);
+            logger.info("GET /api/v1/tramos/{}/camiones-sugeridos - Respuesta: 200 - {} sugerencias", id,
+                    ((List<?>) resultado.get("sugerencias")).size());
+            return ResponseEntity.ok(resultado);
+        } catch (IllegalArgumentException e) {
+            logger.warn("GET /api/v1/tramos/{}/camiones-sugeridos - Respuesta: 400 - {}", id, e.getMessage());
+            return ResponseEntity.badRequest().body(java.util.Map.of(
+                "error", "No se pudieron sugerir camiones",
+                "mensaje", e.getMessage()
+            ));
+        } catch (Exception e) {
+            logger.error("GET /api/v1/tramos/{}/camiones-sugeridos - Respuesta: 500 - Error inesperado: {}", id, e.getMessage());
+            return ResponseEntity.internalServerError().body(java.util.Map.of(
+                "error", "Error al sugerir camiones",
+                "mensaje", e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * Asigna automáticamente camiones a todos los tramos pendientes de una ventana de tiempo
+     * minimizando el costo total (capacidad y superposición de horarios incluidas)
+     * @param desde Inicio de la ventana (inicio estimado del tramo, inclusive)
+     * @param hasta Fin de la ventana (exclusive)
+     * @param simular Si es true solo devuelve el plan sin guardarlo
+     * @return Asignaciones, tramos sin asignar y costo total
+     */
+    @PostMapping("/asignacion-automatica")
+    @PreAuthorize("hasAnyRole('OPERADOR','ADMIN')")
+    public ResponseEntity<?> asignacionAutomatica(
+            @RequestParam @org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE_TIME) java.time.LocalDateTime desde,
+            @RequestParam @org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE_TIME) java.time.LocalDateTime hasta,
+            @RequestParam(defaultValue = "false") boolean simular) {
+        logger.info("POST /api/v1/tramos/asignacion-automatica - desde: {}, hasta: {}, simular: {}", desde, hasta, simular);
+        try {
+            java.util.Map<String, Object> resultado = asignacionFlotaService.asignar(desde, hasta, simular);
+            logger.info("POST /api/v1/tramos/asignacion-automatica - Respuesta: 200 - {} asignaciones",
+                    ((List<?>) resultado.get("asignaciones")).size());
+            return ResponseEntity.ok(resultado);
+        } catch (IllegalArgumentException e) {
+            logger.warn("POST /api/v1/tramos/asignacion-automatica - Respuesta: 400 - {}", e.getMessage());
+            return ResponseEntity.badRequest().body(java.util.Map.of(
+                "error", "Asignación automática inválida",
+                "mensaje", e.getMessage()
+            ));
+        } catch (Exception e) {
+            logger.error("POST /api/v1/tramos/asignacion-automatica - Respuesta: 500 - Error inesperado: {}", e.getMessage());
+            return ResponseEntity.internalServerError().body(java.util.Map.of(
+                "error", "Error en la asignación automática",
+                "mensaje", e.getMessage()
+            ));
+        }
+    }
+
     /**
      * Elimina un tramo del sistema
      * @param id ID del tramo a eliminar
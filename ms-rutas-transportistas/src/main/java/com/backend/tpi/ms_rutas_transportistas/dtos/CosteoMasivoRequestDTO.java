@@ -0,0 +1,28 @@
+package com.backend.tpi.ms_rutas_transportistas.dtos;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO para recalcular costos de muchas rutas a la vez
+ * Se indica una lista de rutas, un rango de fechas o ambos
+ */
+@Data
+public class CosteoMasivoRequestDTO {
+    /**
+     * IDs de las rutas a costear (opcional)
+     */
+    private List<Long> rutaIds;
+
+    /**
+     * Inicio del rango, inclusive (opcional): rutas con algún tramo cuyo inicio estimado cae en el rango
+     */
+    private LocalDateTime desde;
+
+    /**
+     * Fin del rango, exclusive (opcional, obligatorio si se indica desde)
+     */
+    private LocalDateTime hasta;
+}
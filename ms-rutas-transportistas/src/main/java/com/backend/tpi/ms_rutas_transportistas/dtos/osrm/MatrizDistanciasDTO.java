@@ -0,0 +1,34 @@
+package com.backend.tpi.ms_rutas_transportistas.dtos.osrm;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Matriz de distancias y duraciones entre N puntos (servicio /table de OSRM)
+ * Las posiciones siguen el orden de las coordenadas enviadas.
+ * Un valor NaN indica que OSRM no encontró ruta entre esos puntos.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MatrizDistanciasDTO {
+    private double[][] distanciasKm;
+    private double[][] duracionesHoras;
+    private boolean exitoso;
+    private String mensaje;
+
+    public int size() {
+        return distanciasKm != null ? distanciasKm.length : 0;
+    }
+
+    public double distanciaKm(int desde, int hasta) {
+        return distanciasKm[desde][hasta];
+    }
+
+    public double duracionHoras(int desde, int hasta) {
+        return duracionesHoras[desde][hasta];
+    }
+}
@@ -5,6 +5,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 @Data
 @Builder
 @NoArgsConstructor
@@ -14,7 +16,9 @@ public class RutaCalculadaDTO {
     private Double duracionHoras;
     private Double duracionMinutos;
     private String geometry;  // polyline para visualización
+    private List<OSRMStep> pasos;  // indicaciones giro a giro (solo si se pidieron)
     private String resumen;
     private boolean exitoso;
     private String mensaje;
+    private List<RutaCalculadaDTO> tramos;  // distancia/duración de cada tramo entre waypoints consecutivos (sin geometría)
 }
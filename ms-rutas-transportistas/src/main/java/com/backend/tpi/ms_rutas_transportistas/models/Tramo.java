@@ -35,15 +35,16 @@ public class Tramo {
     private java.math.BigDecimal destinoLong;
     private Double distancia;
 
-    @ManyToOne
+    // LAZY: los DTOs solo usan el ID de la ruta; las consultas que necesitan más la traen con fetch join
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "ruta_id")
     private Ruta ruta;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "tipo_tramo_id")
     private TipoTramo tipoTramo;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "estado_tramo_id")
     private EstadoTramo estado;
     
@@ -2,6 +2,8 @@ package com.backend.tpi.ms_rutas_transportistas.repositories;
 
 import com.backend.tpi.ms_rutas_transportistas.models.Camion;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -14,4 +16,32 @@ public interface CamionRepository extends JpaRepository<Camion, Long> {
 	// multiple rows with the same dominio. Business logic should ensure dominios
 	// are unique, but being defensive here avoids runtime errors in production.
 	java.util.Optional<Camion> findFirstByDominio(String dominio);
+
+	/**
+	 * Bloquea las filas del camión (SELECT ... FOR UPDATE) hasta el fin de la transacción
+	 * Serializa las asignaciones de un mismo camión; debe llamarse dentro de una transacción.
+	 * @param dominio Dominio (patente) del camión
+	 * @return Camiones con ese dominio
+	 */
+	@org.springframework.data.jpa.repository.Lock(jakarta.persistence.LockModeType.PESSIMISTIC_WRITE)
+	@Query("select c from Camion c where c.dominio = :dominio")
+	java.util.List<Camion> bloquearPorDominio(@Param("dominio") String dominio);
+
+	/**
+	 * Costos de un camión para el costeo masivo
+	 */
+	interface CostoCamion {
+		String getDominio();
+		Double getCostoPorKm();
+		Double getConsumoCombustiblePromedio();
+	}
+
+	/**
+	 * Busca los costos de varios camiones por dominio en una sola consulta
+	 * @param dominios Dominios (patentes) de los camiones
+	 * @return Costos de los camiones encontrados
+	 */
+	@Query("select c.dominio as dominio, c.costoPorKm as costoPorKm, c.consumoCombustiblePromedio as consumoCombustiblePromedio "
+			+ "from Camion c where c.dominio in :dominios")
+	java.util.List<CostoCamion> findCostosByDominioIn(@Param("dominios") java.util.Collection<String> dominios);
 }
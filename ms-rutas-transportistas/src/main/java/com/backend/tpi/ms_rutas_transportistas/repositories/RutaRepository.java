@@ -17,4 +17,33 @@ public interface RutaRepository extends JpaRepository<Ruta, Long> {
 	 * @return Ruta asociada a la solicitud, si existe
 	 */
 	Optional<Ruta> findByIdSolicitud(Long idSolicitud);
+
+	/**
+	 * Busca todas las rutas junto con sus tramos en una sola consulta
+	 * @return Rutas ordenadas por ID
+	 */
+	@org.springframework.data.jpa.repository.EntityGraph(attributePaths = "tramos")
+	@org.springframework.data.jpa.repository.Query("select r from Ruta r order by r.id")
+	java.util.List<Ruta> findAllConTramos();
+
+	/**
+	 * Datos de una ruta para exportación (sin cargar la entidad ni sus tramos)
+	 */
+	interface RutaExportacion {
+		Long getId();
+		Long getIdSolicitud();
+		java.time.LocalDateTime getFechaCreacion();
+		Long getOpcionSeleccionadaId();
+	}
+
+	/**
+	 * Recorre todas las rutas ordenadas por ID leyendo de a bloques (cursor del lado de la base)
+	 * Debe consumirse dentro de una transacción y cerrarse al terminar.
+	 * @return Stream de rutas
+	 */
+	@org.springframework.data.jpa.repository.QueryHints(@jakarta.persistence.QueryHint(
+			name = org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+	@org.springframework.data.jpa.repository.Query("select r.id as id, r.idSolicitud as idSolicitud, "
+			+ "r.fechaCreacion as fechaCreacion, r.opcionSeleccionadaId as opcionSeleccionadaId from Ruta r order by r.id")
+	java.util.stream.Stream<RutaExportacion> streamExportacion();
 }
@@ -2,6 +2,8 @@ package com.backend.tpi.ms_rutas_transportistas.repositories;
 
 import com.backend.tpi.ms_rutas_transportistas.models.Tramo;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -10,6 +12,15 @@ import org.springframework.stereotype.Repository;
  */
 @Repository
 public interface TramoRepository extends JpaRepository<Tramo, Long> {
+	/**
+	 * Busca un tramo por ID junto con su ruta (una sola consulta)
+	 * @param id ID del tramo
+	 * @return Tramo encontrado (opcional)
+	 */
+	@Override
+	@org.springframework.data.jpa.repository.EntityGraph(attributePaths = "ruta")
+	java.util.Optional<Tramo> findById(Long id);
+
 	/**
 	 * Busca todos los tramos de una ruta específica
 	 * @param rutaId ID de la ruta
@@ -30,4 +41,146 @@ public interface TramoRepository extends JpaRepository<Tramo, Long> {
 	 * @return Cantidad de tramos de la ruta
 	 */
 	long countByRutaId(Long rutaId);
+
+	/**
+	 * Datos mínimos de un tramo para el costeo masivo (sin cargar la entidad ni sus relaciones)
+	 */
+	interface TramoCosteo {
+		Long getId();
+		Long getRutaId();
+		Integer getOrden();
+		Double getDistancia();
+		String getCamionDominio();
+		Long getDestinoDepositoId();
+		java.time.LocalDateTime getFechaHoraInicioEstimada();
+		java.time.LocalDateTime getFechaHoraFinEstimada();
+	}
+
+	/**
+	 * Busca los datos de costeo de los tramos de varias rutas en una sola consulta
+	 * @param rutaIds IDs de las rutas
+	 * @return Tramos ordenados por ruta y por orden (los tramos sin orden quedan al final de su ruta)
+	 */
+	@Query("select t.id as id, t.ruta.id as rutaId, t.orden as orden, t.distancia as distancia, "
+			+ "t.camionDominio as camionDominio, t.destinoDepositoId as destinoDepositoId, "
+			+ "t.fechaHoraInicioEstimada as fechaHoraInicioEstimada, t.fechaHoraFinEstimada as fechaHoraFinEstimada "
+			+ "from Tramo t where t.ruta.id in :rutaIds order by t.ruta.id, t.orden asc nulls last, t.id")
+	java.util.List<TramoCosteo> findCosteoByRutaIdIn(@Param("rutaIds") java.util.Collection<Long> rutaIds);
+
+	/**
+	 * Busca las rutas que tienen al menos un tramo con inicio estimado dentro del rango
+	 * @param desde Fecha/hora desde (inclusive)
+	 * @param hasta Fecha/hora hasta (exclusive)
+	 * @return IDs de las rutas, ordenados
+	 */
+	@Query("select distinct t.ruta.id from Tramo t where t.fechaHoraInicioEstimada >= :desde "
+			+ "and t.fechaHoraInicioEstimada < :hasta order by t.ruta.id")
+	java.util.List<Long> findRutaIdsConInicioEstimadoEntre(@Param("desde") java.time.LocalDateTime desde,
+			@Param("hasta") java.time.LocalDateTime hasta);
+
+	/**
+	 * Busca los tramos sin camión asignado y sin finalizar cuyo inicio estimado cae en el rango
+	 * @param desde Fecha/hora desde (inclusive)
+	 * @param hasta Fecha/hora hasta (exclusive)
+	 * @return Tramos pendientes de asignación (con su ruta) ordenados por inicio estimado
+	 */
+	@Query("select t from Tramo t left join fetch t.ruta where t.camionDominio is null and t.fechaHoraFinReal is null "
+			+ "and t.fechaHoraInicioEstimada >= :desde and t.fechaHoraInicioEstimada < :hasta "
+			+ "order by t.fechaHoraInicioEstimada, t.id")
+	java.util.List<Tramo> findPendientesDeAsignacion(@Param("desde") java.time.LocalDateTime desde,
+			@Param("hasta") java.time.LocalDateTime hasta);
+
+	/**
+	 * Asigna un camión a un tramo solo si el tramo sigue sin camión y sin finalizar (asignación automática)
+	 * @param id ID del tramo
+	 * @param dominio dominio del camión
+	 * @return 1 si se asignó, 0 si entretanto otra operación le asignó camión o lo finalizó
+	 */
+	@org.springframework.data.jpa.repository.Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("update Tramo t set t.camionDominio = :dominio "
+			+ "where t.id = :id and t.camionDominio is null and t.fechaHoraFinReal is null")
+	int asignarCamionSiLibre(@Param("id") Long id, @Param("dominio") String dominio);
+
+	/**
+	 * Datos de un tramo asignado que ocupa un camión (para el calendario de camiones)
+	 */
+	interface ReservaCamion {
+		Long getId();
+		String getCamionDominio();
+		java.time.LocalDateTime getFechaHoraInicioEstimada();
+		java.time.LocalDateTime getFechaHoraFinEstimada();
+	}
+
+	/**
+	 * Busca los tramos con camión asignado que todavía no finalizaron
+	 * @return Reservas vigentes de camiones
+	 */
+	@Query("select t.id as id, t.camionDominio as camionDominio, t.fechaHoraInicioEstimada as fechaHoraInicioEstimada, "
+			+ "t.fechaHoraFinEstimada as fechaHoraFinEstimada from Tramo t "
+			+ "where t.camionDominio is not null and t.fechaHoraFinReal is null")
+	java.util.List<ReservaCamion> findReservasVigentes();
+
+	/**
+	 * Busca los tramos no finalizados asignados a un camión
+	 * @param dominio Dominio del camión
+	 * @return Reservas vigentes del camión
+	 */
+	@Query("select t.id as id, t.camionDominio as camionDominio, t.fechaHoraInicioEstimada as fechaHoraInicioEstimada, "
+			+ "t.fechaHoraFinEstimada as fechaHoraFinEstimada from Tramo t "
+			+ "where t.camionDominio = :dominio and t.fechaHoraFinReal is null")
+	java.util.List<ReservaCamion> findReservasVigentesByCamionDominio(@Param("dominio") String dominio);
+
+	/**
+	 * Datos de un tramo para exportación (mismos campos que TramoDTO, sin cargar la entidad)
+	 */
+	interface TramoExportacion {
+		Long getId();
+		Long getIdRuta();
+		Integer getOrden();
+		Boolean getGeneradoAutomaticamente();
+		Double getDuracionHoras();
+		Long getOrigenDepositoId();
+		Long getDestinoDepositoId();
+		Double getDistancia();
+		String getCamionDominio();
+		java.math.BigDecimal getOrigenLat();
+		java.math.BigDecimal getOrigenLong();
+		java.math.BigDecimal getDestinoLat();
+		java.math.BigDecimal getDestinoLong();
+		java.math.BigDecimal getCostoAproximado();
+		java.math.BigDecimal getCostoReal();
+		java.time.LocalDateTime getFechaHoraInicioEstimada();
+		java.time.LocalDateTime getFechaHoraFinEstimada();
+		java.time.LocalDateTime getFechaHoraInicioReal();
+		java.time.LocalDateTime getFechaHoraFinReal();
+	}
+
+	String SELECT_EXPORTACION = "select t.id as id, t.ruta.id as idRuta, t.orden as orden, "
+			+ "t.generadoAutomaticamente as generadoAutomaticamente, t.duracionHoras as duracionHoras, "
+			+ "t.origenDepositoId as origenDepositoId, t.destinoDepositoId as destinoDepositoId, t.distancia as distancia, "
+			+ "t.camionDominio as camionDominio, t.origenLat as origenLat, t.origenLong as origenLong, "
+			+ "t.destinoLat as destinoLat, t.destinoLong as destinoLong, t.costoAproximado as costoAproximado, "
+			+ "t.costoReal as costoReal, t.fechaHoraInicioEstimada as fechaHoraInicioEstimada, "
+			+ "t.fechaHoraFinEstimada as fechaHoraFinEstimada, t.fechaHoraInicioReal as fechaHoraInicioReal, "
+			+ "t.fechaHoraFinReal as fechaHoraFinReal from Tramo t ";
+
+	/**
+	 * Recorre todos los tramos ordenados por ID leyendo de a bloques (cursor del lado de la base)
+	 * Debe consumirse dentro de una transacción y cerrarse al terminar.
+	 * @return Stream de tramos
+	 */
+	@org.springframework.data.jpa.repository.QueryHints(@jakarta.persistence.QueryHint(
+			name = org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+	@Query(SELECT_EXPORTACION + "order by t.id")
+	java.util.stream.Stream<TramoExportacion> streamExportacion();
+
+	/**
+	 * Recorre los tramos con ruta ordenados por ruta, orden e ID (para exportar rutas con sus tramos)
+	 * Debe consumirse dentro de una transacción y cerrarse al terminar.
+	 * @return Stream de tramos
+	 */
+	@org.springframework.data.jpa.repository.QueryHints(@jakarta.persistence.QueryHint(
+			name = org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+	@Query(SELECT_EXPORTACION + "where t.ruta is not null order by t.ruta.id, t.orden, t.id")
+	java.util.stream.Stream<TramoExportacion> streamExportacionPorRuta();
 }
@@ -0,0 +1,221 @@
+package com.backend.tpi.ms_rutas_transportistas.services;
+
+import com.backend.tpi.ms_rutas_transportistas.models.Tramo;
+import com.backend.tpi.ms_rutas_transportistas.repositories.TramoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Asignación automática de camiones a los tramos pendientes de una ventana de tiempo
+ * Toma los tramos sin camión con inicio estimado en la ventana y los camiones disponibles y activos,
+ * resuelve con {@link AsignadorFlota} (capacidad, superposición de horarios con los tramos nuevos y con las
+ * reservas del calendario, y costo por km + combustible) y guarda el resultado en una sola transacción.
+ * Las consultas a ms-solicitudes y el cálculo se hacen fuera de la transacción; al guardar, cada tramo se
+ * asigna solo si sigue sin camión (otra asignación pudo ganarle mientras tanto) y se le calcula el costo
+ * aproximado igual que en la asignación manual.
+ * Con {@code simular = true} solo devuelve el plan.
+ */
+@Service
+public class AsignacionFlotaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsignacionFlotaService.class);
+
+    @Autowired
+    private TramoRepository tramoRepository;
+
+    @Autowired
+    private CamionCache camionCache;
+
+    @Autowired
+    private CargaContenedorService cargaContenedorService;
+
+    @Autowired
+    private TarifaService tarifaService;
+
+    @Autowired
+    private EjecutorParalelo ejecutorParalelo;
+
+    @Autowired
+    private CalendarioCamionesService calendarioCamionesService;
+
+    @Autowired
+    private TramoService tramoService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.camiones.asignacion.max-pasadas:20}")
+    private int maxPasadas;
+
+    /**
+     * Asigna camiones a los tramos pendientes de la ventana
+     * @param desde Inicio de la ventana (inclusive)
+     * @param hasta Fin de la ventana (exclusive)
+     * @param simular si es true no se guarda nada
+     * @return Map con asignaciones (tramoId, dominio, costoEstimado), tramos sin asignar con motivo y costo total
+     * @throws IllegalArgumentException si la ventana es inválida
+     */
+    public Map<String, Object> asignar(LocalDateTime desde, LocalDateTime hasta, boolean simular) {
+        long inicio = System.currentTimeMillis();
+        if (desde == null || hasta == null || !desde.isBefore(hasta)) {
+            throw new IllegalArgumentException("Debe indicar una ventana válida (desde anterior a hasta)");
+        }
+        List<Tramo> pendientes = tramoRepository.findPendientesDeAsignacion(desde, hasta);
+        logger.info("Asignación automática: {} tramos pendientes entre {} y {} (simular={})", pendientes.size(), desde, hasta, simular);
+
+        List<Map<String, Object>> sinAsignar = new ArrayList<>();
+
+        // Carga de cada solicitud (una consulta por solicitud, en paralelo y con caché)
+        List<Long> solicitudes = pendientes.stream()
+                .map(t -> t.getRuta() != null ? t.getRuta().getIdSolicitud() : null)
+                .filter(Objects::nonNull).distinct().toList();
+        List<CargaContenedorService.CargaContenedor> cargasObtenidas = ejecutorParalelo.ejecutar(solicitudes,
+                cargaContenedorService::obtenerCarga, "cargas de contenedores");
+        Map<Long, CargaContenedorService.CargaContenedor> cargas = new HashMap<>();
+        for (int i = 0; i < solicitudes.size(); i++) {
+            if (cargasObtenidas.get(i) != null) cargas.put(solicitudes.get(i), cargasObtenidas.get(i));
+        }
+
+        List<Tramo> tramos = new ArrayList<>(pendientes.size());
+        List<AsignadorFlota.TramoAsignable> asignables = new ArrayList<>(pendientes.size());
+        for (Tramo t : pendientes) {
+            Long solicitudId = t.getRuta() != null ? t.getRuta().getIdSolicitud() : null;
+            CargaContenedorService.CargaContenedor carga = solicitudId != null ? cargas.get(solicitudId) : null;
+            if (carga == null) {
+                sinAsignar.add(sinAsignar(t, "No se pudo obtener la carga del contenedor de la solicitud"));
+                continue;
+            }
+            tramos.add(t);
+            asignables.add(new AsignadorFlota.TramoAsignable(t.getId(),
+                    t.getDistancia() != null ? t.getDistancia() : 0.0,
+                    carga.peso() != null ? carga.peso() : Double.NaN,
+                    carga.volumen() != null ? carga.volumen() : Double.NaN,
+                    CalendarioCamionesService.inicio(t.getFechaHoraInicioEstimada()),
+                    CalendarioCamionesService.fin(t.getFechaHoraFinEstimada())));
+        }
+
+        // Camiones disponibles y activos con su costo por km (incluye combustible a la tarifa vigente)
+        TarifaVigente tarifa = tarifaService.getTarifaVigente();
+        double valorLitro = tarifa != null && tarifa.valorLitroCombustible() != null ? tarifa.valorLitroCombustible() : 0.0;
+        List<FichaCamion> flota = camionCache.listar().stream().filter(c -> c.disponible() && c.activo()).toList();
+        CalendarioCamiones calendario = calendarioCamionesService.getCalendario();
+        List<AsignadorFlota.CamionAsignable> camiones = new ArrayList<>(flota.size());
+        List<List<long[]>> reservas = new ArrayList<>(flota.size());
+        for (FichaCamion c : flota) {
+            List<long[]> ocupado = new ArrayList<>();
+            for (CalendarioCamiones.Reserva r : calendario.reservas(c.dominio())) ocupado.add(new long[]{r.inicio(), r.fin()});
+            reservas.add(ocupado);
+            double costoKm = (Double.isNaN(c.costoPorKm()) ? 0.0 : c.costoPorKm())
+                    + (Double.isNaN(c.consumoLitrosKm()) ? 0.0 : c.consumoLitrosKm()) * valorLitro;
+            camiones.add(new AsignadorFlota.CamionAsignable(c.dominio(), c.capacidadPesoMax(), c.capacidadVolumenMax(), costoKm));
+        }
+
+        AsignadorFlota.Resultado resultado = AsignadorFlota.resolver(asignables, camiones, reservas, Math.max(0, maxPasadas));
+
+        List<Map<String, Object>> asignaciones = new ArrayList<>(resultado.asignados());
+        List<Tramo> modificados = new ArrayList<>(resultado.asignados());
+        List<String> dominiosAsignados = new ArrayList<>(resultado.asignados());
+        List<Double> costosAsignados = new ArrayList<>(resultado.asignados());
+        for (int i = 0; i < tramos.size(); i++) {
+            Tramo t = tramos.get(i);
+            int c = resultado.camionDeTramo()[i];
+            if (c < 0) {
+                sinAsignar.add(sinAsignar(t, "Ningún camión disponible soporta la carga en ese horario"));
+                continue;
+            }
+            AsignadorFlota.CamionAsignable camion = camiones.get(c);
+            Map<String, Object> info = new HashMap<>();
+            info.put("tramoId", t.getId());
+            info.put("dominio", camion.dominio());
+            info.put("distancia", asignables.get(i).distanciaKm());
+            double costo = camion.costoKm() * asignables.get(i).distanciaKm();
+            info.put("costoEstimado", Math.round(costo * 100.0) / 100.0);
+            asignaciones.add(info);
+            modificados.add(t);
+            dominiosAsignados.add(camion.dominio());
+            costosAsignados.add(costo);
+        }
+
+        double costoTotal = resultado.costoTotal();
+        if (!simular && !modificados.isEmpty()) {
+            TreeMap<Integer, String> perdidos = transactionTemplate.execute(status -> guardar(modificados, dominiosAsignados));
+            // Lo que cambió por otra operación mientras se calculaba queda fuera del resultado
+            for (Map.Entry<Integer, String> perdido : perdidos.descendingMap().entrySet()) {
+                int k = perdido.getKey();
+                sinAsignar.add(sinAsignar(modificados.get(k), perdido.getValue()));
+                asignaciones.remove(k);
+                dominiosAsignados.remove(k);
+                costoTotal -= costosAsignados.get(k);
+            }
+        }
+        Set<String> camionesUsados = new LinkedHashSet<>(dominiosAsignados);
+
+        long ms = System.currentTimeMillis() - inicio;
+        Map<String, Object> respuesta = new HashMap<>();
+        respuesta.put("simulacion", simular);
+        respuesta.put("tramosPendientes", pendientes.size());
+        respuesta.put("camionesDisponibles", camiones.size());
+        respuesta.put("asignaciones", asignaciones);
+        respuesta.put("sinAsignar", sinAsignar);
+        respuesta.put("camionesUsados", camionesUsados.size());
+        respuesta.put("costoTotal", Math.round(costoTotal * 100.0) / 100.0);
+        respuesta.put("tiempoMs", ms);
+        logger.info("Asignación automática finalizada - {} de {} tramos asignados con {} camiones, costo {} ({} ms)",
+                asignaciones.size(), pendientes.size(), camionesUsados.size(), respuesta.get("costoTotal"), ms);
+        return respuesta;
+    }
+
+    /**
+     * Guarda las asignaciones (dentro de la transacción)
+     * Primero bloquea los camiones (en orden de dominio, igual que cualquier otra asignación automática, para no
+     * trabarse entre sí) y verifica contra la base que sigan libres en cada horario; recién después toca los tramos,
+     * así una asignación manual que espera un camión bloqueado no retiene un tramo que esta necesita.
+     * Cada tramo se asigna solo si sigue sin camión; luego se reserva el camión y se calcula el costo aproximado.
+     * @return posiciones de los tramos que no se pudieron asignar, con el motivo
+     */
+    private TreeMap<Integer, String> guardar(List<Tramo> tramos, List<String> dominios) {
+        TreeMap<Integer, String> perdidos = new TreeMap<>();
+        List<Integer> porDominio = new ArrayList<>(tramos.size());
+        for (int i = 0; i < tramos.size(); i++) porDominio.add(i);
+        porDominio.sort(Comparator.comparing(dominios::get));
+        for (int i : porDominio) {
+            if (!calendarioCamionesService.bloquearSiLibre(dominios.get(i), tramos.get(i))) {
+                logger.warn("Asignación automática: el camión {} se ocupó en el horario del tramo {}, se omite",
+                        dominios.get(i), tramos.get(i).getId());
+                perdidos.put(i, "El camión elegido fue asignado a otro tramo en ese horario por otra operación");
+            }
+        }
+        for (int i = 0; i < tramos.size(); i++) {
+            if (perdidos.containsKey(i)) continue;
+            Tramo t = tramos.get(i);
+            if (tramoRepository.asignarCamionSiLibre(t.getId(), dominios.get(i)) == 0) {
+                logger.warn("Asignación automática: el tramo {} ya no está pendiente, se omite", t.getId());
+                perdidos.put(i, "El tramo fue asignado o finalizado por otra operación");
+                continue;
+            }
+            Tramo actualizado = tramoRepository.findById(t.getId()).orElse(null);
+            if (actualizado == null) continue;
+            calendarioCamionesService.reservar(actualizado, dominios.get(i));
+            try {
+                tramoService.computeAndSaveCostoAproximadoForTramo(actualizado);
+            } catch (Exception e) {
+                logger.warn("No se pudo calcular costo aproximado para tramo {}: {}", t.getId(), e.getMessage());
+            }
+        }
+        return perdidos;
+    }
+
+    private static Map<String, Object> sinAsignar(Tramo t, String motivo) {
+        Map<String, Object> info = new HashMap<>();
+        info.put("tramoId", t.getId());
+        info.put("motivo", motivo);
+        return info;
+    }
+}
@@ -0,0 +1,247 @@
+package com.backend.tpi.ms_rutas_transportistas.services;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Asignación masiva de camiones a tramos minimizando el costo total
+ * El costo de que el camión c haga el tramo t es {@code costoKm(c) * distancia(t)} (costoKm incluye
+ * combustible). Restricciones: el camión soporta el peso y volumen de la carga, y un camión puede hacer
+ * varios tramos solo si sus intervalos estimados [inicio, fin) no se superponen entre sí ni con las reservas
+ * que ya tenía (tramos asignados antes).
+ * Resolución: greedy (tramos más largos primero, cada uno al camión más barato factible; con costos de la
+ * forma tarifa × distancia es el orden óptimo sin restricciones) seguido de búsqueda local con movimientos
+ * a camiones más baratos e intercambios entre pares hasta que no haya mejora. Para cientos de tramos y
+ * camiones termina en milisegundos.
+ */
+public final class AsignadorFlota {
+
+    /** Tramo sin intervalo estimado: ocupa al camión en exclusiva */
+    public static final long SIN_FECHA_INICIO = Long.MIN_VALUE;
+    public static final long SIN_FECHA_FIN = Long.MAX_VALUE;
+
+    private static final double EPS = 1e-9;
+
+    /**
+     * Tramo a asignar
+     * @param peso peso de la carga (NaN = desconocido, no restringe)
+     * @param volumen volumen de la carga (NaN = desconocido, no restringe)
+     * @param inicio inicio estimado en epoch millis ({@link #SIN_FECHA_INICIO} si no tiene)
+     * @param fin fin estimado en epoch millis ({@link #SIN_FECHA_FIN} si no tiene)
+     */
+    public record TramoAsignable(long id, double distanciaKm, double peso, double volumen, long inicio, long fin) {
+    }
+
+    /**
+     * Camión disponible
+     * @param pesoMax capacidad de peso (NaN = ilimitada)
+     * @param volumenMax capacidad de volumen (NaN = ilimitada)
+     * @param costoKm costo por km incluyendo combustible
+     */
+    public record CamionAsignable(String dominio, double pesoMax, double volumenMax, double costoKm) {
+    }
+
+    /**
+     * Resultado: para cada tramo (en el orden de entrada) la posición del camión asignado o -1
+     */
+    public record Resultado(int[] camionDeTramo, double costoTotal, int asignados) {
+    }
+
+    private final List<TramoAsignable> tramos;
+    private final List<CamionAsignable> camiones;
+    private final int[] camionesPorCosto;
+    private final int[] asignacion;
+    private final List<TreeMap<Long, Long>> agendas;
+
+    private AsignadorFlota(List<TramoAsignable> tramos, List<CamionAsignable> camiones) {
+        this.tramos = tramos;
+        this.camiones = camiones;
+        this.camionesPorCosto = java.util.stream.IntStream.range(0, camiones.size()).boxed()
+                .sorted(Comparator.comparingDouble((Integer c) -> camiones.get(c).costoKm())
+                        .thenComparing(c -> camiones.get(c).dominio()))
+                .mapToInt(Integer::intValue).toArray();
+        this.asignacion = new int[tramos.size()];
+        Arrays.fill(asignacion, -1);
+        this.agendas = new java.util.ArrayList<>(camiones.size());
+        for (int c = 0; c < camiones.size(); c++) agendas.add(new TreeMap<>());
+    }
+
+    /**
+     * Resuelve la asignación
+     * @param tramos tramos a asignar
+     * @param camiones camiones disponibles
+     * @param maxPasadas máximo de pasadas de mejora local
+     */
+    public static Resultado resolver(List<TramoAsignable> tramos, List<CamionAsignable> camiones, int maxPasadas) {
+        return resolver(tramos, camiones, null, maxPasadas);
+    }
+
+    /**
+     * Resuelve la asignación respetando las reservas previas de cada camión
+     * @param reservas para cada camión (misma posición), intervalos {inicio, fin} ya ocupados; null = ninguno
+     */
+    public static Resultado resolver(List<TramoAsignable> tramos, List<CamionAsignable> camiones,
+                                     List<List<long[]>> reservas, int maxPasadas) {
+        AsignadorFlota a = new AsignadorFlota(tramos, camiones);
+        if (reservas != null) {
+            for (int c = 0; c < camiones.size() && c < reservas.size(); c++) a.precargar(c, reservas.get(c));
+        }
+        a.greedy();
+        for (int pasada = 0; pasada < maxPasadas; pasada++) {
+            boolean mejoro = a.mover() | a.intercambiar();
+            // Una mejora puede liberar lugar para tramos que habían quedado sin camión
+            mejoro |= a.greedy();
+            if (!mejoro) break;
+        }
+        double costo = 0.0;
+        int asignados = 0;
+        for (int t = 0; t < tramos.size(); t++) {
+            if (a.asignacion[t] >= 0) {
+                costo += a.costo(t, a.asignacion[t]);
+                asignados++;
+            }
+        }
+        return new Resultado(a.asignacion, costo, asignados);
+    }
+
+    /**
+     * Asigna los tramos pendientes, de mayor a menor distancia, al camión más barato factible
+     * @return true si asignó al menos uno
+     */
+    private boolean greedy() {
+        Integer[] orden = new Integer[tramos.size()];
+        for (int t = 0; t < orden.length; t++) orden[t] = t;
+        Arrays.sort(orden, Comparator.comparingDouble((Integer t) -> -tramos.get(t).distanciaKm())
+                .thenComparingLong(t -> tramos.get(t).id()));
+        boolean asigno = false;
+        for (int t : orden) {
+            if (asignacion[t] >= 0) continue;
+            for (int c : camionesPorCosto) {
+                if (factible(t, c)) {
+                    ocupar(t, c);
+                    asigno = true;
+                    break;
+                }
+            }
+        }
+        return asigno;
+    }
+
+    /**
+     * Mueve cada tramo a un camión más barato si hay uno factible
+     */
+    private boolean mover() {
+        boolean mejoro = false;
+        for (int t = 0; t < tramos.size(); t++) {
+            int actual = asignacion[t];
+            if (actual < 0) continue;
+            for (int c : camionesPorCosto) {
+                if (camiones.get(c).costoKm() >= camiones.get(actual).costoKm() - EPS) break;
+                if (!factible(t, c)) continue;
+                liberar(t, actual);
+                ocupar(t, c);
+                mejoro = true;
+                break;
+            }
+        }
+        return mejoro;
+    }
+
+    /**
+     * Intercambia los camiones de dos tramos cuando baja el costo total y ambos siguen siendo factibles
+     */
+    private boolean intercambiar() {
+        boolean mejoro = false;
+        for (int i = 0; i < tramos.size(); i++) {
+            for (int j = i + 1; j < tramos.size(); j++) {
+                int a = asignacion[i];
+                int b = asignacion[j];
+                if (a < 0 || b < 0 || a == b) continue;
+                double delta = costo(i, b) + costo(j, a) - costo(i, a) - costo(j, b);
+                if (delta >= -EPS) continue;
+                if (!soporta(i, b) || !soporta(j, a)) continue;
+                liberar(i, a);
+                liberar(j, b);
+                if (libre(i, b) && libre(j, a)) {
+                    ocupar(i, b);
+                    ocupar(j, a);
+                    mejoro = true;
+                } else {
+                    ocupar(i, a);
+                    ocupar(j, b);
+                }
+            }
+        }
+        return mejoro;
+    }
+
+    /**
+     * Carga las reservas previas de un camión unificando las que se superponen,
+     * así la agenda conserva intervalos disjuntos
+     */
+    private void precargar(int c, List<long[]> intervalos) {
+        if (intervalos == null || intervalos.isEmpty()) return;
+        long[][] ordenados = intervalos.toArray(new long[0][]);
+        Arrays.sort(ordenados, Comparator.comparingLong((long[] r) -> r[0]));
+        TreeMap<Long, Long> agenda = agendas.get(c);
+        long inicio = ordenados[0][0];
+        long fin = Math.max(ordenados[0][1], inicio + 1);
+        for (int i = 1; i < ordenados.length; i++) {
+            if (ordenados[i][0] < fin) {
+                fin = Math.max(fin, ordenados[i][1]);
+            } else {
+                agenda.put(inicio, fin);
+                inicio = ordenados[i][0];
+                fin = Math.max(ordenados[i][1], inicio + 1);
+            }
+        }
+        agenda.put(inicio, fin);
+    }
+
+    private double costo(int t, int c) {
+        return camiones.get(c).costoKm() * tramos.get(t).distanciaKm();
+    }
+
+    private boolean factible(int t, int c) {
+        return soporta(t, c) && libre(t, c);
+    }
+
+    private boolean soporta(int t, int c) {
+        TramoAsignable tramo = tramos.get(t);
+        CamionAsignable camion = camiones.get(c);
+        return cabe(tramo.peso(), camion.pesoMax()) && cabe(tramo.volumen(), camion.volumenMax());
+    }
+
+    private static boolean cabe(double carga, double capacidad) {
+        return Double.isNaN(carga) || Double.isNaN(capacidad) || carga <= capacidad;
+    }
+
+    /**
+     * El intervalo del tramo no se superpone con ninguno de la agenda del camión
+     * Los intervalos de una agenda no se superponen entre sí, así que basta mirar el de mayor inicio anterior al fin
+     */
+    private boolean libre(int t, int c) {
+        long inicio = tramos.get(t).inicio();
+        long fin = fin(tramos.get(t));
+        Map.Entry<Long, Long> previo = agendas.get(c).lowerEntry(fin);
+        return previo == null || previo.getValue() <= inicio;
+    }
+
+    private void ocupar(int t, int c) {
+        agendas.get(c).put(tramos.get(t).inicio(), fin(tramos.get(t)));
+        asignacion[t] = c;
+    }
+
+    private void liberar(int t, int c) {
+        agendas.get(c).remove(tramos.get(t).inicio());
+        asignacion[t] = -1;
+    }
+
+    private static long fin(TramoAsignable tramo) {
+        // Intervalos vacíos o invertidos ocupan al menos un instante
+        return tramo.fin() > tramo.inicio() ? tramo.fin() : tramo.inicio() + 1;
+    }
+}
@@ -0,0 +1,177 @@
+package com.backend.tpi.ms_rutas_transportistas.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Calendario inmutable de reservas de camiones (tramos asignados y no finalizados)
+ * Cada reserva ocupa el camión en el intervalo semiabierto [inicio, fin) en epoch millis; un tramo sin fechas
+ * estimadas lo ocupa sin límite ({@link #SIN_INICIO}, {@link #SIN_FIN}).
+ * Índices:
+ * - árbol de intervalos implícito sobre las reservas ordenadas por inicio (cada nodo guarda el máximo fin de
+ *   su subárbol): "qué camiones están ocupados entre t1 y t2" en O(log n + k)
+ * - por camión, reservas ordenadas por inicio con máximo fin acumulado: "está libre este camión" en O(log m)
+ * Los cambios devuelven un calendario nuevo (copy-on-write), así las lecturas no necesitan sincronización.
+ */
+public final class CalendarioCamiones {
+
+    public static final long SIN_INICIO = Long.MIN_VALUE;
+    public static final long SIN_FIN = Long.MAX_VALUE;
+
+    private static final CalendarioCamiones VACIO = new CalendarioCamiones(List.of());
+
+    /**
+     * Reserva de un camión por un tramo
+     */
+    public record Reserva(long tramoId, String dominio, long inicio, long fin) {
+        public Reserva {
+            // Intervalos vacíos o invertidos ocupan al menos un instante
+            if (fin <= inicio) fin = inicio == Long.MAX_VALUE ? inicio : inicio + 1;
+        }
+    }
+
+    private final Reserva[] reservas;
+    private final long[] maxFinSubarbol;
+    private final Map<String, ReservasCamion> porCamion;
+
+    /**
+     * Reservas de un camión ordenadas por inicio con el máximo fin acumulado
+     */
+    private record ReservasCamion(Reserva[] reservas, long[] maxFinHasta) {
+    }
+
+    private CalendarioCamiones(Collection<Reserva> entrada) {
+        this.reservas = entrada.toArray(new Reserva[0]);
+        Arrays.sort(reservas, Comparator.comparingLong(Reserva::inicio).thenComparingLong(Reserva::tramoId));
+        this.maxFinSubarbol = new long[reservas.length];
+        construir(0, reservas.length);
+
+        Map<String, List<Reserva>> agrupadas = new HashMap<>();
+        for (Reserva r : reservas) agrupadas.computeIfAbsent(r.dominio(), d -> new ArrayList<>()).add(r);
+        this.porCamion = new HashMap<>(Math.max(16, agrupadas.size() * 2));
+        agrupadas.forEach((dominio, lista) -> {
+            Reserva[] ordenadas = lista.toArray(new Reserva[0]);
+            long[] maxFin = new long[ordenadas.length];
+            long max = Long.MIN_VALUE;
+            for (int i = 0; i < ordenadas.length; i++) {
+                max = Math.max(max, ordenadas[i].fin());
+                maxFin[i] = max;
+            }
+            porCamion.put(dominio, new ReservasCamion(ordenadas, maxFin));
+        });
+    }
+
+    public static CalendarioCamiones vacio() {
+        return VACIO;
+    }
+
+    public static CalendarioCamiones desde(Collection<Reserva> reservas) {
+        return new CalendarioCamiones(reservas);
+    }
+
+    public int size() {
+        return reservas.length;
+    }
+
+    /**
+     * Dominios de los camiones con alguna reserva que se superpone con [desde, hasta)
+     */
+    public Set<String> ocupados(long desde, long hasta) {
+        Set<String> dominios = new HashSet<>();
+        for (Reserva r : solapadas(desde, hasta)) dominios.add(r.dominio());
+        return dominios;
+    }
+
+    /**
+     * Reservas (de todos los camiones) que se superponen con [desde, hasta)
+     */
+    public List<Reserva> solapadas(long desde, long hasta) {
+        List<Reserva> resultado = new ArrayList<>();
+        if (desde < hasta) solapadas(0, reservas.length, desde, hasta, resultado);
+        return resultado;
+    }
+
+    /**
+     * Indica si el camión no tiene reservas que se superpongan con [desde, hasta)
+     * @param excluirTramoId reserva a ignorar (el mismo tramo al reasignarlo); null para no excluir
+     */
+    public boolean estaLibre(String dominio, long desde, long hasta, Long excluirTramoId) {
+        ReservasCamion rc = porCamion.get(dominio);
+        if (rc == null || desde >= hasta) return true;
+        // Última reserva que empieza antes de "hasta"; si ninguna anterior termina después de "desde", está libre
+        int ultima = ultimaConInicioMenorA(rc.reservas(), hasta);
+        if (ultima < 0 || rc.maxFinHasta()[ultima] <= desde) return true;
+        if (excluirTramoId == null) return false;
+        for (int i = ultima; i >= 0 && rc.maxFinHasta()[i] > desde; i--) {
+            Reserva r = rc.reservas()[i];
+            if (r.fin() > desde && r.tramoId() != excluirTramoId) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Reservas de un camión ordenadas por inicio
+     */
+    public List<Reserva> reservas(String dominio) {
+        ReservasCamion rc = porCamion.get(dominio);
+        return rc == null ? List.of() : List.of(rc.reservas());
+    }
+
+    /**
+     * Calendario con la reserva agregada (reemplaza la del mismo tramo si existía)
+     */
+    public CalendarioCamiones conReserva(Reserva reserva) {
+        List<Reserva> nuevas = new ArrayList<>(reservas.length + 1);
+        for (Reserva r : reservas) if (r.tramoId() != reserva.tramoId()) nuevas.add(r);
+        nuevas.add(reserva);
+        return new CalendarioCamiones(nuevas);
+    }
+
+    /**
+     * Calendario sin la reserva del tramo
+     */
+    public CalendarioCamiones sinTramo(long tramoId) {
+        List<Reserva> nuevas = new ArrayList<>(reservas.length);
+        for (Reserva r : reservas) if (r.tramoId() != tramoId) nuevas.add(r);
+        return nuevas.size() == reservas.length ? this : new CalendarioCamiones(nuevas);
+    }
+
+    private long construir(int lo, int hi) {
+        if (lo >= hi) return Long.MIN_VALUE;
+        int mid = (lo + hi) >>> 1;
+        long max = Math.max(reservas[mid].fin(), Math.max(construir(lo, mid), construir(mid + 1, hi)));
+        maxFinSubarbol[mid] = max;
+        return max;
+    }
+
+    private void solapadas(int lo, int hi, long desde, long hasta, List<Reserva> resultado) {
+        if (lo >= hi) return;
+        int mid = (lo + hi) >>> 1;
+        // Ninguna reserva del subárbol termina después de "desde"
+        if (maxFinSubarbol[mid] <= desde) return;
+        solapadas(lo, mid, desde, hasta, resultado);
+        Reserva r = reservas[mid];
+        // Las reservas a la derecha empiezan en o después de r: si r ya empieza en "hasta", no solapan
+        if (r.inicio() >= hasta) return;
+        if (r.fin() > desde) resultado.add(r);
+        solapadas(mid + 1, hi, desde, hasta, resultado);
+    }
+
+    private static int ultimaConInicioMenorA(Reserva[] ordenadas, long limite) {
+        int lo = 0;
+        int hi = ordenadas.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (ordenadas[mid].inicio() < limite) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo - 1;
+    }
+}
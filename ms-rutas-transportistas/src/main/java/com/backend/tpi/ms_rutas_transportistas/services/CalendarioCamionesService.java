@@ -0,0 +1,168 @@
+package com.backend.tpi.ms_rutas_transportistas.services;
+
+import com.backend.tpi.ms_rutas_transportistas.models.Tramo;
+import com.backend.tpi.ms_rutas_transportistas.repositories.CamionRepository;
+import com.backend.tpi.ms_rutas_transportistas.repositories.TramoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * Disponibilidad de camiones por franja horaria
+ * Reemplaza al flag Camion.disponible como control de ocupación: un camión puede tener varios tramos
+ * asignados mientras sus intervalos estimados no se superpongan (Camion.disponible queda como estado
+ * operativo que maneja el operador, igual que activo). El calendario se arma con los tramos asignados no
+ * finalizados, se actualiza en memoria al asignar/liberar (al confirmarse la transacción) y se recarga
+ * desde la base cada {@code recarga-minutos} por si hubo cambios fuera de este servicio (p. ej. rutas borradas).
+ * El calendario en memoria sirve para consultas y para rechazar rápido; la asignación se confirma con
+ * {@link #bloquearSiLibre(String, Tramo)}, que verifica contra la base con el camión bloqueado.
+ */
+@Service
+public class CalendarioCamionesService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CalendarioCamionesService.class);
+
+    @Autowired
+    private TramoRepository tramoRepository;
+
+    @Autowired
+    private CamionRepository camionRepository;
+
+    @Value("${app.camiones.calendario.recarga-minutos:10}")
+    private long recargaMinutos;
+
+    private final AtomicReference<CalendarioCamiones> calendario = new AtomicReference<>();
+    private volatile long cargadoEn = 0L;
+    // Cuenta las reservas/liberaciones aplicadas; una carga desde la base solo se guarda si no cambió mientras se leía
+    private final AtomicLong cambios = new AtomicLong();
+
+    /**
+     * Calendario vigente (se carga desde la base la primera vez y cuando vence)
+     */
+    public CalendarioCamiones getCalendario() {
+        CalendarioCamiones actual = calendario.get();
+        if (actual != null && cargadoEn >= System.currentTimeMillis() - recargaMinutos * 60_000L) return actual;
+        synchronized (calendario) {
+            actual = calendario.get();
+            if (actual == null || cargadoEn < System.currentTimeMillis() - recargaMinutos * 60_000L) {
+                actual = cargar();
+            }
+            return actual;
+        }
+    }
+
+    /**
+     * Indica si el camión está libre durante el intervalo estimado del tramo
+     * @param dominio dominio del camión
+     * @param tramo tramo a asignar (su propia reserva, si ya la tiene, se ignora)
+     */
+    public boolean estaLibre(String dominio, Tramo tramo) {
+        return getCalendario().estaLibre(dominio, inicio(tramo.getFechaHoraInicioEstimada()),
+                fin(tramo.getFechaHoraFinEstimada()), tramo.getId());
+    }
+
+    /**
+     * Bloquea el camión hasta el fin de la transacción y verifica contra la base que esté libre en el horario
+     * del tramo. Dos asignaciones simultáneas del mismo camión se serializan en el bloqueo: la segunda ve el
+     * tramo que guardó la primera. Debe llamarse dentro de la transacción que guarda la asignación.
+     * @param dominio dominio del camión
+     * @param tramo tramo a asignar (su propia reserva, si ya la tiene, se ignora)
+     */
+    public boolean bloquearSiLibre(String dominio, Tramo tramo) {
+        camionRepository.bloquearPorDominio(dominio);
+        List<TramoRepository.ReservaCamion> vigentes = tramoRepository.findReservasVigentesByCamionDominio(dominio);
+        List<CalendarioCamiones.Reserva> reservas = new ArrayList<>(vigentes.size());
+        for (TramoRepository.ReservaCamion r : vigentes) {
+            reservas.add(new CalendarioCamiones.Reserva(r.getId(), r.getCamionDominio(),
+                    inicio(r.getFechaHoraInicioEstimada()), fin(r.getFechaHoraFinEstimada())));
+        }
+        return CalendarioCamiones.desde(reservas).estaLibre(dominio, inicio(tramo.getFechaHoraInicioEstimada()),
+                fin(tramo.getFechaHoraFinEstimada()), tramo.getId());
+    }
+
+    /**
+     * Registra que el tramo ocupa al camión durante su intervalo estimado
+     */
+    public void reservar(Tramo tramo, String dominio) {
+        CalendarioCamiones.Reserva reserva = new CalendarioCamiones.Reserva(tramo.getId(), dominio,
+                inicio(tramo.getFechaHoraInicioEstimada()), fin(tramo.getFechaHoraFinEstimada()));
+        alConfirmar(c -> c.conReserva(reserva));
+    }
+
+    /**
+     * Libera la reserva del tramo (finalizado, reasignado o eliminado)
+     */
+    public void liberar(Long tramoId) {
+        if (tramoId == null) return;
+        alConfirmar(c -> c.sinTramo(tramoId));
+    }
+
+    /**
+     * Convierte el inicio estimado de un tramo al instante usado por el calendario
+     */
+    public static long inicio(LocalDateTime fecha) {
+        return fecha != null ? fecha.toInstant(ZoneOffset.UTC).toEpochMilli() : CalendarioCamiones.SIN_INICIO;
+    }
+
+    /**
+     * Convierte el fin estimado de un tramo al instante usado por el calendario
+     */
+    public static long fin(LocalDateTime fecha) {
+        return fecha != null ? fecha.toInstant(ZoneOffset.UTC).toEpochMilli() : CalendarioCamiones.SIN_FIN;
+    }
+
+    private CalendarioCamiones cargar() {
+        long leidoEn = cambios.get();
+        List<TramoRepository.ReservaCamion> vigentes = tramoRepository.findReservasVigentes();
+        List<CalendarioCamiones.Reserva> reservas = new ArrayList<>(vigentes.size());
+        for (TramoRepository.ReservaCamion r : vigentes) {
+            reservas.add(new CalendarioCamiones.Reserva(r.getId(), r.getCamionDominio(),
+                    inicio(r.getFechaHoraInicioEstimada()), fin(r.getFechaHoraFinEstimada())));
+        }
+        CalendarioCamiones nuevo = CalendarioCamiones.desde(reservas);
+        synchronized (this) {
+            if (cambios.get() != leidoEn) {
+                // Se confirmó una reserva/liberación durante la lectura y puede faltar en lo leído: no se guarda.
+                // Se sigue usando el calendario anterior (que sí la tiene) y la próxima consulta vuelve a cargar
+                CalendarioCamiones actual = calendario.get();
+                logger.debug("Calendario de camiones modificado durante la carga; se descarta lo leído");
+                return actual != null ? actual : nuevo;
+            }
+            calendario.set(nuevo);
+            cargadoEn = System.currentTimeMillis();
+        }
+        logger.info("Calendario de camiones cargado: {} reservas vigentes", nuevo.size());
+        return nuevo;
+    }
+
+    private void alConfirmar(UnaryOperator<CalendarioCamiones> cambio) {
+        Runnable aplicar = () -> {
+            synchronized (this) {
+                cambios.incrementAndGet();
+                calendario.updateAndGet(c -> c != null ? cambio.apply(c) : null);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    aplicar.run();
+                }
+            });
+        } else {
+            aplicar.run();
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.backend.tpi.ms_rutas_transportistas.services;
+
+import com.backend.tpi.ms_rutas_transportistas.models.Camion;
+import com.backend.tpi.ms_rutas_transportistas.repositories.CamionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caché en memoria de camiones por dominio y por id
+ * Se carga a demanda (la primera consulta de un dominio va a la base) y se mantiene con write-through:
+ * toda escritura de camiones en este servicio (alta, estado, transportista, baja, asignación y liberación
+ * en tramos) avisa a la caché. Si hay una transacción activa el cambio se publica recién al confirmarse,
+ * así un rollback no deja la caché adelantada respecto de la base.
+ * Cada cambio incrementa {@link #getVersion()} para que las estructuras derivadas (índice de capacidades)
+ * sepan cuándo reconstruirse.
+ * Una lectura de la base que empezó antes de una escritura confirmada puede traer el estado anterior: la carga
+ * a demanda no se guarda si entretanto hubo un write-through y nunca pisa una entrada existente. Además la
+ * caché entera se descarta cada {@code app.camiones.cache.ttl-minutos}, como respaldo ante cambios hechos
+ * fuera de este servicio.
+ */
+@Component
+public class CamionCache {
+
+    @Autowired
+    private CamionRepository camionRepository;
+
+    private final Map<String, FichaCamion> porDominio = new ConcurrentHashMap<>();
+    private final Map<Long, FichaCamion> porId = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    // Cuenta los write-through; una carga desde la base solo se guarda si no cambió mientras se leía
+    private final AtomicLong escrituras = new AtomicLong();
+    private volatile boolean completa = false;
+
+    @Value("${app.camiones.cache.ttl-minutos:30}")
+    private long ttlMinutos;
+
+    private volatile long venceEn = 0;
+
+    /**
+     * Busca un camión por dominio (desde la caché o, si no está, desde la base)
+     * @param dominio dominio (patente)
+     * @return ficha del camión, o vacío si no existe
+     */
+    public Optional<FichaCamion> porDominio(String dominio) {
+        if (dominio == null || dominio.isEmpty()) return Optional.empty();
+        verificarVencimiento();
+        FichaCamion ficha = porDominio.get(dominio);
+        if (ficha != null) {
+            return Optional.of(ficha);
+        }
+        long leidaEn = escrituras.get();
+        return camionRepository.findFirstByDominio(dominio).map(c -> cargar(FichaCamion.desde(c), leidaEn));
+    }
+
+    /**
+     * Busca un camión por id (desde la caché o, si no está, desde la base)
+     * @param id ID del camión
+     * @return ficha del camión, o vacío si no existe
+     */
+    public Optional<FichaCamion> porId(Long id) {
+        if (id == null) return Optional.empty();
+        verificarVencimiento();
+        FichaCamion ficha = porId.get(id);
+        if (ficha != null) {
+            return Optional.of(ficha);
+        }
+        long leidaEn = escrituras.get();
+        return camionRepository.findById(id).map(c -> cargar(FichaCamion.desde(c), leidaEn));
+    }
+
+    /**
+     * Devuelve todos los camiones; la primera vez carga la flota completa desde la base
+     * y desde entonces se mantiene con write-through
+     */
+    public List<FichaCamion> listar() {
+        verificarVencimiento();
+        if (!completa) {
+            long leidaEn = escrituras.get();
+            List<FichaCamion> flota = camionRepository.findAll().stream().map(FichaCamion::desde).toList();
+            synchronized (this) {
+                if (!completa) {
+                    if (escrituras.get() != leidaEn) {
+                        // Hubo escrituras durante la lectura: se devuelve lo leído sin guardarlo; la próxima vuelve a cargar
+                        return new ArrayList<>(flota);
+                    }
+                    flota.forEach(f -> { if (!porDominio.containsKey(f.dominio())) guardar(f); });
+                    completa = true;
+                }
+            }
+        }
+        return new ArrayList<>(porDominio.values());
+    }
+
+    /**
+     * Versión de la caché: cambia cada vez que se agrega, modifica o quita un camión
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Write-through: publica el estado actual de un camión recién guardado
+     */
+    public void actualizar(Camion camion) {
+        if (camion == null || camion.getDominio() == null) return;
+        FichaCamion ficha = FichaCamion.desde(camion);
+        alConfirmar(() -> {
+            synchronized (this) {
+                escrituras.incrementAndGet();
+                guardar(ficha);
+            }
+        });
+    }
+
+    /**
+     * Quita un camión dado de baja
+     */
+    public void quitar(String dominio) {
+        if (dominio == null) return;
+        alConfirmar(() -> {
+            synchronized (this) {
+                escrituras.incrementAndGet();
+                FichaCamion anterior = porDominio.remove(dominio);
+                if (anterior != null) porId.remove(anterior.id());
+                version.incrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * Guarda una ficha leída de la base si no hubo write-through desde que empezó la lectura
+     * y el camión no se cargó entretanto; si no, la entrada existente es la vigente
+     */
+    private FichaCamion cargar(FichaCamion ficha, long leidaEn) {
+        synchronized (this) {
+            if (escrituras.get() != leidaEn) return ficha;
+            FichaCamion existente = porDominio.get(ficha.dominio());
+            if (existente != null) return existente;
+            return guardar(ficha);
+        }
+    }
+
+    /**
+     * Descarta toda la caché si venció el TTL (respaldo ante cambios hechos fuera de este servicio)
+     */
+    private void verificarVencimiento() {
+        long ahora = System.currentTimeMillis();
+        if (ahora < venceEn) return;
+        synchronized (this) {
+            if (ahora < venceEn) return;
+            boolean habiaDatos = !porDominio.isEmpty();
+            escrituras.incrementAndGet();
+            porDominio.clear();
+            porId.clear();
+            completa = false;
+            venceEn = ahora + Math.max(1, ttlMinutos) * 60_000L;
+            if (habiaDatos) version.incrementAndGet();
+        }
+    }
+
+    private FichaCamion guardar(FichaCamion ficha) {
+        FichaCamion anterior = porDominio.put(ficha.dominio(), ficha);
+        // Si cambió el dominio de un id ya cacheado se descarta la entrada vieja
+        if (anterior != null && anterior.id() != ficha.id()) porId.remove(anterior.id());
+        FichaCamion previaId = porId.put(ficha.id(), ficha);
+        if (previaId != null && !previaId.dominio().equals(ficha.dominio())) porDominio.remove(previaId.dominio(), previaId);
+        version.incrementAndGet();
+        return ficha;
+    }
+
+    private static void alConfirmar(Runnable cambio) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cambio.run();
+                }
+            });
+        } else {
+            cambio.run();
+        }
+    }
+}
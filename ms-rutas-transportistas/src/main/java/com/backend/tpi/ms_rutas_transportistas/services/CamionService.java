@@ -9,7 +9,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class CamionService {
@@ -19,6 +25,12 @@ public class CamionService {
     @Autowired
     private CamionRepository camionRepository;
 
+    @Autowired
+    private CamionCache camionCache;
+
+    @Autowired
+    private CalendarioCamionesService calendarioCamionesService;
+
     /**
      * Obtiene la lista de todos los camiones registrados en el sistema
      * @return Lista de camiones como DTOs
@@ -32,6 +44,54 @@ public class CamionService {
         return camiones;
     }
 
+    /**
+     * Obtiene los camiones operativos (disponibles y activos) sin tramos asignados en la franja [desde, hasta)
+     * @param desde Inicio de la franja
+     * @param hasta Fin de la franja
+     * @return Lista de camiones libres como DTOs
+     * @throws IllegalArgumentException si la franja es inválida
+     */
+    public List<CamionDTO> findLibres(LocalDateTime desde, LocalDateTime hasta) {
+        if (desde == null || hasta == null || !desde.isBefore(hasta)) {
+            throw new IllegalArgumentException("Debe indicar una franja válida (desde anterior a hasta)");
+        }
+        Set<String> ocupados = calendarioCamionesService.getCalendario()
+                .ocupados(CalendarioCamionesService.inicio(desde), CalendarioCamionesService.fin(hasta));
+        List<Long> ids = camionCache.listar().stream()
+                .filter(c -> c.disponible() && c.activo() && !ocupados.contains(c.dominio()))
+                .map(FichaCamion::id)
+                .toList();
+        List<CamionDTO> camiones = ids.isEmpty() ? List.of() : camionRepository.findAllById(ids).stream()
+                .map(this::toDto)
+                .toList();
+        logger.debug("Camiones libres entre {} y {}: {} ({} ocupados)", desde, hasta, camiones.size(), ocupados.size());
+        return camiones;
+    }
+
+    /**
+     * Obtiene las reservas vigentes (tramos asignados no finalizados) de un camión
+     * @param dominio Dominio del camión
+     * @return Lista de reservas ordenadas por inicio (tramoId, inicio, fin; null si el tramo no tiene fecha estimada)
+     * @throws RuntimeException si no se encuentra el camión
+     */
+    public List<Map<String, Object>> getCalendario(String dominio) {
+        if (camionCache.porDominio(dominio).isEmpty()) {
+            logger.error("Camión no encontrado con dominio: {}", dominio);
+            throw new RuntimeException("Camión no encontrado con dominio: " + dominio);
+        }
+        List<Map<String, Object>> reservas = new ArrayList<>();
+        for (CalendarioCamiones.Reserva r : calendarioCamionesService.getCalendario().reservas(dominio)) {
+            Map<String, Object> info = new HashMap<>();
+            info.put("tramoId", r.tramoId());
+            info.put("inicio", r.inicio() == CalendarioCamiones.SIN_INICIO ? null
+                    : LocalDateTime.ofEpochSecond(Math.floorDiv(r.inicio(), 1000L), 0, ZoneOffset.UTC));
+            info.put("fin", r.fin() == CalendarioCamiones.SIN_FIN ? null
+                    : LocalDateTime.ofEpochSecond(Math.floorDiv(r.fin(), 1000L), 0, ZoneOffset.UTC));
+            reservas.add(info);
+        }
+        return reservas;
+    }
+
     /**
      * Registra un nuevo camión en el sistema
      * @param dto Datos del camión a registrar
@@ -50,8 +110,8 @@ public class CamionService {
             throw new IllegalArgumentException("El dominio del camión es obligatorio");
         }
         
-        // Validar que no exista un camión con el mismo dominio (consulta directa)
-        if (camionRepository.findFirstByDominio(dto.getDominio()).isPresent()) {
+        // Validar que no exista un camión con el mismo dominio
+        if (camionCache.porDominio(dto.getDominio()).isPresent()) {
             logger.error("Ya existe un camión con dominio: {}", dto.getDominio());
             throw new IllegalArgumentException("Ya existe un camión registrado con el dominio: " + dto.getDominio());
         }
@@ -79,6 +139,7 @@ public class CamionService {
         logger.info("Guardando nuevo camión con dominio: {}", dto.getDominio());
         Camion camion = toEntity(dto);
         Camion saved = camionRepository.save(camion);
+        camionCache.actualizar(saved);
         logger.info("Camión guardado exitosamente con ID: {}", saved.getId());
         return toDto(saved);
     }
@@ -131,6 +192,7 @@ public class CamionService {
             camion.setActivo(activo);
         }
         Camion saved = camionRepository.save(camion);
+        camionCache.actualizar(saved);
         logger.info("Estado del camión actualizado exitosamente - dominio: {}", dominio);
         return toDto(saved);
     }
@@ -153,6 +215,7 @@ public class CamionService {
         
         camion.setNombreTransportista(nombreTransportista);
         Camion saved = camionRepository.save(camion);
+        camionCache.actualizar(saved);
         logger.info("Transportista asignado exitosamente al camión con dominio: {}", dominio);
         return toDto(saved);
     }
@@ -220,6 +283,7 @@ public class CamionService {
                     return new RuntimeException("Camión no encontrado con dominio: " + dominio);
                 });
         camionRepository.delete(camion);
+        camionCache.quitar(camion.getDominio());
         logger.info("Camión eliminado exitosamente con dominio: {}", dominio);
     }
 }
@@ -0,0 +1,120 @@
+package com.backend.tpi.ms_rutas_transportistas.services;
+
+import com.backend.tpi.ms_rutas_transportistas.dtos.ContenedorIntegrationDTO;
+import com.backend.tpi.ms_rutas_transportistas.dtos.SolicitudIntegrationDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClient;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Peso y volumen del contenedor de cada solicitud, con caché local
+ * Validar o sugerir camiones para los tramos de una ruta necesita la carga de la solicitud, que en
+ * ms-solicitudes cuesta dos llamadas (solicitud y contenedor). Se guarda por solicitud durante
+ * {@code app.camiones.carga-ttl-minutos} así las sugerencias y la asignación automática de flota no repiten
+ * esas llamadas. La caché no se entera si el contenedor cambia en ms-solicitudes: las validaciones de capacidad
+ * al asignar un camión usan {@link #obtenerCargaActualizada(Long)}, que siempre consulta.
+ */
+@Service
+public class CargaContenedorService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CargaContenedorService.class);
+    private static final int MAX_CARGAS = 10_000;
+
+    @Autowired
+    private RestClient solicitudesClient;
+
+    @Value("${app.camiones.carga-ttl-minutos:10}")
+    private long cargaTtlMinutos;
+
+    private final Map<Long, CargaContenedor> cargas = new ConcurrentHashMap<>();
+
+    /**
+     * Carga del contenedor de una solicitud
+     * @param contenedorId ID del contenedor
+     * @param peso peso en kg (null si no está informado)
+     * @param volumen volumen en m³ (null si no está informado)
+     * @param obtenidaEn momento de la consulta (epoch millis)
+     */
+    public record CargaContenedor(Long contenedorId, Double peso, Double volumen, long obtenidaEn) {
+    }
+
+    /**
+     * Obtiene la carga del contenedor de una solicitud (desde la caché o desde ms-solicitudes)
+     * Para estimaciones (sugerencias, asignación automática); puede estar desactualizada hasta el TTL.
+     * @param solicitudId ID de la solicitud
+     * @return carga del contenedor
+     * @throws IllegalArgumentException si la solicitud no tiene contenedor o el contenedor no existe
+     */
+    public CargaContenedor obtenerCarga(Long solicitudId) {
+        CargaContenedor carga = cargas.get(solicitudId);
+        if (carga != null && carga.obtenidaEn() >= System.currentTimeMillis() - cargaTtlMinutos * 60_000L) {
+            logger.debug("Carga de la solicitud {} desde caché: peso={} kg, volumen={} m³", solicitudId, carga.peso(), carga.volumen());
+            return carga;
+        }
+        return obtenerCargaActualizada(solicitudId);
+    }
+
+    /**
+     * Obtiene la carga del contenedor de una solicitud siempre desde ms-solicitudes (y renueva la caché)
+     * Para validar capacidad antes de asignar un camión.
+     * @param solicitudId ID de la solicitud
+     * @return carga del contenedor
+     * @throws IllegalArgumentException si la solicitud no tiene contenedor o el contenedor no existe
+     */
+    public CargaContenedor obtenerCargaActualizada(Long solicitudId) {
+        String token = extractBearerToken();
+
+        ResponseEntity<SolicitudIntegrationDTO> solicitudEntity = solicitudesClient.get()
+                .uri("/api/v1/solicitudes/{id}", solicitudId)
+                .headers(h -> { if (token != null) h.setBearerAuth(token); })
+                .retrieve()
+                .toEntity(SolicitudIntegrationDTO.class);
+
+        SolicitudIntegrationDTO solicitud = solicitudEntity != null ? solicitudEntity.getBody() : null;
+        if (solicitud == null || solicitud.getContenedorId() == null) {
+            logger.error("No se puede validar capacidad - solicitud sin contenedor asociado o no encontrada (id={})", solicitudId);
+            throw new IllegalArgumentException("No se puede validar capacidad - solicitud sin contenedor asociado");
+        }
+
+        Long contenedorId = solicitud.getContenedorId();
+
+        ResponseEntity<ContenedorIntegrationDTO> contenedorEntity = solicitudesClient.get()
+                .uri("/api/v1/contenedores/{id}", contenedorId)
+                .headers(h -> { if (token != null) h.setBearerAuth(token); })
+                .retrieve()
+                .toEntity(ContenedorIntegrationDTO.class);
+
+        ContenedorIntegrationDTO contenedor = contenedorEntity != null ? contenedorEntity.getBody() : null;
+        if (contenedor == null) {
+            logger.error("No se puede validar capacidad - contenedor no encontrado (id={})", contenedorId);
+            throw new IllegalArgumentException("No se puede validar capacidad - contenedor no encontrado");
+        }
+
+        CargaContenedor carga = new CargaContenedor(contenedorId,
+                contenedor.getPeso() != null ? contenedor.getPeso().doubleValue() : null,
+                contenedor.getVolumen() != null ? contenedor.getVolumen().doubleValue() : null,
+                System.currentTimeMillis());
+        if (cargas.size() >= MAX_CARGAS) {
+            // Limpieza simple: se descartan las vencidas antes de agregar
+            long vencimiento = System.currentTimeMillis() - cargaTtlMinutos * 60_000L;
+            cargas.values().removeIf(c -> c.obtenidaEn() < vencimiento);
+        }
+        cargas.put(solicitudId, carga);
+        return carga;
+    }
+
+    private String extractBearerToken() {
+        var auth = org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
+        if (auth instanceof org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken) {
+            return ((org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken) auth).getToken().getTokenValue();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,160 @@
+package com.backend.tpi.ms_rutas_transportistas.services;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Foto inmutable del catálogo de depósitos de ms-gestion-calculos
+ * Los datos se guardan en arreglos primitivos paralelos (posición i = mismo depósito),
+ * así las búsquedas de cercanía y costos no parsean mapas ni hacen llamadas remotas.
+ * Coordenadas o costos ausentes se representan con NaN.
+ */
+public final class CatalogoDepositos {
+
+    private static final CatalogoDepositos VACIO = new CatalogoDepositos(null, new long[0], new double[0],
+            new double[0], new double[0], new String[0], Collections.emptyMap());
+
+    private final String version;
+    private final long[] ids;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final double[] costosEstadiaDiario;
+    private final String[] nombres;
+    private final Map<Long, Integer> posicionPorId;
+    private final IndiceEspacialDepositos indice;
+    private final Instant cargadoEn = Instant.now();
+
+    private CatalogoDepositos(String version, long[] ids, double[] latitudes, double[] longitudes,
+                              double[] costosEstadiaDiario, String[] nombres, Map<Long, Integer> posicionPorId) {
+        this.version = version;
+        this.ids = ids;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.costosEstadiaDiario = costosEstadiaDiario;
+        this.nombres = nombres;
+        this.posicionPorId = posicionPorId;
+        this.indice = new IndiceEspacialDepositos(latitudes, longitudes);
+    }
+
+    public static CatalogoDepositos vacio() {
+        return VACIO;
+    }
+
+    /**
+     * Construye el catálogo a partir de la respuesta de GET /api/v1/depositos
+     * Se ignoran entradas sin id
+     * @param depositos lista de depósitos (mapas con id, nombre, latitud, longitud, costoEstadiaDiario)
+     * @param version versión del catálogo informada por ms-gestion-calculos (puede ser null)
+     */
+    public static CatalogoDepositos desde(List<Map<String, Object>> depositos, String version) {
+        int n = depositos != null ? depositos.size() : 0;
+        long[] ids = new long[n];
+        double[] latitudes = new double[n];
+        double[] longitudes = new double[n];
+        double[] costos = new double[n];
+        String[] nombres = new String[n];
+        Map<Long, Integer> posicionPorId = new HashMap<>(Math.max(16, n * 2));
+        int i = 0;
+        for (int k = 0; k < n; k++) {
+            Map<String, Object> d = depositos.get(k);
+            if (d == null || !(d.get("id") instanceof Number)) continue;
+            long id = ((Number) d.get("id")).longValue();
+            if (posicionPorId.containsKey(id)) continue;
+            ids[i] = id;
+            latitudes[i] = numero(d.get("latitud"));
+            longitudes[i] = numero(d.get("longitud"));
+            costos[i] = numero(d.get("costoEstadiaDiario"));
+            nombres[i] = d.get("nombre") != null ? d.get("nombre").toString() : null;
+            posicionPorId.put(id, i);
+            i++;
+        }
+        if (i < n) {
+            ids = java.util.Arrays.copyOf(ids, i);
+            latitudes = java.util.Arrays.copyOf(latitudes, i);
+            longitudes = java.util.Arrays.copyOf(longitudes, i);
+            costos = java.util.Arrays.copyOf(costos, i);
+            nombres = java.util.Arrays.copyOf(nombres, i);
+        }
+        return new CatalogoDepositos(version, ids, latitudes, longitudes, costos, nombres,
+                Collections.unmodifiableMap(posicionPorId));
+    }
+
+    private static double numero(Object valor) {
+        return valor instanceof Number ? ((Number) valor).doubleValue() : Double.NaN;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public Instant getCargadoEn() {
+        return cargadoEn;
+    }
+
+    /**
+     * @return índice espacial sobre las coordenadas de este catálogo (devuelve posiciones del catálogo)
+     */
+    public IndiceEspacialDepositos getIndice() {
+        return indice;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public boolean isEmpty() {
+        return ids.length == 0;
+    }
+
+    /**
+     * @return posición del depósito en el catálogo, o -1 si no está
+     */
+    public int posicion(Long id) {
+        if (id == null) return -1;
+        Integer pos = posicionPorId.get(id);
+        return pos != null ? pos : -1;
+    }
+
+    public long id(int posicion) {
+        return ids[posicion];
+    }
+
+    public double latitud(int posicion) {
+        return latitudes[posicion];
+    }
+
+    public double longitud(int posicion) {
+        return longitudes[posicion];
+    }
+
+    public double costoEstadiaDiario(int posicion) {
+        return costosEstadiaDiario[posicion];
+    }
+
+    public String nombre(int posicion) {
+        return nombres[posicion];
+    }
+
+    public boolean tieneCoordenadas(int posicion) {
+        return !Double.isNaN(latitudes[posicion]) && !Double.isNaN(longitudes[posicion]);
+    }
+
+    /**
+     * Devuelve la info del depósito con el mismo formato que /api/v1/depositos/{id}/coordenadas
+     * @return mapa con depositoId, nombre, latitud, longitud y costoEstadiaDiario, o null si no está o no tiene coordenadas
+     */
+    public Map<String, Object> info(Long id) {
+        int pos = posicion(id);
+        if (pos < 0 || !tieneCoordenadas(pos)) return null;
+        Map<String, Object> info = new HashMap<>();
+        info.put("depositoId", ids[pos]);
+        info.put("nombre", nombres[pos]);
+        info.put("latitud", latitudes[pos]);
+        info.put("longitud", longitudes[pos]);
+        info.put("costoEstadiaDiario", Double.isNaN(costosEstadiaDiario[pos]) ? null : costosEstadiaDiario[pos]);
+        return info;
+    }
+}
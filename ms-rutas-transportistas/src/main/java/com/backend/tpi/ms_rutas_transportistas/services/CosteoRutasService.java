@@ -0,0 +1,223 @@
+package com.backend.tpi.ms_rutas_transportistas.services;
+
+import com.backend.tpi.ms_rutas_transportistas.repositories.CamionRepository;
+import com.backend.tpi.ms_rutas_transportistas.repositories.TramoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Costeo masivo de rutas (recalcular costos aproximados de muchas rutas a la vez)
+ * Aplica la misma fórmula que {@link RutaService#calcularCostoRuta(Long)} pero por bloques de rutas:
+ * por bloque se leen los tramos y los camiones con una consulta cada uno, los depósitos salen del
+ * catálogo local y la tarifa de la copia local; el cálculo se hace sobre arreglos primitivos y los
+ * costos aproximados se guardan con un único batch UPDATE de JDBC (sin cargar entidades Tramo).
+ */
+@Service
+public class CosteoRutasService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CosteoRutasService.class);
+
+    private static final String SQL_ACTUALIZAR_COSTO = "UPDATE tramos SET costo_aproximado = ? WHERE id_tramo = ?";
+
+    @Autowired
+    private TramoRepository tramoRepository;
+
+    @Autowired
+    private CamionRepository camionRepository;
+
+    @Autowired
+    private DepositoService depositoService;
+
+    @Autowired
+    private TarifaService tarifaService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.rutas.costeo-masivo.rutas-por-bloque:1000}")
+    private int rutasPorBloque;
+
+    @Value("${app.rutas.costeo-masivo.tamano-lote:500}")
+    private int tamanoLote;
+
+    /**
+     * Recalcula y guarda el costo aproximado de los tramos de varias rutas
+     * Se puede indicar una lista de rutas, un rango de fechas (rutas con algún tramo cuyo inicio estimado
+     * cae en [desde, hasta)) o ambos (se usa la unión).
+     * @param rutaIds IDs de rutas (opcional)
+     * @param desde Fecha/hora desde, inclusive (opcional, requiere hasta)
+     * @param hasta Fecha/hora hasta, exclusive (opcional, requiere desde)
+     * @return Map con el resumen (rutas, tramos actualizados, costo total por ruta, tiempo)
+     * @throws IllegalArgumentException si no se indicó ninguna ruta ni un rango válido
+     */
+    @Transactional
+    public Map<String, Object> calcularCostos(List<Long> rutaIds, LocalDateTime desde, LocalDateTime hasta) {
+        long inicio = System.currentTimeMillis();
+        if ((desde == null) != (hasta == null)) {
+            throw new IllegalArgumentException("Debe indicar ambas fechas del rango (desde y hasta)");
+        }
+        if (desde != null && !desde.isBefore(hasta)) {
+            throw new IllegalArgumentException("La fecha desde debe ser anterior a la fecha hasta");
+        }
+        if ((rutaIds == null || rutaIds.isEmpty()) && desde == null) {
+            throw new IllegalArgumentException("Debe indicar rutaIds o un rango de fechas (desde, hasta)");
+        }
+        TreeSet<Long> ids = new TreeSet<>();
+        if (rutaIds != null) {
+            for (Long id : rutaIds) if (id != null) ids.add(id);
+        }
+        if (desde != null) {
+            ids.addAll(tramoRepository.findRutaIdsConInicioEstimadoEntre(desde, hasta));
+        }
+        logger.info("Costeo masivo: {} rutas (desde={}, hasta={})", ids.size(), desde, hasta);
+
+        // Tarifa vigente: una sola lectura para todo el proceso
+        TarifaVigente tarifa = tarifaService.getTarifaVigente();
+        double valorLitro = tarifa != null && tarifa.valorLitroCombustible() != null ? tarifa.valorLitroCombustible() : 0.0;
+        double costoBaseGestionFijo = tarifa != null && tarifa.costoBaseGestionFijo() != null ? tarifa.costoBaseGestionFijo() : 0.0;
+        if (tarifa == null) {
+            logger.warn("Tarifa vigente no disponible, se usa 0.0 para valor litro y costo de gestión");
+        }
+
+        Map<Long, Double> costoPorRuta = new LinkedHashMap<>();
+        int tramosActualizados = 0;
+        List<Long> bloque = new ArrayList<>(Math.min(ids.size(), Math.max(1, rutasPorBloque)));
+        for (Long id : ids) {
+            bloque.add(id);
+            if (bloque.size() >= Math.max(1, rutasPorBloque)) {
+                tramosActualizados += costearBloque(bloque, valorLitro, costoBaseGestionFijo, costoPorRuta);
+                bloque.clear();
+            }
+        }
+        if (!bloque.isEmpty()) {
+            tramosActualizados += costearBloque(bloque, valorLitro, costoBaseGestionFijo, costoPorRuta);
+        }
+
+        double costoTotal = 0.0;
+        for (double c : costoPorRuta.values()) costoTotal += c;
+        long ms = System.currentTimeMillis() - inicio;
+
+        Map<String, Object> resultado = new HashMap<>();
+        resultado.put("numeroRutas", costoPorRuta.size());
+        resultado.put("numeroTramos", tramosActualizados);
+        resultado.put("rutasSinTramos", ids.size() - costoPorRuta.size());
+        resultado.put("costoTotal", Math.round(costoTotal * 100.0) / 100.0);
+        resultado.put("costosPorRuta", costoPorRuta);
+        resultado.put("valorLitro", valorLitro);
+        resultado.put("tiempoMs", ms);
+        resultado.put("exitoso", true);
+        resultado.put("mensaje", String.format("Costos calculados para %d tramos de %d rutas", tramosActualizados, costoPorRuta.size()));
+        logger.info("Costeo masivo finalizado - Rutas: {}, Tramos: {}, Tiempo: {} ms", costoPorRuta.size(), tramosActualizados, ms);
+        return resultado;
+    }
+
+    /**
+     * Costea un bloque de rutas: 1 consulta de tramos, 1 de camiones y 1 batch UPDATE
+     * @return cantidad de tramos actualizados
+     */
+    private int costearBloque(List<Long> rutaIds, double valorLitro, double costoBaseGestionFijo, Map<Long, Double> costoPorRuta) {
+        List<TramoRepository.TramoCosteo> tramos = tramoRepository.findCosteoByRutaIdIn(rutaIds);
+        int n = tramos.size();
+        if (n == 0) return 0;
+
+        // Camiones del bloque en una sola consulta
+        Set<String> dominios = new HashSet<>();
+        for (TramoRepository.TramoCosteo t : tramos) {
+            if (t.getCamionDominio() != null && !t.getCamionDominio().isEmpty()) dominios.add(t.getCamionDominio());
+        }
+        Map<String, CamionRepository.CostoCamion> camiones = new HashMap<>(Math.max(16, dominios.size() * 2));
+        if (!dominios.isEmpty()) {
+            for (CamionRepository.CostoCamion c : camionRepository.findCostosByDominioIn(dominios)) {
+                camiones.putIfAbsent(c.getDominio(), c);
+            }
+        }
+
+        // Costo de estadía diario: catálogo local y, para los depósitos que falten, una consulta masiva
+        CatalogoDepositos catalogo = depositoService.getCatalogo();
+        Set<Long> faltantes = new HashSet<>();
+        for (TramoRepository.TramoCosteo t : tramos) {
+            Long dep = t.getDestinoDepositoId();
+            if (dep != null && catalogo.posicion(dep) < 0) faltantes.add(dep);
+        }
+        Map<Long, Map<String, Object>> infoFaltantes = faltantes.isEmpty()
+                ? Collections.emptyMap()
+                : depositoService.getInfoForDepositos(new ArrayList<>(faltantes));
+
+        // Columnas primitivas (posición i = tramo i, agrupados por ruta y ordenados)
+        long[] tramoId = new long[n];
+        long[] rutaId = new long[n];
+        double[] distancia = new double[n];
+        double[] costoKm = new double[n];
+        double[] consumoLitrosKm = new double[n];
+        double[] estadiaDiaria = new double[n];
+        long[] diaFinEstimado = new long[n];
+        long[] diaInicioEstimado = new long[n];
+        for (int i = 0; i < n; i++) {
+            TramoRepository.TramoCosteo t = tramos.get(i);
+            tramoId[i] = t.getId();
+            rutaId[i] = t.getRutaId();
+            distancia[i] = t.getDistancia() != null ? t.getDistancia() : 0.0;
+            CamionRepository.CostoCamion camion = t.getCamionDominio() != null ? camiones.get(t.getCamionDominio()) : null;
+            costoKm[i] = camion != null && camion.getCostoPorKm() != null ? camion.getCostoPorKm() : 0.0;
+            consumoLitrosKm[i] = camion != null && camion.getConsumoCombustiblePromedio() != null ? camion.getConsumoCombustiblePromedio() : 0.0;
+            estadiaDiaria[i] = costoEstadiaDiario(catalogo, infoFaltantes, t.getDestinoDepositoId());
+            diaFinEstimado[i] = t.getFechaHoraFinEstimada() != null ? t.getFechaHoraFinEstimada().toLocalDate().toEpochDay() : Long.MIN_VALUE;
+            diaInicioEstimado[i] = t.getFechaHoraInicioEstimada() != null ? t.getFechaHoraInicioEstimada().toLocalDate().toEpochDay() : Long.MIN_VALUE;
+        }
+
+        // Cálculo: km + combustible + estadía en el depósito destino hasta el inicio del siguiente tramo de la misma ruta
+        double[] costo = new double[n];
+        int inicioRuta = 0;
+        for (int i = 0; i < n; i++) {
+            double estadia = 0.0;
+            boolean haySiguiente = i + 1 < n && rutaId[i + 1] == rutaId[i];
+            if (haySiguiente && estadiaDiaria[i] > 0.0
+                    && diaFinEstimado[i] != Long.MIN_VALUE && diaInicioEstimado[i + 1] != Long.MIN_VALUE) {
+                long noches = Math.max(0L, diaInicioEstimado[i + 1] - diaFinEstimado[i]);
+                estadia = noches * estadiaDiaria[i];
+            }
+            double bruto = costoKm[i] * distancia[i] + consumoLitrosKm[i] * distancia[i] * valorLitro + estadia;
+            costo[i] = Math.round(bruto * 100.0) / 100.0;
+
+            if (!haySiguiente) {
+                double total = costoBaseGestionFijo * (i + 1 - inicioRuta);
+                for (int j = inicioRuta; j <= i; j++) total += costo[j];
+                costoPorRuta.put(rutaId[i], Math.round(total * 100.0) / 100.0);
+                inicioRuta = i + 1;
+            }
+        }
+
+        // Persistencia: un único batch UPDATE (partido en lotes de tamanoLote sentencias)
+        List<Object[]> parametros = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            parametros.add(new Object[]{java.math.BigDecimal.valueOf(costo[i]), tramoId[i]});
+        }
+        jdbcTemplate.batchUpdate(SQL_ACTUALIZAR_COSTO, parametros, Math.max(1, tamanoLote),
+                (ps, p) -> {
+                    ps.setBigDecimal(1, (java.math.BigDecimal) p[0]);
+                    ps.setLong(2, (Long) p[1]);
+                });
+        logger.debug("Bloque costeado: {} rutas, {} tramos", rutaIds.size(), n);
+        return n;
+    }
+
+    private static double costoEstadiaDiario(CatalogoDepositos catalogo, Map<Long, Map<String, Object>> infoFaltantes, Long depositoId) {
+        if (depositoId == null) return 0.0;
+        int pos = catalogo.posicion(depositoId);
+        if (pos >= 0) {
+            double costo = catalogo.costoEstadiaDiario(pos);
+            return Double.isNaN(costo) ? 0.0 : costo;
+        }
+        Map<String, Object> info = infoFaltantes.get(depositoId);
+        Object costo = info != null ? info.get("costoEstadiaDiario") : null;
+        return costo instanceof Number ? ((Number) costo).doubleValue() : 0.0;
+    }
+}
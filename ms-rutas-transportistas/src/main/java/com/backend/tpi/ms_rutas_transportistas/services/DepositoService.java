@@ -3,12 +3,15 @@ package com.backend.tpi.ms_rutas_transportistas.services;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClient;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 public class DepositoService {
@@ -18,12 +21,137 @@ public class DepositoService {
     @Autowired
     private RestClient calculosClient;
 
+    @Value("${app.depositos.catalogo.verificacion-segundos:60}")
+    private long verificacionCatalogoSegundos;
+
+    @Value("${app.depositos.catalogo.reintento-segundos:30}")
+    private long reintentoCatalogoSegundos;
+
+    // Foto inmutable del catálogo; se reemplaza completa (nunca se modifica en el lugar)
+    private final AtomicReference<CatalogoDepositos> catalogo = new AtomicReference<>();
+    private final AtomicBoolean refrescandoCatalogo = new AtomicBoolean(false);
+    private volatile long ultimaVerificacionCatalogo = 0L;
+    // Momento hasta el que no se reintenta la primera carga después de una falla
+    private volatile long proximoIntentoCargaInicial = 0L;
+
+    /**
+     * Devuelve el catálogo local de depósitos
+     * Solo la primera carga es bloqueante; luego, si pasó el intervalo de verificación,
+     * se consulta la versión en segundo plano (con el token del request actual) y se
+     * reemplaza la foto solo si cambió. Mientras tanto se sigue sirviendo la foto vigente.
+     * Si la primera carga falla no se reintenta hasta pasados {@code app.depositos.catalogo.reintento-segundos}:
+     * mientras tanto se devuelve un catálogo vacío (los llamadores consultan los depósitos puntuales).
+     */
+    public CatalogoDepositos getCatalogo() {
+        CatalogoDepositos actual = catalogo.get();
+        if (actual == null) {
+            if (System.currentTimeMillis() < proximoIntentoCargaInicial) return CatalogoDepositos.vacio();
+            synchronized (catalogo) {
+                if (catalogo.get() == null && System.currentTimeMillis() >= proximoIntentoCargaInicial) {
+                    refrescarCatalogo(extractBearerToken());
+                    if (catalogo.get() == null) {
+                        proximoIntentoCargaInicial = System.currentTimeMillis() + reintentoCatalogoSegundos * 1000L;
+                        logger.warn("Primera carga del catálogo de depósitos fallida; próximo intento en {} s", reintentoCatalogoSegundos);
+                    }
+                }
+            }
+            actual = catalogo.get();
+            return actual != null ? actual : CatalogoDepositos.vacio();
+        }
+        long vencido = System.currentTimeMillis() - verificacionCatalogoSegundos * 1000L;
+        if (ultimaVerificacionCatalogo < vencido && refrescandoCatalogo.compareAndSet(false, true)) {
+            String token = extractBearerToken();
+            Thread.ofVirtual().name("catalogo-depositos").start(() -> {
+                try {
+                    refrescarCatalogo(token);
+                } finally {
+                    refrescandoCatalogo.set(false);
+                }
+            });
+        }
+        return actual;
+    }
+
+    /**
+     * Compara la versión local con la de ms-gestion-calculos (If-None-Match) y, si cambió,
+     * descarga la lista completa y publica una nueva foto. Ante errores se conserva la foto anterior.
+     */
+    private void refrescarCatalogo(String token) {
+        CatalogoDepositos actual = catalogo.get();
+        ultimaVerificacionCatalogo = System.currentTimeMillis();
+        String version = null;
+        try {
+            ResponseEntity<Map<String, Object>> resp = calculosClient.get()
+                    .uri("/api/v1/depositos/version")
+                    .headers(h -> {
+                        if (token != null) h.setBearerAuth(token);
+                        if (actual != null && actual.getVersion() != null) h.setIfNoneMatch(actual.getVersion());
+                    })
+                    .retrieve()
+                    .toEntity(new ParameterizedTypeReference<Map<String, Object>>() {});
+            version = resp.getHeaders().getETag();
+            if (actual != null && (resp.getStatusCode().value() == 304
+                    || (version != null && version.equals(actual.getVersion())))) {
+                logger.debug("Catálogo de depósitos sin cambios (versión {})", actual.getVersion());
+                return;
+            }
+        } catch (Exception e) {
+            logger.warn("No se pudo consultar la versión del catálogo de depósitos: {}", e.getMessage());
+        }
+        try {
+            List<Map<String, Object>> depositos = descargarDepositos(token);
+            if (depositos == null) return;
+            CatalogoDepositos nuevo = CatalogoDepositos.desde(depositos, version);
+            catalogo.set(nuevo);
+            logger.info("Catálogo de depósitos actualizado: {} depósitos (versión {})", nuevo.size(), version);
+        } catch (Exception e) {
+            logger.warn("No se pudo actualizar el catálogo de depósitos: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Obtiene el costo de estadía diario de un depósito desde el catálogo local
+     * Si el depósito todavía no figura en el catálogo se consulta a ms-gestion-calculos
+     * @return costo diario, o null si el depósito no existe o no tiene costo configurado
+     */
+    public Double getCostoEstadiaDiario(Long depositoId) {
+        if (depositoId == null) return null;
+        CatalogoDepositos cat = getCatalogo();
+        int pos = cat.posicion(depositoId);
+        if (pos >= 0) {
+            double costo = cat.costoEstadiaDiario(pos);
+            return Double.isNaN(costo) ? null : costo;
+        }
+        Map<String, Object> info = getInfoForDepositos(List.of(depositoId)).get(depositoId);
+        Object costo = info != null ? info.get("costoEstadiaDiario") : null;
+        return costo instanceof Number ? ((Number) costo).doubleValue() : null;
+    }
+
     /**
      * Obtiene la lista completa de depósitos (mapas con keys como id, latitud, longitud, nombre, etc.)
+     * Se arma desde el catálogo local, sin llamadas remotas salvo la primera carga
      */
     public List<Map<String, Object>> getAllDepositos() {
+        CatalogoDepositos cat = getCatalogo();
+        List<Map<String, Object>> depositos = new ArrayList<>(cat.size());
+        for (int i = 0; i < cat.size(); i++) {
+            Map<String, Object> d = new HashMap<>();
+            d.put("id", cat.id(i));
+            d.put("nombre", cat.nombre(i));
+            d.put("latitud", cat.tieneCoordenadas(i) ? cat.latitud(i) : null);
+            d.put("longitud", cat.tieneCoordenadas(i) ? cat.longitud(i) : null);
+            d.put("costoEstadiaDiario", Double.isNaN(cat.costoEstadiaDiario(i)) ? null : cat.costoEstadiaDiario(i));
+            depositos.add(d);
+        }
+        return depositos;
+    }
+
+    /**
+     * Descarga la lista completa de depósitos desde ms-gestion-calculos
+     * @return lista de depósitos, o null si la llamada falla
+     */
+    private List<Map<String, Object>> descargarDepositos(String token) {
         try {
-            String token = extractBearerToken();
             ResponseEntity<List<Map<String, Object>>> resp = calculosClient.get()
                     .uri("/api/v1/depositos")
                     .headers(h -> { if (token != null) h.setBearerAuth(token); })
@@ -32,132 +160,116 @@ public class DepositoService {
             return resp.getBody() != null ? resp.getBody() : Collections.emptyList();
         } catch (Exception e) {
             logger.warn("Error al obtener lista de depósitos desde ms-gestion-calculos: {}", e.getMessage());
-            return Collections.emptyList();
+            return null;
         }
     }
 
     /**
-     * Obtiene info para un conjunto de depósitos usando el endpoint /depositos/{id}/coordenadas
+     * Obtiene info para un conjunto de depósitos, primero desde el catálogo local y, para los que falten,
+     * con una sola llamada a /depositos/coordenadas?ids=...
+     * Si el endpoint masivo falla, recurre a /depositos/{id}/coordenadas por cada depósito
      */
     public Map<Long, Map<String, Object>> getInfoForDepositos(List<Long> depositosIds) {
         logger.info("=== INICIO getInfoForDepositos ===");
         logger.info("Solicitando info para depósitos: {}", depositosIds);
         Map<Long, Map<String, Object>> resultado = new HashMap<>();
         if (depositosIds == null || depositosIds.isEmpty()) return resultado;
+        CatalogoDepositos cat = getCatalogo();
+        List<Long> ids = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(depositosIds)) {
+            if (id == null) continue;
+            Map<String, Object> info = cat.info(id);
+            if (info != null) resultado.put(id, info);
+            else ids.add(id);
+        }
+        if (ids.isEmpty()) {
+            logger.info("=== FIN getInfoForDepositos: {} depósitos obtenidos del catálogo local ===", resultado.size());
+            return resultado;
+        }
         String token = extractBearerToken();
         logger.info("Token extraído: {}", token != null ? "PRESENTE (longitud=" + token.length() + ")" : "AUSENTE");
-        for (Long id : depositosIds) {
-            try {
-                logger.info("Llamando GET /api/v1/depositos/{}/coordenadas", id);
-                ResponseEntity<Map<String, Object>> resp = calculosClient.get()
-                        .uri("/api/v1/depositos/{id}/coordenadas", id)
-                        .headers(h -> { if (token != null) h.setBearerAuth(token); })
-                        .retrieve()
-                        .toEntity(new ParameterizedTypeReference<Map<String, Object>>() {});
-                if (resp.getBody() != null) {
-                    resultado.put(id, resp.getBody());
-                    logger.info("Depósito {} obtenido: {}", id, resp.getBody());
-                } else {
-                    logger.warn("Depósito {} respondió con body null", id);
+        try {
+            logger.info("Llamando GET /api/v1/depositos/coordenadas con {} ids", ids.size());
+            ResponseEntity<List<Map<String, Object>>> resp = calculosClient.get()
+                    .uri(uriBuilder -> uriBuilder.path("/api/v1/depositos/coordenadas")
+                            .queryParam("ids", ids.toArray())
+                            .build())
+                    .headers(h -> { if (token != null) h.setBearerAuth(token); })
+                    .retrieve()
+                    .toEntity(new ParameterizedTypeReference<List<Map<String, Object>>>() {});
+            if (resp.getBody() != null) {
+                for (Map<String, Object> info : resp.getBody()) {
+                    Object idObj = info.get("depositoId");
+                    if (idObj instanceof Number) resultado.put(((Number) idObj).longValue(), info);
                 }
-            } catch (Exception e) {
-                logger.error("Error al obtener info del depósito {}: {} - {}", id, e.getClass().getSimpleName(), e.getMessage());
+            }
+            List<Long> faltantes = ids.stream().filter(id -> !resultado.containsKey(id)).toList();
+            if (!faltantes.isEmpty()) {
+                logger.warn("Depósitos sin coordenadas o inexistentes: {}", faltantes);
+            }
+        } catch (Exception e) {
+            logger.warn("Error en consulta masiva de coordenadas ({}), consultando depósito por depósito", e.getMessage());
+            for (Long id : ids) {
+                Map<String, Object> info = getInfoForDeposito(id, token);
+                if (info != null) resultado.put(id, info);
             }
         }
         logger.info("=== FIN getInfoForDepositos: {} depósitos obtenidos ===", resultado.size());
         return resultado;
     }
 
+    private Map<String, Object> getInfoForDeposito(Long id, String token) {
+        try {
+            logger.info("Llamando GET /api/v1/depositos/{}/coordenadas", id);
+            ResponseEntity<Map<String, Object>> resp = calculosClient.get()
+                    .uri("/api/v1/depositos/{id}/coordenadas", id)
+                    .headers(h -> { if (token != null) h.setBearerAuth(token); })
+                    .retrieve()
+                    .toEntity(new ParameterizedTypeReference<Map<String, Object>>() {});
+            if (resp.getBody() == null) {
+                logger.warn("Depósito {} respondió con body null", id);
+            }
+            return resp.getBody();
+        } catch (Exception e) {
+            logger.error("Error al obtener info del depósito {}: {} - {}", id, e.getClass().getSimpleName(), e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * Devuelve hasta k depósitos (IDs) más cercanos al segmento definido por origen-destino,
      * excluyendo origenId y destinoId.
      */
     public List<Long> getKNearestToRoute(Long origenId, Long destinoId, int k) {
-        List<Map<String, Object>> all = getAllDepositos();
-        if (all.isEmpty()) return Collections.emptyList();
-
-        Map<Long, Map<String, Object>> mapById = new HashMap<>();
-        for (Map<String, Object> d : all) {
-            Object idObj = d.get("id");
-            if (idObj instanceof Number) mapById.put(((Number) idObj).longValue(), d);
-        }
+        CatalogoDepositos cat = getCatalogo();
+        if (cat.isEmpty()) return Collections.emptyList();
 
-        Map<String, Object> origen = mapById.get(origenId);
-        Map<String, Object> destino = mapById.get(destinoId);
-        if (origen == null || destino == null) {
+        int origen = cat.posicion(origenId);
+        int destino = cat.posicion(destinoId);
+        if (origen < 0 || destino < 0 || !cat.tieneCoordenadas(origen) || !cat.tieneCoordenadas(destino)) {
             // fallback: return first k excluding origen/destino
             List<Long> fallback = new ArrayList<>();
-            for (Map<String, Object> d : all) {
-                Long id = d.get("id") instanceof Number ? ((Number) d.get("id")).longValue() : null;
-                if (id == null) continue;
-                if (id.equals(origenId) || id.equals(destinoId)) continue;
+            for (int i = 0; i < cat.size() && fallback.size() < k; i++) {
+                long id = cat.id(i);
+                if (Objects.equals(id, origenId) || Objects.equals(id, destinoId)) continue;
                 fallback.add(id);
-                if (fallback.size() >= k) break;
             }
             return fallback;
         }
 
-        double orLat = ((Number) origen.get("latitud")).doubleValue();
-        double orLon = ((Number) origen.get("longitud")).doubleValue();
-        double deLat = ((Number) destino.get("latitud")).doubleValue();
-        double deLon = ((Number) destino.get("longitud")).doubleValue();
-
-        // Compute distance from each deposit to the segment (approx using equirectangular projection in km)
-        List<Map.Entry<Long, Double>> distances = new ArrayList<>();
-        for (Map.Entry<Long, Map<String, Object>> e : mapById.entrySet()) {
-            Long id = e.getKey();
-            if (id.equals(origenId) || id.equals(destinoId)) continue;
-            Map<String, Object> info = e.getValue();
-            if (info.get("latitud") == null || info.get("longitud") == null) continue;
-            double lat = ((Number) info.get("latitud")).doubleValue();
-            double lon = ((Number) info.get("longitud")).doubleValue();
-            double dist = pointToSegmentDistanceKm(orLat, orLon, deLat, deLon, lat, lon);
-            distances.add(new AbstractMap.SimpleEntry<>(id, dist));
-        }
+        double orLat = cat.latitud(origen);
+        double orLon = cat.longitud(origen);
+        double deLat = cat.latitud(destino);
+        double deLon = cat.longitud(destino);
 
-        distances.sort(Comparator.comparingDouble(Map.Entry::getValue));
-        List<Long> result = new ArrayList<>();
-        for (int i = 0; i < Math.min(k, distances.size()); i++) result.add(distances.get(i).getKey());
+        // k más cercanos al corredor origen-destino usando el índice espacial del catálogo
+        int[] cercanos = cat.getIndice().masCercanosASegmento(orLat, orLon, deLat, deLon, k,
+                pos -> pos == origen || pos == destino);
+        List<Long> result = new ArrayList<>(cercanos.length);
+        for (int pos : cercanos) result.add(cat.id(pos));
         return result;
     }
 
-    // Approximate distance from point P to segment AB in kilometers using equirectangular projection
-    private double pointToSegmentDistanceKm(double aLat, double aLon, double bLat, double bLon, double pLat, double pLon) {
-        // convert degrees to radians
-        double lat1 = Math.toRadians(aLat);
-        double lon1 = Math.toRadians(aLon);
-        double lat2 = Math.toRadians(bLat);
-        double lon2 = Math.toRadians(bLon);
-        double latP = Math.toRadians(pLat);
-        double lonP = Math.toRadians(pLon);
-
-        double meanLat = (lat1 + lat2 + latP) / 3.0;
-        double kmPerDegLat = 111.32; // approx
-        double kmPerDegLon = 111.32 * Math.cos(meanLat);
-
-        double ax = aLon * kmPerDegLon;
-        double ay = aLat * kmPerDegLat;
-        double bx = bLon * kmPerDegLon;
-        double by = bLat * kmPerDegLat;
-        double px = pLon * kmPerDegLon;
-        double py = pLat * kmPerDegLat;
-
-        double vx = bx - ax;
-        double vy = by - ay;
-        double wx = px - ax;
-        double wy = py - ay;
-
-        double c1 = vx * wx + vy * wy;
-        double c2 = vx * vx + vy * vy;
-        double t = c2 == 0 ? 0 : c1 / c2;
-        if (t < 0) t = 0; if (t > 1) t = 1;
-        double projx = ax + t * vx;
-        double projy = ay + t * vy;
-        double dx = px - projx;
-        double dy = py - projy;
-        return Math.sqrt(dx*dx + dy*dy);
-    }
-
     private String extractBearerToken() {
         var auth = org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
         if (auth instanceof org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken) {
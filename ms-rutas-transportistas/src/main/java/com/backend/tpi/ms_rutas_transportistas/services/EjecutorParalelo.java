@@ -0,0 +1,133 @@
+package com.backend.tpi.ms_rutas_transportistas.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Ejecuta tareas bloqueantes (llamadas a OSRM / otros microservicios) en paralelo sobre hilos virtuales
+ * Cada invocación limita la cantidad de tareas simultáneas y espera como máximo el plazo configurado;
+ * lo que no terminó a tiempo se cancela y se devuelve como null.
+ * El contexto de seguridad del request se propaga a los hilos, así se reenvía el mismo token.
+ * Una invocación hecha desde dentro de una tarea (p. ej. los tramos de cada variante) no abre otro nivel de
+ * paralelismo: corre en el hilo de la tarea, de a una entrada, y respeta el plazo de la invocación externa.
+ * Así un request no supera maxConcurrencia llamadas simultáneas ni extiende su plazo.
+ * Una sola entrada también corre en un hilo aparte: el hilo que invoca no espera más que el plazo.
+ */
+@Component
+@Slf4j
+public class EjecutorParalelo {
+
+    private final int maxConcurrencia;
+    private final long plazoMillis;
+
+    // Vencimiento (System.nanoTime) de la invocación externa, presente solo en los hilos de sus tareas
+    private static final ThreadLocal<Long> VENCIMIENTO = new ThreadLocal<>();
+
+    public EjecutorParalelo(
+            @Value("${app.rutas.paralelo.max-concurrencia:4}") int maxConcurrencia,
+            @Value("${app.rutas.paralelo.plazo-ms:15000}") long plazoMillis) {
+        this.maxConcurrencia = Math.max(1, maxConcurrencia);
+        this.plazoMillis = Math.max(1, plazoMillis);
+    }
+
+    /**
+     * Aplica la tarea a cada entrada en paralelo
+     * @param entradas datos de entrada
+     * @param tarea función bloqueante a ejecutar por entrada
+     * @param descripcion texto para los logs
+     * @return resultados en el mismo orden que las entradas; null si la tarea falló o no terminó en plazo
+     */
+    public <T, R> List<R> ejecutar(List<T> entradas, Function<T, R> tarea, String descripcion) {
+        List<R> resultados = new ArrayList<>(entradas.size());
+        if (entradas.isEmpty()) return resultados;
+        Long vencimientoExterno = VENCIMIENTO.get();
+        if (vencimientoExterno != null) {
+            return ejecutarAnidado(entradas, tarea, descripcion, vencimientoExterno);
+        }
+        Semaphore permisos = new Semaphore(maxConcurrencia);
+        long vencimiento = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(plazoMillis);
+        List<Callable<R>> tareas = new ArrayList<>(entradas.size());
+        for (T entrada : entradas) {
+            tareas.add(() -> {
+                permisos.acquire();
+                VENCIMIENTO.set(vencimiento);
+                try {
+                    return tarea.apply(entrada);
+                } finally {
+                    VENCIMIENTO.remove();
+                    permisos.release();
+                }
+            });
+        }
+
+        ExecutorService executor = new DelegatingSecurityContextExecutorService(Executors.newVirtualThreadPerTaskExecutor());
+        long inicio = System.currentTimeMillis();
+        int vencidas = 0;
+        try {
+            List<Future<R>> futuros = executor.invokeAll(tareas, plazoMillis, TimeUnit.MILLISECONDS);
+            for (Future<R> futuro : futuros) {
+                try {
+                    resultados.add(futuro.get());
+                } catch (CancellationException e) {
+                    vencidas++;
+                    resultados.add(null);
+                } catch (ExecutionException e) {
+                    log.warn("{}: tarea falló: {}", descripcion, e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+                    resultados.add(null);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("{}: ejecución interrumpida", descripcion);
+            while (resultados.size() < entradas.size()) resultados.add(null);
+        } finally {
+            executor.shutdownNow();
+        }
+        if (vencidas > 0) {
+            log.warn("{}: {} de {} tareas sin terminar tras {} ms", descripcion, vencidas, entradas.size(), plazoMillis);
+        } else {
+            log.debug("{}: {} tareas en {} ms", descripcion, entradas.size(), System.currentTimeMillis() - inicio);
+        }
+        return resultados;
+    }
+
+    /**
+     * Invocación desde una tarea de otra invocación: secuencial en el hilo actual y con el plazo externo
+     * Las entradas que quedan sin empezar al vencer el plazo (o al interrumpirse el hilo) se devuelven como null.
+     */
+    private <T, R> List<R> ejecutarAnidado(List<T> entradas, Function<T, R> tarea, String descripcion, long vencimiento) {
+        List<R> resultados = new ArrayList<>(entradas.size());
+        int vencidas = 0;
+        for (T entrada : entradas) {
+            if (System.nanoTime() - vencimiento >= 0 || Thread.currentThread().isInterrupted()) {
+                vencidas++;
+                resultados.add(null);
+                continue;
+            }
+            try {
+                resultados.add(tarea.apply(entrada));
+            } catch (Exception e) {
+                log.warn("{}: tarea falló: {}", descripcion, e.getMessage());
+                resultados.add(null);
+            }
+        }
+        if (vencidas > 0) {
+            log.warn("{}: {} de {} tareas sin empezar al vencer el plazo", descripcion, vencidas, entradas.size());
+        }
+        return resultados;
+    }
+}
@@ -0,0 +1,145 @@
+package com.backend.tpi.ms_rutas_transportistas.services;
+
+import com.backend.tpi.ms_rutas_transportistas.dtos.RutaDTO;
+import com.backend.tpi.ms_rutas_transportistas.dtos.TramoDTO;
+import com.backend.tpi.ms_rutas_transportistas.repositories.RutaRepository;
+import com.backend.tpi.ms_rutas_transportistas.repositories.TramoRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Exportación de rutas y tramos en NDJSON (un objeto JSON por línea)
+ * Recorre las tablas con un cursor de la base (fetch size en los repositorios) sobre proyecciones, sin cargar
+ * entidades, y escribe cada línea en la respuesta a medida que la lee: la memoria no depende de la cantidad
+ * de filas. Cada línea tiene el mismo formato que los DTOs de los listados.
+ */
+@Service
+public class ExportacionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportacionService.class);
+
+    @Autowired
+    private RutaRepository rutaRepository;
+
+    @Autowired
+    private TramoRepository tramoRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Escribe todos los tramos ordenados por ID
+     * @param salida stream de la respuesta (no se cierra)
+     * @return cantidad de tramos exportados
+     */
+    @Transactional(readOnly = true)
+    public long exportarTramos(OutputStream salida) throws IOException {
+        long inicio = System.currentTimeMillis();
+        long cantidad = 0;
+        try (Stream<TramoRepository.TramoExportacion> tramos = tramoRepository.streamExportacion();
+             JsonGenerator generador = crearGenerador(salida)) {
+            ObjectWriter writer = writer();
+            Iterator<TramoRepository.TramoExportacion> it = tramos.iterator();
+            while (it.hasNext()) {
+                escribirLinea(writer, generador, toDto(it.next()));
+                cantidad++;
+            }
+        }
+        logger.info("Exportación de tramos finalizada: {} tramos en {} ms", cantidad, System.currentTimeMillis() - inicio);
+        return cantidad;
+    }
+
+    /**
+     * Escribe todas las rutas ordenadas por ID, cada una con sus tramos
+     * Las rutas y los tramos (ordenados por ruta) se recorren juntos, así en memoria hay una sola ruta a la vez.
+     * @param salida stream de la respuesta (no se cierra)
+     * @return cantidad de rutas exportadas
+     */
+    @Transactional(readOnly = true)
+    public long exportarRutas(OutputStream salida) throws IOException {
+        long inicio = System.currentTimeMillis();
+        long cantidad = 0;
+        try (Stream<RutaRepository.RutaExportacion> rutas = rutaRepository.streamExportacion();
+             Stream<TramoRepository.TramoExportacion> tramos = tramoRepository.streamExportacionPorRuta();
+             JsonGenerator generador = crearGenerador(salida)) {
+            ObjectWriter writer = writer();
+            Iterator<TramoRepository.TramoExportacion> itTramos = tramos.iterator();
+            TramoRepository.TramoExportacion pendiente = itTramos.hasNext() ? itTramos.next() : null;
+            Iterator<RutaRepository.RutaExportacion> itRutas = rutas.iterator();
+            while (itRutas.hasNext()) {
+                RutaRepository.RutaExportacion ruta = itRutas.next();
+                List<TramoDTO> tramosRuta = new ArrayList<>();
+                // Tramos de rutas anteriores (no debería haber) se descartan; los de esta ruta se agregan
+                while (pendiente != null && pendiente.getIdRuta() <= ruta.getId()) {
+                    if (pendiente.getIdRuta().equals(ruta.getId())) tramosRuta.add(toDto(pendiente));
+                    pendiente = itTramos.hasNext() ? itTramos.next() : null;
+                }
+                RutaDTO dto = new RutaDTO();
+                dto.setId(ruta.getId());
+                dto.setIdSolicitud(ruta.getIdSolicitud());
+                dto.setFechaCreacion(ruta.getFechaCreacion());
+                dto.setOpcionSeleccionadaId(ruta.getOpcionSeleccionadaId());
+                dto.setTramos(tramosRuta);
+                escribirLinea(writer, generador, dto);
+                cantidad++;
+            }
+        }
+        logger.info("Exportación de rutas finalizada: {} rutas en {} ms", cantidad, System.currentTimeMillis() - inicio);
+        return cantidad;
+    }
+
+    private JsonGenerator crearGenerador(OutputStream salida) throws IOException {
+        JsonGenerator generador = objectMapper.getFactory().createGenerator(salida);
+        // El stream de la respuesta lo cierra el contenedor
+        generador.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return generador;
+    }
+
+    private ObjectWriter writer() {
+        // Sin flush por objeto: el buffer de la respuesta se envía cuando se llena
+        return objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    private static void escribirLinea(ObjectWriter writer, JsonGenerator generador, Object valor) throws IOException {
+        writer.writeValue(generador, valor);
+        generador.writeRaw('\n');
+    }
+
+    private static TramoDTO toDto(TramoRepository.TramoExportacion t) {
+        TramoDTO dto = new TramoDTO();
+        dto.setId(t.getId());
+        dto.setIdRuta(t.getIdRuta());
+        dto.setOrden(t.getOrden());
+        dto.setGeneradoAutomaticamente(t.getGeneradoAutomaticamente());
+        dto.setDuracionHoras(t.getDuracionHoras());
+        dto.setOrigenDepositoId(t.getOrigenDepositoId());
+        dto.setDestinoDepositoId(t.getDestinoDepositoId());
+        dto.setOrigenLat(t.getOrigenLat());
+        dto.setOrigenLong(t.getOrigenLong());
+        dto.setDestinoLat(t.getDestinoLat());
+        dto.setDestinoLong(t.getDestinoLong());
+        dto.setDistancia(t.getDistancia());
+        dto.setCamionDominio(t.getCamionDominio());
+        dto.setCostoAproximado(t.getCostoAproximado());
+        dto.setCostoReal(t.getCostoReal());
+        dto.setFechaHoraInicioEstimada(t.getFechaHoraInicioEstimada());
+        dto.setFechaHoraFinEstimada(t.getFechaHoraFinEstimada());
+        dto.setFechaHoraInicioReal(t.getFechaHoraInicioReal());
+        dto.setFechaHoraFinReal(t.getFechaHoraFinReal());
+        return dto;
+    }
+}
@@ -0,0 +1,37 @@
+package com.backend.tpi.ms_rutas_transportistas.services;
+
+import com.backend.tpi.ms_rutas_transportistas.models.Camion;
+
+/**
+ * Foto inmutable y compacta de un camión para lecturas frecuentes (costeo, validación de capacidad)
+ * Los valores numéricos ausentes se representan con NaN; disponible/activo ausentes valen true
+ * (mismo criterio que las validaciones de asignación, que solo rechazan un false explícito).
+ * @param id ID del camión
+ * @param dominio dominio (patente)
+ * @param costoPorKm costo por km recorrido (NaN si no está configurado)
+ * @param consumoLitrosKm consumo promedio de combustible en litros/km (NaN si no está configurado)
+ * @param capacidadPesoMax capacidad máxima de peso (NaN si no está configurada)
+ * @param capacidadVolumenMax capacidad máxima de volumen (NaN si no está configurada)
+ * @param disponible si el camión está libre para asignarse
+ * @param activo si el camión está activo en el sistema
+ */
+public record FichaCamion(long id, String dominio, double costoPorKm, double consumoLitrosKm,
+                          double capacidadPesoMax, double capacidadVolumenMax,
+                          boolean disponible, boolean activo) {
+
+    public static FichaCamion desde(Camion camion) {
+        return new FichaCamion(
+                camion.getId() != null ? camion.getId() : 0L,
+                camion.getDominio(),
+                valor(camion.getCostoPorKm()),
+                valor(camion.getConsumoCombustiblePromedio()),
+                valor(camion.getCapacidadPesoMax()),
+                valor(camion.getCapacidadVolumenMax()),
+                camion.getDisponible() == null || camion.getDisponible(),
+                camion.getActivo() == null || camion.getActivo());
+    }
+
+    private static double valor(Double d) {
+        return d != null ? d : Double.NaN;
+    }
+}
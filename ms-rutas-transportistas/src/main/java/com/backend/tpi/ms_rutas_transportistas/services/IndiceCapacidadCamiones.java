@@ -0,0 +1,154 @@
+package com.backend.tpi.ms_rutas_transportistas.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+/**
+ * Índice inmutable de camiones asignables (disponibles y activos) ordenados por capacidad de peso
+ * Para una carga dada, la búsqueda binaria ubica en O(log n) el primer camión que soporta el peso; el máximo
+ * de volumen de cada sufijo permite descartar en O(1) cuando ninguno soporta el volumen. Entre los que
+ * soportan el peso se eligen los {@code limite} más baratos para la distancia con un heap acotado.
+ * Capacidades no configuradas (NaN) se consideran ilimitadas, igual que en la validación de asignación.
+ */
+public final class IndiceCapacidadCamiones {
+
+    private static final IndiceCapacidadCamiones VACIO = new IndiceCapacidadCamiones(new FichaCamion[0], -1L);
+
+    /**
+     * Camión sugerido con su costo estimado para la distancia pedida
+     */
+    public record Sugerencia(FichaCamion camion, double costoEstimado) {
+    }
+
+    private final long version;
+    private final FichaCamion[] camiones;
+    private final double[] pesoMax;
+    private final double[] volumenMax;
+    private final double[] maxVolumenSufijo;
+    private final double[] costoPorKm;
+    private final double[] consumoLitrosKm;
+
+    private IndiceCapacidadCamiones(FichaCamion[] ordenados, long version) {
+        int n = ordenados.length;
+        this.version = version;
+        this.camiones = ordenados;
+        this.pesoMax = new double[n];
+        this.volumenMax = new double[n];
+        this.maxVolumenSufijo = new double[n + 1];
+        this.costoPorKm = new double[n];
+        this.consumoLitrosKm = new double[n];
+        for (int i = 0; i < n; i++) {
+            FichaCamion c = ordenados[i];
+            pesoMax[i] = capacidad(c.capacidadPesoMax());
+            volumenMax[i] = capacidad(c.capacidadVolumenMax());
+            costoPorKm[i] = Double.isNaN(c.costoPorKm()) ? 0.0 : c.costoPorKm();
+            consumoLitrosKm[i] = Double.isNaN(c.consumoLitrosKm()) ? 0.0 : c.consumoLitrosKm();
+        }
+        maxVolumenSufijo[n] = Double.NEGATIVE_INFINITY;
+        for (int i = n - 1; i >= 0; i--) maxVolumenSufijo[i] = Math.max(volumenMax[i], maxVolumenSufijo[i + 1]);
+    }
+
+    public static IndiceCapacidadCamiones vacio() {
+        return VACIO;
+    }
+
+    /**
+     * Construye el índice con los camiones disponibles y activos
+     * @param fichas flota completa (los no asignables se descartan)
+     * @param version versión de la caché de camiones con la que se construyó
+     */
+    public static IndiceCapacidadCamiones desde(Collection<FichaCamion> fichas, long version) {
+        FichaCamion[] asignables = fichas.stream()
+                .filter(c -> c.disponible() && c.activo())
+                .sorted(Comparator.comparingDouble((FichaCamion c) -> capacidad(c.capacidadPesoMax()))
+                        .thenComparing(FichaCamion::dominio))
+                .toArray(FichaCamion[]::new);
+        return new IndiceCapacidadCamiones(asignables, version);
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public int size() {
+        return camiones.length;
+    }
+
+    /**
+     * Devuelve los camiones más baratos que soportan la carga
+     * @param peso peso de la carga (NaN o negativo = desconocido, no filtra)
+     * @param volumen volumen de la carga (NaN o negativo = desconocido, no filtra)
+     * @param distanciaKm distancia a recorrer, para estimar el costo (km y combustible)
+     * @param valorLitro valor del litro de combustible
+     * @param limite cantidad máxima de sugerencias
+     * @return sugerencias ordenadas por costo estimado ascendente (desempate por dominio)
+     */
+    public List<Sugerencia> sugerir(double peso, double volumen, double distanciaKm, double valorLitro, int limite) {
+        return sugerir(peso, volumen, distanciaKm, valorLitro, limite, c -> true);
+    }
+
+    /**
+     * Igual que {@link #sugerir(double, double, double, double, int)} pero solo entre los camiones admitidos
+     * (por ejemplo, los libres en el horario del tramo)
+     */
+    public List<Sugerencia> sugerir(double peso, double volumen, double distanciaKm, double valorLitro, int limite,
+                                    Predicate<FichaCamion> admitido) {
+        if (limite <= 0 || camiones.length == 0) return List.of();
+        double pesoRequerido = Double.isNaN(peso) || peso < 0 ? 0.0 : peso;
+        double volumenRequerido = Double.isNaN(volumen) || volumen < 0 ? 0.0 : volumen;
+        double km = Double.isNaN(distanciaKm) || distanciaKm < 0 ? 0.0 : distanciaKm;
+        double litro = Double.isNaN(valorLitro) ? 0.0 : valorLitro;
+
+        int desde = primeroConPeso(pesoRequerido);
+        if (maxVolumenSufijo[desde] < volumenRequerido) return List.of();
+
+        // Max-heap acotado: en la cima queda el peor de los mejores
+        Comparator<int[]> porCosto = Comparator.comparingDouble((int[] p) -> costoKmEfectivo(p[0], litro))
+                .thenComparing(p -> camiones[p[0]].dominio());
+        PriorityQueue<int[]> mejores = new PriorityQueue<>(limite + 1, porCosto.reversed());
+        for (int i = desde; i < camiones.length; i++) {
+            if (volumenMax[i] < volumenRequerido || !admitido.test(camiones[i])) continue;
+            int[] candidato = {i};
+            if (mejores.size() < limite) {
+                mejores.add(candidato);
+            } else if (porCosto.compare(candidato, mejores.peek()) < 0) {
+                mejores.poll();
+                mejores.add(candidato);
+            }
+        }
+        int[][] orden = mejores.toArray(new int[0][]);
+        Arrays.sort(orden, porCosto);
+        List<Sugerencia> sugerencias = new ArrayList<>(orden.length);
+        for (int[] p : orden) {
+            sugerencias.add(new Sugerencia(camiones[p[0]], costoKmEfectivo(p[0], litro) * km));
+        }
+        return sugerencias;
+    }
+
+    /**
+     * Primera posición cuya capacidad de peso es mayor o igual a la requerida (búsqueda binaria)
+     */
+    private int primeroConPeso(double peso) {
+        int lo = 0;
+        int hi = pesoMax.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (pesoMax[mid] < peso) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private double costoKmEfectivo(int i, double valorLitro) {
+        return costoPorKm[i] + consumoLitrosKm[i] * valorLitro;
+    }
+
+    private static double capacidad(double valor) {
+        return Double.isNaN(valor) ? Double.POSITIVE_INFINITY : valor;
+    }
+}
@@ -0,0 +1,344 @@
+package com.backend.tpi.ms_rutas_transportistas.services;
+
+import java.util.function.IntPredicate;
+
+/**
+ * Índice espacial (k-d tree sobre latitud/longitud) de los depósitos de un {@link CatalogoDepositos}
+ * Resuelve "k más cercanos a un punto" (Haversine) y "k más cercanos a un segmento" (corredor origen-destino)
+ * recorriendo solo las ramas cuya cota inferior de distancia puede mejorar el resultado,
+ * con un montículo acotado a k en lugar de ordenar todas las distancias.
+ * Trabaja con posiciones del catálogo; los depósitos sin coordenadas no se indexan.
+ */
+public final class IndiceEspacialDepositos {
+
+    private static final double RADIO_TIERRA_KM = 6371.0;
+    private static final double KM_POR_GRADO = 111.32;
+    private static final int TAMANO_HOJA = 8;
+
+    private final double[] latitudes;
+    private final double[] longitudes;
+    // posiciones del catálogo, reordenadas para que cada nodo cubra un rango contiguo
+    private final int[] orden;
+
+    // nodos del árbol en arreglos paralelos; hojas con izquierdo = -1
+    private final int[] inicio;
+    private final int[] fin;
+    private final int[] izquierdo;
+    private final int[] derecho;
+    private final double[] minLat;
+    private final double[] maxLat;
+    private final double[] minLon;
+    private final double[] maxLon;
+    private int cantidadNodos = 0;
+    private final int raiz;
+
+    IndiceEspacialDepositos(double[] latitudes, double[] longitudes) {
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        int n = 0;
+        int[] validas = new int[latitudes.length];
+        for (int i = 0; i < latitudes.length; i++) {
+            if (!Double.isNaN(latitudes[i]) && !Double.isNaN(longitudes[i])) validas[n++] = i;
+        }
+        this.orden = java.util.Arrays.copyOf(validas, n);
+        // cada hoja tiene al menos un elemento y hay menos nodos internos que hojas
+        int capacidad = Math.max(1, 2 * n);
+        this.inicio = new int[capacidad];
+        this.fin = new int[capacidad];
+        this.izquierdo = new int[capacidad];
+        this.derecho = new int[capacidad];
+        this.minLat = new double[capacidad];
+        this.maxLat = new double[capacidad];
+        this.minLon = new double[capacidad];
+        this.maxLon = new double[capacidad];
+        this.raiz = n > 0 ? construir(0, n) : -1;
+    }
+
+    public int size() {
+        return orden.length;
+    }
+
+    /**
+     * Devuelve hasta k posiciones del catálogo ordenadas por distancia Haversine al punto
+     * @param excluir posiciones a descartar (puede ser null)
+     */
+    public int[] masCercanosAPunto(double lat, double lon, int k, IntPredicate excluir) {
+        if (raiz < 0 || k <= 0) return new int[0];
+        MonticuloAcotado mejores = new MonticuloAcotado(k);
+        buscarPunto(raiz, lat, lon, Math.cos(Math.toRadians(lat)), excluir, mejores);
+        return mejores.posicionesOrdenadas();
+    }
+
+    /**
+     * Devuelve hasta k posiciones del catálogo ordenadas por distancia al segmento A-B
+     * (misma aproximación equirectangular que {@link #distanciaPuntoSegmentoKm})
+     * @param excluir posiciones a descartar (puede ser null)
+     */
+    public int[] masCercanosASegmento(double aLat, double aLon, double bLat, double bLon, int k, IntPredicate excluir) {
+        if (raiz < 0 || k <= 0) return new int[0];
+        MonticuloAcotado mejores = new MonticuloAcotado(k);
+        buscarSegmento(raiz, aLat, aLon, bLat, bLon, excluir, mejores);
+        return mejores.posicionesOrdenadas();
+    }
+
+    private int construir(int desde, int hasta) {
+        int nodo = cantidadNodos++;
+        inicio[nodo] = desde;
+        fin[nodo] = hasta;
+        izquierdo[nodo] = -1;
+        derecho[nodo] = -1;
+        double laMin = Double.POSITIVE_INFINITY, laMax = Double.NEGATIVE_INFINITY;
+        double loMin = Double.POSITIVE_INFINITY, loMax = Double.NEGATIVE_INFINITY;
+        for (int i = desde; i < hasta; i++) {
+            int pos = orden[i];
+            laMin = Math.min(laMin, latitudes[pos]);
+            laMax = Math.max(laMax, latitudes[pos]);
+            loMin = Math.min(loMin, longitudes[pos]);
+            loMax = Math.max(loMax, longitudes[pos]);
+        }
+        minLat[nodo] = laMin;
+        maxLat[nodo] = laMax;
+        minLon[nodo] = loMin;
+        maxLon[nodo] = loMax;
+        if (hasta - desde <= TAMANO_HOJA) return nodo;
+
+        // dividir por la mediana de la dimensión más extendida
+        double[] clave = (laMax - laMin) >= (loMax - loMin) ? latitudes : longitudes;
+        int medio = (desde + hasta) >>> 1;
+        seleccionar(desde, hasta - 1, medio, clave);
+        izquierdo[nodo] = construir(desde, medio);
+        derecho[nodo] = construir(medio, hasta);
+        return nodo;
+    }
+
+    // Selección de Hoare: deja en orden[k] el elemento k-ésimo según clave, menores a la izquierda
+    private void seleccionar(int izq, int der, int k, double[] clave) {
+        while (izq < der) {
+            double pivote = clave[orden[(izq + der) >>> 1]];
+            int i = izq, j = der;
+            while (i <= j) {
+                while (clave[orden[i]] < pivote) i++;
+                while (clave[orden[j]] > pivote) j--;
+                if (i <= j) {
+                    int tmp = orden[i];
+                    orden[i] = orden[j];
+                    orden[j] = tmp;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) der = j;
+            else if (k >= i) izq = i;
+            else return;
+        }
+    }
+
+    private void buscarPunto(int nodo, double lat, double lon, double cosLat, IntPredicate excluir, MonticuloAcotado mejores) {
+        if (izquierdo[nodo] < 0) {
+            for (int i = inicio[nodo]; i < fin[nodo]; i++) {
+                int pos = orden[i];
+                if (excluir != null && excluir.test(pos)) continue;
+                mejores.ofrecer(haversineKm(lat, lon, latitudes[pos], longitudes[pos]), pos);
+            }
+            return;
+        }
+        int primero = izquierdo[nodo], segundo = derecho[nodo];
+        double cotaPrimero = cotaPunto(primero, lat, lon, cosLat);
+        double cotaSegundo = cotaPunto(segundo, lat, lon, cosLat);
+        if (cotaSegundo < cotaPrimero) {
+            int tmp = primero; primero = segundo; segundo = tmp;
+            double c = cotaPrimero; cotaPrimero = cotaSegundo; cotaSegundo = c;
+        }
+        if (cotaPrimero < mejores.peor()) buscarPunto(primero, lat, lon, cosLat, excluir, mejores);
+        if (cotaSegundo < mejores.peor()) buscarPunto(segundo, lat, lon, cosLat, excluir, mejores);
+    }
+
+    private void buscarSegmento(int nodo, double aLat, double aLon, double bLat, double bLon,
+                                IntPredicate excluir, MonticuloAcotado mejores) {
+        if (izquierdo[nodo] < 0) {
+            for (int i = inicio[nodo]; i < fin[nodo]; i++) {
+                int pos = orden[i];
+                if (excluir != null && excluir.test(pos)) continue;
+                mejores.ofrecer(distanciaPuntoSegmentoKm(aLat, aLon, bLat, bLon, latitudes[pos], longitudes[pos]), pos);
+            }
+            return;
+        }
+        int primero = izquierdo[nodo], segundo = derecho[nodo];
+        double cotaPrimero = cotaSegmento(primero, aLat, aLon, bLat, bLon);
+        double cotaSegundo = cotaSegmento(segundo, aLat, aLon, bLat, bLon);
+        if (cotaSegundo < cotaPrimero) {
+            int tmp = primero; primero = segundo; segundo = tmp;
+            double c = cotaPrimero; cotaPrimero = cotaSegundo; cotaSegundo = c;
+        }
+        if (cotaPrimero < mejores.peor()) buscarSegmento(primero, aLat, aLon, bLat, bLon, excluir, mejores);
+        if (cotaSegundo < mejores.peor()) buscarSegmento(segundo, aLat, aLon, bLat, bLon, excluir, mejores);
+    }
+
+    /**
+     * Cota inferior de la distancia Haversine desde el punto a cualquier punto de la caja del nodo:
+     * hav(d) = hav(Δlat) + cos(lat1)·cos(lat2)·hav(Δlon), minimizando cada término por separado
+     */
+    private double cotaPunto(int nodo, double lat, double lon, double cosLat) {
+        double dLat = lat < minLat[nodo] ? minLat[nodo] - lat : (lat > maxLat[nodo] ? lat - maxLat[nodo] : 0);
+        double dLon = lon < minLon[nodo] ? minLon[nodo] - lon : (lon > maxLon[nodo] ? lon - maxLon[nodo] : 0);
+        if (dLon > 0) {
+            // la caja también puede alcanzarse dando la vuelta por el antimeridiano
+            dLon = Math.max(0, Math.min(dLon, 360.0 - (maxLon[nodo] - minLon[nodo]) - dLon));
+        }
+        if (dLat == 0 && dLon == 0) return 0;
+        double cosCaja = Math.max(0, Math.min(Math.cos(Math.toRadians(minLat[nodo])), Math.cos(Math.toRadians(maxLat[nodo]))));
+        double sLat = Math.sin(Math.toRadians(dLat) / 2);
+        double sLon = Math.sin(Math.toRadians(dLon) / 2);
+        double h = sLat * sLat + Math.max(0, cosLat) * cosCaja * sLon * sLon;
+        return 2 * RADIO_TIERRA_KM * Math.asin(Math.min(1.0, Math.sqrt(h)));
+    }
+
+    /**
+     * Cota inferior de {@link #distanciaPuntoSegmentoKm} para cualquier punto de la caja del nodo:
+     * se usa la menor escala de longitud posible (la distancia crece con esa escala) y la distancia
+     * plana entre el segmento y el rectángulo
+     */
+    private double cotaSegmento(int nodo, double aLat, double aLon, double bLat, double bLon) {
+        double mediaMin = Math.toRadians((aLat + bLat + minLat[nodo]) / 3.0);
+        double mediaMax = Math.toRadians((aLat + bLat + maxLat[nodo]) / 3.0);
+        double kx = KM_POR_GRADO * Math.max(0, Math.min(Math.cos(mediaMin), Math.cos(mediaMax)));
+        double ky = KM_POR_GRADO;
+        return distanciaSegmentoRectangulo(aLon * kx, aLat * ky, bLon * kx, bLat * ky,
+                minLon[nodo] * kx, minLat[nodo] * ky, maxLon[nodo] * kx, maxLat[nodo] * ky);
+    }
+
+    private static double distanciaSegmentoRectangulo(double ax, double ay, double bx, double by,
+                                                      double x0, double y0, double x1, double y1) {
+        if (segmentoCortaRectangulo(ax, ay, bx, by, x0, y0, x1, y1)) return 0;
+        // disjuntos: la distancia mínima se da en un vértice del rectángulo o en un extremo del segmento
+        double d = Math.min(distanciaPlanaPuntoSegmento(x0, y0, ax, ay, bx, by), distanciaPlanaPuntoSegmento(x1, y0, ax, ay, bx, by));
+        d = Math.min(d, Math.min(distanciaPlanaPuntoSegmento(x0, y1, ax, ay, bx, by), distanciaPlanaPuntoSegmento(x1, y1, ax, ay, bx, by)));
+        d = Math.min(d, distanciaPlanaPuntoRectangulo(ax, ay, x0, y0, x1, y1));
+        return Math.min(d, distanciaPlanaPuntoRectangulo(bx, by, x0, y0, x1, y1));
+    }
+
+    // Recorte de Liang-Barsky: true si alguna parte del segmento cae dentro del rectángulo
+    private static boolean segmentoCortaRectangulo(double ax, double ay, double bx, double by,
+                                                   double x0, double y0, double x1, double y1) {
+        double dx = bx - ax, dy = by - ay;
+        double[] p = {-dx, dx, -dy, dy};
+        double[] q = {ax - x0, x1 - ax, ay - y0, y1 - ay};
+        double t0 = 0, t1 = 1;
+        for (int i = 0; i < 4; i++) {
+            if (p[i] == 0) {
+                if (q[i] < 0) return false;
+            } else {
+                double r = q[i] / p[i];
+                if (p[i] < 0) {
+                    if (r > t1) return false;
+                    if (r > t0) t0 = r;
+                } else {
+                    if (r < t0) return false;
+                    if (r < t1) t1 = r;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static double distanciaPlanaPuntoRectangulo(double px, double py, double x0, double y0, double x1, double y1) {
+        double dx = Math.max(0, Math.max(x0 - px, px - x1));
+        double dy = Math.max(0, Math.max(y0 - py, py - y1));
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    private static double distanciaPlanaPuntoSegmento(double px, double py, double ax, double ay, double bx, double by) {
+        double vx = bx - ax, vy = by - ay;
+        double wx = px - ax, wy = py - ay;
+        double c2 = vx * vx + vy * vy;
+        double t = c2 == 0 ? 0 : (vx * wx + vy * wy) / c2;
+        if (t < 0) t = 0; if (t > 1) t = 1;
+        double dx = px - (ax + t * vx);
+        double dy = py - (ay + t * vy);
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    // Haversine formula for approximate distance in km
+    public static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
+                Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
+                Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        return RADIO_TIERRA_KM * c;
+    }
+
+    // Approximate distance from point P to segment AB in kilometers using equirectangular projection
+    public static double distanciaPuntoSegmentoKm(double aLat, double aLon, double bLat, double bLon, double pLat, double pLon) {
+        double meanLat = Math.toRadians((aLat + bLat + pLat) / 3.0);
+        double kmPerDegLon = KM_POR_GRADO * Math.cos(meanLat);
+        return distanciaPlanaPuntoSegmento(pLon * kmPerDegLon, pLat * KM_POR_GRADO,
+                aLon * kmPerDegLon, aLat * KM_POR_GRADO, bLon * kmPerDegLon, bLat * KM_POR_GRADO);
+    }
+
+    /**
+     * Max-heap de tamaño k sobre (distancia, posición): la raíz es el peor de los k mejores
+     */
+    private static final class MonticuloAcotado {
+        private final double[] distancias;
+        private final int[] posiciones;
+        private int tamano = 0;
+
+        MonticuloAcotado(int k) {
+            this.distancias = new double[k];
+            this.posiciones = new int[k];
+        }
+
+        double peor() {
+            return tamano < distancias.length ? Double.POSITIVE_INFINITY : distancias[0];
+        }
+
+        void ofrecer(double distancia, int posicion) {
+            if (tamano < distancias.length) {
+                int i = tamano++;
+                distancias[i] = distancia;
+                posiciones[i] = posicion;
+                while (i > 0) {
+                    int padre = (i - 1) >>> 1;
+                    if (distancias[padre] >= distancias[i]) break;
+                    intercambiar(i, padre);
+                    i = padre;
+                }
+            } else if (distancia < distancias[0]) {
+                distancias[0] = distancia;
+                posiciones[0] = posicion;
+                hundir(0, tamano);
+            }
+        }
+
+        /** Vacía el montículo devolviendo las posiciones de menor a mayor distancia */
+        int[] posicionesOrdenadas() {
+            int[] resultado = new int[tamano];
+            for (int n = tamano; n > 0; n--) {
+                resultado[n - 1] = posiciones[0];
+                intercambiar(0, n - 1);
+                hundir(0, n - 1);
+            }
+            tamano = 0;
+            return resultado;
+        }
+
+        private void hundir(int i, int n) {
+            while (true) {
+                int mayor = i;
+                int izq = 2 * i + 1, der = izq + 1;
+                if (izq < n && distancias[izq] > distancias[mayor]) mayor = izq;
+                if (der < n && distancias[der] > distancias[mayor]) mayor = der;
+                if (mayor == i) return;
+                intercambiar(i, mayor);
+                i = mayor;
+            }
+        }
+
+        private void intercambiar(int a, int b) {
+            double d = distancias[a]; distancias[a] = distancias[b]; distancias[b] = d;
+            int p = posiciones[a]; posiciones[a] = posiciones[b]; posiciones[b] = p;
+        }
+    }
+}
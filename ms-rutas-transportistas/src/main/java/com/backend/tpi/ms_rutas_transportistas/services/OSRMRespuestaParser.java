@@ -0,0 +1,179 @@
+package com.backend.tpi.ms_rutas_transportistas.services;
+
+import com.backend.tpi.ms_rutas_transportistas.dtos.osrm.OSRMLeg;
+import com.backend.tpi.ms_rutas_transportistas.dtos.osrm.OSRMRoute;
+import com.backend.tpi.ms_rutas_transportistas.dtos.osrm.OSRMRouteResponse;
+import com.backend.tpi.ms_rutas_transportistas.dtos.osrm.OSRMStep;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lectura en streaming de las respuestas de OSRM (/route y /table)
+ * Recorre el JSON token por token y solo materializa lo que se usa: código, distancia, duración,
+ * geometría y legs de la primera ruta; los pasos se leen solo si se pidieron. El resto
+ * (waypoints, rutas alternativas, annotations, maneuvers, intersections) se saltea sin crear objetos.
+ */
+public final class OSRMRespuestaParser {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    /**
+     * Resultado de /table: matrices en metros y segundos (NaN = sin ruta)
+     */
+    public record Tabla(String code, double[][] distancias, double[][] duraciones) {
+    }
+
+    private OSRMRespuestaParser() {
+    }
+
+    /**
+     * Lee una respuesta de /route
+     * @param cuerpo cuerpo de la respuesta HTTP
+     * @param incluirPasos si es false los steps de cada leg se saltean
+     * @return respuesta con a lo sumo una ruta y sin waypoints
+     */
+    public static OSRMRouteResponse parsearRuta(InputStream cuerpo, boolean incluirPasos) throws IOException {
+        OSRMRouteResponse respuesta = new OSRMRouteResponse();
+        respuesta.setRoutes(new ArrayList<>());
+        try (JsonParser p = JSON.createParser(cuerpo)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) return respuesta;
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String campo = p.currentName();
+                JsonToken valor = p.nextToken();
+                if ("code".equals(campo)) {
+                    respuesta.setCode(p.getValueAsString());
+                } else if ("routes".equals(campo) && valor == JsonToken.START_ARRAY) {
+                    // Solo interesa la primera ruta; las alternativas se saltean
+                    while (p.nextToken() == JsonToken.START_OBJECT) {
+                        if (respuesta.getRoutes().isEmpty()) {
+                            respuesta.getRoutes().add(leerRuta(p, incluirPasos));
+                        } else {
+                            p.skipChildren();
+                        }
+                    }
+                } else {
+                    p.skipChildren();
+                }
+            }
+        }
+        return respuesta;
+    }
+
+    /**
+     * Lee una respuesta de /table directamente a matrices de double, sin listas intermedias
+     * @param cuerpo cuerpo de la respuesta HTTP
+     * @param n cantidad de puntos enviados
+     */
+    public static Tabla parsearTabla(InputStream cuerpo, int n) throws IOException {
+        String code = null;
+        double[][] distancias = null;
+        double[][] duraciones = null;
+        try (JsonParser p = JSON.createParser(cuerpo)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) return new Tabla(null, null, null);
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String campo = p.currentName();
+                JsonToken valor = p.nextToken();
+                if ("code".equals(campo)) {
+                    code = p.getValueAsString();
+                } else if ("distances".equals(campo) && valor == JsonToken.START_ARRAY) {
+                    distancias = leerMatriz(p, n);
+                } else if ("durations".equals(campo) && valor == JsonToken.START_ARRAY) {
+                    duraciones = leerMatriz(p, n);
+                } else {
+                    p.skipChildren();
+                }
+            }
+        }
+        return new Tabla(code, distancias, duraciones);
+    }
+
+    private static OSRMRoute leerRuta(JsonParser p, boolean incluirPasos) throws IOException {
+        OSRMRoute ruta = new OSRMRoute();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String campo = p.currentName();
+            JsonToken valor = p.nextToken();
+            switch (campo) {
+                case "distance" -> ruta.setDistance(p.getValueAsDouble());
+                case "duration" -> ruta.setDuration(p.getValueAsDouble());
+                case "geometry" -> {
+                    // polyline llega como string; GeoJSON (objeto) no se usa y se saltea
+                    if (valor == JsonToken.VALUE_STRING) ruta.setGeometry(p.getText());
+                    else p.skipChildren();
+                }
+                case "legs" -> {
+                    List<OSRMLeg> legs = new ArrayList<>();
+                    if (valor == JsonToken.START_ARRAY) {
+                        while (p.nextToken() == JsonToken.START_OBJECT) legs.add(leerLeg(p, incluirPasos));
+                    }
+                    ruta.setLegs(legs);
+                }
+                default -> p.skipChildren();
+            }
+        }
+        return ruta;
+    }
+
+    private static OSRMLeg leerLeg(JsonParser p, boolean incluirPasos) throws IOException {
+        OSRMLeg leg = new OSRMLeg();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String campo = p.currentName();
+            JsonToken valor = p.nextToken();
+            switch (campo) {
+                case "distance" -> leg.setDistance(p.getValueAsDouble());
+                case "duration" -> leg.setDuration(p.getValueAsDouble());
+                case "summary" -> leg.setSummary(p.getValueAsString());
+                case "steps" -> {
+                    if (incluirPasos && valor == JsonToken.START_ARRAY) {
+                        List<OSRMStep> pasos = new ArrayList<>();
+                        while (p.nextToken() == JsonToken.START_OBJECT) pasos.add(leerPaso(p));
+                        leg.setSteps(pasos);
+                    } else {
+                        p.skipChildren();
+                    }
+                }
+                default -> p.skipChildren();
+            }
+        }
+        return leg;
+    }
+
+    private static OSRMStep leerPaso(JsonParser p) throws IOException {
+        OSRMStep paso = new OSRMStep();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String campo = p.currentName();
+            p.nextToken();
+            switch (campo) {
+                case "distance" -> paso.setDistance(p.getValueAsDouble());
+                case "duration" -> paso.setDuration(p.getValueAsDouble());
+                case "name" -> paso.setName(p.getValueAsString());
+                case "mode" -> paso.setMode(p.getValueAsString());
+                default -> p.skipChildren();
+            }
+        }
+        return paso;
+    }
+
+    private static double[][] leerMatriz(JsonParser p, int n) throws IOException {
+        double[][] matriz = new double[n][n];
+        int fila = 0;
+        while (p.nextToken() == JsonToken.START_ARRAY) {
+            int columna = 0;
+            JsonToken t;
+            while ((t = p.nextToken()) != JsonToken.END_ARRAY) {
+                if (fila < n && columna < n) {
+                    matriz[fila][columna] = t == JsonToken.VALUE_NULL ? Double.NaN : p.getValueAsDouble();
+                }
+                columna++;
+            }
+            fila++;
+        }
+        if (fila != n) throw new IOException("Matriz OSRM de " + fila + " filas, se esperaban " + n);
+        return matriz;
+    }
+}
@@ -0,0 +1,165 @@
+package com.backend.tpi.ms_rutas_transportistas.services;
+
+import com.backend.tpi.ms_rutas_transportistas.dtos.osrm.CoordenadaDTO;
+import com.backend.tpi.ms_rutas_transportistas.dtos.osrm.RutaCalculadaDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caché acotada (LRU) y con expiración por tiempo de tramos calculados por OSRM
+ * La clave son las coordenadas de origen/destino cuantizadas más el perfil y la opción de overview,
+ * por lo que tramos entre depósitos fijos se resuelven sin volver a llamar a OSRM.
+ * Solo se guardan resultados exitosos.
+ */
+@Component
+@Slf4j
+public class OSRMRutaCache {
+
+    private final int maxEntradas;
+    private final long ttlMillis;
+    private final double factorCuantizacion;
+
+    // accessOrder=true: el primer elemento es siempre el menos usado recientemente
+    private final LinkedHashMap<Clave, Entrada> entradas = new LinkedHashMap<>(256, 0.75f, true);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expiradas = new AtomicLong();
+    private final AtomicLong invalidaciones = new AtomicLong();
+
+    public OSRMRutaCache(
+            @Value("${app.osrm.cache.max-entradas:10000}") int maxEntradas,
+            @Value("${app.osrm.cache.ttl-minutos:360}") long ttlMinutos,
+            @Value("${app.osrm.cache.precision-decimales:4}") int precisionDecimales) {
+        this.maxEntradas = Math.max(1, maxEntradas);
+        this.ttlMillis = ttlMinutos * 60_000L;
+        this.factorCuantizacion = Math.pow(10, precisionDecimales);
+    }
+
+    /**
+     * Busca un tramo en caché
+     * @return la ruta cacheada, o null si no existe o expiró
+     */
+    public RutaCalculadaDTO get(CoordenadaDTO origen, CoordenadaDTO destino, String perfil, String overview) {
+        Clave clave = clave(origen, destino, perfil, overview);
+        if (clave == null) return null;
+        synchronized (entradas) {
+            Entrada entrada = entradas.get(clave);
+            if (entrada == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            if (entrada.venceEn < System.currentTimeMillis()) {
+                entradas.remove(clave);
+                expiradas.incrementAndGet();
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return entrada.ruta;
+        }
+    }
+
+    /**
+     * Busca un tramo con la primera opción de overview disponible, en una sola consulta
+     * Cuenta un único hit o miss aunque se prueben varias opciones.
+     * @param overviews opciones aceptadas, en orden de preferencia
+     * @return la ruta cacheada, o null si no hay ninguna vigente
+     */
+    public RutaCalculadaDTO getPrimera(CoordenadaDTO origen, CoordenadaDTO destino, String perfil, java.util.List<String> overviews) {
+        if (clave(origen, destino, perfil, "") == null) return null;
+        long ahora = System.currentTimeMillis();
+        synchronized (entradas) {
+            for (String overview : overviews) {
+                Clave clave = clave(origen, destino, perfil, overview);
+                Entrada entrada = entradas.get(clave);
+                if (entrada == null) continue;
+                if (entrada.venceEn < ahora) {
+                    entradas.remove(clave);
+                    expiradas.incrementAndGet();
+                    continue;
+                }
+                hits.incrementAndGet();
+                return entrada.ruta;
+            }
+            misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+     * Guarda un tramo calculado; descarta el menos usado si se supera el tamaño máximo
+     */
+    public void put(CoordenadaDTO origen, CoordenadaDTO destino, String perfil, String overview, RutaCalculadaDTO ruta) {
+        if (ruta == null || !ruta.isExitoso()) return;
+        Clave clave = clave(origen, destino, perfil, overview);
+        if (clave == null) return;
+        synchronized (entradas) {
+            entradas.put(clave, new Entrada(ruta, System.currentTimeMillis() + ttlMillis));
+            Iterator<Map.Entry<Clave, Entrada>> it = entradas.entrySet().iterator();
+            while (entradas.size() > maxEntradas && it.hasNext()) {
+                it.next();
+                it.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Invalida todas las entradas (por ejemplo, al recargar los datos de OSRM)
+     * @return cantidad de entradas eliminadas
+     */
+    public int invalidar() {
+        synchronized (entradas) {
+            int eliminadas = entradas.size();
+            entradas.clear();
+            invalidaciones.incrementAndGet();
+            log.info("Caché de rutas OSRM invalidada: {} entradas eliminadas", eliminadas);
+            return eliminadas;
+        }
+    }
+
+    /**
+     * Devuelve las métricas de uso de la caché
+     */
+    public Map<String, Object> estadisticas() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (entradas) {
+            stats.put("entradas", entradas.size());
+        }
+        long h = hits.get();
+        long m = misses.get();
+        stats.put("maxEntradas", maxEntradas);
+        stats.put("hits", h);
+        stats.put("misses", m);
+        stats.put("hitRatio", h + m == 0 ? 0.0 : Math.round((double) h / (h + m) * 10000.0) / 10000.0);
+        stats.put("evictions", evictions.get());
+        stats.put("expiradas", expiradas.get());
+        stats.put("invalidaciones", invalidaciones.get());
+        return stats;
+    }
+
+    private Clave clave(CoordenadaDTO origen, CoordenadaDTO destino, String perfil, String overview) {
+        if (origen == null || destino == null || origen.getLatitud() == null || origen.getLongitud() == null
+                || destino.getLatitud() == null || destino.getLongitud() == null) {
+            return null;
+        }
+        return new Clave(
+                Math.round(origen.getLatitud() * factorCuantizacion),
+                Math.round(origen.getLongitud() * factorCuantizacion),
+                Math.round(destino.getLatitud() * factorCuantizacion),
+                Math.round(destino.getLongitud() * factorCuantizacion),
+                perfil, overview);
+    }
+
+    private record Clave(long origenLat, long origenLon, long destinoLat, long destinoLon, String perfil, String overview) {}
+
+    private record Entrada(RutaCalculadaDTO ruta, long venceEn) {}
+}
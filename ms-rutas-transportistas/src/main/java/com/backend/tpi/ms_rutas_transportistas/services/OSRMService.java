@@ -2,11 +2,15 @@ package com.backend.tpi.ms_rutas_transportistas.services;
 
 import com.backend.tpi.ms_rutas_transportistas.dtos.osrm.*;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Servicio para integrar con OSRM (Open Source Routing Machine)
  * Calcula rutas reales usando datos de OpenStreetMap
@@ -21,37 +25,103 @@ public class OSRMService {
 
     private final RestClient restClient;
 
-    public OSRMService(@Value("${app.osrm.base-url:http://osrm:5000}") String osrmBaseUrl) {
+    private static final String PERFIL = "driving";
+
+    /**
+     * Nivel de detalle pedido a OSRM /route; cuanto menos se pide, menor es la respuesta a transferir y leer
+     */
+    public enum Detalle {
+        /** Solo distancia y duración (sin geometría ni pasos) */
+        METRICAS("overview=false&steps=false"),
+        /** Geometría simplificada según el zoom, suficiente para vistas generales del mapa */
+        GEOMETRIA_SIMPLIFICADA("overview=simplified&steps=false&geometries=polyline"),
+        /** Geometría completa, sin pasos */
+        GEOMETRIA_COMPLETA("overview=full&steps=false&geometries=polyline"),
+        /** Geometría completa y pasos (indicaciones giro a giro) */
+        INDICACIONES("overview=full&steps=true&geometries=polyline");
+
+        private final String parametros;
+
+        Detalle(String parametros) {
+            this.parametros = parametros;
+        }
+
+        /** @return true si una respuesta con este detalle sirve para quien pidió {@code pedido} */
+        public boolean cubre(Detalle pedido) {
+            // los valores están declarados de menor a mayor detalle
+            return ordinal() >= pedido.ordinal();
+        }
+
+        /** @return nombres de los detalles que cubren a este, de menor a mayor detalle (claves de caché) */
+        public List<String> nombresQueCubren() {
+            return NOMBRES_QUE_CUBREN.get(this);
+        }
+
+        private static final java.util.Map<Detalle, List<String>> NOMBRES_QUE_CUBREN = new java.util.EnumMap<>(Detalle.class);
+
+        static {
+            for (Detalle pedido : values()) {
+                List<String> nombres = new ArrayList<>();
+                for (Detalle disponible : values()) {
+                    if (disponible.cubre(pedido)) nombres.add(disponible.name());
+                }
+                NOMBRES_QUE_CUBREN.put(pedido, List.copyOf(nombres));
+            }
+        }
+    }
+
+    @Autowired
+    private OSRMRutaCache rutaCache;
+
+    public OSRMService(@Value("${app.osrm.base-url:http://osrm:5000}") String osrmBaseUrl,
+                       com.backend.tpi.ms_rutas_transportistas.config.ClienteHttpFactory clientes) {
         this.osrmBaseUrl = osrmBaseUrl;
-        this.restClient = RestClient.builder()
-                .baseUrl(osrmBaseUrl)
+        this.restClient = clientes.builder("osrm", osrmBaseUrl)
                 .build();
     }
 
     /**
-     * Calcula la ruta entre dos coordenadas usando OSRM
+     * Calcula la ruta entre dos coordenadas usando OSRM (con geometría completa)
      * @param origen Coordenada de origen (lat, lon)
      * @param destino Coordenada de destino (lat, lon)
      * @return RutaCalculadaDTO con distancia, duración y geometría
      */
     public RutaCalculadaDTO calcularRuta(CoordenadaDTO origen, CoordenadaDTO destino) {
+        return calcularRuta(origen, destino, Detalle.GEOMETRIA_COMPLETA);
+    }
+
+    /**
+     * Calcula la ruta entre dos coordenadas pidiendo a OSRM solo el detalle indicado
+     * Una entrada de caché con más detalle también sirve (por ejemplo, métricas de una ruta ya pedida con geometría).
+     * @param origen Coordenada de origen (lat, lon)
+     * @param destino Coordenada de destino (lat, lon)
+     * @param detalle nivel de detalle necesario
+     * @return RutaCalculadaDTO con distancia y duración, más geometría/pasos según el detalle
+     */
+    public RutaCalculadaDTO calcularRuta(CoordenadaDTO origen, CoordenadaDTO destino, Detalle detalle) {
+        RutaCalculadaDTO cacheada = rutaCache.getPrimera(origen, destino, PERFIL, detalle.nombresQueCubren());
+        if (cacheada != null) {
+            log.debug("Ruta obtenida de caché: ({}, {}) -> ({}, {})",
+                    origen.getLatitud(), origen.getLongitud(), destino.getLatitud(), destino.getLongitud());
+            return cacheada;
+        }
+        RutaCalculadaDTO ruta = consultarRuta(origen, destino, detalle);
+        rutaCache.put(origen, destino, PERFIL, detalle.name(), ruta);
+        return ruta;
+    }
+
+    private RutaCalculadaDTO consultarRuta(CoordenadaDTO origen, CoordenadaDTO destino, Detalle detalle) {
         try {
             // OSRM usa formato: /route/v1/{profile}/{coordinates}
             // Coordenadas en formato: lon,lat;lon,lat
-            String coordinates = String.format("%f,%f;%f,%f",
-                    origen.getLongitud(), origen.getLatitud(),
-                    destino.getLongitud(), destino.getLatitud());
+            String coordinates = coordenadas(origen, destino);
 
             // Construir URL directamente para evitar problemas de encoding con ; y ,
-            String uri = String.format("/route/v1/driving/%s?overview=full&steps=true&geometries=polyline", 
-                    coordinates);
+            String uri = String.format("/route/v1/%s/%s?%s", PERFIL, coordinates, detalle.parametros);
 
             log.info("Llamando a OSRM: {}", osrmBaseUrl + uri);
 
-            OSRMRouteResponse response = restClient.get()
-                    .uri(uri)
-                    .retrieve()
-                    .body(OSRMRouteResponse.class);
+            OSRMRouteResponse response = consultarRoute(uri, detalle);
 
             if (response == null || !"Ok".equals(response.getCode()) || response.getRoutes().isEmpty()) {
                 return RutaCalculadaDTO.builder()
@@ -67,7 +137,7 @@ public class OSRMService {
             double duracionHoras = route.getDuration() / 3600.0;
             double duracionMinutos = route.getDuration() / 60.0;
 
-            String resumen = route.getLegs() != null && !route.getLegs().isEmpty() 
+            String resumen = route.getLegs() != null && !route.getLegs().isEmpty() && route.getLegs().get(0).getSummary() != null
                     ? route.getLegs().get(0).getSummary() 
                     : "Ruta calculada";
 
@@ -77,6 +147,7 @@ public class OSRMService {
                     .duracionHoras(Math.round(duracionHoras * 100.0) / 100.0)
                     .duracionMinutos(Math.round(duracionMinutos * 100.0) / 100.0)
                     .geometry(route.getGeometry())
+                    .pasos(pasos(route))
                     .resumen(resumen)
                     .mensaje("Ruta calculada exitosamente")
                     .build();
@@ -92,10 +163,21 @@ public class OSRMService {
 
     /**
      * Calcula la ruta entre múltiples puntos (waypoints)
+     * Además del total, devuelve en {@code tramos} la distancia y duración de cada tramo
+     * entre waypoints consecutivos (legs de OSRM), en el mismo orden.
      * @param coordenadas Lista de coordenadas a visitar
-     * @return RutaCalculadaDTO con la ruta completa
+     * @return RutaCalculadaDTO con la ruta completa (con geometría completa)
      */
     public RutaCalculadaDTO calcularRutaMultiple(CoordenadaDTO... coordenadas) {
+        return calcularRutaMultiple(Detalle.GEOMETRIA_COMPLETA, coordenadas);
+    }
+
+    /**
+     * Igual que {@link #calcularRutaMultiple(CoordenadaDTO...)} pidiendo solo el detalle indicado
+     * @param detalle nivel de detalle necesario
+     * @param coordenadas Lista de coordenadas a visitar
+     */
+    public RutaCalculadaDTO calcularRutaMultiple(Detalle detalle, CoordenadaDTO... coordenadas) {
         if (coordenadas == null || coordenadas.length < 2) {
             return RutaCalculadaDTO.builder()
                     .exitoso(false)
@@ -104,24 +186,11 @@ public class OSRMService {
         }
 
         try {
-            // Construir string de coordenadas: lon,lat;lon,lat;...
-            StringBuilder coordinates = new StringBuilder();
-            for (int i = 0; i < coordenadas.length; i++) {
-                if (i > 0) coordinates.append(";");
-                coordinates.append(String.format("%f,%f",
-                        coordenadas[i].getLongitud(),
-                        coordenadas[i].getLatitud()));
-            }
-
-            String uri = String.format("/route/v1/driving/%s?overview=full&steps=true&geometries=polyline",
-                    coordinates.toString());
+            String uri = String.format("/route/v1/%s/%s?%s", PERFIL, coordenadas(coordenadas), detalle.parametros);
 
             log.info("Llamando a OSRM con {} waypoints: {}", coordenadas.length, osrmBaseUrl + uri);
 
-            OSRMRouteResponse response = restClient.get()
-                    .uri(uri)
-                    .retrieve()
-                    .body(OSRMRouteResponse.class);
+            OSRMRouteResponse response = consultarRoute(uri, detalle);
 
             if (response == null || !"Ok".equals(response.getCode()) || response.getRoutes().isEmpty()) {
                 return RutaCalculadaDTO.builder()
@@ -136,12 +205,30 @@ public class OSRMService {
             double duracionHoras = route.getDuration() / 3600.0;
             double duracionMinutos = route.getDuration() / 60.0;
 
+            java.util.List<RutaCalculadaDTO> tramos = new ArrayList<>();
+            if (route.getLegs() != null) {
+                for (OSRMLeg leg : route.getLegs()) {
+                    double legDistancia = leg.getDistance() != null ? leg.getDistance() : 0.0;
+                    double legDuracion = leg.getDuration() != null ? leg.getDuration() : 0.0;
+                    tramos.add(RutaCalculadaDTO.builder()
+                            .exitoso(true)
+                            .distanciaKm(Math.round(legDistancia / 1000.0 * 100.0) / 100.0)
+                            .duracionHoras(Math.round(legDuracion / 3600.0 * 100.0) / 100.0)
+                            .duracionMinutos(Math.round(legDuracion / 60.0 * 100.0) / 100.0)
+                            .resumen(leg.getSummary())
+                            .mensaje("Tramo calculado exitosamente")
+                            .build());
+                }
+            }
+
             return RutaCalculadaDTO.builder()
                     .exitoso(true)
                     .distanciaKm(Math.round(distanciaKm * 100.0) / 100.0)
                     .duracionHoras(Math.round(duracionHoras * 100.0) / 100.0)
                     .duracionMinutos(Math.round(duracionMinutos * 100.0) / 100.0)
                     .geometry(route.getGeometry())
+                    .pasos(pasos(route))
+                    .tramos(tramos)
                     .resumen(coordenadas.length + " puntos visitados")
                     .mensaje("Ruta calculada exitosamente")
                     .build();
@@ -154,4 +241,100 @@ public class OSRMService {
                     .build();
         }
     }
+
+    /**
+     * Calcula la matriz de distancias y duraciones entre todos los puntos en una sola llamada
+     * Usa el servicio /table de OSRM, que no devuelve geometría ni pasos
+     * @param coordenadas Puntos a considerar (el orden define los índices de la matriz)
+     * @return MatrizDistanciasDTO con distancias en km y duraciones en horas
+     */
+    public MatrizDistanciasDTO calcularMatriz(CoordenadaDTO... coordenadas) {
+        if (coordenadas == null || coordenadas.length < 2) {
+            return MatrizDistanciasDTO.builder()
+                    .exitoso(false)
+                    .mensaje("Se requieren al menos 2 coordenadas")
+                    .build();
+        }
+
+        try {
+            String uri = String.format("/table/v1/%s/%s?annotations=distance,duration", PERFIL, coordenadas(coordenadas));
+
+            log.info("Llamando a OSRM table con {} puntos", coordenadas.length);
+
+            int n = coordenadas.length;
+            OSRMRespuestaParser.Tabla response = restClient.get()
+                    .uri(uri)
+                    .exchange((request, respuesta) -> OSRMRespuestaParser.parsearTabla(respuesta.getBody(), n));
+
+            if (response == null || !"Ok".equals(response.code())
+                    || response.distancias() == null || response.duraciones() == null) {
+                return MatrizDistanciasDTO.builder()
+                        .exitoso(false)
+                        .mensaje("No se pudo calcular la matriz. Código: " + (response != null ? response.code() : "null"))
+                        .build();
+            }
+
+            // metros -> km y segundos -> horas (NaN = sin ruta)
+            double[][] distanciasKm = response.distancias();
+            double[][] duracionesHoras = response.duraciones();
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    double metros = distanciasKm[i][j];
+                    double segundos = duracionesHoras[i][j];
+                    distanciasKm[i][j] = Double.isNaN(metros) ? Double.NaN : Math.round(metros / 1000.0 * 100.0) / 100.0;
+                    duracionesHoras[i][j] = Double.isNaN(segundos) ? Double.NaN : Math.round(segundos / 3600.0 * 100.0) / 100.0;
+                }
+            }
+
+            return MatrizDistanciasDTO.builder()
+                    .exitoso(true)
+                    .distanciasKm(distanciasKm)
+                    .duracionesHoras(duracionesHoras)
+                    .mensaje("Matriz calculada exitosamente")
+                    .build();
+
+        } catch (Exception e) {
+            log.error("Error al calcular matriz con OSRM", e);
+            return MatrizDistanciasDTO.builder()
+                    .exitoso(false)
+                    .mensaje("Error al calcular matriz: " + e.getMessage())
+                    .build();
+        }
+    }
+
+    /**
+     * Ejecuta una consulta /route leyendo la respuesta en streaming (ver {@link OSRMRespuestaParser})
+     * Las respuestas de error de OSRM (p. ej. NoRoute) también traen JSON con el código, así que se leen igual.
+     */
+    private OSRMRouteResponse consultarRoute(String uri, Detalle detalle) {
+        return restClient.get()
+                .uri(uri)
+                .exchange((request, respuesta) ->
+                        OSRMRespuestaParser.parsearRuta(respuesta.getBody(), detalle == Detalle.INDICACIONES));
+    }
+
+    private static List<OSRMStep> pasos(OSRMRoute route) {
+        if (route.getLegs() == null) return null;
+        List<OSRMStep> pasos = null;
+        for (OSRMLeg leg : route.getLegs()) {
+            if (leg.getSteps() == null) continue;
+            if (pasos == null) pasos = new ArrayList<>();
+            pasos.addAll(leg.getSteps());
+        }
+        return pasos;
+    }
+
+    /**
+     * Coordenadas en el formato de OSRM: lon,lat;lon,lat;...
+     */
+    private static String coordenadas(CoordenadaDTO... coordenadas) {
+        StringBuilder coordinates = new StringBuilder();
+        for (int i = 0; i < coordenadas.length; i++) {
+            if (i > 0) coordinates.append(";");
+            coordinates.append(String.format(java.util.Locale.ROOT, "%f,%f",
+                    coordenadas[i].getLongitud(),
+                    coordenadas[i].getLatitud()));
+        }
+        return coordinates.toString();
+    }
 }
@@ -0,0 +1,157 @@
+package com.backend.tpi.ms_rutas_transportistas.services;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Búsqueda de las k mejores rutas entre dos depósitos pasando por 0..N depósitos intermedios
+ * Trabaja sobre matrices en memoria (distancias/duraciones depósito-depósito, por ejemplo de OSRM /table),
+ * sin llamadas remotas. Enumera caminos simples en orden creciente de puntaje (best-first), así los
+ * primeros k que llegan al destino son los k mejores; los tramos que exceden los límites se descartan.
+ * Los empates de puntaje se resuelven siempre igual: primero el camino con menos tramos y después el de
+ * nodos menores en orden (así el resultado no depende del orden interno de la cola).
+ */
+public final class OptimizadorRutas {
+
+    // Tope de seguridad de etiquetas expandidas por búsqueda
+    private static final int MAX_ETIQUETAS = 200_000;
+
+    public enum Criterio {
+        DISTANCIA, DURACION, COSTO;
+
+        /**
+         * @return el criterio correspondiente (sin distinguir mayúsculas); DISTANCIA si es null o vacío
+         * @throws IllegalArgumentException si el valor no corresponde a ningún criterio
+         */
+        public static Criterio desde(String valor) {
+            if (valor == null || valor.isBlank()) return DISTANCIA;
+            for (Criterio c : values()) {
+                if (c.name().equalsIgnoreCase(valor.trim())) return c;
+            }
+            throw new IllegalArgumentException("Criterio inválido: " + valor + " (valores posibles: distancia, duracion, costo)");
+        }
+    }
+
+    /**
+     * Límites de la búsqueda; un valor <= 0 en los máximos por tramo significa "sin límite"
+     * @param maxIntermedios cantidad máxima de depósitos intermedios
+     * @param maxTramoKm distancia máxima de cada tramo (por ejemplo, autonomía)
+     * @param maxTramoHoras duración máxima de cada tramo (por ejemplo, horas de manejo por día)
+     */
+    public record Restricciones(int maxIntermedios, double maxTramoKm, double maxTramoHoras) {
+    }
+
+    /**
+     * Modelo de costo, con la misma estructura que el costo de ruta: gestión fija por tramo,
+     * costo por km y estadía en cada depósito intermedio
+     * @param costoPorTramo costo fijo de gestión por tramo
+     * @param costoPorKm costo por km recorrido
+     * @param costoParada costo de estadía por nodo (se cobra al pasar por él como intermedio); puede ser null
+     * @param horasParada horas de estadía sumadas a la duración por cada intermedio
+     */
+    public record ModeloCosto(double costoPorTramo, double costoPorKm, double[] costoParada, double horasParada) {
+
+        public double costoTramo(double distanciaKm) {
+            return costoPorTramo + costoPorKm * distanciaKm;
+        }
+
+        public double costoParada(int nodo) {
+            if (costoParada == null || nodo >= costoParada.length || Double.isNaN(costoParada[nodo])) return 0.0;
+            return costoParada[nodo];
+        }
+    }
+
+    /**
+     * Camino encontrado: nodos en orden (origen, intermedios..., destino) y sus totales
+     */
+    public record Camino(int[] nodos, double distanciaKm, double duracionHoras, double costo) {
+    }
+
+    private record Etiqueta(int nodo, long visitados, int tramos, double distanciaKm, double duracionHoras,
+                            double costo, double puntaje, Etiqueta anterior) {
+    }
+
+    // Puntaje, luego menos tramos, luego secuencia de nodos desde el origen
+    private static final Comparator<Etiqueta> ORDEN = Comparator.comparingDouble(Etiqueta::puntaje)
+            .thenComparingInt(Etiqueta::tramos)
+            .thenComparing(OptimizadorRutas::compararNodos);
+
+    private OptimizadorRutas() {
+    }
+
+    /**
+     * Devuelve hasta k caminos simples de origen a destino ordenados por el criterio
+     * @param distanciasKm matriz n x n de distancias (NaN o 0 = sin ruta)
+     * @param duracionesHoras matriz n x n de duraciones (NaN se toma como 0)
+     * @param origen índice del nodo origen
+     * @param destino índice del nodo destino
+     * @return caminos ordenados de mejor a peor
+     */
+    public static List<Camino> mejoresCaminos(double[][] distanciasKm, double[][] duracionesHoras, int origen, int destino,
+                                              Restricciones restricciones, ModeloCosto modelo, Criterio criterio, int k) {
+        int n = distanciasKm.length;
+        if (n > 64) throw new IllegalArgumentException("El optimizador admite hasta 64 nodos, se recibieron " + n);
+        if (origen < 0 || origen >= n || destino < 0 || destino >= n || origen == destino) {
+            throw new IllegalArgumentException("Origen y destino deben ser nodos distintos de la matriz");
+        }
+        List<Camino> resultado = new ArrayList<>();
+        if (k <= 0) return resultado;
+
+        PriorityQueue<Etiqueta> abiertas = new PriorityQueue<>(ORDEN);
+        abiertas.add(new Etiqueta(origen, 1L << origen, 0, 0.0, 0.0, 0.0, 0.0, null));
+        int expandidas = 0;
+        while (!abiertas.isEmpty() && resultado.size() < k && expandidas < MAX_ETIQUETAS) {
+            Etiqueta actual = abiertas.poll();
+            if (actual.nodo() == destino) {
+                resultado.add(aCamino(actual));
+                continue;
+            }
+            expandidas++;
+            for (int siguiente = 0; siguiente < n; siguiente++) {
+                if ((actual.visitados() & (1L << siguiente)) != 0) continue;
+                boolean esDestino = siguiente == destino;
+                // cada tramo que no termina en el destino agrega un intermedio
+                if (!esDestino && actual.tramos() + 1 > restricciones.maxIntermedios()) continue;
+                double distancia = distanciasKm[actual.nodo()][siguiente];
+                if (Double.isNaN(distancia) || distancia <= 0.0) continue;
+                double duracion = duracionesHoras[actual.nodo()][siguiente];
+                if (Double.isNaN(duracion)) duracion = 0.0;
+                if (restricciones.maxTramoKm() > 0 && distancia > restricciones.maxTramoKm()) continue;
+                if (restricciones.maxTramoHoras() > 0 && duracion > restricciones.maxTramoHoras()) continue;
+
+                double nuevaDistancia = actual.distanciaKm() + distancia;
+                double nuevaDuracion = actual.duracionHoras() + duracion + (esDestino ? 0.0 : modelo.horasParada());
+                double nuevoCosto = actual.costo() + modelo.costoTramo(distancia) + (esDestino ? 0.0 : modelo.costoParada(siguiente));
+                double puntaje = switch (criterio) {
+                    case DISTANCIA -> nuevaDistancia;
+                    case DURACION -> nuevaDuracion;
+                    case COSTO -> nuevoCosto;
+                };
+                abiertas.add(new Etiqueta(siguiente, actual.visitados() | (1L << siguiente), actual.tramos() + 1,
+                        nuevaDistancia, nuevaDuracion, nuevoCosto, puntaje, actual));
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Compara dos etiquetas con la misma cantidad de tramos por sus nodos, desde el origen
+     */
+    private static int compararNodos(Etiqueta a, Etiqueta b) {
+        if (a == null || b == null) return 0;
+        int anteriores = compararNodos(a.anterior(), b.anterior());
+        return anteriores != 0 ? anteriores : Integer.compare(a.nodo(), b.nodo());
+    }
+
+    private static Camino aCamino(Etiqueta etiqueta) {
+        int[] nodos = new int[etiqueta.tramos() + 1];
+        Etiqueta e = etiqueta;
+        for (int i = nodos.length - 1; i >= 0; i--) {
+            nodos[i] = e.nodo();
+            e = e.anterior();
+        }
+        return new Camino(nodos, etiqueta.distanciaKm(), etiqueta.duracionHoras(), etiqueta.costo());
+    }
+}
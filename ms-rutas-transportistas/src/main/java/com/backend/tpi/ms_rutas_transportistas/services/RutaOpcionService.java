@@ -80,6 +80,7 @@ public class RutaOpcionService {
             ro.setOpcionIndex(idx++);
             ro.setDistanciaTotal(opcion.getDistanciaTotal());
             ro.setDuracionTotalHoras(opcion.getDuracionTotalHoras());
+            ro.setCostoTotal(opcion.getCostoTotal());
             ro.setDepositosIdsJson(objectMapper.writeValueAsString(opcion.getDepositosIds()));
             ro.setDepositosNombresJson(objectMapper.writeValueAsString(opcion.getDepositosNombres()));
             
@@ -134,6 +135,14 @@ public class RutaOpcionService {
 
         // Parsear tramos desde JSON
         TramoTentativoDTO[] tramosArr = objectMapper.readValue(opcion.getTramosJson(), TramoTentativoDTO[].class);
+        // Coordenadas de todos los depósitos involucrados en una sola consulta
+        java.util.Set<Long> depositosIds = new java.util.HashSet<>();
+        for (TramoTentativoDTO t : tramosArr) {
+            if (t.getOrigenDepositoId() != null) depositosIds.add(t.getOrigenDepositoId());
+            if (t.getDestinoDepositoId() != null) depositosIds.add(t.getDestinoDepositoId());
+        }
+        java.util.Map<Long, java.util.Map<String, Object>> depositosInfo = depositoService.getInfoForDepositos(new java.util.ArrayList<>(depositosIds));
+
         int orden = 1;
             for (TramoTentativoDTO t : tramosArr) {
             Tramo tramo = new Tramo();
@@ -149,8 +158,7 @@ public class RutaOpcionService {
                     // Origen: si es depósito, consultar coordenadas desde DepositoService; si no, tomar del DTO
                     if (t.getOrigenDepositoId() != null) {
                         try {
-                            java.util.Map<Long, java.util.Map<String, Object>> info = depositoService.getInfoForDepositos(java.util.List.of(t.getOrigenDepositoId()));
-                            java.util.Map<String, Object> deposito = info != null ? info.get(t.getOrigenDepositoId()) : null;
+                            java.util.Map<String, Object> deposito = depositosInfo.get(t.getOrigenDepositoId());
                             if (deposito != null) {
                                 Object lat = deposito.get("latitud");
                                 Object lon = deposito.get("longitud");
@@ -174,8 +182,7 @@ public class RutaOpcionService {
                     // Destino: si es depósito, consultar coordenadas desde DepositoService; si no, tomar del DTO
                     if (t.getDestinoDepositoId() != null) {
                         try {
-                            java.util.Map<Long, java.util.Map<String, Object>> info = depositoService.getInfoForDepositos(java.util.List.of(t.getDestinoDepositoId()));
-                            java.util.Map<String, Object> deposito = info != null ? info.get(t.getDestinoDepositoId()) : null;
+                            java.util.Map<String, Object> deposito = depositosInfo.get(t.getDestinoDepositoId());
                             if (deposito != null) {
                                 Object lat = deposito.get("latitud");
                                 Object lon = deposito.get("longitud");
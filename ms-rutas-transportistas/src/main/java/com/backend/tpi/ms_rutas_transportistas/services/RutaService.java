@@ -44,7 +44,7 @@ public class RutaService {
     private com.backend.tpi.ms_rutas_transportistas.repositories.TramoRepository tramoRepository;
     
     @Autowired
-    private com.backend.tpi.ms_rutas_transportistas.repositories.CamionRepository camionRepository;
+    private CamionCache camionCache;
     
     @Autowired
     private org.springframework.web.client.RestClient calculosClient;
@@ -61,6 +61,9 @@ public class RutaService {
     @Autowired
     private DepositoService depositoService;
 
+    @Autowired
+    private TarifaService tarifaService;
+
     
     @org.springframework.beans.factory.annotation.Value("${app.solicitudes.base-url:http://ms-solicitudes:8080}")
     private String solicitudesBaseUrl;
@@ -178,13 +181,14 @@ public class RutaService {
 
     /**
      * Obtiene todas las rutas del sistema
+     * Las rutas y sus tramos se leen en una sola consulta (entity graph), sin una consulta de tramos por ruta
      * @return Lista de DTOs de rutas
      */
     @org.springframework.transaction.annotation.Transactional(readOnly = true)
     public List<RutaDTO> findAll() {
         logger.debug("Buscando todas las rutas");
-        List<RutaDTO> rutas = rutaRepository.findAll().stream()
-                .map(this::toDto)
+        List<RutaDTO> rutas = rutaRepository.findAllConTramos().stream()
+                .map(ruta -> toDto(ruta, tramoService.toDtos(ruta.getTramos())))
                 .collect(Collectors.toList());
         logger.debug("Encontradas {} rutas", rutas.size());
         return rutas;
@@ -235,16 +239,23 @@ public class RutaService {
      */
     private RutaDTO toDto(Ruta ruta) {
         if (ruta == null) return null;
+        // Incluir los tramos de la ruta
+        return toDto(ruta, tramoService.findByRutaId(ruta.getId()));
+    }
+
+    /**
+     * Convierte una entidad Ruta a su DTO con tramos ya convertidos
+     * @param ruta Entidad ruta
+     * @param tramosDTO Tramos de la ruta
+     * @return DTO de la ruta
+     */
+    private RutaDTO toDto(Ruta ruta, List<TramoDTO> tramosDTO) {
         RutaDTO dto = new RutaDTO();
         dto.setId(ruta.getId());
         dto.setIdSolicitud(ruta.getIdSolicitud());
         dto.setFechaCreacion(ruta.getFechaCreacion());
         dto.setOpcionSeleccionadaId(ruta.getOpcionSeleccionadaId());
-        
-        // Incluir los tramos de la ruta
-        List<TramoDTO> tramosDTO = tramoService.findByRutaId(ruta.getId());
         dto.setTramos(tramosDTO);
-        
         return dto;
     }
 
@@ -383,7 +394,7 @@ public class RutaService {
         
         // Llamar a OSRM para calcular la ruta completa
         com.backend.tpi.ms_rutas_transportistas.dtos.osrm.RutaCalculadaDTO rutaCalculada = 
-            osrmService.calcularRutaMultiple(coordenadas.toArray(new com.backend.tpi.ms_rutas_transportistas.dtos.osrm.CoordenadaDTO[0]));
+            osrmService.calcularRutaMultiple(OSRMService.Detalle.METRICAS, coordenadas.toArray(new com.backend.tpi.ms_rutas_transportistas.dtos.osrm.CoordenadaDTO[0]));
         
         if (!rutaCalculada.isExitoso()) {
             logger.error("Error al calcular ruta múltiple: {}", rutaCalculada.getMensaje());
@@ -393,32 +404,39 @@ public class RutaService {
         logger.info("Ruta múltiple calculada exitosamente: {} km, {} horas", 
             rutaCalculada.getDistanciaKm(), rutaCalculada.getDuracionHoras());
         
-        // Ahora calcular distancias individuales de cada tramo
+        // Distancia y duración de cada tramo a partir de los legs de la misma respuesta
+        // (leg i = destino del tramo i-1 -> destino del tramo i; coincide con el tramo si las coordenadas encadenan)
+        List<com.backend.tpi.ms_rutas_transportistas.dtos.osrm.RutaCalculadaDTO> legs = rutaCalculada.getTramos();
+        if (legs == null || legs.size() != tramos.size()) {
+            logger.error("OSRM devolvió {} tramos para {} tramos de la ruta ID: {}",
+                legs != null ? legs.size() : 0, tramos.size(), rutaId);
+            throw new RuntimeException("Error al calcular ruta con OSRM: cantidad de tramos inesperada");
+        }
+
         double distanciaTotal = 0.0;
         double duracionTotal = 0.0;
         int tramosActualizados = 0;
         
         for (int i = 0; i < tramos.size(); i++) {
             Tramo tramo = tramos.get(i);
-            
-            // Calcular distancia y duración de este tramo específico (desde su origen a su destino)
-            com.backend.tpi.ms_rutas_transportistas.dtos.osrm.CoordenadaDTO origen = new com.backend.tpi.ms_rutas_transportistas.dtos.osrm.CoordenadaDTO(
-                tramo.getOrigenLat().doubleValue(),
-                tramo.getOrigenLong().doubleValue()
-            );
-            com.backend.tpi.ms_rutas_transportistas.dtos.osrm.CoordenadaDTO destino = new com.backend.tpi.ms_rutas_transportistas.dtos.osrm.CoordenadaDTO(
-                tramo.getDestinoLat().doubleValue(),
-                tramo.getDestinoLong().doubleValue()
-            );
-            
-            com.backend.tpi.ms_rutas_transportistas.dtos.osrm.RutaCalculadaDTO rutaTramo = 
-                osrmService.calcularRuta(origen, destino);
+            com.backend.tpi.ms_rutas_transportistas.dtos.osrm.RutaCalculadaDTO rutaTramo = legs.get(i);
+
+            if (i > 0 && !mismoPunto(tramos.get(i - 1).getDestinoLat(), tramos.get(i - 1).getDestinoLong(),
+                    tramo.getOrigenLat(), tramo.getOrigenLong())) {
+                // El tramo no arranca donde terminó el anterior: el leg no corresponde, se calcula aparte
+                logger.debug("Tramo {} no encadena con el anterior, se calcula individualmente", tramo.getOrden());
+                rutaTramo = osrmService.calcularRuta(
+                    new com.backend.tpi.ms_rutas_transportistas.dtos.osrm.CoordenadaDTO(
+                        tramo.getOrigenLat().doubleValue(), tramo.getOrigenLong().doubleValue()),
+                    new com.backend.tpi.ms_rutas_transportistas.dtos.osrm.CoordenadaDTO(
+                        tramo.getDestinoLat().doubleValue(), tramo.getDestinoLong().doubleValue()),
+                    OSRMService.Detalle.METRICAS);
+            }
             
             if (rutaTramo.isExitoso()) {
                 // Actualizar distancia y duración del tramo
                 tramo.setDistancia(rutaTramo.getDistanciaKm());
                 tramo.setDuracionHoras(rutaTramo.getDuracionHoras());
-                tramoRepository.save(tramo);
                 
                 distanciaTotal += rutaTramo.getDistanciaKm();
                 duracionTotal += rutaTramo.getDuracionHoras();
@@ -431,6 +449,9 @@ public class RutaService {
                     tramo.getOrden(), rutaTramo.getMensaje());
             }
         }
+
+        // Una sola escritura para todos los tramos (Hibernate agrupa los UPDATE en lotes JDBC)
+        tramoRepository.saveAll(tramos);
         
         // Preparar respuesta
         Map<String, Object> resultado = new HashMap<>();
@@ -449,6 +470,12 @@ public class RutaService {
         return resultado;
     }
 
+    private static boolean mismoPunto(Number lat1, Number lon1, Number lat2, Number lon2) {
+        if (lat1 == null || lon1 == null || lat2 == null || lon2 == null) return false;
+        return Math.abs(lat1.doubleValue() - lat2.doubleValue()) < 1e-6
+            && Math.abs(lon1.doubleValue() - lon2.doubleValue()) < 1e-6;
+    }
+
     /**
      * Calcula el costo total de una ruta sumando los costos de todos sus tramos
      * Obtiene la tarifa por km desde el microservicio de cálculos y calcula el costo
@@ -485,26 +512,10 @@ public class RutaService {
 
         logger.debug("Encontrados {} tramos para calcular costo", tramos.size());
 
-        // Obtener tarifa (costo base de gestión y valor litro combustible) desde el servicio de cálculos
-        Double valorLitro = null;
-        Double costoBaseGestionFijo = null;
-        try {
-            String token = extractBearerToken();
-            org.springframework.http.ResponseEntity<java.util.List<java.util.Map<String, Object>>> tarifasEntity = calculosClient.get()
-                    .uri("/api/v1/tarifas")
-                    .headers(h -> { if (token != null) h.setBearerAuth(token); })
-                    .retrieve()
-                    .toEntity(new org.springframework.core.ParameterizedTypeReference<java.util.List<java.util.Map<String, Object>>>() {});
-            java.util.List<java.util.Map<String, Object>> tarifas = tarifasEntity != null ? tarifasEntity.getBody() : null;
-            if (tarifas != null && !tarifas.isEmpty()) {
-                Object valorLitroObj = tarifas.get(0).get("valorLitroCombustible");
-                Object costoBaseObj = tarifas.get(0).get("costoBaseGestionFijo");
-                if (valorLitroObj instanceof Number) valorLitro = ((Number) valorLitroObj).doubleValue();
-                if (costoBaseObj instanceof Number) costoBaseGestionFijo = ((Number) costoBaseObj).doubleValue();
-            }
-        } catch (Exception e) {
-            logger.warn("No se pudo obtener tarifas desde ms-gestion-calculos: {}", e.getMessage());
-        }
+        // Tarifa vigente (costo base de gestión y valor litro combustible) desde la copia local
+        TarifaVigente tarifa = tarifaService.getTarifaVigente();
+        Double valorLitro = tarifa != null ? tarifa.valorLitroCombustible() : null;
+        Double costoBaseGestionFijo = tarifa != null ? tarifa.costoBaseGestionFijo() : null;
 
         if (valorLitro == null) {
             logger.warn("Valor litro no disponible, usando 0.0");
@@ -533,12 +544,12 @@ public class RutaService {
             // Obtener datos del camión por dominio si existe
             if (tramo.getCamionDominio() != null && !tramo.getCamionDominio().isEmpty()) {
                 try {
-                    java.util.Optional<com.backend.tpi.ms_rutas_transportistas.models.Camion> camionOpt = camionRepository.findFirstByDominio(tramo.getCamionDominio());
+                    java.util.Optional<FichaCamion> camionOpt = camionCache.porDominio(tramo.getCamionDominio());
                     if (camionOpt.isPresent()) {
-                        com.backend.tpi.ms_rutas_transportistas.models.Camion camion = camionOpt.get();
-                        if (camion.getCostoPorKm() != null) costoKmCamion = camion.getCostoPorKm() * distancia;
-                        if (camion.getConsumoCombustiblePromedio() != null) {
-                            double consumoLitros = camion.getConsumoCombustiblePromedio() * distancia;
+                        FichaCamion camion = camionOpt.get();
+                        if (!Double.isNaN(camion.costoPorKm())) costoKmCamion = camion.costoPorKm() * distancia;
+                        if (!Double.isNaN(camion.consumoLitrosKm())) {
+                            double consumoLitros = camion.consumoLitrosKm() * distancia;
                             costoCombustible = consumoLitros * valorLitro;
                         }
                     }
@@ -550,20 +561,8 @@ public class RutaService {
             // Calcular costo de estadía para este tramo: el depósito de destino del tramo es el que aplica
             if (tramo.getDestinoDepositoId() != null) {
                 try {
-                    String token = extractBearerToken();
-                    org.springframework.http.ResponseEntity<java.util.Map<String, Object>> depositoEntity = calculosClient.get()
-                            .uri("/api/v1/depositos/{id}", tramo.getDestinoDepositoId())
-                            .headers(h -> { if (token != null) h.setBearerAuth(token); })
-                            .retrieve()
-                            .toEntity(new org.springframework.core.ParameterizedTypeReference<java.util.Map<String, Object>>() {});
-                    java.util.Map<String, Object> deposito = depositoEntity != null ? depositoEntity.getBody() : null;
-                    Double costoEstadiaDiario = null;
-                    if (deposito != null) {
-                        Object costoObj = deposito.get("costoEstadiaDiario");
-                        if (costoObj instanceof Number) costoEstadiaDiario = ((Number) costoObj).doubleValue();
-                        else if (deposito.containsKey("costo_estadia_diario") && deposito.get("costo_estadia_diario") instanceof Number)
-                            costoEstadiaDiario = ((Number) deposito.get("costo_estadia_diario")).doubleValue();
-                    }
+                    // Costo diario desde el catálogo local de depósitos (sin llamada remota)
+                    Double costoEstadiaDiario = depositoService.getCostoEstadiaDiario(tramo.getDestinoDepositoId());
 
                     if (costoEstadiaDiario != null) {
                         // Determinar fecha de fin del tramo actual y fecha inicio del siguiente tramo
@@ -627,39 +626,6 @@ public class RutaService {
         return resultado;
     }
 
-    /**
-     * Obtiene la tarifa por kilómetro desde el microservicio de cálculos
-     * @return Tarifa por km, o null si no se puede obtener
-     */
-    private Double obtenerTarifaPorKm() {
-        try {
-            String token = extractBearerToken();
-            
-            org.springframework.http.ResponseEntity<java.util.List<java.util.Map<String, Object>>> response = 
-                calculosClient.get()
-                    .uri("/api/v1/tarifas")
-                    .headers(h -> { if (token != null) h.setBearerAuth(token); })
-                    .retrieve()
-                    .toEntity(new org.springframework.core.ParameterizedTypeReference<java.util.List<java.util.Map<String, Object>>>() {});
-            
-            java.util.List<java.util.Map<String, Object>> tarifas = response.getBody();
-            
-            if (tarifas != null && !tarifas.isEmpty()) {
-                Object precioPorKm = tarifas.get(0).get("precioPorKm");
-                if (precioPorKm instanceof Number) {
-                    return ((Number) precioPorKm).doubleValue();
-                }
-            }
-            
-            logger.warn("No se encontraron tarifas en el servicio de cálculos");
-            return null;
-            
-        } catch (Exception e) {
-            logger.error("Error al obtener tarifa por km: {}", e.getMessage());
-            return null;
-        }
-    }
-
     /**
      * Helper: extrae token Bearer del SecurityContext si existe
      */
@@ -679,7 +645,18 @@ public class RutaService {
      * @return lista de opciones tentativas
      */
     public List<RutaTentativaDTO> generateOptionsForSolicitud(Long solicitudId) {
-        logger.info("Generate options for solicitud {}", solicitudId);
+        return generateOptionsForSolicitud(solicitudId, null, null);
+    }
+
+    /**
+     * Genera opciones tentativas para una solicitud usando el optimizador de rutas con 0..N depósitos intermedios
+     * @param solicitudId id de la solicitud
+     * @param criterio distancia, duracion o costo (null = distancia)
+     * @param cantidad cantidad máxima de opciones (null = valor configurado)
+     * @return lista de opciones tentativas ordenadas según el criterio
+     */
+    public List<RutaTentativaDTO> generateOptionsForSolicitud(Long solicitudId, String criterio, Integer cantidad) {
+        logger.info("Generate options for solicitud {} (criterio={}, cantidad={})", solicitudId, criterio, cantidad);
         try {
             String token = extractBearerToken();
             // Obtener solicitud desde ms-solicitudes
@@ -704,15 +681,9 @@ public class RutaService {
                 throw new IllegalArgumentException("Solicitud does not contain coordinates to determine nearest deposits");
             }
 
-            // Obtener lista de depósitos completos
-            org.springframework.http.ResponseEntity<java.util.List<java.util.Map<String, Object>>> depsResp = calculosClient.get()
-                    .uri("/api/v1/depositos")
-                    .headers(h -> { if (token != null) h.setBearerAuth(token); })
-                    .retrieve()
-                    .toEntity(new org.springframework.core.ParameterizedTypeReference<java.util.List<java.util.Map<String, Object>>>() {});
-
-            java.util.List<java.util.Map<String, Object>> depositos = depsResp != null ? depsResp.getBody() : null;
-            if (depositos == null || depositos.isEmpty()) {
+            // Catálogo local de depósitos (sin descargar la lista en cada llamada)
+            CatalogoDepositos depositos = depositoService.getCatalogo();
+            if (depositos.isEmpty()) {
                 logger.error("No se encontraron depósitos en el sistema. Se requiere al menos un depósito para calcular rutas.");
                 throw new IllegalStateException("No hay depósitos disponibles en el sistema para calcular rutas. " +
                     "Por favor, registre al menos un depósito en el microservicio de cálculos (POST /api/v1/depositos) " +
@@ -720,18 +691,10 @@ public class RutaService {
             }
 
             // Encontrar depósito más cercano al origen y al destino
-            Long origenDepotId = null; Long destinoDepotId = null;
-            double minOrigDist = Double.MAX_VALUE; double minDestDist = Double.MAX_VALUE;
-            for (var d : depositos) {
-                if (d.get("latitud") == null || d.get("longitud") == null || d.get("id") == null) continue;
-                double lat = ((Number)d.get("latitud")).doubleValue();
-                double lon = ((Number)d.get("longitud")).doubleValue();
-                double distOrig = distanceKm(origenLat, origenLong, lat, lon);
-                double distDest = distanceKm(destinoLat, destinoLong, lat, lon);
-                Long id = ((Number)d.get("id")).longValue();
-                if (distOrig < minOrigDist) { minOrigDist = distOrig; origenDepotId = id; }
-                if (distDest < minDestDist) { minDestDist = distDest; destinoDepotId = id; }
-            }
+            int[] cercanoOrigen = depositos.getIndice().masCercanosAPunto(origenLat, origenLong, 1, null);
+            int[] cercanoDestino = depositos.getIndice().masCercanosAPunto(destinoLat, destinoLong, 1, null);
+            Long origenDepotId = cercanoOrigen.length > 0 ? depositos.id(cercanoOrigen[0]) : null;
+            Long destinoDepotId = cercanoDestino.length > 0 ? depositos.id(cercanoDestino[0]) : null;
 
             if (origenDepotId == null || destinoDepotId == null) {
                 throw new IllegalStateException("Unable to determine nearest deposits");
@@ -740,9 +703,9 @@ public class RutaService {
             logger.info("Nearest deposits for solicitud {} -> origen: {}, destino: {}", solicitudId, origenDepotId, destinoDepotId);
 
             // Delegar a RutaTentativaService con coordenadas reales
-            List<RutaTentativaDTO> variantes = rutaTentativaService.calcularVariantesCompletas(
-                origenLat, origenLong, destinoLat, destinoLong, 
-                origenDepotId, destinoDepotId);
+            List<RutaTentativaDTO> variantes = rutaTentativaService.optimizarRutas(
+                origenLat, origenLong, destinoLat, destinoLong,
+                origenDepotId, destinoDepotId, criterio, cantidad);
             return variantes;
         } catch (Exception e) {
             logger.error("Error generating options for solicitud {}: {}", solicitudId, e.getMessage());
@@ -750,18 +713,6 @@ public class RutaService {
         }
     }
 
-    // Haversine formula for approximate distance in km
-    private double distanceKm(double lat1, double lon1, double lat2, double lon2) {
-        double R = 6371; // Earth radius km
-        double dLat = Math.toRadians(lat2 - lat1);
-        double dLon = Math.toRadians(lon2 - lon1);
-        double a = Math.sin(dLat/2) * Math.sin(dLat/2) +
-                Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
-                Math.sin(dLon/2) * Math.sin(dLon/2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1-a));
-        return R * c;
-    }
-
     // createFromTentativa removed: this method was only used by the deprecated controller
     // flow that has been removed. Use the persisted opciones + confirmar flow under
     // `/api/v1/solicitudes/{id}/opciones` and `confirmar` which delegates to existing
@@ -821,6 +772,14 @@ public class RutaService {
             java.time.LocalDateTime fechaActual = fechaCreacionSolicitud.plusDays(1).toLocalDate().atStartOfDay();
             logger.info("Fecha de inicio de primer tramo (día siguiente a creación): {}", fechaActual);
             
+            // Coordenadas de todos los depósitos involucrados en una sola consulta
+            java.util.Set<Long> depositosIds = new java.util.HashSet<>();
+            for (TramoTentativoDTO t : rutaTentativa.getTramos()) {
+                if (t.getOrigenDepositoId() != null) depositosIds.add(t.getOrigenDepositoId());
+                if (t.getDestinoDepositoId() != null) depositosIds.add(t.getDestinoDepositoId());
+            }
+            java.util.Map<Long, java.util.Map<String, Object>> depositosInfo = depositoService.getInfoForDepositos(new java.util.ArrayList<>(depositosIds));
+
             int creados = 0;
             for (TramoTentativoDTO t : rutaTentativa.getTramos()) {
                 logger.info("  Creando tramo: orden={}, origenDepId={}, destinoDepId={}, dist={}, duracion={}h", 
@@ -840,8 +799,7 @@ public class RutaService {
                 // Consultar y guardar coordenadas del depósito de origen si existe
                 if (t.getOrigenDepositoId() != null) {
                     try {
-                        java.util.Map<Long, java.util.Map<String, Object>> info = depositoService.getInfoForDepositos(java.util.List.of(t.getOrigenDepositoId()));
-                        java.util.Map<String, Object> deposito = info != null ? info.get(t.getOrigenDepositoId()) : null;
+                        java.util.Map<String, Object> deposito = depositosInfo.get(t.getOrigenDepositoId());
                         if (deposito != null) {
                             Object lat = deposito.get("latitud");
                             Object lon = deposito.get("longitud");
@@ -868,8 +826,7 @@ public class RutaService {
                 // Consultar y guardar coordenadas del depósito de destino si existe
                 if (t.getDestinoDepositoId() != null) {
                     try {
-                        java.util.Map<Long, java.util.Map<String, Object>> info = depositoService.getInfoForDepositos(java.util.List.of(t.getDestinoDepositoId()));
-                        java.util.Map<String, Object> deposito = info != null ? info.get(t.getDestinoDepositoId()) : null;
+                        java.util.Map<String, Object> deposito = depositosInfo.get(t.getDestinoDepositoId());
                         if (deposito != null) {
                             Object lat = deposito.get("latitud");
                             Object lon = deposito.get("longitud");
@@ -3,10 +3,12 @@ package com.backend.tpi.ms_rutas_transportistas.services;
 import com.backend.tpi.ms_rutas_transportistas.dtos.RutaTentativaDTO;
 import com.backend.tpi.ms_rutas_transportistas.dtos.TramoTentativoDTO;
 import com.backend.tpi.ms_rutas_transportistas.dtos.osrm.CoordenadaDTO;
+import com.backend.tpi.ms_rutas_transportistas.dtos.osrm.MatrizDistanciasDTO;
 import com.backend.tpi.ms_rutas_transportistas.dtos.osrm.RutaCalculadaDTO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
  
 
@@ -16,6 +18,9 @@ import java.util.*;
  * Servicio para calcular rutas tentativas considerando depósitos intermedios
  * Usa OSRM para calcular distancias reales entre depósitos
  * Puede calcular múltiples opciones y elegir la ruta más corta
+ * Las variantes se evalúan en memoria contra una única matriz OSRM (/table);
+ * la geometría completa (/route) solo se pide para las mejores opciones.
+ * Cuando hay que recurrir a llamadas por tramo, variantes y tramos se calculan en paralelo (ver {@link EjecutorParalelo})
  */
 @Service
 public class RutaTentativaService {
@@ -28,6 +33,52 @@ public class RutaTentativaService {
     @Autowired
     private DepositoService depositoService;
 
+    @Autowired
+    private EjecutorParalelo ejecutorParalelo;
+
+    @Autowired
+    private TarifaService tarifaService;
+
+    @Value("${app.rutas.opciones-con-geometria:1}")
+    private int opcionesConGeometria;
+
+    @Value("${app.rutas.estadia-deposito-horas:24.0}")
+    private double estadiaDepositoHoras;
+
+    @Value("${app.rutas.optimizador.candidatos:10}")
+    private int optimizadorCandidatos;
+
+    @Value("${app.rutas.optimizador.max-intermedios:3}")
+    private int optimizadorMaxIntermedios;
+
+    @Value("${app.rutas.optimizador.max-tramo-km:0}")
+    private double optimizadorMaxTramoKm;
+
+    @Value("${app.rutas.optimizador.max-tramo-horas:0}")
+    private double optimizadorMaxTramoHoras;
+
+    @Value("${app.rutas.optimizador.opciones:4}")
+    private int optimizadorOpciones;
+
+    @Value("${app.rutas.optimizador.costo-km-referencia:0.0}")
+    private double costoKmReferencia;
+
+    @Value("${app.rutas.optimizador.consumo-litros-km-referencia:0.3}")
+    private double consumoLitrosKmReferencia;
+
+    /**
+     * Elige qué variantes evaluar una vez que la matriz de distancias está disponible
+     */
+    @FunctionalInterface
+    private interface SelectorVariantes {
+        /**
+         * @param matriz matriz OSRM de todos los puntos
+         * @param indicePorDeposito índice de cada depósito (con coordenadas) en la matriz
+         * @return depósitos intermedios de cada variante, en el orden en que deben devolverse
+         */
+        List<List<Long>> seleccionar(MatrizDistanciasDTO matriz, Map<Long, Integer> indicePorDeposito);
+    }
+
     /**
      * Calcula la mejor ruta entre origen y destino
      * Si depositosIntermediosIds es null, busca automáticamente depósitos intermedios
@@ -63,29 +114,17 @@ public class RutaTentativaService {
             
             // Calcular múltiples variantes y elegir la más corta
             logger.info("Calculando múltiples variantes de ruta");
-            List<RutaTentativaDTO> variantes = new ArrayList<>();
-            
-            // Variante 1: Ruta directa (sin intermedios)
-            RutaTentativaDTO rutaDirecta = calcularRutaTentativa(origenDepositoId, destinoDepositoId, null);
-            if (rutaDirecta.getExitoso()) {
-                variantes.add(rutaDirecta);
-                logger.debug("Variante directa: {} km", rutaDirecta.getDistanciaTotal());
-            }
-            
-            // Variante 2-N: Probar con depósitos cercanos al segmento origen-destino (k-nearest)
             List<Long> candidatos = depositoService.getKNearestToRoute(origenDepositoId, destinoDepositoId, 3);
-            int maxIntermediarios = Math.min(3, candidatos.size());
-            for (int i = 0; i < maxIntermediarios; i++) {
-                Long depositoIntermedio = candidatos.get(i);
-                List<Long> intermedios = List.of(depositoIntermedio);
-
-                RutaTentativaDTO rutaConIntermedio = calcularRutaTentativa(
-                        origenDepositoId, destinoDepositoId, intermedios);
+            List<List<Long>> intermediosPorVariante = armarIntermediosPorVariante(candidatos, origenDepositoId, destinoDepositoId);
 
-                if (rutaConIntermedio.getExitoso()) {
-                    variantes.add(rutaConIntermedio);
-                    logger.debug("Variante con depósito {}: {} km", depositoIntermedio, rutaConIntermedio.getDistanciaTotal());
-                }
+            List<RutaTentativaDTO> variantes = evaluarVariantesConMatriz(
+                    null, null, origenDepositoId, destinoDepositoId, intermediosPorVariante);
+            if (variantes == null) {
+                logger.warn("Matriz OSRM no disponible, calculando variantes tramo por tramo");
+                variantes = exitosas(ejecutorParalelo.ejecutar(intermediosPorVariante,
+                        intermedios -> calcularRutaTentativa(origenDepositoId, destinoDepositoId,
+                                intermedios.isEmpty() ? null : intermedios),
+                        "Variantes de ruta"));
             }
             
             // Elegir la ruta más corta
@@ -100,6 +139,9 @@ public class RutaTentativaService {
             RutaTentativaDTO mejorRuta = variantes.stream()
                     .min(Comparator.comparing(RutaTentativaDTO::getDistanciaTotal))
                     .orElse(variantes.get(0));
+            if (mejorRuta.getGeometry() == null) {
+                completarGeometria(mejorRuta);
+            }
             
             logger.info("Mejor ruta seleccionada: {} km de {} variantes calculadas", 
                     mejorRuta.getDistanciaTotal(), variantes.size());
@@ -135,29 +177,25 @@ public class RutaTentativaService {
             Long origenDepositoId, Long destinoDepositoId) {
         List<RutaTentativaDTO> variantes = new ArrayList<>();
         try {
-            // Variante directa (solo depósitos origen y destino)
-            RutaTentativaDTO directa = calcularRutaTentativaCompleta(
-                origenLat, origenLon, destinoLat, destinoLon,
-                origenDepositoId, destinoDepositoId, null);
-            if (directa.getExitoso()) {
-                variantes.add(directa);
-            }
-            
-            // Rutas con depósitos intermedios
-            // Obtener depósitos candidatos intermedios
+            // Variante directa (solo depósitos origen y destino) + rutas con depósitos intermedios candidatos
             List<Long> candidatos = depositoService.getKNearestToRoute(origenDepositoId, destinoDepositoId, 3);
-            candidatos.remove(origenDepositoId);
-            candidatos.remove(destinoDepositoId);
-            
-            int maxIntermediarios = Math.min(3, candidatos.size());
-            for (int i = 0; i < maxIntermediarios; i++) {
-                Long depositoIntermedio = candidatos.get(i);
-                List<Long> intermedios = List.of(depositoIntermedio);
-                RutaTentativaDTO rutaConIntermedio = calcularRutaTentativaCompleta(
-                    origenLat, origenLon, destinoLat, destinoLon,
-                    origenDepositoId, destinoDepositoId, intermedios);
-                if (rutaConIntermedio.getExitoso()) variantes.add(rutaConIntermedio);
+            List<List<Long>> intermediosPorVariante = armarIntermediosPorVariante(candidatos, origenDepositoId, destinoDepositoId);
+
+            List<RutaTentativaDTO> evaluadas = evaluarVariantesConMatriz(
+                    new CoordenadaDTO(origenLat, origenLon), new CoordenadaDTO(destinoLat, destinoLon),
+                    origenDepositoId, destinoDepositoId, intermediosPorVariante);
+            if (evaluadas != null) {
+                variantes.addAll(evaluadas);
+                completarGeometriaMejores(variantes);
+                return variantes;
             }
+
+            logger.warn("Matriz OSRM no disponible, calculando variantes completas tramo por tramo");
+            variantes.addAll(exitosas(ejecutorParalelo.ejecutar(intermediosPorVariante,
+                    intermedios -> calcularRutaTentativaCompleta(
+                        origenLat, origenLon, destinoLat, destinoLon,
+                        origenDepositoId, destinoDepositoId, intermedios.isEmpty() ? null : intermedios),
+                    "Variantes completas")));
         } catch (Exception e) {
             logger.error("Error al calcular variantes completas: {}", e.getMessage());
         }
@@ -171,24 +209,404 @@ public class RutaTentativaService {
     public List<RutaTentativaDTO> calcularVariantes(Long origenDepositoId, Long destinoDepositoId) {
         List<RutaTentativaDTO> variantes = new ArrayList<>();
         try {
-            // Variante directa
-            RutaTentativaDTO directa = calcularRutaTentativa(origenDepositoId, destinoDepositoId, null);
-            if (directa.getExitoso()) variantes.add(directa);
             List<Long> candidatos = depositoService.getKNearestToRoute(origenDepositoId, destinoDepositoId, 3);
-            candidatos.remove(origenDepositoId);
-            candidatos.remove(destinoDepositoId);
-            int maxIntermediarios = Math.min(3, candidatos.size());
-            for (int i = 0; i < maxIntermediarios; i++) {
-                Long depositoIntermedio = candidatos.get(i);
-                List<Long> intermedios = List.of(depositoIntermedio);
-                RutaTentativaDTO rutaConIntermedio = calcularRutaTentativa(origenDepositoId, destinoDepositoId, intermedios);
-                if (rutaConIntermedio.getExitoso()) variantes.add(rutaConIntermedio);
+            List<List<Long>> intermediosPorVariante = armarIntermediosPorVariante(candidatos, origenDepositoId, destinoDepositoId);
+
+            List<RutaTentativaDTO> evaluadas = evaluarVariantesConMatriz(
+                    null, null, origenDepositoId, destinoDepositoId, intermediosPorVariante);
+            if (evaluadas != null) {
+                variantes.addAll(evaluadas);
+                completarGeometriaMejores(variantes);
+                return variantes;
             }
+
+            variantes.addAll(exitosas(ejecutorParalelo.ejecutar(intermediosPorVariante,
+                    intermedios -> calcularRutaTentativa(origenDepositoId, destinoDepositoId,
+                            intermedios.isEmpty() ? null : intermedios),
+                    "Variantes de ruta")));
         } catch (Exception e) {
             logger.error("Error al calcular variantes: {}", e.getMessage());
         }
         return variantes;
     }
+
+    /**
+     * Busca las mejores rutas con 0..N depósitos intermedios (ver {@link OptimizadorRutas})
+     * Usa una sola matriz OSRM con los depósitos del corredor origen-destino y resuelve la búsqueda en memoria.
+     * Si la matriz no está disponible o ninguna ruta cumple las restricciones, recurre a
+     * {@link #calcularVariantesCompletas}.
+     * @param origenLat Latitud del punto de origen real
+     * @param origenLon Longitud del punto de origen real
+     * @param destinoLat Latitud del punto de destino real
+     * @param destinoLon Longitud del punto de destino real
+     * @param origenDepositoId ID del depósito más cercano al origen
+     * @param destinoDepositoId ID del depósito más cercano al destino
+     * @param criterio distancia, duracion o costo (por defecto distancia)
+     * @param cantidad cantidad máxima de opciones (null = valor configurado)
+     * @return opciones ordenadas de mejor a peor según el criterio; la duración total incluye la estadía en cada
+     *         depósito intermedio, igual que la usada para ordenar por duracion
+     */
+    public List<RutaTentativaDTO> optimizarRutas(
+            Double origenLat, Double origenLon,
+            Double destinoLat, Double destinoLon,
+            Long origenDepositoId, Long destinoDepositoId,
+            String criterio, Integer cantidad) {
+        OptimizadorRutas.Criterio criterioOptimizacion = OptimizadorRutas.Criterio.desde(criterio);
+        int k = cantidad != null && cantidad > 0 ? cantidad : optimizadorOpciones;
+        logger.info("Optimizando rutas: origen={}, destino={}, criterio={}, opciones={}",
+                origenDepositoId, destinoDepositoId, criterioOptimizacion, k);
+        try {
+            List<Long> candidatos = depositoService.getKNearestToRoute(origenDepositoId, destinoDepositoId, optimizadorCandidatos);
+            OptimizadorRutas.Restricciones restricciones = new OptimizadorRutas.Restricciones(
+                    Math.max(0, optimizadorMaxIntermedios), optimizadorMaxTramoKm, optimizadorMaxTramoHoras);
+            TarifaVigente tarifa = criterioOptimizacion == OptimizadorRutas.Criterio.COSTO ? tarifaService.getTarifaVigente() : null;
+            if (criterioOptimizacion == OptimizadorRutas.Criterio.COSTO && tarifa == null) {
+                logger.warn("Tarifa no disponible: el criterio costo usa solo el costo por km de referencia");
+            }
+            double costoPorTramo = tarifa != null && tarifa.costoBaseGestionFijo() != null ? tarifa.costoBaseGestionFijo() : 0.0;
+            double valorLitro = tarifa != null && tarifa.valorLitroCombustible() != null ? tarifa.valorLitroCombustible() : 0.0;
+            double costoPorKm = costoKmReferencia + consumoLitrosKmReferencia * valorLitro;
+            boolean conCosto = criterioOptimizacion == OptimizadorRutas.Criterio.COSTO;
+
+            List<RutaTentativaDTO> variantes = evaluarVariantesConMatriz(
+                    new CoordenadaDTO(origenLat, origenLon), new CoordenadaDTO(destinoLat, destinoLon),
+                    origenDepositoId, destinoDepositoId, candidatos,
+                    (matriz, indicePorDeposito) -> {
+                        if (!indicePorDeposito.containsKey(origenDepositoId) || !indicePorDeposito.containsKey(destinoDepositoId)) {
+                            return List.of();
+                        }
+                        // Submatriz solo de depósitos (los puntos reales se agregan igual a todas las variantes)
+                        List<Long> ids = new ArrayList<>(indicePorDeposito.keySet());
+                        int n = ids.size();
+                        double[][] distancias = new double[n][n];
+                        double[][] duraciones = new double[n][n];
+                        double[] costoParada = new double[n];
+                        for (int a = 0; a < n; a++) {
+                            int fila = indicePorDeposito.get(ids.get(a));
+                            for (int b = 0; b < n; b++) {
+                                int columna = indicePorDeposito.get(ids.get(b));
+                                distancias[a][b] = matriz.distanciaKm(fila, columna);
+                                duraciones[a][b] = matriz.duracionHoras(fila, columna);
+                            }
+                            Double estadia = conCosto ? depositoService.getCostoEstadiaDiario(ids.get(a)) : null;
+                            costoParada[a] = estadia != null ? estadia : 0.0;
+                        }
+                        OptimizadorRutas.ModeloCosto modelo = new OptimizadorRutas.ModeloCosto(
+                                costoPorTramo, costoPorKm, costoParada, estadiaDepositoHoras);
+                        List<OptimizadorRutas.Camino> caminos = OptimizadorRutas.mejoresCaminos(distancias, duraciones,
+                                ids.indexOf(origenDepositoId), ids.indexOf(destinoDepositoId),
+                                restricciones, modelo, criterioOptimizacion, k);
+                        List<List<Long>> intermediosPorVariante = new ArrayList<>();
+                        for (OptimizadorRutas.Camino camino : caminos) {
+                            List<Long> intermedios = new ArrayList<>();
+                            for (int i = 1; i < camino.nodos().length - 1; i++) intermedios.add(ids.get(camino.nodos()[i]));
+                            intermediosPorVariante.add(intermedios);
+                        }
+                        return intermediosPorVariante;
+                    });
+
+            if (variantes == null || variantes.isEmpty()) {
+                logger.warn("El optimizador no encontró rutas (matriz no disponible o restricciones sin solución), usando variantes simples");
+                return calcularVariantesCompletas(origenLat, origenLon, destinoLat, destinoLon, origenDepositoId, destinoDepositoId);
+            }
+
+            if (conCosto) {
+                // Costo estimado con el mismo modelo usado para ordenar (incluye los tramos desde/hacia los puntos reales)
+                for (RutaTentativaDTO variante : variantes) {
+                    double costo = 0.0;
+                    for (TramoTentativoDTO tramo : variante.getTramos()) {
+                        costo += costoPorTramo + costoPorKm * (tramo.getDistanciaKm() != null ? tramo.getDistanciaKm() : 0.0);
+                    }
+                    List<Long> depositos = variante.getDepositosIds();
+                    for (int i = 1; i < depositos.size() - 1; i++) {
+                        Double estadia = depositoService.getCostoEstadiaDiario(depositos.get(i));
+                        if (estadia != null) costo += estadia;
+                    }
+                    variante.setCostoTotal(Math.round(costo * 100.0) / 100.0);
+                }
+            }
+            // Duración informada = la que usó el optimizador: manejo (incluidos los tramos desde/hacia los puntos
+            // reales, iguales para todas las opciones) más la estadía en cada intermedio
+            for (RutaTentativaDTO variante : variantes) {
+                int intermedios = Math.max(0, variante.getDepositosIds().size() - 2);
+                double duracion = variante.getDuracionTotalHoras() != null ? variante.getDuracionTotalHoras() : 0.0;
+                variante.setDuracionTotalHoras(Math.round((duracion + intermedios * estadiaDepositoHoras) * 100.0) / 100.0);
+            }
+            // Ya vienen ordenadas según el criterio: la geometría se pide para las primeras
+            asignarGeometrias(variantes.subList(0, Math.min(variantes.size(), Math.max(0, opcionesConGeometria))),
+                    "Geometría de opciones optimizadas");
+            logger.info("Optimizador: {} opciones (mejor: {} km, {} h)", variantes.size(),
+                    variantes.get(0).getDistanciaTotal(), variantes.get(0).getDuracionTotalHoras());
+            return variantes;
+        } catch (Exception e) {
+            logger.error("Error al optimizar rutas: {}", e.getMessage(), e);
+            return calcularVariantesCompletas(origenLat, origenLon, destinoLat, destinoLon, origenDepositoId, destinoDepositoId);
+        }
+    }
+
+    /**
+     * Descarta las variantes que fallaron o no terminaron a tiempo (null)
+     */
+    private List<RutaTentativaDTO> exitosas(List<RutaTentativaDTO> variantes) {
+        List<RutaTentativaDTO> resultado = new ArrayList<>();
+        for (RutaTentativaDTO variante : variantes) {
+            if (variante != null && Boolean.TRUE.equals(variante.getExitoso())) {
+                resultado.add(variante);
+                logger.debug("Variante con depósitos {}: {} km", variante.getDepositosIds(), variante.getDistanciaTotal());
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Arma la lista de depósitos intermedios de cada variante: la directa (sin intermedios)
+     * y una variante por cada candidato, excluyendo los depósitos de origen y destino
+     */
+    private List<List<Long>> armarIntermediosPorVariante(List<Long> candidatos, Long origenDepositoId, Long destinoDepositoId) {
+        List<List<Long>> intermediosPorVariante = new ArrayList<>();
+        intermediosPorVariante.add(List.of());
+        if (candidatos == null) return intermediosPorVariante;
+        int agregados = 0;
+        for (Long candidato : candidatos) {
+            if (agregados >= 3) break;
+            if (candidato == null || candidato.equals(origenDepositoId) || candidato.equals(destinoDepositoId)) continue;
+            intermediosPorVariante.add(List.of(candidato));
+            agregados++;
+        }
+        return intermediosPorVariante;
+    }
+
+    /**
+     * Evalúa todas las variantes en memoria a partir de una única matriz OSRM (/table)
+     * que incluye los puntos reales (si se informan) y todos los depósitos involucrados.
+     * Las variantes resultantes no tienen geometría; ver {@link #completarGeometria(RutaTentativaDTO)}.
+     *
+     * @param origenReal Punto de origen real (null para rutas solo entre depósitos)
+     * @param destinoReal Punto de destino real (null para rutas solo entre depósitos)
+     * @param origenDepositoId ID del depósito origen
+     * @param destinoDepositoId ID del depósito destino
+     * @param intermediosPorVariante Depósitos intermedios de cada variante (lista vacía = directa)
+     * @return variantes calculadas exitosamente, o null si la matriz no está disponible
+     */
+    private List<RutaTentativaDTO> evaluarVariantesConMatriz(
+            CoordenadaDTO origenReal, CoordenadaDTO destinoReal,
+            Long origenDepositoId, Long destinoDepositoId,
+            List<List<Long>> intermediosPorVariante) {
+        Set<Long> candidatos = new LinkedHashSet<>();
+        intermediosPorVariante.forEach(candidatos::addAll);
+        return evaluarVariantesConMatriz(origenReal, destinoReal, origenDepositoId, destinoDepositoId,
+                candidatos, (matriz, indicePorDeposito) -> intermediosPorVariante);
+    }
+
+    /**
+     * Igual que {@link #evaluarVariantesConMatriz(CoordenadaDTO, CoordenadaDTO, Long, Long, List)}, pero las
+     * variantes las decide el selector a partir de la matriz (ver {@link #optimizarRutas})
+     * @param candidatos depósitos que pueden usarse como intermedios (se incluyen en la matriz)
+     */
+    private List<RutaTentativaDTO> evaluarVariantesConMatriz(
+            CoordenadaDTO origenReal, CoordenadaDTO destinoReal,
+            Long origenDepositoId, Long destinoDepositoId,
+            Collection<Long> candidatos, SelectorVariantes selector) {
+
+        Set<Long> idsInvolucrados = new LinkedHashSet<>();
+        idsInvolucrados.add(origenDepositoId);
+        idsInvolucrados.add(destinoDepositoId);
+        idsInvolucrados.addAll(candidatos);
+
+        Map<Long, Map<String, Object>> depositosInfo = depositoService.getInfoForDepositos(new ArrayList<>(idsInvolucrados));
+
+        // Índices de la matriz: [origenReal?, destinoReal?, depósitos...]
+        List<CoordenadaDTO> puntos = new ArrayList<>();
+        int idxOrigenReal = -1;
+        int idxDestinoReal = -1;
+        if (origenReal != null) { idxOrigenReal = puntos.size(); puntos.add(origenReal); }
+        if (destinoReal != null) { idxDestinoReal = puntos.size(); puntos.add(destinoReal); }
+        Map<Long, Integer> indicePorDeposito = new HashMap<>();
+        for (Long id : idsInvolucrados) {
+            Map<String, Object> info = depositosInfo.get(id);
+            if (info == null || !(info.get("latitud") instanceof Number) || !(info.get("longitud") instanceof Number)) {
+                logger.warn("Depósito {} sin coordenadas, se descartan las variantes que lo usan", id);
+                continue;
+            }
+            indicePorDeposito.put(id, puntos.size());
+            puntos.add(new CoordenadaDTO(((Number) info.get("latitud")).doubleValue(), ((Number) info.get("longitud")).doubleValue()));
+        }
+
+        MatrizDistanciasDTO matriz = osrmService.calcularMatriz(puntos.toArray(new CoordenadaDTO[0]));
+        if (!matriz.isExitoso()) {
+            logger.warn("No se pudo obtener matriz OSRM: {}", matriz.getMensaje());
+            return null;
+        }
+
+        List<List<Long>> intermediosPorVariante = selector.seleccionar(matriz, indicePorDeposito);
+        List<RutaTentativaDTO> variantes = new ArrayList<>();
+        for (List<Long> intermedios : intermediosPorVariante) {
+            List<Long> todosDepositosIds = new ArrayList<>();
+            todosDepositosIds.add(origenDepositoId);
+            todosDepositosIds.addAll(intermedios);
+            todosDepositosIds.add(destinoDepositoId);
+            if (!indicePorDeposito.keySet().containsAll(todosDepositosIds)) continue;
+
+            List<TramoTentativoDTO> tramos = new ArrayList<>();
+            double distanciaTotal = 0.0;
+            double duracionTotalHoras = 0.0;
+            int orden = 1;
+            boolean valida = true;
+
+            // Tramo inicial: origen real → depósito origen (se omite si OSRM no encontró ruta)
+            if (idxOrigenReal >= 0) {
+                int hasta = indicePorDeposito.get(origenDepositoId);
+                double distancia = matriz.distanciaKm(idxOrigenReal, hasta);
+                double duracion = matriz.duracionHoras(idxOrigenReal, hasta);
+                if (!Double.isNaN(distancia)) {
+                    Map<String, Object> info = depositosInfo.get(origenDepositoId);
+                    tramos.add(TramoTentativoDTO.builder()
+                        .orden(orden++)
+                        .origenDepositoId(null)
+                        .origenDepositoNombre("Punto de Origen")
+                        .origenLat(origenReal.getLatitud())
+                        .origenLong(origenReal.getLongitud())
+                        .destinoDepositoId(origenDepositoId)
+                        .destinoDepositoNombre((String) info.get("nombre"))
+                        .destinoLat(puntos.get(hasta).getLatitud())
+                        .destinoLong(puntos.get(hasta).getLongitud())
+                        .distanciaKm(distancia)
+                        .duracionHoras(Double.isNaN(duracion) ? 0.0 : duracion)
+                        .build());
+                    distanciaTotal += distancia;
+                    duracionTotalHoras += Double.isNaN(duracion) ? 0.0 : duracion;
+                }
+            }
+
+            // Tramos entre depósitos consecutivos: deben existir y tener distancia positiva
+            for (int i = 0; i < todosDepositosIds.size() - 1; i++) {
+                Long depOrigen = todosDepositosIds.get(i);
+                Long depDestino = todosDepositosIds.get(i + 1);
+                int desde = indicePorDeposito.get(depOrigen);
+                int hasta = indicePorDeposito.get(depDestino);
+                double distancia = matriz.distanciaKm(desde, hasta);
+                double duracion = matriz.duracionHoras(desde, hasta);
+                if (Double.isNaN(distancia) || distancia == 0.0) {
+                    logger.debug("Variante {} descartada: sin ruta entre depósito {} y {}", intermedios, depOrigen, depDestino);
+                    valida = false;
+                    break;
+                }
+                tramos.add(TramoTentativoDTO.builder()
+                    .orden(orden++)
+                    .origenDepositoId(depOrigen)
+                    .origenDepositoNombre((String) depositosInfo.get(depOrigen).get("nombre"))
+                    .origenLat(puntos.get(desde).getLatitud())
+                    .origenLong(puntos.get(desde).getLongitud())
+                    .destinoDepositoId(depDestino)
+                    .destinoDepositoNombre((String) depositosInfo.get(depDestino).get("nombre"))
+                    .destinoLat(puntos.get(hasta).getLatitud())
+                    .destinoLong(puntos.get(hasta).getLongitud())
+                    .distanciaKm(distancia)
+                    .duracionHoras(Double.isNaN(duracion) ? 0.0 : duracion)
+                    .build());
+                distanciaTotal += distancia;
+                duracionTotalHoras += Double.isNaN(duracion) ? 0.0 : duracion;
+            }
+            if (!valida) continue;
+
+            // Tramo final: depósito destino → destino real (se omite si OSRM no encontró ruta)
+            if (idxDestinoReal >= 0) {
+                int desde = indicePorDeposito.get(destinoDepositoId);
+                double distancia = matriz.distanciaKm(desde, idxDestinoReal);
+                double duracion = matriz.duracionHoras(desde, idxDestinoReal);
+                if (!Double.isNaN(distancia)) {
+                    Map<String, Object> info = depositosInfo.get(destinoDepositoId);
+                    tramos.add(TramoTentativoDTO.builder()
+                        .orden(orden++)
+                        .origenDepositoId(destinoDepositoId)
+                        .origenDepositoNombre((String) info.get("nombre"))
+                        .origenLat(puntos.get(desde).getLatitud())
+                        .origenLong(puntos.get(desde).getLongitud())
+                        .destinoDepositoId(null)
+                        .destinoDepositoNombre("Punto de Destino")
+                        .destinoLat(destinoReal.getLatitud())
+                        .destinoLong(destinoReal.getLongitud())
+                        .distanciaKm(distancia)
+                        .duracionHoras(Double.isNaN(duracion) ? 0.0 : duracion)
+                        .build());
+                    distanciaTotal += distancia;
+                    duracionTotalHoras += Double.isNaN(duracion) ? 0.0 : duracion;
+                }
+            }
+
+            List<String> nombresDepositos = todosDepositosIds.stream()
+                .map(id -> (String) depositosInfo.get(id).get("nombre"))
+                .toList();
+
+            variantes.add(RutaTentativaDTO.builder()
+                .depositosIds(todosDepositosIds)
+                .depositosNombres(nombresDepositos)
+                .distanciaTotal(Math.round(distanciaTotal * 100.0) / 100.0)
+                .duracionTotalHoras(Math.round(duracionTotalHoras * 100.0) / 100.0)
+                .numeroTramos(tramos.size())
+                .tramos(tramos)
+                .exitoso(true)
+                .mensaje("Ruta calculada con " + tramos.size() + " tramos")
+                .build());
+            logger.debug("Variante con intermedios {}: {} km", intermedios, Math.round(distanciaTotal * 100.0) / 100.0);
+        }
+
+        logger.info("Evaluadas {} de {} variantes con una matriz de {} puntos",
+                variantes.size(), intermediosPorVariante.size(), puntos.size());
+        return variantes;
+    }
+
+    /**
+     * Pide la geometría (/route) solo para las {@code opcionesConGeometria} variantes más cortas
+     * @param variantes variantes ya evaluadas (no se reordenan)
+     */
+    private void completarGeometriaMejores(List<RutaTentativaDTO> variantes) {
+        List<RutaTentativaDTO> mejores = variantes.stream()
+                .sorted(Comparator.comparing(RutaTentativaDTO::getDistanciaTotal))
+                .limit(Math.max(0, opcionesConGeometria))
+                .toList();
+        asignarGeometrias(mejores, "Geometría de variantes");
+    }
+
+    /**
+     * Pide en paralelo la geometría de varias variantes
+     * Las tareas solo devuelven la geometría y se asigna acá, al terminar la ejecución: una tarea cancelada
+     * por plazo que siga corriendo no puede modificar las variantes después de devolverlas.
+     */
+    private void asignarGeometrias(List<RutaTentativaDTO> variantes, String descripcion) {
+        List<String> geometrias = ejecutorParalelo.ejecutar(variantes, this::obtenerGeometria, descripcion);
+        for (int i = 0; i < variantes.size(); i++) {
+            if (geometrias.get(i) != null) variantes.get(i).setGeometry(geometrias.get(i));
+        }
+    }
+
+    /**
+     * Obtiene la geometría de una variante y se la asigna
+     * @param variante variante a completar; si OSRM falla queda sin geometría
+     */
+    private void completarGeometria(RutaTentativaDTO variante) {
+        String geometria = obtenerGeometria(variante);
+        if (geometria != null) variante.setGeometry(geometria);
+    }
+
+    /**
+     * Obtiene la geometría de una variante con una sola llamada multi-waypoint a OSRM, sin modificarla
+     * @param variante variante de la que se toman los tramos
+     * @return geometría de la ruta, null si no tiene tramos o si OSRM falla
+     */
+    private String obtenerGeometria(RutaTentativaDTO variante) {
+        if (variante.getTramos() == null || variante.getTramos().isEmpty()) return null;
+        List<CoordenadaDTO> waypoints = new ArrayList<>();
+        TramoTentativoDTO primero = variante.getTramos().get(0);
+        waypoints.add(new CoordenadaDTO(primero.getOrigenLat(), primero.getOrigenLong()));
+        for (TramoTentativoDTO tramo : variante.getTramos()) {
+            waypoints.add(new CoordenadaDTO(tramo.getDestinoLat(), tramo.getDestinoLong()));
+        }
+        RutaCalculadaDTO ruta = osrmService.calcularRutaMultiple(waypoints.toArray(new CoordenadaDTO[0]));
+        if (ruta.isExitoso()) return ruta.getGeometry();
+        logger.warn("No se pudo obtener geometría para variante {}: {}", variante.getDepositosIds(), ruta.getMensaje());
+        return null;
+    }
     
     // obtenerTodosDepositosIds moved to DepositoService
 
@@ -226,6 +644,18 @@ public class RutaTentativaService {
             // Obtener información de todos los depósitos
             Map<Long, Map<String, Object>> depositosInfo = depositoService.getInfoForDepositos(todosDepositosIds);
             logger.info("Depósitos obtenidos: {} de {} solicitados", depositosInfo.size(), todosDepositosIds.size());
+
+            // Todos los tramos se piden a OSRM en paralelo: [origen real → primer depósito],
+            // [depósito i → depósito i+1]..., [último depósito → destino real]
+            List<CoordenadaDTO[]> paresTramos = new ArrayList<>();
+            paresTramos.add(new CoordenadaDTO[]{new CoordenadaDTO(origenLat, origenLon), coordenada(depositosInfo.get(origenDepositoId))});
+            for (int i = 0; i < todosDepositosIds.size() - 1; i++) {
+                paresTramos.add(new CoordenadaDTO[]{
+                    coordenada(depositosInfo.get(todosDepositosIds.get(i))),
+                    coordenada(depositosInfo.get(todosDepositosIds.get(i + 1)))});
+            }
+            paresTramos.add(new CoordenadaDTO[]{coordenada(depositosInfo.get(destinoDepositoId)), new CoordenadaDTO(destinoLat, destinoLon)});
+            List<RutaCalculadaDTO> rutasTramos = calcularTramosEnParalelo(paresTramos);
             
             List<TramoTentativoDTO> tramos = new ArrayList<>();
             List<String> geometries = new ArrayList<>();
@@ -236,16 +666,10 @@ public class RutaTentativaService {
             // TRAMO 1: Origen real → Primer depósito
             Map<String, Object> primerDeposito = depositosInfo.get(origenDepositoId);
             if (primerDeposito != null) {
-                CoordenadaDTO coordOrigenReal = new CoordenadaDTO(origenLat, origenLon);
-                CoordenadaDTO coordPrimerDeposito = new CoordenadaDTO(
-                    ((Number) primerDeposito.get("latitud")).doubleValue(),
-                    ((Number) primerDeposito.get("longitud")).doubleValue()
-                );
-                
                 logger.info("Tramo {}: Punto origen real ({}, {}) → Depósito {} ({})", 
                     orden, origenLat, origenLon, origenDepositoId, primerDeposito.get("nombre"));
                 
-                RutaCalculadaDTO ruta1 = osrmService.calcularRuta(coordOrigenReal, coordPrimerDeposito);
+                RutaCalculadaDTO ruta1 = rutasTramos.get(0);
                 // Crear tramo inicial SIEMPRE, incluso si distancia es 0 (origen coincide con depósito)
                 if (ruta1.isExitoso() && ruta1.getDistanciaKm() != null) {
                     double distancia = ruta1.getDistanciaKm();
@@ -280,19 +704,10 @@ public class RutaTentativaService {
                 
                 if (infoOrigen == null || infoDestino == null) continue;
                 
-                CoordenadaDTO coordOrigen = new CoordenadaDTO(
-                    ((Number) infoOrigen.get("latitud")).doubleValue(),
-                    ((Number) infoOrigen.get("longitud")).doubleValue()
-                );
-                CoordenadaDTO coordDestino = new CoordenadaDTO(
-                    ((Number) infoDestino.get("latitud")).doubleValue(),
-                    ((Number) infoDestino.get("longitud")).doubleValue()
-                );
-                
                 logger.info("Tramo {}: Depósito {} ({}) → Depósito {} ({})",
                     orden, depOrigen, infoOrigen.get("nombre"), depDestino, infoDestino.get("nombre"));
                 
-                RutaCalculadaDTO rutaCalculada = osrmService.calcularRuta(coordOrigen, coordDestino);
+                RutaCalculadaDTO rutaCalculada = rutasTramos.get(i + 1);
                 if (!rutaCalculada.isExitoso() || rutaCalculada.getDistanciaKm() == null || rutaCalculada.getDistanciaKm() == 0.0) {
                     logger.error("OSRM no pudo calcular la ruta entre depósito {} y {}", depOrigen, depDestino);
                     return RutaTentativaDTO.builder()
@@ -323,16 +738,10 @@ public class RutaTentativaService {
             // TRAMO FINAL: Último depósito → Destino real
             Map<String, Object> ultimoDeposito = depositosInfo.get(destinoDepositoId);
             if (ultimoDeposito != null) {
-                CoordenadaDTO coordUltimoDeposito = new CoordenadaDTO(
-                    ((Number) ultimoDeposito.get("latitud")).doubleValue(),
-                    ((Number) ultimoDeposito.get("longitud")).doubleValue()
-                );
-                CoordenadaDTO coordDestinoReal = new CoordenadaDTO(destinoLat, destinoLon);
-                
                 logger.info("Tramo {}: Depósito {} ({}) → Punto destino real ({}, {})",
                     orden, destinoDepositoId, ultimoDeposito.get("nombre"), destinoLat, destinoLon);
                 
-                RutaCalculadaDTO rutaFinal = osrmService.calcularRuta(coordUltimoDeposito, coordDestinoReal);
+                RutaCalculadaDTO rutaFinal = rutasTramos.get(rutasTramos.size() - 1);
                 // Crear tramo final SIEMPRE, incluso si distancia es 0 (destino coincide con depósito)
                 if (rutaFinal.isExitoso() && rutaFinal.getDistanciaKm() != null) {
                     double distancia = rutaFinal.getDistanciaKm();
@@ -428,6 +837,15 @@ public class RutaTentativaService {
                 }
             }
             
+            // Pedir a OSRM todos los tramos entre depósitos consecutivos en paralelo
+            List<CoordenadaDTO[]> paresTramos = new ArrayList<>();
+            for (int i = 0; i < todosDepositosIds.size() - 1; i++) {
+                paresTramos.add(new CoordenadaDTO[]{
+                    coordenada(depositosInfo.get(todosDepositosIds.get(i))),
+                    coordenada(depositosInfo.get(todosDepositosIds.get(i + 1)))});
+            }
+            List<RutaCalculadaDTO> rutasTramos = calcularTramosEnParalelo(paresTramos);
+
             // Calcular tramos entre depósitos consecutivos
             List<TramoTentativoDTO> tramos = new ArrayList<>();
             List<String> geometries = new ArrayList<>();
@@ -460,7 +878,7 @@ public class RutaTentativaService {
                         i + 1, depOrigen, coordOrigen.getLatitud(), coordOrigen.getLongitud(),
                         depDestino, coordDestino.getLatitud(), coordDestino.getLongitud());
                 
-                RutaCalculadaDTO rutaCalculada = osrmService.calcularRuta(coordOrigen, coordDestino);
+                RutaCalculadaDTO rutaCalculada = rutasTramos.get(i);
                 logger.info("Resultado OSRM: exitoso={}, distancia={} km, duración={} hrs",
                         rutaCalculada.isExitoso(), rutaCalculada.getDistanciaKm(), rutaCalculada.getDuracionHoras());
                 
@@ -535,6 +953,31 @@ public class RutaTentativaService {
     }
     
     // obtenerInfoDepositos moved to DepositoService
+
+    /**
+     * Calcula con OSRM cada par [origen, destino] en paralelo
+     * @return rutas en el mismo orden; un par con coordenada null, fallido o fuera de plazo devuelve una ruta no exitosa
+     */
+    private List<RutaCalculadaDTO> calcularTramosEnParalelo(List<CoordenadaDTO[]> pares) {
+        List<RutaCalculadaDTO> rutas = ejecutorParalelo.ejecutar(pares,
+                par -> par[0] == null || par[1] == null ? null : osrmService.calcularRuta(par[0], par[1]),
+                "Tramos OSRM");
+        List<RutaCalculadaDTO> resultado = new ArrayList<>(rutas.size());
+        for (RutaCalculadaDTO ruta : rutas) {
+            resultado.add(ruta != null ? ruta : RutaCalculadaDTO.builder()
+                    .exitoso(false)
+                    .mensaje("Tramo no calculado (sin coordenadas o fuera de plazo)")
+                    .build());
+        }
+        return resultado;
+    }
+
+    private CoordenadaDTO coordenada(Map<String, Object> infoDeposito) {
+        if (infoDeposito == null) return null;
+        return new CoordenadaDTO(
+                ((Number) infoDeposito.get("latitud")).doubleValue(),
+                ((Number) infoDeposito.get("longitud")).doubleValue());
+    }
     
     /**
      * Calcula una ruta directa sin depósitos intermedios
@@ -545,6 +988,5 @@ public class RutaTentativaService {
     public RutaTentativaDTO calcularRutaDirecta(Long origenDepositoId, Long destinoDepositoId) {
         return calcularRutaTentativa(origenDepositoId, destinoDepositoId, null);
     }
-    
-    // token extraction moved/unused in this service
+
 }
@@ -0,0 +1,128 @@
+package com.backend.tpi.ms_rutas_transportistas.services;
+
+import com.backend.tpi.ms_rutas_transportistas.models.Ruta;
+import com.backend.tpi.ms_rutas_transportistas.models.Tramo;
+import com.backend.tpi.ms_rutas_transportistas.repositories.TramoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Sugerencia de camiones para un tramo
+ * Usa un índice de capacidades de los camiones disponibles y activos (reconstruido solo cuando cambia la
+ * caché de camiones) y la carga del contenedor cacheada, así el operador elige entre camiones que ya se
+ * sabe que soportan la carga en lugar de probar asignaciones. Se descartan los camiones con reservas en el
+ * calendario que se superponen con el horario estimado del tramo.
+ */
+@Service
+public class SugerenciaCamionesService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SugerenciaCamionesService.class);
+
+    @Autowired
+    private TramoRepository tramoRepository;
+
+    @Autowired
+    private CamionCache camionCache;
+
+    @Autowired
+    private CargaContenedorService cargaContenedorService;
+
+    @Autowired
+    private TarifaService tarifaService;
+
+    @Autowired
+    private CalendarioCamionesService calendarioCamionesService;
+
+    @Value("${app.camiones.sugerencias:5}")
+    private int sugerenciasPorDefecto;
+
+    private final AtomicReference<IndiceCapacidadCamiones> indice = new AtomicReference<>(IndiceCapacidadCamiones.vacio());
+
+    /**
+     * Sugiere los camiones más baratos que soportan la carga del tramo
+     * @param tramoId ID del tramo
+     * @param cantidad cantidad máxima de sugerencias (null = valor configurado)
+     * @return Map con la carga, la cantidad de camiones asignables y las sugerencias ordenadas por costo estimado
+     * @throws IllegalArgumentException si el tramo no existe o no tiene ruta/solicitud asociada
+     */
+    public Map<String, Object> sugerirParaTramo(Long tramoId, Integer cantidad) {
+        Tramo tramo = tramoRepository.findById(tramoId)
+                .orElseThrow(() -> new IllegalArgumentException("Tramo no encontrado con ID: " + tramoId));
+        Ruta ruta = tramo.getRuta();
+        if (ruta == null || ruta.getIdSolicitud() == null) {
+            throw new IllegalArgumentException("No se puede sugerir camiones: tramo sin ruta o solicitud asociada");
+        }
+        CargaContenedorService.CargaContenedor carga = cargaContenedorService.obtenerCarga(ruta.getIdSolicitud());
+
+        TarifaVigente tarifa = tarifaService.getTarifaVigente();
+        double valorLitro = tarifa != null && tarifa.valorLitroCombustible() != null ? tarifa.valorLitroCombustible() : 0.0;
+        double distancia = tramo.getDistancia() != null ? tramo.getDistancia() : 0.0;
+        int limite = cantidad != null && cantidad > 0 ? cantidad : sugerenciasPorDefecto;
+
+        // Camiones ocupados en el horario del tramo (sin contar la reserva del propio tramo si ya tenía camión)
+        long inicio = CalendarioCamionesService.inicio(tramo.getFechaHoraInicioEstimada());
+        long fin = CalendarioCamionesService.fin(tramo.getFechaHoraFinEstimada());
+        Set<String> ocupados = new HashSet<>();
+        for (CalendarioCamiones.Reserva r : calendarioCamionesService.getCalendario().solapadas(inicio, fin)) {
+            if (r.tramoId() != tramoId) ocupados.add(r.dominio());
+        }
+
+        IndiceCapacidadCamiones actual = getIndice();
+        List<IndiceCapacidadCamiones.Sugerencia> sugerencias = actual.sugerir(
+                carga.peso() != null ? carga.peso() : Double.NaN,
+                carga.volumen() != null ? carga.volumen() : Double.NaN,
+                distancia, valorLitro, limite, c -> !ocupados.contains(c.dominio()));
+
+        List<Map<String, Object>> camiones = new ArrayList<>(sugerencias.size());
+        for (IndiceCapacidadCamiones.Sugerencia s : sugerencias) {
+            FichaCamion c = s.camion();
+            Map<String, Object> info = new HashMap<>();
+            info.put("id", c.id());
+            info.put("dominio", c.dominio());
+            info.put("capacidadPesoMax", Double.isNaN(c.capacidadPesoMax()) ? null : c.capacidadPesoMax());
+            info.put("capacidadVolumenMax", Double.isNaN(c.capacidadVolumenMax()) ? null : c.capacidadVolumenMax());
+            info.put("costoPorKm", Double.isNaN(c.costoPorKm()) ? null : c.costoPorKm());
+            info.put("consumoCombustiblePromedio", Double.isNaN(c.consumoLitrosKm()) ? null : c.consumoLitrosKm());
+            info.put("costoEstimado", Math.round(s.costoEstimado() * 100.0) / 100.0);
+            camiones.add(info);
+        }
+
+        Map<String, Object> resultado = new HashMap<>();
+        resultado.put("tramoId", tramoId);
+        resultado.put("distancia", distancia);
+        resultado.put("pesoCarga", carga.peso());
+        resultado.put("volumenCarga", carga.volumen());
+        resultado.put("camionesAsignables", actual.size());
+        resultado.put("camionesOcupados", ocupados.size());
+        resultado.put("sugerencias", camiones);
+        logger.info("Sugerencias para tramo {}: {} de {} camiones asignables (peso={}, volumen={})",
+                tramoId, camiones.size(), actual.size(), carga.peso(), carga.volumen());
+        return resultado;
+    }
+
+    /**
+     * Índice vigente; se reconstruye si la caché de camiones cambió desde la última construcción
+     */
+    private IndiceCapacidadCamiones getIndice() {
+        IndiceCapacidadCamiones actual = indice.get();
+        long version = camionCache.getVersion();
+        if (actual.version() == version) return actual;
+        List<FichaCamion> flota = camionCache.listar();
+        // La versión se lee antes de listar: si cambia en el medio, la próxima consulta reconstruye otra vez
+        IndiceCapacidadCamiones nuevo = IndiceCapacidadCamiones.desde(flota, version);
+        indice.set(nuevo);
+        logger.debug("Índice de capacidades reconstruido: {} camiones asignables (versión {})", nuevo.size(), version);
+        return nuevo;
+    }
+}
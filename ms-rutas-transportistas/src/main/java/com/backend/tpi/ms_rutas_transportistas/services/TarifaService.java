@@ -0,0 +1,132 @@
+package com.backend.tpi.ms_rutas_transportistas.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClient;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Copia local de la tarifa vigente de ms-gestion-calculos
+ * Costear una ruta o un tramo no hace llamadas remotas por tarifas: se lee la foto en memoria.
+ * La copia se descarta cuando ms-gestion-calculos avisa un cambio (DELETE /api/v1/rutas/tarifas/cache),
+ * se verifica la versión en segundo plano cada {@code verificacion-segundos} y, como respaldo,
+ * se vuelve a descargar aunque la versión no haya cambiado cuando supera {@code ttl-minutos}.
+ */
+@Service
+public class TarifaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TarifaService.class);
+
+    @Autowired
+    private RestClient calculosClient;
+
+    @Value("${app.tarifas.verificacion-segundos:60}")
+    private long verificacionSegundos;
+
+    @Value("${app.tarifas.ttl-minutos:30}")
+    private long ttlMinutos;
+
+    private final AtomicReference<TarifaVigente> tarifa = new AtomicReference<>();
+    private final AtomicBoolean refrescando = new AtomicBoolean(false);
+    private volatile long ultimaVerificacion = 0L;
+
+    /**
+     * Devuelve la tarifa vigente
+     * Solo la primera carga (o la siguiente a una invalidación) es bloqueante; luego, si pasó el intervalo
+     * de verificación, se consulta la versión en segundo plano y se sigue sirviendo la foto vigente.
+     * @return tarifa vigente, o null si no hay tarifas o no se pudieron obtener
+     */
+    public TarifaVigente getTarifaVigente() {
+        TarifaVigente actual = tarifa.get();
+        if (actual == null) {
+            synchronized (tarifa) {
+                if (tarifa.get() == null) refrescar(extractBearerToken());
+            }
+            return tarifa.get();
+        }
+        long vencido = System.currentTimeMillis() - verificacionSegundos * 1000L;
+        if (ultimaVerificacion < vencido && refrescando.compareAndSet(false, true)) {
+            String token = extractBearerToken();
+            Thread.ofVirtual().name("tarifa-vigente").start(() -> {
+                try {
+                    refrescar(token);
+                } finally {
+                    refrescando.set(false);
+                }
+            });
+        }
+        return actual;
+    }
+
+    /**
+     * Descarta la copia local; la próxima consulta la vuelve a descargar
+     */
+    public void invalidar() {
+        TarifaVigente anterior = tarifa.getAndSet(null);
+        logger.info("Caché de tarifa invalidada (versión anterior: {})", anterior != null ? anterior.version() : null);
+    }
+
+    /**
+     * Compara la versión local con la de ms-gestion-calculos (If-None-Match) y, si cambió o la copia
+     * superó el TTL, descarga las tarifas y publica una nueva foto. Ante errores se conserva la anterior.
+     */
+    private void refrescar(String token) {
+        TarifaVigente actual = tarifa.get();
+        ultimaVerificacion = System.currentTimeMillis();
+        boolean vencida = actual != null && actual.cargadaEn() < System.currentTimeMillis() - ttlMinutos * 60_000L;
+        String version = null;
+        try {
+            ResponseEntity<Map<String, Object>> resp = calculosClient.get()
+                    .uri("/api/v1/tarifas/version")
+                    .headers(h -> {
+                        if (token != null) h.setBearerAuth(token);
+                        if (actual != null && actual.version() != null) h.setIfNoneMatch(actual.version());
+                    })
+                    .retrieve()
+                    .toEntity(new ParameterizedTypeReference<Map<String, Object>>() {});
+            version = resp.getHeaders().getETag();
+            if (actual != null && !vencida && (resp.getStatusCode().value() == 304
+                    || (version != null && version.equals(actual.version())))) {
+                logger.debug("Tarifa sin cambios (versión {})", actual.version());
+                return;
+            }
+            if (version == null && actual != null) version = actual.version();
+        } catch (Exception e) {
+            logger.warn("No se pudo consultar la versión de las tarifas: {}", e.getMessage());
+        }
+        try {
+            List<Map<String, Object>> tarifas = calculosClient.get()
+                    .uri("/api/v1/tarifas")
+                    .headers(h -> { if (token != null) h.setBearerAuth(token); })
+                    .retrieve()
+                    .body(new ParameterizedTypeReference<List<Map<String, Object>>>() {});
+            if (tarifas == null || tarifas.isEmpty()) {
+                logger.warn("No se encontraron tarifas en ms-gestion-calculos");
+                return;
+            }
+            TarifaVigente nueva = TarifaVigente.desde(tarifas.get(0), version);
+            tarifa.set(nueva);
+            logger.info("Tarifa vigente actualizada: id={}, costoBaseGestionFijo={}, valorLitroCombustible={} (versión {})",
+                    nueva.id(), nueva.costoBaseGestionFijo(), nueva.valorLitroCombustible(), version);
+        } catch (Exception e) {
+            logger.warn("No se pudo obtener tarifas desde ms-gestion-calculos: {}", e.getMessage());
+        }
+    }
+
+    private String extractBearerToken() {
+        var auth = org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
+        if (auth instanceof org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken) {
+            return ((org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken) auth).getToken().getTokenValue();
+        }
+        return null;
+    }
+}
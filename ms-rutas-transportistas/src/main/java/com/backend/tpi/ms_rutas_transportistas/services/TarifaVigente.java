@@ -0,0 +1,31 @@
+package com.backend.tpi.ms_rutas_transportistas.services;
+
+import java.util.Map;
+
+/**
+ * Foto inmutable de la tarifa vigente (la primera que devuelve ms-gestion-calculos)
+ * Solo conserva los valores que se usan para costear rutas y tramos; los rangos de volumen/peso no se copian.
+ * @param id ID de la tarifa
+ * @param costoBaseGestionFijo costo fijo de gestión por tramo (null si no está configurado)
+ * @param valorLitroCombustible valor del litro de combustible (null si no está configurado)
+ * @param version versión (ETag) con la que se descargó
+ * @param cargadaEn momento de la descarga (epoch millis)
+ */
+public record TarifaVigente(Long id, Double costoBaseGestionFijo, Double valorLitroCombustible,
+                            String version, long cargadaEn) {
+
+    /**
+     * Crea la foto a partir de un elemento de GET /api/v1/tarifas
+     */
+    public static TarifaVigente desde(Map<String, Object> tarifa, String version) {
+        Object id = tarifa.get("id");
+        Object costoBase = tarifa.get("costoBaseGestionFijo");
+        Object valorLitro = tarifa.get("valorLitroCombustible");
+        return new TarifaVigente(
+                id instanceof Number ? ((Number) id).longValue() : null,
+                costoBase instanceof Number ? ((Number) costoBase).doubleValue() : null,
+                valorLitro instanceof Number ? ((Number) valorLitro).doubleValue() : null,
+                version,
+                System.currentTimeMillis());
+    }
+}
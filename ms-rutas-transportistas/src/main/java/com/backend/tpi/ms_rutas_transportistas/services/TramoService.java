@@ -34,6 +34,12 @@ public class TramoService {
 
     @Autowired
     private org.springframework.web.client.RestClient calculosClient;
+
+    @Autowired
+    private DepositoService depositoService;
+
+    @Autowired
+    private TarifaService tarifaService;
     
     @Autowired
     private com.backend.tpi.ms_rutas_transportistas.repositories.TipoTramoRepository tipoTramoRepository;
@@ -42,7 +48,16 @@ public class TramoService {
     private com.backend.tpi.ms_rutas_transportistas.repositories.EstadoTramoRepository estadoTramoRepository;
     
     @Autowired
-    private com.backend.tpi.ms_rutas_transportistas.repositories.CamionRepository camionRepository;
+    private CamionCache camionCache;
+
+    @Autowired
+    private CargaContenedorService cargaContenedorService;
+
+    @Autowired
+    private CalendarioCamionesService calendarioCamionesService;
+
+    @Autowired
+    private org.springframework.transaction.support.TransactionTemplate transactionTemplate;
     
     @Autowired
     private org.springframework.web.client.RestClient solicitudesClient;
@@ -168,6 +183,18 @@ public class TramoService {
                 .toList();
     }
 
+    /**
+     * Convierte tramos ya cargados a DTOs (sin consultas adicionales)
+     * @param tramos Tramos a convertir (null = ninguno)
+     * @return Lista de tramos como DTOs
+     */
+    public java.util.List<com.backend.tpi.ms_rutas_transportistas.dtos.TramoDTO> toDtos(java.util.Collection<Tramo> tramos) {
+        if (tramos == null) return new java.util.ArrayList<>();
+        return tramos.stream()
+                .map(this::toDto)
+                .collect(java.util.stream.Collectors.toList());
+    }
+
     /**
      * Guarda o actualiza un tramo
      * @param tramo Entidad tramo a guardar
@@ -233,23 +260,29 @@ public class TramoService {
             throw new IllegalArgumentException("El ID del camión no puede ser null");
         }
         
-        Optional<com.backend.tpi.ms_rutas_transportistas.models.Camion> maybeCamion = camionRepository.findById(camionId);
+        Optional<FichaCamion> maybeCamion = camionCache.porId(camionId);
         if (maybeCamion.isEmpty()) {
             logger.error("Camión no encontrado con ID: {}", camionId);
             throw new IllegalArgumentException("Camión no encontrado con ID: " + camionId);
         }
         
-        com.backend.tpi.ms_rutas_transportistas.models.Camion camion = maybeCamion.get();
+        FichaCamion camion = maybeCamion.get();
         
-        // Validar disponibilidad del camión
-        if (camion.getDisponible() != null && !camion.getDisponible()) {
-            logger.error("El camión {} no está disponible", camion.getDominio());
-            throw new IllegalArgumentException("El camión con dominio " + camion.getDominio() + " no está disponible");
+        // Validar disponibilidad del camión (estado operativo que maneja el operador; la ocupación la da el calendario)
+        if (!camion.disponible()) {
+            logger.error("El camión {} no está disponible", camion.dominio());
+            throw new IllegalArgumentException("El camión con dominio " + camion.dominio() + " no está disponible");
         }
         
-        if (camion.getActivo() != null && !camion.getActivo()) {
-            logger.error("El camión {} no está activo", camion.getDominio());
-            throw new IllegalArgumentException("El camión con dominio " + camion.getDominio() + " no está activo");
+        if (!camion.activo()) {
+            logger.error("El camión {} no está activo", camion.dominio());
+            throw new IllegalArgumentException("El camión con dominio " + camion.dominio() + " no está activo");
+        }
+
+        // Rechazo rápido con el calendario en memoria; al guardar se vuelve a verificar con el camión bloqueado
+        if (!calendarioCamionesService.estaLibre(camion.dominio(), tramo)) {
+            logger.error("El camión {} ya tiene tramos asignados en el horario del tramo {}", camion.dominio(), tramoId);
+            throw new IllegalArgumentException("El camión con dominio " + camion.dominio() + " ya tiene tramos asignados en ese horario");
         }
         
         try {
@@ -261,51 +294,21 @@ public class TramoService {
                 throw new IllegalArgumentException("No se puede validar capacidad: tramo sin ruta o solicitud asociada");
             }
 
-            Long solicitudId = ruta.getIdSolicitud();
-            String token = extractBearerToken();
-
-            // Consultar solicitud para obtener el contenedor (map to DTO)
-            ResponseEntity<com.backend.tpi.ms_rutas_transportistas.dtos.SolicitudIntegrationDTO> solicitudEntity = solicitudesClient.get()
-                    .uri("/api/v1/solicitudes/{id}", solicitudId)
-                    .headers(h -> { if (token != null) h.setBearerAuth(token); })
-                    .retrieve()
-                    .toEntity(com.backend.tpi.ms_rutas_transportistas.dtos.SolicitudIntegrationDTO.class);
-
-            com.backend.tpi.ms_rutas_transportistas.dtos.SolicitudIntegrationDTO solicitud = solicitudEntity != null ? solicitudEntity.getBody() : null;
-            if (solicitud == null || solicitud.getContenedorId() == null) {
-                logger.error("No se puede validar capacidad - solicitud sin contenedor asociado o no encontrada (id={})", solicitudId);
-                throw new IllegalArgumentException("No se puede validar capacidad - solicitud sin contenedor asociado");
-            }
-
-            Long contenedorId = solicitud.getContenedorId();
-
-            // Consultar contenedor para obtener peso y volumen (map to DTO)
-            ResponseEntity<com.backend.tpi.ms_rutas_transportistas.dtos.ContenedorIntegrationDTO> contenedorEntity = solicitudesClient.get()
-                    .uri("/api/v1/contenedores/{id}", contenedorId)
-                    .headers(h -> { if (token != null) h.setBearerAuth(token); })
-                    .retrieve()
-                    .toEntity(com.backend.tpi.ms_rutas_transportistas.dtos.ContenedorIntegrationDTO.class);
-
-            com.backend.tpi.ms_rutas_transportistas.dtos.ContenedorIntegrationDTO contenedor = contenedorEntity != null ? contenedorEntity.getBody() : null;
-            if (contenedor == null) {
-                logger.error("No se puede validar capacidad - contenedor no encontrado (id={})", contenedorId);
-                throw new IllegalArgumentException("No se puede validar capacidad - contenedor no encontrado");
-            }
-
-            // Extraer peso y volumen del contenedor
-            Double pesoCarga = contenedor.getPeso() != null ? contenedor.getPeso().doubleValue() : null;
-            Double volumenCarga = contenedor.getVolumen() != null ? contenedor.getVolumen().doubleValue() : null;
+            // Peso y volumen actuales del contenedor: la validación no usa la caché de cargas
+            CargaContenedorService.CargaContenedor carga = cargaContenedorService.obtenerCargaActualizada(ruta.getIdSolicitud());
+            Double pesoCarga = carga.peso();
+            Double volumenCarga = carga.volumen();
             
             logger.debug("Contenedor: peso={} kg, volumen={} m³", pesoCarga, volumenCarga);
             logger.debug("Camión {}: capacidadPeso={} kg, capacidadVolumen={} m³", 
-                    camion.getDominio(), camion.getCapacidadPesoMax(), camion.getCapacidadVolumenMax());
+                    camion.dominio(), camion.capacidadPesoMax(), camion.capacidadVolumenMax());
             
             // VALIDAR CAPACIDAD DE PESO
-            if (pesoCarga != null && camion.getCapacidadPesoMax() != null) {
-                if (pesoCarga > camion.getCapacidadPesoMax()) {
+            if (pesoCarga != null && !Double.isNaN(camion.capacidadPesoMax())) {
+                if (pesoCarga > camion.capacidadPesoMax()) {
                     String mensaje = String.format(
                             "Camión insuficiente: el peso del contenedor (%.2f kg) excede la capacidad máxima del camión %s (%.2f kg)",
-                            pesoCarga, camion.getDominio(), camion.getCapacidadPesoMax()
+                            pesoCarga, camion.dominio(), camion.capacidadPesoMax()
                     );
                     logger.error(mensaje);
                     throw new IllegalArgumentException(mensaje);
@@ -313,18 +316,18 @@ public class TramoService {
             }
             
             // VALIDAR CAPACIDAD DE VOLUMEN
-            if (volumenCarga != null && camion.getCapacidadVolumenMax() != null) {
-                if (volumenCarga > camion.getCapacidadVolumenMax()) {
+            if (volumenCarga != null && !Double.isNaN(camion.capacidadVolumenMax())) {
+                if (volumenCarga > camion.capacidadVolumenMax()) {
                     String mensaje = String.format(
                             "Camión insuficiente: el volumen del contenedor (%.2f m³) excede la capacidad máxima del camión %s (%.2f m³)",
-                            volumenCarga, camion.getDominio(), camion.getCapacidadVolumenMax()
+                            volumenCarga, camion.dominio(), camion.capacidadVolumenMax()
                     );
                     logger.error(mensaje);
                     throw new IllegalArgumentException(mensaje);
                 }
             }
             
-            logger.info("Validación de capacidad exitosa - Camión {} es compatible con la carga", camion.getDominio());
+            logger.info("Validación de capacidad exitosa - Camión {} es compatible con la carga", camion.dominio());
             
         } catch (IllegalArgumentException e) {
             // Re-lanzar excepciones de validación
@@ -337,27 +340,7 @@ public class TramoService {
         }
         
         // Asignar camión al tramo (ya validado)
-        tramo.setCamionDominio(camion.getDominio());
-        
-        // Marcar el camión como NO DISPONIBLE al asignarlo a un tramo
-        camion.setDisponible(false);
-        camionRepository.save(camion);
-        logger.info("Camión {} marcado como NO DISPONIBLE", camion.getDominio());
-        
-        Tramo saved = tramoRepository.save(tramo);
-        logger.info("Camión {} asignado exitosamente al tramo ID: {}", camion.getDominio(), tramoId);
-        
-        // Calcular costo aproximado ahora que el tramo tiene camión asignado
-        try {
-            logger.info("Calculando costo aproximado para tramo {} tras asignar camión", tramoId);
-            computeAndSaveCostoAproximadoForTramo(saved);
-            // Recargar el tramo para obtener el costo actualizado
-            saved = tramoRepository.findById(tramoId).orElse(saved);
-        } catch (Exception e) {
-            logger.warn("No se pudo calcular costo aproximado para tramo {}: {}", tramoId, e.getMessage());
-        }
-        
-        return toDto(saved);
+        return toDto(guardarAsignacion(tramoId, camion.dominio()));
     }
     
 
@@ -544,18 +527,11 @@ public class TramoService {
             logger.warn("No se pudo actualizar estadoTramo a FINALIZADO: {}", e.getMessage());
         }
         
-        // Liberar el camión (marcarlo como DISPONIBLE nuevamente)
+        // Liberar el horario reservado del camión
         if (tramo.getCamionDominio() != null) {
             try {
-                java.util.Optional<com.backend.tpi.ms_rutas_transportistas.models.Camion> maybeCamion = 
-                    camionRepository.findFirstByDominio(tramo.getCamionDominio());
-                if (maybeCamion.isPresent()) {
-                    com.backend.tpi.ms_rutas_transportistas.models.Camion camion = maybeCamion.get();
-                    camion.setDisponible(true);
-                    camionRepository.save(camion);
-                    logger.info("Camión {} liberado y marcado como DISPONIBLE tras finalizar tramo {}", 
-                        camion.getDominio(), tramoId);
-                }
+                calendarioCamionesService.liberar(tramoId);
+                logger.info("Camión {} liberado tras finalizar tramo {}", tramo.getCamionDominio(), tramoId);
             } catch (Exception e) {
                 logger.warn("No se pudo liberar camión {}: {}", tramo.getCamionDominio(), e.getMessage());
             }
@@ -603,24 +579,13 @@ public class TramoService {
                         else if (t.getCostoAproximado() != null) sumaTramos += t.getCostoAproximado().doubleValue();
                     }
 
-                    // Obtener costo base de gestion
-                    Double costoBaseGestionFijo = null;
-                    try {
-                        String token = extractBearerToken();
-                        org.springframework.http.ResponseEntity<java.util.List<java.util.Map<String, Object>>> tarifasEntity = calculosClient.get()
-                                .uri("/api/v1/tarifas")
-                                .headers(h -> { if (token != null) h.setBearerAuth(token); })
-                                .retrieve()
-                                .toEntity(new org.springframework.core.ParameterizedTypeReference<java.util.List<java.util.Map<String, Object>>>() {});
-                        java.util.List<java.util.Map<String, Object>> tarifas = tarifasEntity != null ? tarifasEntity.getBody() : null;
-                        if (tarifas != null && !tarifas.isEmpty()) {
-                            Object costoBaseObj = tarifas.get(0).get("costoBaseGestionFijo");
-                            if (costoBaseObj instanceof Number) costoBaseGestionFijo = ((Number) costoBaseObj).doubleValue();
-                        }
-                    } catch (Exception ex) {
-                        logger.warn("No se pudo obtener tarifas para cálculo final de ruta: {}", ex.getMessage());
+                    // Obtener costo base de gestion (copia local de la tarifa vigente)
+                    TarifaVigente tarifa = tarifaService.getTarifaVigente();
+                    Double costoBaseGestionFijo = tarifa != null ? tarifa.costoBaseGestionFijo() : null;
+                    if (costoBaseGestionFijo == null) {
+                        logger.warn("Costo base de gestión no disponible para cálculo final de ruta, usando 0.0");
+                        costoBaseGestionFijo = 0.0;
                     }
-                    if (costoBaseGestionFijo == null) costoBaseGestionFijo = 0.0;
 
                     double costoGestionTotal = costoBaseGestionFijo * tramosRuta.size();
                     double costoFinal = Math.round((sumaTramos + costoGestionTotal) * 100.0) / 100.0;
@@ -674,22 +639,27 @@ public class TramoService {
         }
         Tramo tramo = optionalTramo.get();
 
-                java.util.Optional<com.backend.tpi.ms_rutas_transportistas.models.Camion> maybeCamion = camionRepository.findFirstByDominio(dominio);
+        // Datos del camión desde la caché (disponibilidad, actividad y capacidades)
+        java.util.Optional<FichaCamion> maybeCamion = camionCache.porDominio(dominio);
         if (maybeCamion.isEmpty()) {
             logger.error("Camión no encontrado con dominio: {}", dominio);
             throw new IllegalArgumentException("Camión no encontrado con dominio: " + dominio);
         }
 
-        com.backend.tpi.ms_rutas_transportistas.models.Camion camion = maybeCamion.get();
+        FichaCamion camion = maybeCamion.get();
 
-        // Validaciones de disponibilidad/actividad se mantienen
-        if (camion.getDisponible() != null && !camion.getDisponible()) {
-            logger.error("El camión {} no está disponible", camion.getDominio());
-            throw new IllegalArgumentException("El camión con dominio " + camion.getDominio() + " no está disponible");
+        // Disponibilidad/actividad: estados operativos que maneja el operador; la ocupación la da el calendario
+        if (!camion.disponible()) {
+            logger.error("El camión {} no está disponible", camion.dominio());
+            throw new IllegalArgumentException("El camión con dominio " + camion.dominio() + " no está disponible");
+        }
+        if (!camion.activo()) {
+            logger.error("El camión {} no está activo", camion.dominio());
+            throw new IllegalArgumentException("El camión con dominio " + camion.dominio() + " no está activo");
         }
-        if (camion.getActivo() != null && !camion.getActivo()) {
-            logger.error("El camión {} no está activo", camion.getDominio());
-            throw new IllegalArgumentException("El camión con dominio " + camion.getDominio() + " no está activo");
+        if (!calendarioCamionesService.estaLibre(camion.dominio(), tramo)) {
+            logger.error("El camión {} ya tiene tramos asignados en el horario del tramo {}", camion.dominio(), tramoId);
+            throw new IllegalArgumentException("El camión con dominio " + camion.dominio() + " ya tiene tramos asignados en ese horario");
         }
 
         // Reuse existing validation logic by mimicking external contenedor lookup
@@ -702,60 +672,33 @@ public class TramoService {
                 throw new IllegalArgumentException("No se puede validar capacidad: tramo sin ruta o solicitud asociada");
             }
 
-            Long solicitudId = ruta.getIdSolicitud();
-            String token = extractBearerToken();
-
-            ResponseEntity<com.backend.tpi.ms_rutas_transportistas.dtos.SolicitudIntegrationDTO> solicitudEntity = solicitudesClient.get()
-                    .uri("/api/v1/solicitudes/{id}", solicitudId)
-                    .headers(h -> { if (token != null) h.setBearerAuth(token); })
-                    .retrieve()
-                    .toEntity(com.backend.tpi.ms_rutas_transportistas.dtos.SolicitudIntegrationDTO.class);
-
-            com.backend.tpi.ms_rutas_transportistas.dtos.SolicitudIntegrationDTO solicitud = solicitudEntity != null ? solicitudEntity.getBody() : null;
-            if (solicitud == null || solicitud.getContenedorId() == null) {
-                logger.error("No se puede validar capacidad - solicitud sin contenedor asociado o no encontrada (id={})", solicitudId);
-                throw new IllegalArgumentException("No se puede validar capacidad - solicitud sin contenedor asociado");
-            }
-
-            Long contenedorId = solicitud.getContenedorId();
-
-            ResponseEntity<com.backend.tpi.ms_rutas_transportistas.dtos.ContenedorIntegrationDTO> contenedorEntity = solicitudesClient.get()
-                    .uri("/api/v1/contenedores/{id}", contenedorId)
-                    .headers(h -> { if (token != null) h.setBearerAuth(token); })
-                    .retrieve()
-                    .toEntity(com.backend.tpi.ms_rutas_transportistas.dtos.ContenedorIntegrationDTO.class);
+            // Peso y volumen actuales del contenedor: la validación no usa la caché de cargas
+            CargaContenedorService.CargaContenedor carga = cargaContenedorService.obtenerCargaActualizada(ruta.getIdSolicitud());
+            Double pesoCarga = carga.peso();
+            Double volumenCarga = carga.volumen();
 
-            com.backend.tpi.ms_rutas_transportistas.dtos.ContenedorIntegrationDTO contenedor = contenedorEntity != null ? contenedorEntity.getBody() : null;
-            if (contenedor == null) {
-                logger.error("No se puede validar capacidad - contenedor no encontrado (id={})", contenedorId);
-                throw new IllegalArgumentException("No se puede validar capacidad - contenedor no encontrado");
-            }
-
-            Double pesoCarga = contenedor.getPeso() != null ? contenedor.getPeso().doubleValue() : null;
-            Double volumenCarga = contenedor.getVolumen() != null ? contenedor.getVolumen().doubleValue() : null;
-
-            if (pesoCarga != null && camion.getCapacidadPesoMax() != null) {
-                if (pesoCarga > camion.getCapacidadPesoMax()) {
+            if (pesoCarga != null && !Double.isNaN(camion.capacidadPesoMax())) {
+                if (pesoCarga > camion.capacidadPesoMax()) {
                     String mensaje = String.format(
                             "Camión insuficiente: el peso del contenedor (%.2f kg) excede la capacidad máxima del camión %s (%.2f kg)",
-                            pesoCarga, camion.getDominio(), camion.getCapacidadPesoMax()
+                            pesoCarga, camion.dominio(), camion.capacidadPesoMax()
                     );
                     logger.error(mensaje);
                     throw new IllegalArgumentException(mensaje);
                 }
             }
-            if (volumenCarga != null && camion.getCapacidadVolumenMax() != null) {
-                if (volumenCarga > camion.getCapacidadVolumenMax()) {
+            if (volumenCarga != null && !Double.isNaN(camion.capacidadVolumenMax())) {
+                if (volumenCarga > camion.capacidadVolumenMax()) {
                     String mensaje = String.format(
                             "Camión insuficiente: el volumen del contenedor (%.2f m³) excede la capacidad máxima del camión %s (%.2f m³)",
-                            volumenCarga, camion.getDominio(), camion.getCapacidadVolumenMax()
+                            volumenCarga, camion.dominio(), camion.capacidadVolumenMax()
                     );
                     logger.error(mensaje);
                     throw new IllegalArgumentException(mensaje);
                 }
             }
 
-            logger.info("Validación de capacidad exitosa - Camión {} es compatible con la carga", camion.getDominio());
+            logger.info("Validación de capacidad exitosa - Camión {} es compatible con la carga", camion.dominio());
         } catch (IllegalArgumentException e) {
             throw e;
         } catch (Exception e) {
@@ -764,27 +707,38 @@ public class TramoService {
             throw new RuntimeException("Error al validar capacidad del camión: " + e.getMessage(), e);
         }
 
-        tramo.setCamionDominio(camion.getDominio());
-        
-        // Marcar el camión como NO DISPONIBLE al asignarlo a un tramo
-        camion.setDisponible(false);
-        camionRepository.save(camion);
-        logger.info("Camión {} marcado como NO DISPONIBLE", camion.getDominio());
-        
-        Tramo saved = tramoRepository.save(tramo);
-        logger.info("Camión {} asignado exitosamente al tramo ID: {}", camion.getDominio(), tramoId);
-        
-        // Calcular costo aproximado ahora que el tramo tiene camión asignado
-        try {
-            logger.info("Calculando costo aproximado para tramo {} tras asignar camión", tramoId);
-            computeAndSaveCostoAproximadoForTramo(saved);
-            // Recargar el tramo para obtener el costo actualizado
-            saved = tramoRepository.findById(tramoId).orElse(saved);
-        } catch (Exception e) {
-            logger.warn("No se pudo calcular costo aproximado para tramo {}: {}", tramoId, e.getMessage());
-        }
-        
-        return toDto(saved);
+        return toDto(guardarAsignacion(tramoId, camion.dominio()));
+    }
+
+    /**
+     * Guarda la asignación de un camión ya validado en una transacción corta: bloquea el camión, verifica
+     * contra la base que siga libre en el horario del tramo (el calendario en memoria puede no tener todavía
+     * una asignación simultánea), guarda, reserva y calcula el costo aproximado
+     * @throws IllegalArgumentException si el camión se ocupó en ese horario mientras se validaba
+     */
+    private Tramo guardarAsignacion(Long tramoId, String dominio) {
+        return transactionTemplate.execute(status -> {
+            Tramo tramo = tramoRepository.findById(tramoId)
+                    .orElseThrow(() -> new IllegalArgumentException("Tramo no encontrado con ID: " + tramoId));
+            if (!calendarioCamionesService.bloquearSiLibre(dominio, tramo)) {
+                logger.error("El camión {} ya tiene tramos asignados en el horario del tramo {}", dominio, tramoId);
+                throw new IllegalArgumentException("El camión con dominio " + dominio + " ya tiene tramos asignados en ese horario");
+            }
+            tramo.setCamionDominio(dominio);
+            Tramo saved = tramoRepository.save(tramo);
+            // Reservar el camión en el horario estimado del tramo (puede tener otros tramos en otros horarios)
+            calendarioCamionesService.reservar(saved, dominio);
+            logger.info("Camión {} asignado exitosamente al tramo ID: {}", dominio, tramoId);
+
+            // Calcular costo aproximado ahora que el tramo tiene camión asignado
+            try {
+                logger.info("Calculando costo aproximado para tramo {} tras asignar camión", tramoId);
+                computeAndSaveCostoAproximadoForTramo(saved);
+            } catch (Exception e) {
+                logger.warn("No se pudo calcular costo aproximado para tramo {}: {}", tramoId, e.getMessage());
+            }
+            return saved;
+        });
     }
 
     /**
@@ -802,49 +756,38 @@ public class TramoService {
         logger.info("  Distancia: {} km", distancia);
         logger.info("  Camión: {}", tramo.getCamionDominio());
 
-        // Obtener tarifas (valor litro)
-        Double valorLitro = null;
-        try {
-            String token = extractBearerToken();
-            org.springframework.http.ResponseEntity<java.util.List<java.util.Map<String, Object>>> tarifasEntity = calculosClient.get()
-                    .uri("/api/v1/tarifas")
-                    .headers(h -> { if (token != null) h.setBearerAuth(token); })
-                    .retrieve()
-                    .toEntity(new org.springframework.core.ParameterizedTypeReference<java.util.List<java.util.Map<String, Object>>>() {});
-            java.util.List<java.util.Map<String, Object>> tarifas = tarifasEntity != null ? tarifasEntity.getBody() : null;
-            if (tarifas != null && !tarifas.isEmpty()) {
-                Object valorLitroObj = tarifas.get(0).get("valorLitroCombustible");
-                if (valorLitroObj instanceof Number) valorLitro = ((Number) valorLitroObj).doubleValue();
-            }
-        } catch (Exception e) {
-            logger.warn("No se pudo obtener valor litro para cálculo de costo real: {}", e.getMessage());
+        // Obtener tarifas (valor litro) desde la copia local de la tarifa vigente
+        TarifaVigente tarifa = tarifaService.getTarifaVigente();
+        Double valorLitro = tarifa != null ? tarifa.valorLitroCombustible() : null;
+        if (valorLitro == null) {
+            logger.warn("Valor litro no disponible para cálculo de costo real, usando 0.0");
+            valorLitro = 0.0;
         }
-        if (valorLitro == null) valorLitro = 0.0;
         logger.info("  Valor litro combustible: ${}", valorLitro);
 
         // Obtener datos del camión
         if (tramo.getCamionDominio() != null && !tramo.getCamionDominio().isEmpty()) {
             try {
-                java.util.Optional<com.backend.tpi.ms_rutas_transportistas.models.Camion> camionOpt = camionRepository.findFirstByDominio(tramo.getCamionDominio());
+                java.util.Optional<FichaCamion> camionOpt = camionCache.porDominio(tramo.getCamionDominio());
                 if (camionOpt.isPresent()) {
-                    com.backend.tpi.ms_rutas_transportistas.models.Camion camion = camionOpt.get();
+                    FichaCamion camion = camionOpt.get();
                     logger.info("  Camión encontrado - costoPorKm: {}, consumo: {}", 
-                        camion.getCostoPorKm(), camion.getConsumoCombustiblePromedio());
+                        camion.costoPorKm(), camion.consumoLitrosKm());
                     
-                    if (camion.getCostoPorKm() != null) {
-                        costoKmCamion = camion.getCostoPorKm() * distancia;
-                        logger.info("  Costo por km: {} * {} = ${}", camion.getCostoPorKm(), distancia, costoKmCamion);
+                    if (!Double.isNaN(camion.costoPorKm())) {
+                        costoKmCamion = camion.costoPorKm() * distancia;
+                        logger.info("  Costo por km: {} * {} = ${}", camion.costoPorKm(), distancia, costoKmCamion);
                     } else {
-                        logger.warn("  Camión {} no tiene costoPorKm configurado", camion.getDominio());
+                        logger.warn("  Camión {} no tiene costoPorKm configurado", camion.dominio());
                     }
                     
-                    if (camion.getConsumoCombustiblePromedio() != null) {
-                        double consumoLitros = camion.getConsumoCombustiblePromedio() * distancia;
+                    if (!Double.isNaN(camion.consumoLitrosKm())) {
+                        double consumoLitros = camion.consumoLitrosKm() * distancia;
                         costoCombustible = consumoLitros * valorLitro;
                         logger.info("  Costo combustible: {} L/km * {} km * ${}/L = ${}", 
-                            camion.getConsumoCombustiblePromedio(), distancia, valorLitro, costoCombustible);
+                            camion.consumoLitrosKm(), distancia, valorLitro, costoCombustible);
                     } else {
-                        logger.warn("  Camión {} no tiene consumoCombustiblePromedio configurado", camion.getDominio());
+                        logger.warn("  Camión {} no tiene consumoCombustiblePromedio configurado", camion.dominio());
                     }
                 } else {
                     logger.warn("  Camión {} no encontrado en la base de datos", tramo.getCamionDominio());
@@ -857,20 +800,8 @@ public class TramoService {
         // Calcular costo de estadía para este tramo (si corresponde)
         if (tramo.getDestinoDepositoId() != null) {
             try {
-                String token = extractBearerToken();
-                org.springframework.http.ResponseEntity<java.util.Map<String, Object>> depositoEntity = calculosClient.get()
-                        .uri("/api/v1/depositos/{id}", tramo.getDestinoDepositoId())
-                        .headers(h -> { if (token != null) h.setBearerAuth(token); })
-                        .retrieve()
-                        .toEntity(new org.springframework.core.ParameterizedTypeReference<java.util.Map<String, Object>>() {});
-                java.util.Map<String, Object> deposito = depositoEntity != null ? depositoEntity.getBody() : null;
-                Double costoEstadiaDiario = null;
-                if (deposito != null) {
-                    Object costoObj = deposito.get("costoEstadiaDiario");
-                    if (costoObj instanceof Number) costoEstadiaDiario = ((Number) costoObj).doubleValue();
-                    else if (deposito.containsKey("costo_estadia_diario") && deposito.get("costo_estadia_diario") instanceof Number)
-                        costoEstadiaDiario = ((Number) deposito.get("costo_estadia_diario")).doubleValue();
-                }
+                // Costo diario desde el catálogo local de depósitos (sin llamada remota)
+                Double costoEstadiaDiario = depositoService.getCostoEstadiaDiario(tramo.getDestinoDepositoId());
 
                 if (costoEstadiaDiario != null) {
                     // Si hay siguiente tramo, usar sus fechas para calcular noches
@@ -915,8 +846,9 @@ public class TramoService {
 
     /**
      * Calcula y persiste el costo aproximado de un tramo (igual al real pero usa fechas estimadas)
+     * También lo usa la asignación automática de flota ({@link AsignacionFlotaService}).
      */
-    private void computeAndSaveCostoAproximadoForTramo(Tramo tramo) {
+    void computeAndSaveCostoAproximadoForTramo(Tramo tramo) {
         if (tramo == null) return;
 
         double distancia = tramo.getDistancia() != null ? tramo.getDistancia() : 0.0;
@@ -928,49 +860,38 @@ public class TramoService {
         logger.info("  Distancia: {} km", distancia);
         logger.info("  Camión: {}", tramo.getCamionDominio());
 
-        // Obtener tarifas (valor litro)
-        Double valorLitro = null;
-        try {
-            String token = extractBearerToken();
-            org.springframework.http.ResponseEntity<java.util.List<java.util.Map<String, Object>>> tarifasEntity = calculosClient.get()
-                    .uri("/api/v1/tarifas")
-                    .headers(h -> { if (token != null) h.setBearerAuth(token); })
-                    .retrieve()
-                    .toEntity(new org.springframework.core.ParameterizedTypeReference<java.util.List<java.util.Map<String, Object>>>() {});
-            java.util.List<java.util.Map<String, Object>> tarifas = tarifasEntity != null ? tarifasEntity.getBody() : null;
-            if (tarifas != null && !tarifas.isEmpty()) {
-                Object valorLitroObj = tarifas.get(0).get("valorLitroCombustible");
-                if (valorLitroObj instanceof Number) valorLitro = ((Number) valorLitroObj).doubleValue();
-            }
-        } catch (Exception e) {
-            logger.warn("No se pudo obtener valor litro para cálculo de costo aproximado: {}", e.getMessage());
+        // Obtener tarifas (valor litro) desde la copia local de la tarifa vigente
+        TarifaVigente tarifa = tarifaService.getTarifaVigente();
+        Double valorLitro = tarifa != null ? tarifa.valorLitroCombustible() : null;
+        if (valorLitro == null) {
+            logger.warn("Valor litro no disponible para cálculo de costo aproximado, usando 0.0");
+            valorLitro = 0.0;
         }
-        if (valorLitro == null) valorLitro = 0.0;
         logger.info("  Valor litro combustible: ${}", valorLitro);
 
         // Obtener datos del camión
         if (tramo.getCamionDominio() != null && !tramo.getCamionDominio().isEmpty()) {
             try {
-                java.util.Optional<com.backend.tpi.ms_rutas_transportistas.models.Camion> camionOpt = camionRepository.findFirstByDominio(tramo.getCamionDominio());
+                java.util.Optional<FichaCamion> camionOpt = camionCache.porDominio(tramo.getCamionDominio());
                 if (camionOpt.isPresent()) {
-                    com.backend.tpi.ms_rutas_transportistas.models.Camion camion = camionOpt.get();
+                    FichaCamion camion = camionOpt.get();
                     logger.info("  Camión encontrado - costoPorKm: {}, consumo: {}", 
-                        camion.getCostoPorKm(), camion.getConsumoCombustiblePromedio());
+                        camion.costoPorKm(), camion.consumoLitrosKm());
                     
-                    if (camion.getCostoPorKm() != null) {
-                        costoKmCamion = camion.getCostoPorKm() * distancia;
-                        logger.info("  Costo por km: {} * {} = ${}", camion.getCostoPorKm(), distancia, costoKmCamion);
+                    if (!Double.isNaN(camion.costoPorKm())) {
+                        costoKmCamion = camion.costoPorKm() * distancia;
+                        logger.info("  Costo por km: {} * {} = ${}", camion.costoPorKm(), distancia, costoKmCamion);
                     } else {
-                        logger.warn("  Camión {} no tiene costoPorKm configurado", camion.getDominio());
+                        logger.warn("  Camión {} no tiene costoPorKm configurado", camion.dominio());
                     }
                     
-                    if (camion.getConsumoCombustiblePromedio() != null) {
-                        double consumoLitros = camion.getConsumoCombustiblePromedio() * distancia;
+                    if (!Double.isNaN(camion.consumoLitrosKm())) {
+                        double consumoLitros = camion.consumoLitrosKm() * distancia;
                         costoCombustible = consumoLitros * valorLitro;
                         logger.info("  Costo combustible: {} L/km * {} km * ${}/L = ${}", 
-                            camion.getConsumoCombustiblePromedio(), distancia, valorLitro, costoCombustible);
+                            camion.consumoLitrosKm(), distancia, valorLitro, costoCombustible);
                     } else {
-                        logger.warn("  Camión {} no tiene consumoCombustiblePromedio configurado", camion.getDominio());
+                        logger.warn("  Camión {} no tiene consumoCombustiblePromedio configurado", camion.dominio());
                     }
                 } else {
                     logger.warn("  Camión {} no encontrado en la base de datos", tramo.getCamionDominio());
@@ -983,20 +904,8 @@ public class TramoService {
         // Calcular costo de estadía ESTIMADO para este tramo (usa fechas ESTIMADAS)
         if (tramo.getDestinoDepositoId() != null) {
             try {
-                String token = extractBearerToken();
-                org.springframework.http.ResponseEntity<java.util.Map<String, Object>> depositoEntity = calculosClient.get()
-                        .uri("/api/v1/depositos/{id}", tramo.getDestinoDepositoId())
-                        .headers(h -> { if (token != null) h.setBearerAuth(token); })
-                        .retrieve()
-                        .toEntity(new org.springframework.core.ParameterizedTypeReference<java.util.Map<String, Object>>() {});
-                java.util.Map<String, Object> deposito = depositoEntity != null ? depositoEntity.getBody() : null;
-                Double costoEstadiaDiario = null;
-                if (deposito != null) {
-                    Object costoObj = deposito.get("costoEstadiaDiario");
-                    if (costoObj instanceof Number) costoEstadiaDiario = ((Number) costoObj).doubleValue();
-                    else if (deposito.containsKey("costo_estadia_diario") && deposito.get("costo_estadia_diario") instanceof Number)
-                        costoEstadiaDiario = ((Number) deposito.get("costo_estadia_diario")).doubleValue();
-                }
+                // Costo diario desde el catálogo local de depósitos (sin llamada remota)
+                Double costoEstadiaDiario = depositoService.getCostoEstadiaDiario(tramo.getDestinoDepositoId());
 
                 if (costoEstadiaDiario != null) {
                     // Usar fechas ESTIMADAS para costo aproximado
@@ -1073,6 +982,7 @@ public class TramoService {
     public void delete(Long id) {
         logger.info("Eliminando tramo con ID: {}", id);
         tramoRepository.deleteById(id);
+        calendarioCamionesService.liberar(id);
     }
 
     /**
@@ -1093,18 +1003,11 @@ public class TramoService {
         // Cambiar estado del tramo a COMPLETADO
         estadoTramoRepository.findByNombre("COMPLETADO").ifPresent(tramo::setEstado);
         
-        // Liberar el camión (marcarlo como DISPONIBLE nuevamente)
+        // Liberar el horario reservado del camión
         if (tramo.getCamionDominio() != null) {
             try {
-                java.util.Optional<com.backend.tpi.ms_rutas_transportistas.models.Camion> maybeCamion = 
-                    camionRepository.findFirstByDominio(tramo.getCamionDominio());
-                if (maybeCamion.isPresent()) {
-                    com.backend.tpi.ms_rutas_transportistas.models.Camion camion = maybeCamion.get();
-                    camion.setDisponible(true);
-                    camionRepository.save(camion);
-                    logger.info("Camión {} liberado y marcado como DISPONIBLE tras completar tramo {}", 
-                        camion.getDominio(), tramoId);
-                }
+                calendarioCamionesService.liberar(tramoId);
+                logger.info("Camión {} liberado tras completar tramo {}", tramo.getCamionDominio(), tramoId);
             } catch (Exception e) {
                 logger.warn("No se pudo liberar camión {}: {}", tramo.getCamionDominio(), e.getMessage());
             }
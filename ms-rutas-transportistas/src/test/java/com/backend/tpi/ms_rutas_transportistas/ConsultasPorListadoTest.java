@@ -0,0 +1,110 @@
+package com.backend.tpi.ms_rutas_transportistas;
+
+import com.backend.tpi.ms_rutas_transportistas.models.EstadoTramo;
+import com.backend.tpi.ms_rutas_transportistas.models.Ruta;
+import com.backend.tpi.ms_rutas_transportistas.models.TipoTramo;
+import com.backend.tpi.ms_rutas_transportistas.models.Tramo;
+import com.backend.tpi.ms_rutas_transportistas.repositories.EstadoTramoRepository;
+import com.backend.tpi.ms_rutas_transportistas.repositories.RutaRepository;
+import com.backend.tpi.ms_rutas_transportistas.repositories.TipoTramoRepository;
+import com.backend.tpi.ms_rutas_transportistas.repositories.TramoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica que los listados usen una cantidad constante de consultas SQL sin importar cuántas filas devuelven
+ * Cada tramo tiene su propio tipo y estado, así una relación cargada fila por fila (N+1) supera el límite.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.backend.tpi.ms_rutas_transportistas.ContadorSentenciasSql")
+@AutoConfigureMockMvc
+@WithMockUser(roles = "ADMIN")
+class ConsultasPorListadoTest {
+
+    private static final int MAX_CONSULTAS_LISTADO = 2;
+    private static final int RUTAS = 5;
+    private static final int TRAMOS_POR_RUTA = 3;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RutaRepository rutaRepository;
+
+    @Autowired
+    private TramoRepository tramoRepository;
+
+    @Autowired
+    private TipoTramoRepository tipoTramoRepository;
+
+    @Autowired
+    private EstadoTramoRepository estadoTramoRepository;
+
+    private final List<Ruta> rutas = new ArrayList<>();
+    private final List<Tramo> tramos = new ArrayList<>();
+    private final List<TipoTramo> tipos = new ArrayList<>();
+    private final List<EstadoTramo> estados = new ArrayList<>();
+
+    @BeforeEach
+    void crearDatos() {
+        for (int r = 0; r < RUTAS; r++) {
+            Ruta ruta = new Ruta();
+            ruta.setIdSolicitud(-1000L - r);
+            rutas.add(rutaRepository.save(ruta));
+            for (int t = 0; t < TRAMOS_POR_RUTA; t++) {
+                TipoTramo tipo = new TipoTramo();
+                tipo.setNombre("TEST_TIPO_" + r + "_" + t);
+                tipos.add(tipoTramoRepository.save(tipo));
+                EstadoTramo estado = new EstadoTramo();
+                estado.setNombre("TEST_ESTADO_" + r + "_" + t);
+                estados.add(estadoTramoRepository.save(estado));
+                Tramo tramo = new Tramo();
+                tramo.setRuta(ruta);
+                tramo.setOrden(t + 1);
+                tramo.setTipoTramo(tipo);
+                tramo.setEstado(estado);
+                tramo.setDistancia(10.0 * (t + 1));
+                tramos.add(tramoRepository.save(tramo));
+            }
+        }
+    }
+
+    @AfterEach
+    void borrarDatos() {
+        tramoRepository.deleteAll(tramos);
+        rutaRepository.deleteAll(rutas);
+        tipoTramoRepository.deleteAll(tipos);
+        estadoTramoRepository.deleteAll(estados);
+    }
+
+    @Test
+    void listadoDeTramos_usaConsultasConstantes() throws Exception {
+        assertConsultasConstantes("/api/v1/tramos");
+    }
+
+    @Test
+    void listadoDeRutas_usaConsultasConstantes() throws Exception {
+        assertConsultasConstantes("/api/v1/rutas");
+    }
+
+    private void assertConsultasConstantes(String endpoint) throws Exception {
+        ContadorSentenciasSql.reiniciar();
+        mockMvc.perform(get(endpoint)).andExpect(status().isOk());
+        int consultas = ContadorSentenciasSql.cantidad();
+        assertTrue(consultas <= MAX_CONSULTAS_LISTADO,
+                "GET " + endpoint + " ejecutó " + consultas + " consultas (máximo " + MAX_CONSULTAS_LISTADO + ")");
+    }
+}
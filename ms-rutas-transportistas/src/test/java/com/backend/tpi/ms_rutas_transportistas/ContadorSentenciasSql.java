@@ -0,0 +1,28 @@
+package com.backend.tpi.ms_rutas_transportistas;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cuenta las sentencias SQL que Hibernate envía a la base
+ * Se registra con la propiedad hibernate.session_factory.statement_inspector en los tests que lo usan.
+ */
+public class ContadorSentenciasSql implements StatementInspector {
+
+    private static final AtomicInteger SENTENCIAS = new AtomicInteger();
+
+    @Override
+    public String inspect(String sql) {
+        SENTENCIAS.incrementAndGet();
+        return sql;
+    }
+
+    public static void reiniciar() {
+        SENTENCIAS.set(0);
+    }
+
+    public static int cantidad() {
+        return SENTENCIAS.get();
+    }
+}
@@ -0,0 +1,98 @@
+package com.backend.tpi.ms_rutas_transportistas.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsignadorFlotaTest {
+
+    private static final long HORA = 3_600_000L;
+
+    private static AsignadorFlota.TramoAsignable tramo(long id, double km, double peso, long desdeHora, long hastaHora) {
+        return new AsignadorFlota.TramoAsignable(id, km, peso, Double.NaN, desdeHora * HORA, hastaHora * HORA);
+    }
+
+    @Test
+    public void resolver_tramoMasLargoAlCamionMasBarato() {
+        List<AsignadorFlota.TramoAsignable> tramos = List.of(
+                tramo(1, 100, 1000, 0, 5),
+                tramo(2, 500, 1000, 0, 5));
+        List<AsignadorFlota.CamionAsignable> camiones = List.of(
+                new AsignadorFlota.CamionAsignable("CARO", Double.NaN, Double.NaN, 3.0),
+                new AsignadorFlota.CamionAsignable("BARATO", Double.NaN, Double.NaN, 1.0));
+
+        AsignadorFlota.Resultado r = AsignadorFlota.resolver(tramos, camiones, 10);
+
+        assertArrayEquals(new int[]{0, 1}, r.camionDeTramo());
+        assertEquals(100 * 3.0 + 500 * 1.0, r.costoTotal(), 1e-9);
+    }
+
+    @Test
+    public void resolver_reutilizaCamionSiLosHorariosNoSeSuperponen() {
+        List<AsignadorFlota.TramoAsignable> tramos = List.of(
+                tramo(1, 100, 1000, 0, 5),
+                tramo(2, 100, 1000, 5, 10),
+                tramo(3, 100, 1000, 4, 6));
+        List<AsignadorFlota.CamionAsignable> camiones = List.of(
+                new AsignadorFlota.CamionAsignable("A", Double.NaN, Double.NaN, 1.0),
+                new AsignadorFlota.CamionAsignable("B", Double.NaN, Double.NaN, 2.0));
+
+        AsignadorFlota.Resultado r = AsignadorFlota.resolver(tramos, camiones, 10);
+
+        assertEquals(3, r.asignados());
+        assertEquals(r.camionDeTramo()[0], r.camionDeTramo()[1]);
+        assertNotEquals(r.camionDeTramo()[0], r.camionDeTramo()[2]);
+        assertEquals(400.0, r.costoTotal(), 1e-9);
+    }
+
+    @Test
+    public void resolver_respetaCapacidadYDejaSinAsignarLoQueNoEntra() {
+        List<AsignadorFlota.TramoAsignable> tramos = List.of(
+                tramo(1, 300, 8000, 0, 5),
+                tramo(2, 100, 2000, 0, 5),
+                tramo(3, 50, 20000, 0, 5));
+        List<AsignadorFlota.CamionAsignable> camiones = List.of(
+                new AsignadorFlota.CamionAsignable("CHICO", 5000, Double.NaN, 1.0),
+                new AsignadorFlota.CamionAsignable("GRANDE", 10000, Double.NaN, 2.0));
+
+        AsignadorFlota.Resultado r = AsignadorFlota.resolver(tramos, camiones, 10);
+
+        assertArrayEquals(new int[]{1, 0, -1}, r.camionDeTramo());
+        assertEquals(2, r.asignados());
+        assertEquals(300 * 2.0 + 100 * 1.0, r.costoTotal(), 1e-9);
+    }
+
+    @Test
+    public void resolver_tramoSinFechasOcupaElCamionEnExclusiva() {
+        List<AsignadorFlota.TramoAsignable> tramos = List.of(
+                new AsignadorFlota.TramoAsignable(1, 200, Double.NaN, Double.NaN, AsignadorFlota.SIN_FECHA_INICIO, AsignadorFlota.SIN_FECHA_FIN),
+                tramo(2, 100, 1000, 0, 5));
+        List<AsignadorFlota.CamionAsignable> camiones = List.of(
+                new AsignadorFlota.CamionAsignable("A", Double.NaN, Double.NaN, 1.0));
+
+        AsignadorFlota.Resultado r = AsignadorFlota.resolver(tramos, camiones, 10);
+
+        assertArrayEquals(new int[]{0, -1}, r.camionDeTramo());
+    }
+
+    @Test
+    public void resolver_respetaReservasPreviasDelCamion() {
+        List<AsignadorFlota.TramoAsignable> tramos = List.of(
+                tramo(1, 100, 1000, 2, 4),
+                tramo(2, 100, 1000, 6, 8));
+        List<AsignadorFlota.CamionAsignable> camiones = List.of(
+                new AsignadorFlota.CamionAsignable("BARATO", Double.NaN, Double.NaN, 1.0),
+                new AsignadorFlota.CamionAsignable("CARO", Double.NaN, Double.NaN, 2.0));
+        // BARATO ya tiene un tramo asignado de 0 a 3 y otro de 1 a 5 (se superponen entre sí)
+        List<List<long[]>> reservas = List.of(
+                List.of(new long[]{0, 3 * HORA}, new long[]{1 * HORA, 5 * HORA}),
+                List.of());
+
+        AsignadorFlota.Resultado r = AsignadorFlota.resolver(tramos, camiones, reservas, 10);
+
+        assertArrayEquals(new int[]{1, 0}, r.camionDeTramo());
+        assertEquals(100 * 2.0 + 100 * 1.0, r.costoTotal(), 1e-9);
+    }
+}
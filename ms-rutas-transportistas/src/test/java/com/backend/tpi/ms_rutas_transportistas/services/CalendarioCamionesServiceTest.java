@@ -0,0 +1,88 @@
+package com.backend.tpi.ms_rutas_transportistas.services;
+
+import com.backend.tpi.ms_rutas_transportistas.models.Tramo;
+import com.backend.tpi.ms_rutas_transportistas.repositories.TramoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CalendarioCamionesServiceTest {
+
+    private static final LocalDateTime INICIO = LocalDateTime.of(2025, 1, 10, 8, 0);
+    private static final LocalDateTime FIN = LocalDateTime.of(2025, 1, 10, 18, 0);
+
+    @InjectMocks
+    private CalendarioCamionesService service;
+
+    @Mock
+    private TramoRepository tramoRepository;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(service, "recargaMinutos", 10L);
+    }
+
+    @Test
+    public void cargar_sinCambiosDuranteLaLectura_guardaElCalendario() {
+        when(tramoRepository.findReservasVigentes()).thenReturn(List.of());
+
+        service.getCalendario();
+        service.getCalendario();
+
+        verify(tramoRepository, times(1)).findReservasVigentes();
+    }
+
+    @Test
+    public void cargar_reservaConfirmadaDuranteLaLectura_noSePierde() {
+        when(tramoRepository.findReservasVigentes()).thenReturn(List.of());
+        service.getCalendario();
+        // Vence el calendario: la recarga lee la base antes de que se confirme la reserva del tramo 1
+        ReflectionTestUtils.setField(service, "cargadoEn", 0L);
+        when(tramoRepository.findReservasVigentes()).thenAnswer(inv -> {
+            service.reservar(tramo(1L), "AA123BB");
+            return List.of();
+        });
+
+        CalendarioCamiones calendario = service.getCalendario();
+
+        assertFalse(calendario.estaLibre("AA123BB", CalendarioCamionesService.inicio(INICIO),
+                CalendarioCamionesService.fin(FIN), null));
+        assertEquals(1, service.getCalendario().size());
+    }
+
+    @Test
+    public void cargar_cambioDuranteLaPrimeraLectura_noGuardaLoLeido() {
+        when(tramoRepository.findReservasVigentes())
+                .thenAnswer(inv -> {
+                    service.liberar(7L);
+                    return List.of();
+                })
+                .thenReturn(List.of());
+
+        service.getCalendario();
+        service.getCalendario();
+        service.getCalendario();
+
+        // La primera carga se descarta; la segunda se guarda y la tercera consulta ya no lee la base
+        verify(tramoRepository, times(2)).findReservasVigentes();
+    }
+
+    private static Tramo tramo(Long id) {
+        Tramo tramo = new Tramo();
+        tramo.setId(id);
+        tramo.setFechaHoraInicioEstimada(INICIO);
+        tramo.setFechaHoraFinEstimada(FIN);
+        return tramo;
+    }
+}
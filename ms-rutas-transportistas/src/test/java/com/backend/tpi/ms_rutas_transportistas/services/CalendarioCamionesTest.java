@@ -0,0 +1,81 @@
+package com.backend.tpi.ms_rutas_transportistas.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CalendarioCamionesTest {
+
+    private static final long HORA = 3_600_000L;
+
+    private static CalendarioCamiones.Reserva reserva(long tramoId, String dominio, long desdeHora, long hastaHora) {
+        return new CalendarioCamiones.Reserva(tramoId, dominio, desdeHora * HORA, hastaHora * HORA);
+    }
+
+    private static CalendarioCamiones calendario() {
+        return CalendarioCamiones.desde(List.of(
+                reserva(1, "AA123BB", 0, 5),
+                reserva(2, "AA123BB", 10, 12),
+                reserva(3, "CC456DD", 4, 8),
+                reserva(4, "EE789FF", 20, 30)));
+    }
+
+    @Test
+    public void ocupados_devuelveSoloLosQueSeSuperponen() {
+        CalendarioCamiones c = calendario();
+
+        assertEquals(Set.of("AA123BB", "CC456DD"), c.ocupados(4 * HORA, 6 * HORA));
+        assertEquals(Set.of("CC456DD"), c.ocupados(5 * HORA, 10 * HORA));
+        assertEquals(Set.of(), c.ocupados(12 * HORA, 20 * HORA));
+        assertEquals(Set.of("AA123BB", "CC456DD", "EE789FF"), c.ocupados(0, 100 * HORA));
+    }
+
+    @Test
+    public void estaLibre_consideraIntervalosSemiabiertos() {
+        CalendarioCamiones c = calendario();
+
+        assertTrue(c.estaLibre("AA123BB", 5 * HORA, 10 * HORA, null));
+        assertFalse(c.estaLibre("AA123BB", 4 * HORA, 6 * HORA, null));
+        assertFalse(c.estaLibre("AA123BB", 11 * HORA, 15 * HORA, null));
+        assertTrue(c.estaLibre("ZZ000ZZ", 0, 100 * HORA, null));
+    }
+
+    @Test
+    public void estaLibre_ignoraLaReservaDelMismoTramo() {
+        CalendarioCamiones c = calendario();
+
+        assertTrue(c.estaLibre("AA123BB", 1 * HORA, 4 * HORA, 1L));
+        assertFalse(c.estaLibre("AA123BB", 1 * HORA, 11 * HORA, 1L));
+    }
+
+    @Test
+    public void tramoSinFechas_ocupaAlCamionSinLimite() {
+        CalendarioCamiones c = CalendarioCamiones.vacio()
+                .conReserva(new CalendarioCamiones.Reserva(7, "AA123BB", CalendarioCamiones.SIN_INICIO, CalendarioCamiones.SIN_FIN));
+
+        assertFalse(c.estaLibre("AA123BB", 1000 * HORA, 1001 * HORA, null));
+        assertEquals(Set.of("AA123BB"), c.ocupados(-5 * HORA, -4 * HORA));
+    }
+
+    @Test
+    public void conReservaYSinTramo_devuelvenCalendariosNuevos() {
+        CalendarioCamiones original = calendario();
+
+        CalendarioCamiones reasignado = original.conReserva(reserva(3, "EE789FF", 4, 8));
+        assertEquals(4, reasignado.size());
+        assertTrue(reasignado.estaLibre("CC456DD", 0, 100 * HORA, null));
+        assertFalse(reasignado.estaLibre("EE789FF", 5 * HORA, 6 * HORA, null));
+
+        CalendarioCamiones liberado = reasignado.sinTramo(1);
+        assertEquals(3, liberado.size());
+        assertTrue(liberado.estaLibre("AA123BB", 0, 5 * HORA, null));
+        assertEquals(2, liberado.reservas("EE789FF").size());
+
+        // El original no cambia
+        assertEquals(4, original.size());
+        assertFalse(original.estaLibre("CC456DD", 5 * HORA, 6 * HORA, null));
+    }
+}
@@ -0,0 +1,125 @@
+package com.backend.tpi.ms_rutas_transportistas.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EjecutorParaleloTest {
+
+    private static void dormir(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrumpida");
+        }
+    }
+
+    // Espera activa que no responde a la interrupción (como una llamada que no se puede cancelar)
+    private static void ocupar(long ms) {
+        long fin = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ms);
+        while (System.nanoTime() < fin) Thread.onSpinWait();
+    }
+
+    @Test
+    public void ejecutar_devuelveLosResultadosEnElOrdenDeLasEntradas() {
+        EjecutorParalelo ejecutor = new EjecutorParalelo(2, 5000);
+
+        List<Integer> resultados = ejecutor.ejecutar(List.of(3, 1, 2), x -> {
+            dormir(x * 20L);
+            return x * 10;
+        }, "orden");
+
+        assertEquals(List.of(30, 10, 20), resultados);
+    }
+
+    @Test
+    public void ejecutar_noSuperaLaConcurrenciaMaxima() {
+        EjecutorParalelo ejecutor = new EjecutorParalelo(2, 5000);
+        AtomicInteger enCurso = new AtomicInteger();
+        AtomicInteger maximo = new AtomicInteger();
+
+        ejecutor.ejecutar(List.of(1, 2, 3, 4, 5, 6), x -> {
+            maximo.accumulateAndGet(enCurso.incrementAndGet(), Math::max);
+            dormir(30);
+            enCurso.decrementAndGet();
+            return x;
+        }, "concurrencia");
+
+        assertEquals(2, maximo.get());
+    }
+
+    @Test
+    public void ejecutar_loQueNoTerminaEnPlazoEsNullYNoDemoraAlLlamador() {
+        EjecutorParalelo ejecutor = new EjecutorParalelo(4, 200);
+        long inicio = System.currentTimeMillis();
+
+        List<String> resultados = ejecutor.ejecutar(List.of(10L, 5000L), ms -> {
+            dormir(ms);
+            return "ok";
+        }, "plazo");
+
+        assertEquals(Arrays.asList("ok", null), resultados);
+        assertTrue(System.currentTimeMillis() - inicio < 2000);
+    }
+
+    @Test
+    public void ejecutar_unaSolaEntradaTambienRespetaElPlazo() {
+        EjecutorParalelo ejecutor = new EjecutorParalelo(4, 200);
+        long inicio = System.currentTimeMillis();
+
+        List<String> resultados = ejecutor.ejecutar(List.of(5000L), ms -> {
+            dormir(ms);
+            return "ok";
+        }, "una");
+
+        assertEquals(Arrays.asList((String) null), resultados);
+        assertTrue(System.currentTimeMillis() - inicio < 2000);
+    }
+
+    @Test
+    public void ejecutar_tareaQueFallaDevuelveNull() {
+        EjecutorParalelo ejecutor = new EjecutorParalelo(4, 5000);
+
+        List<Integer> resultados = ejecutor.ejecutar(List.of(1, 0, 2), x -> 10 / x, "falla");
+
+        assertEquals(Arrays.asList(10, null, 5), resultados);
+    }
+
+    @Test
+    public void ejecutar_anidadoCorreEnElHiloDeLaTareaConElPlazoExterno() throws InterruptedException {
+        EjecutorParalelo ejecutor = new EjecutorParalelo(4, 300);
+        AtomicReference<List<Integer>> internos = new AtomicReference<>();
+        List<Thread> hilosInternos = java.util.Collections.synchronizedList(new ArrayList<>());
+        AtomicReference<Thread> hiloExterno = new AtomicReference<>();
+        CountDownLatch terminada = new CountDownLatch(1);
+
+        ejecutor.ejecutar(List.of(1, 2), x -> {
+            if (x == 2) return x;
+            hiloExterno.set(Thread.currentThread());
+            try {
+                // 3 entradas de 150 ms con 300 ms de plazo: la tercera ya no empieza
+                internos.set(ejecutor.ejecutar(List.of(1, 2, 3), y -> {
+                    hilosInternos.add(Thread.currentThread());
+                    ocupar(150);
+                    return y;
+                }, "anidada"));
+            } finally {
+                terminada.countDown();
+            }
+            return x;
+        }, "externa");
+
+        assertTrue(terminada.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(1, 2, null), internos.get());
+        assertEquals(List.of(hiloExterno.get(), hiloExterno.get()), hilosInternos);
+    }
+}
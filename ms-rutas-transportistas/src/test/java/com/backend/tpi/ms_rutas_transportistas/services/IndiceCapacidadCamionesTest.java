@@ -0,0 +1,51 @@
+package com.backend.tpi.ms_rutas_transportistas.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IndiceCapacidadCamionesTest {
+
+    private static FichaCamion camion(long id, String dominio, double peso, double volumen, double costoKm, double consumo,
+                                      boolean disponible) {
+        return new FichaCamion(id, dominio, costoKm, consumo, peso, volumen, disponible, true);
+    }
+
+    private static final List<FichaCamion> FLOTA = List.of(
+            camion(1, "AAA111", 5000, 20, 100, 0.3, true),
+            camion(2, "BBB222", 10000, 40, 150, 0.4, true),
+            camion(3, "CCC333", 20000, 30, 120, 0.5, true),
+            camion(4, "DDD444", 30000, 80, 300, 0.6, true),
+            camion(5, "EEE555", 50000, 90, 50, 0.2, false),
+            camion(6, "FFF666", Double.NaN, Double.NaN, 200, Double.NaN, true)
+    );
+
+    @Test
+    public void sugerir_descartaNoDisponiblesYFiltraPorCapacidad() {
+        IndiceCapacidadCamiones indice = IndiceCapacidadCamiones.desde(FLOTA, 1L);
+        assertEquals(5, indice.size());
+
+        // 8000 kg y 35 m³: solo BBB222, DDD444 y FFF666 (capacidad ilimitada); ordenados por costo/km efectivo
+        List<IndiceCapacidadCamiones.Sugerencia> sugerencias = indice.sugerir(8000, 35, 100, 10, 5);
+        assertEquals(List.of("BBB222", "FFF666", "DDD444"), sugerencias.stream().map(s -> s.camion().dominio()).toList());
+        assertEquals((150 + 0.4 * 10) * 100, sugerencias.get(0).costoEstimado(), 1e-9);
+    }
+
+    @Test
+    public void sugerir_respetaLimiteYCargaDesconocida() {
+        IndiceCapacidadCamiones indice = IndiceCapacidadCamiones.desde(FLOTA, 1L);
+        List<IndiceCapacidadCamiones.Sugerencia> sugerencias = indice.sugerir(Double.NaN, Double.NaN, 10, 10, 2);
+        assertEquals(List.of("AAA111", "CCC333"), sugerencias.stream().map(s -> s.camion().dominio()).toList());
+    }
+
+    @Test
+    public void sugerir_sinCamionQueSoporteElVolumen() {
+        List<FichaCamion> flota = FLOTA.stream().filter(c -> !c.dominio().equals("FFF666")).toList();
+        IndiceCapacidadCamiones indice = IndiceCapacidadCamiones.desde(flota, 1L);
+        assertTrue(indice.sugerir(1000, 85, 10, 10, 5).isEmpty());
+        assertTrue(indice.sugerir(40000, 1, 10, 10, 5).isEmpty());
+        assertTrue(IndiceCapacidadCamiones.vacio().sugerir(1, 1, 1, 1, 5).isEmpty());
+    }
+}
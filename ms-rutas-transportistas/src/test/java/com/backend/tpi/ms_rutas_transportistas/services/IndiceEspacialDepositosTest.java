@@ -0,0 +1,85 @@
+package com.backend.tpi.ms_rutas_transportistas.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IndiceEspacialDepositosTest {
+
+    @Test
+    public void masCercanosAPunto_matchesLinearScan() {
+        Random random = new Random(42);
+        double[] lat = new double[2000];
+        double[] lon = new double[2000];
+        for (int i = 0; i < lat.length; i++) {
+            lat[i] = -55 + random.nextDouble() * 33;
+            lon[i] = -73 + random.nextDouble() * 20;
+        }
+        IndiceEspacialDepositos indice = new IndiceEspacialDepositos(lat, lon);
+
+        for (int q = 0; q < 50; q++) {
+            double pLat = -55 + random.nextDouble() * 33;
+            double pLon = -73 + random.nextDouble() * 20;
+            int[] cercanos = indice.masCercanosAPunto(pLat, pLon, 5, pos -> pos == 0);
+
+            List<double[]> esperados = new ArrayList<>();
+            for (int i = 1; i < lat.length; i++) {
+                esperados.add(new double[]{IndiceEspacialDepositos.haversineKm(pLat, pLon, lat[i], lon[i]), i});
+            }
+            esperados.sort(Comparator.comparingDouble(e -> e[0]));
+
+            assertEquals(5, cercanos.length);
+            for (int i = 0; i < cercanos.length; i++) {
+                assertEquals(esperados.get(i)[0],
+                        IndiceEspacialDepositos.haversineKm(pLat, pLon, lat[cercanos[i]], lon[cercanos[i]]), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void masCercanosASegmento_matchesLinearScan() {
+        Random random = new Random(7);
+        double[] lat = new double[2000];
+        double[] lon = new double[2000];
+        for (int i = 0; i < lat.length; i++) {
+            lat[i] = -55 + random.nextDouble() * 33;
+            lon[i] = -73 + random.nextDouble() * 20;
+        }
+        IndiceEspacialDepositos indice = new IndiceEspacialDepositos(lat, lon);
+
+        for (int q = 0; q < 50; q++) {
+            double aLat = -55 + random.nextDouble() * 33, aLon = -73 + random.nextDouble() * 20;
+            double bLat = -55 + random.nextDouble() * 33, bLon = -73 + random.nextDouble() * 20;
+            int[] cercanos = indice.masCercanosASegmento(aLat, aLon, bLat, bLon, 3, null);
+
+            List<Double> esperados = new ArrayList<>();
+            for (int i = 0; i < lat.length; i++) {
+                esperados.add(IndiceEspacialDepositos.distanciaPuntoSegmentoKm(aLat, aLon, bLat, bLon, lat[i], lon[i]));
+            }
+            esperados.sort(Comparator.naturalOrder());
+
+            assertEquals(3, cercanos.length);
+            for (int i = 0; i < cercanos.length; i++) {
+                assertEquals(esperados.get(i),
+                        IndiceEspacialDepositos.distanciaPuntoSegmentoKm(aLat, aLon, bLat, bLon, lat[cercanos[i]], lon[cercanos[i]]), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void depositosSinCoordenadas_noSeIndexan() {
+        double[] lat = {-31.4, Double.NaN, -34.6};
+        double[] lon = {-64.2, -60.6, -58.4};
+        IndiceEspacialDepositos indice = new IndiceEspacialDepositos(lat, lon);
+
+        int[] cercanos = indice.masCercanosAPunto(-32.9, -60.6, 5, null);
+
+        assertEquals(2, indice.size());
+        assertArrayEquals(new int[]{2, 0}, cercanos);
+    }
+}
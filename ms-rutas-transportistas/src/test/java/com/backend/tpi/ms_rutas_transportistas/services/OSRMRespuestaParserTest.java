@@ -0,0 +1,102 @@
+package com.backend.tpi.ms_rutas_transportistas.services;
+
+import com.backend.tpi.ms_rutas_transportistas.dtos.osrm.OSRMLeg;
+import com.backend.tpi.ms_rutas_transportistas.dtos.osrm.OSRMRouteResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OSRMRespuestaParserTest {
+
+    // Respuesta de /route con una alternativa, waypoints y un leg con pasos
+    private static final String RUTA = """
+            {"code":"Ok",
+             "routes":[
+               {"geometry":"abc~def","distance":1500.5,"duration":120.0,"weight":120.0,
+                "legs":[{"distance":1500.5,"duration":120.0,"summary":"Av. Colón",
+                         "annotation":{"nodes":[1,2,3]},
+                         "steps":[{"distance":1000.0,"duration":80.0,"name":"Av. Colón","mode":"driving",
+                                   "maneuver":{"type":"depart","location":[-64.18,-31.41]}},
+                                  {"distance":500.5,"duration":40.0,"name":"","mode":"driving",
+                                   "intersections":[{"out":0}]}]}]},
+               {"geometry":"alternativa","distance":9999.0,"duration":999.0,"legs":[]}
+             ],
+             "waypoints":[{"name":"a","location":[-64.18,-31.41]},{"name":"b","location":[-64.19,-31.42]}]}
+            """;
+
+    private static InputStream cuerpo(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void parsearRuta_leePrimeraRutaConPasos() throws IOException {
+        OSRMRouteResponse respuesta = OSRMRespuestaParser.parsearRuta(cuerpo(RUTA), true);
+
+        assertEquals("Ok", respuesta.getCode());
+        assertEquals(1, respuesta.getRoutes().size());
+        assertEquals("abc~def", respuesta.getRoutes().get(0).getGeometry());
+        assertEquals(1500.5, respuesta.getRoutes().get(0).getDistance());
+        assertEquals(120.0, respuesta.getRoutes().get(0).getDuration());
+        OSRMLeg leg = respuesta.getRoutes().get(0).getLegs().get(0);
+        assertEquals("Av. Colón", leg.getSummary());
+        assertEquals(2, leg.getSteps().size());
+        assertEquals("driving", leg.getSteps().get(1).getMode());
+        assertEquals(500.5, leg.getSteps().get(1).getDistance());
+    }
+
+    @Test
+    public void parsearRuta_sinPasosLosSaltea() throws IOException {
+        OSRMRouteResponse respuesta = OSRMRespuestaParser.parsearRuta(cuerpo(RUTA), false);
+
+        OSRMLeg leg = respuesta.getRoutes().get(0).getLegs().get(0);
+        assertNull(leg.getSteps());
+        assertEquals(1500.5, leg.getDistance());
+    }
+
+    @Test
+    public void parsearRuta_codigoDeError() throws IOException {
+        OSRMRouteResponse respuesta = OSRMRespuestaParser.parsearRuta(
+                cuerpo("{\"code\":\"NoRoute\",\"message\":\"Impossible route between points\",\"routes\":[]}"), false);
+
+        assertEquals("NoRoute", respuesta.getCode());
+        assertTrue(respuesta.getRoutes().isEmpty());
+    }
+
+    @Test
+    public void parsearTabla_leeMatricesConNulos() throws IOException {
+        String json = """
+                {"code":"Ok",
+                 "durations":[[0,60.5],[null,0]],
+                 "distances":[[0,1000],[1100.5,0]],
+                 "sources":[{"location":[-64.18,-31.41]},{"location":[-60.65,-32.94]}],
+                 "destinations":[{"location":[-64.18,-31.41]},{"location":[-60.65,-32.94]}]}
+                """;
+        OSRMRespuestaParser.Tabla tabla = OSRMRespuestaParser.parsearTabla(cuerpo(json), 2);
+
+        assertEquals("Ok", tabla.code());
+        assertEquals(60.5, tabla.duraciones()[0][1]);
+        assertTrue(Double.isNaN(tabla.duraciones()[1][0]));
+        assertEquals(1100.5, tabla.distancias()[1][0]);
+    }
+
+    @Test
+    public void parsearTabla_codigoDeErrorSinMatrices() throws IOException {
+        OSRMRespuestaParser.Tabla tabla = OSRMRespuestaParser.parsearTabla(
+                cuerpo("{\"code\":\"InvalidQuery\",\"message\":\"Query string malformed\"}"), 3);
+
+        assertEquals("InvalidQuery", tabla.code());
+        assertNull(tabla.distancias());
+        assertNull(tabla.duraciones());
+    }
+
+    @Test
+    public void parsearTabla_filasDeMenosEsError() {
+        assertThrows(IOException.class, () -> OSRMRespuestaParser.parsearTabla(
+                cuerpo("{\"code\":\"Ok\",\"durations\":[[0,1]]}"), 2));
+    }
+}
@@ -0,0 +1,74 @@
+package com.backend.tpi.ms_rutas_transportistas.services;
+
+import com.backend.tpi.ms_rutas_transportistas.dtos.osrm.CoordenadaDTO;
+import com.backend.tpi.ms_rutas_transportistas.dtos.osrm.RutaCalculadaDTO;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OSRMRutaCacheTest {
+
+    private static RutaCalculadaDTO ruta(double km) {
+        return RutaCalculadaDTO.builder().exitoso(true).distanciaKm(km).build();
+    }
+
+    @Test
+    public void get_withNearbyCoordinates_hitsQuantizedKey() {
+        OSRMRutaCache cache = new OSRMRutaCache(10, 60, 4);
+        cache.put(new CoordenadaDTO(-31.41350, -64.18100), new CoordenadaDTO(-32.94440, -60.65050), "driving", "full", ruta(400.0));
+
+        RutaCalculadaDTO hit = cache.get(new CoordenadaDTO(-31.413501, -64.181001), new CoordenadaDTO(-32.944401, -60.650501), "driving", "full");
+        RutaCalculadaDTO otroOverview = cache.get(new CoordenadaDTO(-31.41350, -64.18100), new CoordenadaDTO(-32.94440, -60.65050), "driving", "false");
+
+        assertNotNull(hit);
+        assertEquals(400.0, hit.getDistanciaKm());
+        assertNull(otroOverview);
+        assertEquals(1L, cache.estadisticas().get("hits"));
+        assertEquals(1L, cache.estadisticas().get("misses"));
+    }
+
+    @Test
+    public void put_overCapacity_evictsLeastRecentlyUsed() {
+        OSRMRutaCache cache = new OSRMRutaCache(2, 60, 4);
+        CoordenadaDTO a = new CoordenadaDTO(-31.0, -64.0);
+        CoordenadaDTO b = new CoordenadaDTO(-32.0, -60.0);
+        CoordenadaDTO c = new CoordenadaDTO(-34.0, -58.0);
+
+        cache.put(a, b, "driving", "full", ruta(1.0));
+        cache.put(b, c, "driving", "full", ruta(2.0));
+        cache.get(a, b, "driving", "full");
+        cache.put(a, c, "driving", "full", ruta(3.0));
+
+        assertNotNull(cache.get(a, b, "driving", "full"));
+        assertNull(cache.get(b, c, "driving", "full"));
+        assertEquals(1L, cache.estadisticas().get("evictions"));
+    }
+
+    @Test
+    public void invalidar_removesAllEntries() {
+        OSRMRutaCache cache = new OSRMRutaCache(10, 60, 4);
+        CoordenadaDTO a = new CoordenadaDTO(-31.0, -64.0);
+        CoordenadaDTO b = new CoordenadaDTO(-32.0, -60.0);
+        cache.put(a, b, "driving", "full", ruta(1.0));
+        cache.put(a, b, "driving", "full", RutaCalculadaDTO.builder().exitoso(false).build());
+
+        assertEquals(1, cache.invalidar());
+        assertNull(cache.get(a, b, "driving", "full"));
+    }
+
+    @Test
+    public void getPrimera_pruebaVariasOpcionesContandoUnaConsulta() {
+        OSRMRutaCache cache = new OSRMRutaCache(10, 60, 4);
+        CoordenadaDTO a = new CoordenadaDTO(-31.0, -64.0);
+        CoordenadaDTO b = new CoordenadaDTO(-32.0, -60.0);
+        cache.put(a, b, "driving", "GEOMETRIA_COMPLETA", ruta(5.0));
+
+        RutaCalculadaDTO hit = cache.getPrimera(a, b, "driving", java.util.List.of("METRICAS", "GEOMETRIA_COMPLETA", "INDICACIONES"));
+        RutaCalculadaDTO miss = cache.getPrimera(b, a, "driving", java.util.List.of("METRICAS", "GEOMETRIA_COMPLETA", "INDICACIONES"));
+
+        assertEquals(5.0, hit.getDistanciaKm());
+        assertNull(miss);
+        assertEquals(1L, cache.estadisticas().get("hits"));
+        assertEquals(1L, cache.estadisticas().get("misses"));
+    }
+}
@@ -0,0 +1,83 @@
+package com.backend.tpi.ms_rutas_transportistas.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OptimizadorRutasTest {
+
+    // 0 = origen, 3 = destino; directo 100 km, por 1 = 60 km, por 1 y 2 = 80 km, por 2 = 90 km, por 2 y 1 = 90 km
+    private static final double[][] DISTANCIAS = {
+            {0, 30, 50, 100},
+            {30, 0, 10, 30},
+            {50, 10, 0, 40},
+            {100, 30, 40, 0}
+    };
+    private static final double[][] DURACIONES = {
+            {0, 1, 1, 1},
+            {1, 0, 1, 1},
+            {1, 1, 0, 1},
+            {1, 1, 1, 0}
+    };
+    private static final OptimizadorRutas.ModeloCosto SIN_COSTO = new OptimizadorRutas.ModeloCosto(0, 0, null, 0);
+
+    @Test
+    public void mejoresCaminos_ordenadosPorDistancia() {
+        List<OptimizadorRutas.Camino> caminos = OptimizadorRutas.mejoresCaminos(DISTANCIAS, DURACIONES, 0, 3,
+                new OptimizadorRutas.Restricciones(2, 0, 0), SIN_COSTO, OptimizadorRutas.Criterio.DISTANCIA, 10);
+
+        assertEquals(5, caminos.size());
+        assertArrayEquals(new int[]{0, 1, 3}, caminos.get(0).nodos());
+        assertEquals(60.0, caminos.get(0).distanciaKm(), 1e-9);
+        assertArrayEquals(new int[]{0, 1, 2, 3}, caminos.get(1).nodos());
+        assertEquals(80.0, caminos.get(1).distanciaKm(), 1e-9);
+        assertArrayEquals(new int[]{0, 2, 3}, caminos.get(2).nodos());
+        assertArrayEquals(new int[]{0, 3}, caminos.get(4).nodos());
+    }
+
+    @Test
+    public void mejoresCaminos_empateDePuntajePrefiereMenosTramos() {
+        // por 2 (0-2-3) y por 2 y 1 (0-2-1-3) suman 90 km: primero el de menos tramos, siempre
+        for (int i = 0; i < 20; i++) {
+            List<OptimizadorRutas.Camino> caminos = OptimizadorRutas.mejoresCaminos(DISTANCIAS, DURACIONES, 0, 3,
+                    new OptimizadorRutas.Restricciones(2, 0, 0), SIN_COSTO, OptimizadorRutas.Criterio.DISTANCIA, 4);
+
+            assertEquals(90.0, caminos.get(2).distanciaKm(), 1e-9);
+            assertEquals(90.0, caminos.get(3).distanciaKm(), 1e-9);
+            assertArrayEquals(new int[]{0, 2, 3}, caminos.get(2).nodos());
+            assertArrayEquals(new int[]{0, 2, 1, 3}, caminos.get(3).nodos());
+        }
+    }
+
+    @Test
+    public void mejoresCaminos_respetaLimitesDeTramoEIntermedios() {
+        List<OptimizadorRutas.Camino> caminos = OptimizadorRutas.mejoresCaminos(DISTANCIAS, DURACIONES, 0, 3,
+                new OptimizadorRutas.Restricciones(1, 45, 0), SIN_COSTO, OptimizadorRutas.Criterio.DISTANCIA, 10);
+
+        assertEquals(1, caminos.size());
+        assertArrayEquals(new int[]{0, 1, 3}, caminos.get(0).nodos());
+    }
+
+    @Test
+    public void mejoresCaminos_porCostoIncluyeGestionYEstadia() {
+        // gestión fija alta por tramo y estadía cara en 1: conviene el directo
+        OptimizadorRutas.ModeloCosto modelo = new OptimizadorRutas.ModeloCosto(1000, 1, new double[]{0, 500, 0, 0}, 24);
+        List<OptimizadorRutas.Camino> caminos = OptimizadorRutas.mejoresCaminos(DISTANCIAS, DURACIONES, 0, 3,
+                new OptimizadorRutas.Restricciones(2, 0, 0), modelo, OptimizadorRutas.Criterio.COSTO, 2);
+
+        assertArrayEquals(new int[]{0, 3}, caminos.get(0).nodos());
+        assertEquals(1100.0, caminos.get(0).costo(), 1e-9);
+        assertArrayEquals(new int[]{0, 2, 3}, caminos.get(1).nodos());
+        assertEquals(2090.0, caminos.get(1).costo(), 1e-9);
+        assertEquals(26.0, caminos.get(1).duracionHoras(), 1e-9);
+    }
+
+    @Test
+    public void criterio_desconocidoSeRechaza() {
+        assertEquals(OptimizadorRutas.Criterio.DISTANCIA, OptimizadorRutas.Criterio.desde(null));
+        assertEquals(OptimizadorRutas.Criterio.DURACION, OptimizadorRutas.Criterio.desde(" Duracion "));
+        assertThrows(IllegalArgumentException.class, () -> OptimizadorRutas.Criterio.desde("tiempo"));
+    }
+}
@@ -0,0 +1,81 @@
+package com.backend.tpi.ms_solicitudes.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Prepara las secuencias de IDs de clientes, contenedores y solicitudes
+ * Los IDs se asignan con secuencias de PostgreSQL en bloques de {@link #ALLOCATION_SIZE} (optimizador pooled de
+ * Hibernate): cada instancia reserva un bloque con un nextval y reparte los IDs en memoria, sin consultar la
+ * tabla ni competir con otros inserts.
+ * Al iniciar (antes de que la aplicación acepte requests) se crea cada secuencia si falta y se adelanta si
+ * quedó por debajo del máximo ID de su tabla (bases con IDs asignados por el generador anterior).
+ * Con {@code app.ids.compactar-al-iniciar: true} la secuencia se lleva al máximo ID actual aunque esté más
+ * adelante, así se reutilizan los IDs liberados al final de la tabla. Es un trabajo offline: se debe usar
+ * con una sola instancia levantada y sin tráfico. Los huecos intermedios no se reutilizan porque esos IDs
+ * pueden seguir referenciados desde otros servicios (p. ej. rutas por id_solicitud).
+ */
+@Component
+public class SecuenciasIdsInitializer implements InitializingBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(SecuenciasIdsInitializer.class);
+
+    /** IDs reservados por cada nextval (debe coincidir con el INCREMENT BY de las secuencias) */
+    public static final int ALLOCATION_SIZE = 50;
+
+    // Tabla, columna de ID y secuencia (las mismas que en @SequenceGenerator de cada entidad)
+    private static final String[][] SECUENCIAS = {
+            {"clientes", "id_cliente", "clientes_ids_seq"},
+            {"contenedores", "id_contenedor", "contenedores_ids_seq"},
+            {"solicitudes", "id_solicitud", "solicitudes_ids_seq"}
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Se inyecta solo para que Hibernate (y su ddl-auto) termine antes de tocar las secuencias
+    @Autowired
+    private jakarta.persistence.EntityManagerFactory entityManagerFactory;
+
+    @Value("${app.ids.compactar-al-iniciar:false}")
+    private boolean compactarAlIniciar;
+
+    @Override
+    public void afterPropertiesSet() {
+        for (String[] s : SECUENCIAS) {
+            try {
+                alinear(s[0], s[1], s[2]);
+            } catch (Exception e) {
+                // Si la tabla todavía no existe no hay nada que alinear; el primer insert usará la secuencia
+                logger.warn("No se pudo preparar la secuencia {} de {}: {}", s[2], s[0], e.getMessage());
+            }
+        }
+    }
+
+    private void alinear(String tabla, String columna, String secuencia) {
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + secuencia + " START WITH 1 INCREMENT BY " + ALLOCATION_SIZE);
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(" + columna + "), 0) FROM " + tabla, Long.class);
+        // Una secuencia recién creada (o reiniciada con setval(..., false)) informa last_value = próximo valor con
+        // is_called = false: el último valor entregado es entonces last_value - INCREMENT BY
+        long actual = jdbcTemplate.queryForObject("SELECT CASE WHEN is_called THEN last_value ELSE last_value - "
+                + ALLOCATION_SIZE + " END FROM " + secuencia, Long.class);
+        long max = maxId != null ? maxId : 0L;
+        // Con pooled, un nextval que devuelve v reparte los IDs (v - ALLOCATION_SIZE, v]; con la secuencia en
+        // max (ya llamada) el próximo bloque es (max, max + ALLOCATION_SIZE]
+        if (max > 0 && (actual < max || (compactarAlIniciar && actual > max))) {
+            jdbcTemplate.queryForObject("SELECT setval('" + secuencia + "', ?)", Long.class, max);
+            logger.info("Secuencia {} ajustada a {} (máximo {} en {}, último valor entregado {})", secuencia, max, columna, tabla, actual);
+        } else if (max == 0 && compactarAlIniciar && actual > 0) {
+            // Tabla vacía: la secuencia vuelve a empezar desde 1
+            jdbcTemplate.queryForObject("SELECT setval('" + secuencia + "', 1, false)", Long.class);
+            logger.info("Secuencia {} reiniciada ({} vacía)", secuencia, tabla);
+        } else {
+            logger.debug("Secuencia {} al día (último valor entregado {}, máximo {} en {})", secuencia, actual, max, tabla);
+        }
+    }
+}
@@ -37,6 +37,9 @@ public class SolicitudController {
     @Autowired
     private com.backend.tpi.ms_solicitudes.services.ContenedorService contenedorService;
 
+    @Autowired
+    private com.backend.tpi.ms_solicitudes.config.ClienteHttpFactory clientesHttp;
+
     /**
      * POST /api/v1/solicitudes - Crea una nueva solicitud de transporte
      * Requiere rol CLIENTE
@@ -74,18 +77,27 @@ public class SolicitudController {
     }
 
     /**
-    * GET /api/v1/solicitudes - Obtiene lista de solicitudes con filtros opcionales
+    * GET /api/v1/solicitudes - Obtiene una página de solicitudes con filtros opcionales
     * Requiere rol OPERADOR o ADMIN
+    * Sin limite ni cursor devuelve todas las solicitudes. Con limite la respuesta es la lista de la página; si hay
+    * más, el header X-Siguiente-Cursor trae el cursor a enviar en el parámetro cursor para pedir la siguiente
      * @param estado Filtro por nombre de estado (opcional)
      * @param clienteId Filtro por ID de cliente (opcional)
-     * @return Lista de solicitudes filtradas
+     * @param orden "id" (por defecto) o "fechaCreacion" (más recientes primero)
+     * @param cursor Cursor de la página siguiente (opcional)
+     * @param limite Tamaño de página (opcional; sin limite ni cursor no se pagina)
+     * @return Lista de solicitudes filtradas (200) o Bad Request (400) si el orden o el cursor son inválidos
      */
     @GetMapping
     @PreAuthorize("hasAnyRole('OPERADOR','ADMIN','CLIENTE')")
-    public ResponseEntity<List<SolicitudDTO>> findAll(
+    public ResponseEntity<?> findAll(
             @RequestParam(required = false) String estado,
-            @RequestParam(required = false) Long clienteId) {
-        logger.info("GET /api/v1/solicitudes - Consultando solicitudes con filtros - estado: {}, clienteId: {}", estado, clienteId);
+            @RequestParam(required = false) Long clienteId,
+            @RequestParam(required = false) String orden,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limite) {
+        logger.info("GET /api/v1/solicitudes - Consultando solicitudes con filtros - estado: {}, clienteId: {}, orden: {}, limite: {}",
+                estado, clienteId, orden, limite);
 
         var auth = org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
         boolean isCliente = auth != null && auth.getAuthorities() != null && 
@@ -111,9 +123,34 @@ public class SolicitudController {
             }
         }
 
-        List<SolicitudDTO> result = solicitudService.findAllWithFilters(estado, clienteId);
-        logger.info("GET /api/v1/solicitudes - Respuesta: 200 - {} solicitudes encontradas", result.size());
-        return ResponseEntity.ok(result);
+        SolicitudService.PaginaSolicitudes pagina;
+        try {
+            pagina = solicitudService.findPagina(estado, clienteId, orden, cursor, limite);
+        } catch (IllegalArgumentException e) {
+            logger.warn("GET /api/v1/solicitudes - Respuesta: 400 - {}", e.getMessage());
+            return ResponseEntity.badRequest().body(java.util.Map.of("error", e.getMessage()));
+        }
+        logger.info("GET /api/v1/solicitudes - Respuesta: 200 - {} solicitudes encontradas (hay siguiente: {})",
+                pagina.solicitudes().size(), pagina.siguienteCursor() != null);
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok();
+        if (pagina.siguienteCursor() != null) respuesta.header("X-Siguiente-Cursor", pagina.siguienteCursor());
+        return respuesta.body(pagina.solicitudes());
+    }
+
+    /**
+    * GET /api/v1/solicitudes/exportar - Exporta todas las solicitudes en NDJSON (una por línea)
+    * Requiere rol OPERADOR o ADMIN
+    * Las líneas se escriben a medida que se leen de la base, sin armar la lista completa
+     * @param response Respuesta HTTP donde se escribe la exportación
+     */
+    @GetMapping(value = "/exportar", produces = "application/x-ndjson")
+    @PreAuthorize("hasAnyRole('OPERADOR','ADMIN')")
+    public void exportar(jakarta.servlet.http.HttpServletResponse response) throws java.io.IOException {
+        logger.info("GET /api/v1/solicitudes/exportar - Exportando solicitudes");
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        long cantidad = solicitudService.exportarNdjson(response.getOutputStream());
+        logger.info("GET /api/v1/solicitudes/exportar - Respuesta: 200 - {} solicitudes exportadas", cantidad);
     }
 
     /**
@@ -506,4 +543,14 @@ public class SolicitudController {
                     .body(java.util.Map.of("error", e.getMessage()));
         }
     }
+
+    /**
+     * GET /api/v1/solicitudes/clientes-http - Métricas de saturación de los clientes HTTP salientes
+     * Requiere rol ADMIN
+     */
+    @GetMapping("/clientes-http")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<java.util.Map<String, Object>> getClientesHttpEstadisticas() {
+        return ResponseEntity.ok(clientesHttp.estadisticas());
+    }
 }
@@ -12,11 +12,10 @@ import lombok.Data;
 @Table(name = "clientes")
 public class Cliente {
     @Id
-    @GeneratedValue(generator = "lowest-available-id")
-    @org.hibernate.annotations.GenericGenerator(
-        name = "lowest-available-id",
-        strategy = "com.backend.tpi.ms_solicitudes.config.LowestAvailableIdGenerator"
-    )
+    // Secuencia con asignación por bloques (pooled): una llamada a la base cada ALLOCATION_SIZE inserts
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "clientes_ids_seq")
+    @SequenceGenerator(name = "clientes_ids_seq", sequenceName = "clientes_ids_seq",
+            allocationSize = com.backend.tpi.ms_solicitudes.config.SecuenciasIdsInitializer.ALLOCATION_SIZE)
     @Column(name = "id_cliente")
     private Long id;
 
@@ -14,11 +14,10 @@ import java.math.BigDecimal;
 @Table(name = "contenedores")
 public class Contenedor {
     @Id
-    @GeneratedValue(generator = "lowest-available-id")
-    @org.hibernate.annotations.GenericGenerator(
-        name = "lowest-available-id",
-        strategy = "com.backend.tpi.ms_solicitudes.config.LowestAvailableIdGenerator"
-    )
+    // Secuencia con asignación por bloques (pooled): una llamada a la base cada ALLOCATION_SIZE inserts
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "contenedores_ids_seq")
+    @SequenceGenerator(name = "contenedores_ids_seq", sequenceName = "contenedores_ids_seq",
+            allocationSize = com.backend.tpi.ms_solicitudes.config.SecuenciasIdsInitializer.ALLOCATION_SIZE)
     @Column(name = "id_contenedor")
     private Long id;
 
@@ -26,7 +25,8 @@ public class Contenedor {
 
     private BigDecimal volumen;
 
-    @ManyToOne
+    // LAZY: las consultas de ContenedorRepository que devuelven contenedores traen el estado con entity graph
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "estado_id")
     private EstadoContenedor estado;
 
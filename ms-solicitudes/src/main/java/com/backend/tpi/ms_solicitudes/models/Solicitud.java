@@ -15,18 +15,23 @@ import java.time.LocalDateTime;
  */
 @Entity
 @Data
-@Table(name = "solicitudes")
+@Table(name = "solicitudes", indexes = {
+        // Listados paginados (keyset) filtrados por cliente o estado
+        @Index(name = "idx_solicitudes_cliente_id", columnList = "cliente_id, id_solicitud"),
+        @Index(name = "idx_solicitudes_estado_id", columnList = "estado_solicitud_id, id_solicitud"),
+        @Index(name = "idx_solicitudes_fecha_creacion", columnList = "fecha_creacion, id_solicitud")
+})
 public class Solicitud {
     @Id
-    @GeneratedValue(generator = "lowest-available-id")
-    @org.hibernate.annotations.GenericGenerator(
-        name = "lowest-available-id",
-        strategy = "com.backend.tpi.ms_solicitudes.config.LowestAvailableIdGenerator"
-    )
+    // Secuencia con asignación por bloques (pooled): una llamada a la base cada ALLOCATION_SIZE inserts
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "solicitudes_ids_seq")
+    @SequenceGenerator(name = "solicitudes_ids_seq", sequenceName = "solicitudes_ids_seq",
+            allocationSize = com.backend.tpi.ms_solicitudes.config.SecuenciasIdsInitializer.ALLOCATION_SIZE)
     @Column(name = "id_solicitud")
     private Long id;
 
-    @ManyToOne
+    // LAZY: los listados traen solo las relaciones que usan (entity graph en SolicitudRepository)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "contenedor_id")
     private Contenedor contenedor;
 
@@ -59,7 +64,7 @@ public class Solicitud {
     @Column(name = "direccion_destino")
     private String direccionDestino;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "estado_solicitud_id")
     private EstadoSolicitud estado;
 
@@ -9,11 +9,29 @@ import org.springframework.stereotype.Repository;
  */
 @Repository
 public interface ContenedorRepository extends JpaRepository<Contenedor, Long> {
+	/**
+	 * Busca un contenedor por ID junto con su estado (una sola consulta)
+	 * @param id ID del contenedor
+	 * @return Contenedor encontrado (opcional)
+	 */
+	@Override
+	@org.springframework.data.jpa.repository.EntityGraph(attributePaths = "estado")
+	java.util.Optional<Contenedor> findById(Long id);
+
+	/**
+	 * Busca todos los contenedores junto con su estado (una sola consulta)
+	 * @return Lista de contenedores
+	 */
+	@Override
+	@org.springframework.data.jpa.repository.EntityGraph(attributePaths = "estado")
+	java.util.List<Contenedor> findAll();
+
 	/**
 	 * Busca contenedores por cliente
 	 * @param clienteId ID del cliente
 	 * @return Lista de contenedores del cliente
 	 */
+	@org.springframework.data.jpa.repository.EntityGraph(attributePaths = "estado")
 	java.util.List<Contenedor> findByClienteId(Long clienteId);
 	
 	/**
@@ -21,6 +39,7 @@ public interface ContenedorRepository extends JpaRepository<Contenedor, Long> {
 	 * @param estado Estado del contenedor
 	 * @return Lista de contenedores con ese estado
 	 */
+	@org.springframework.data.jpa.repository.EntityGraph(attributePaths = "estado")
 	java.util.List<Contenedor> findByEstado(com.backend.tpi.ms_solicitudes.models.EstadoContenedor estado);
 	
 	/**
@@ -8,12 +8,30 @@ import org.springframework.stereotype.Repository;
  * Repositorio para acceso a datos de Solicitudes
  */
 @Repository
-public interface SolicitudRepository extends JpaRepository<Solicitud, Long> {
+public interface SolicitudRepository extends JpaRepository<Solicitud, Long>, SolicitudRepositoryCustom {
+	/**
+	 * Busca una solicitud por ID junto con su estado (una sola consulta)
+	 * @param id ID de la solicitud
+	 * @return Solicitud encontrada (opcional)
+	 */
+	@Override
+	@org.springframework.data.jpa.repository.EntityGraph(attributePaths = "estado")
+	java.util.Optional<Solicitud> findById(Long id);
+
+	/**
+	 * Busca todas las solicitudes junto con su estado (una sola consulta)
+	 * @return Lista de solicitudes
+	 */
+	@Override
+	@org.springframework.data.jpa.repository.EntityGraph(attributePaths = "estado")
+	java.util.List<Solicitud> findAll();
+
 	/**
 	 * Busca solicitudes por cliente
 	 * @param clienteId ID del cliente
 	 * @return Lista de solicitudes del cliente
 	 */
+	@org.springframework.data.jpa.repository.EntityGraph(attributePaths = "estado")
 	java.util.List<Solicitud> findByClienteId(Long clienteId);
 
 	/**
@@ -21,6 +39,7 @@ public interface SolicitudRepository extends JpaRepository<Solicitud, Long> {
 	 * @param nombre Nombre del estado
 	 * @return Lista de solicitudes con ese estado
 	 */
+	@org.springframework.data.jpa.repository.EntityGraph(attributePaths = "estado")
 	java.util.List<Solicitud> findByEstado_Nombre(String nombre);
 
 	/**
@@ -28,6 +47,7 @@ public interface SolicitudRepository extends JpaRepository<Solicitud, Long> {
 	 * @param rutaId ID de la ruta
 	 * @return Lista de solicitudes asociadas a esa ruta
 	 */
+	@org.springframework.data.jpa.repository.EntityGraph(attributePaths = "estado")
 	java.util.List<Solicitud> findByRutaId(Long rutaId);
 
 	/**
@@ -35,6 +55,7 @@ public interface SolicitudRepository extends JpaRepository<Solicitud, Long> {
 	 * @param contenedorId ID del contenedor
 	 * @return Solicitud activa del contenedor
 	 */
+	@org.springframework.data.jpa.repository.EntityGraph(attributePaths = {"estado", "contenedor", "contenedor.estado"})
 	java.util.Optional<Solicitud> findFirstByContenedor_IdOrderByIdDesc(Long contenedorId);
 	
 	/**
@@ -56,5 +77,42 @@ public interface SolicitudRepository extends JpaRepository<Solicitud, Long> {
 	 * @param contenedorId ID del contenedor
 	 * @return Lista de solicitudes del contenedor
 	 */
+	@org.springframework.data.jpa.repository.EntityGraph(attributePaths = "estado")
 	java.util.List<Solicitud> findByContenedor_Id(Long contenedorId);
+
+	/**
+	 * Vista de solicitud para listados (solo columnas; no carga Contenedor ni EstadoSolicitud)
+	 */
+	interface SolicitudResumen {
+		Long getId();
+		Long getClienteId();
+		String getDireccionOrigen();
+		String getDireccionDestino();
+		Long getContenedorId();
+		java.math.BigDecimal getOrigenLat();
+		java.math.BigDecimal getOrigenLong();
+		java.math.BigDecimal getDestinoLat();
+		java.math.BigDecimal getDestinoLong();
+		String getEstado();
+		Long getRutaId();
+		Long getTarifaId();
+		java.time.LocalDateTime getFechaCreacion();
+		java.time.LocalDateTime getFechaModificacion();
+	}
+
+	String SELECT_RESUMEN = "select s.id as id, s.clienteId as clienteId, s.direccionOrigen as direccionOrigen, "
+			+ "s.direccionDestino as direccionDestino, s.contenedor.id as contenedorId, s.origenLat as origenLat, "
+			+ "s.origenLong as origenLong, s.destinoLat as destinoLat, s.destinoLong as destinoLong, e.nombre as estado, "
+			+ "s.rutaId as rutaId, s.tarifaId as tarifaId, s.fechaCreacion as fechaCreacion, "
+			+ "s.fechaModificacion as fechaModificacion from Solicitud s left join s.estado e ";
+
+	/**
+	 * Recorre todas las solicitudes ordenadas por ID leyendo de a bloques (cursor del lado de la base)
+	 * Debe consumirse dentro de una transacción y cerrarse al terminar.
+	 * @return Stream de solicitudes
+	 */
+	@org.springframework.data.jpa.repository.QueryHints(@jakarta.persistence.QueryHint(
+			name = org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+	@org.springframework.data.jpa.repository.Query(SELECT_RESUMEN + "order by s.id")
+	java.util.stream.Stream<SolicitudResumen> streamExportacion();
 }
@@ -0,0 +1,33 @@
+package com.backend.tpi.ms_solicitudes.repositories;
+
+/**
+ * Consultas de listado de solicitudes que se arman según los filtros indicados
+ * Cada combinación de filtros genera su propia consulta con solo los predicados necesarios, en lugar de
+ * una única consulta con {@code (:param is null or ...)} que obliga a la base a un plan genérico.
+ */
+public interface SolicitudRepositoryCustom {
+
+	/**
+	 * Solicitudes ordenadas por ID ascendente (keyset: las siguientes a despuesDeId)
+	 * @param estadoId Filtro por estado (null = todos)
+	 * @param clienteId Filtro por cliente (null = todos)
+	 * @param despuesDeId Último ID de la página anterior (null = primera página)
+	 * @param maximo Cantidad máxima de filas (null = sin límite)
+	 * @return Solicitudes de la página
+	 */
+	java.util.List<SolicitudRepository.SolicitudResumen> findPaginaPorId(Long estadoId, Long clienteId,
+			Long despuesDeId, Integer maximo);
+
+	/**
+	 * Solicitudes de la más reciente a la más antigua (keyset sobre fechaCreacion, id)
+	 * Las solicitudes sin fecha de creación van al final, ordenadas por ID descendente.
+	 * @param estadoId Filtro por estado (null = todos)
+	 * @param clienteId Filtro por cliente (null = todos)
+	 * @param antesDeFecha Fecha de la última solicitud de la página anterior (null si no tenía fecha)
+	 * @param antesDeId ID de la última solicitud de la página anterior (null = primera página)
+	 * @param maximo Cantidad máxima de filas (null = sin límite)
+	 * @return Solicitudes de la página
+	 */
+	java.util.List<SolicitudRepository.SolicitudResumen> findPaginaPorFecha(Long estadoId, Long clienteId,
+			java.time.LocalDateTime antesDeFecha, Long antesDeId, Integer maximo);
+}
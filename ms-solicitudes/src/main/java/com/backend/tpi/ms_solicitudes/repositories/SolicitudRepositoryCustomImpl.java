@@ -0,0 +1,100 @@
+package com.backend.tpi.ms_solicitudes.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementación de {@link SolicitudRepositoryCustom}: arma el JPQL con los predicados de los filtros presentes
+ */
+public class SolicitudRepositoryCustomImpl implements SolicitudRepositoryCustom {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public List<SolicitudRepository.SolicitudResumen> findPaginaPorId(Long estadoId, Long clienteId,
+			Long despuesDeId, Integer maximo) {
+		List<String> condiciones = new ArrayList<>();
+		Map<String, Object> parametros = new LinkedHashMap<>();
+		filtros(estadoId, clienteId, condiciones, parametros);
+		if (despuesDeId != null) {
+			condiciones.add("s.id > :despuesDeId");
+			parametros.put("despuesDeId", despuesDeId);
+		}
+		return ejecutar(condiciones, parametros, "order by s.id", maximo);
+	}
+
+	@Override
+	public List<SolicitudRepository.SolicitudResumen> findPaginaPorFecha(Long estadoId, Long clienteId,
+			LocalDateTime antesDeFecha, Long antesDeId, Integer maximo) {
+		List<String> condiciones = new ArrayList<>();
+		Map<String, Object> parametros = new LinkedHashMap<>();
+		filtros(estadoId, clienteId, condiciones, parametros);
+		if (antesDeId != null) {
+			if (antesDeFecha != null) {
+				// Quedan las más antiguas con fecha y después todas las que no tienen fecha
+				condiciones.add("(s.fechaCreacion < :antesDeFecha "
+						+ "or (s.fechaCreacion = :antesDeFecha and s.id < :antesDeId) or s.fechaCreacion is null)");
+				parametros.put("antesDeFecha", antesDeFecha);
+			} else {
+				// La página anterior terminó entre las solicitudes sin fecha
+				condiciones.add("s.fechaCreacion is null and s.id < :antesDeId");
+			}
+			parametros.put("antesDeId", antesDeId);
+		}
+		return ejecutar(condiciones, parametros, "order by s.fechaCreacion desc nulls last, s.id desc", maximo);
+	}
+
+	private static void filtros(Long estadoId, Long clienteId, List<String> condiciones, Map<String, Object> parametros) {
+		if (estadoId != null) {
+			condiciones.add("s.estado.id = :estadoId");
+			parametros.put("estadoId", estadoId);
+		}
+		if (clienteId != null) {
+			condiciones.add("s.clienteId = :clienteId");
+			parametros.put("clienteId", clienteId);
+		}
+	}
+
+	private List<SolicitudRepository.SolicitudResumen> ejecutar(List<String> condiciones, Map<String, Object> parametros,
+			String orden, Integer maximo) {
+		StringBuilder jpql = new StringBuilder(SolicitudRepository.SELECT_RESUMEN);
+		if (!condiciones.isEmpty()) jpql.append("where ").append(String.join(" and ", condiciones)).append(' ');
+		jpql.append(orden);
+		TypedQuery<Tuple> query = entityManager.createQuery(jpql.toString(), Tuple.class);
+		parametros.forEach(query::setParameter);
+		if (maximo != null) query.setMaxResults(maximo);
+		List<Tuple> filas = query.getResultList();
+		List<SolicitudRepository.SolicitudResumen> resultado = new ArrayList<>(filas.size());
+		for (Tuple fila : filas) resultado.add(new ResumenTupla(fila));
+		return resultado;
+	}
+
+	/**
+	 * Fila del listado leída como Tuple (los alias de SELECT_RESUMEN son los nombres de las propiedades)
+	 */
+	private record ResumenTupla(Tuple fila) implements SolicitudRepository.SolicitudResumen {
+		public Long getId() { return fila.get("id", Long.class); }
+		public Long getClienteId() { return fila.get("clienteId", Long.class); }
+		public String getDireccionOrigen() { return fila.get("direccionOrigen", String.class); }
+		public String getDireccionDestino() { return fila.get("direccionDestino", String.class); }
+		public Long getContenedorId() { return fila.get("contenedorId", Long.class); }
+		public java.math.BigDecimal getOrigenLat() { return fila.get("origenLat", java.math.BigDecimal.class); }
+		public java.math.BigDecimal getOrigenLong() { return fila.get("origenLong", java.math.BigDecimal.class); }
+		public java.math.BigDecimal getDestinoLat() { return fila.get("destinoLat", java.math.BigDecimal.class); }
+		public java.math.BigDecimal getDestinoLong() { return fila.get("destinoLong", java.math.BigDecimal.class); }
+		public String getEstado() { return fila.get("estado", String.class); }
+		public Long getRutaId() { return fila.get("rutaId", Long.class); }
+		public Long getTarifaId() { return fila.get("tarifaId", Long.class); }
+		public LocalDateTime getFechaCreacion() { return fila.get("fechaCreacion", LocalDateTime.class); }
+		public LocalDateTime getFechaModificacion() { return fila.get("fechaModificacion", LocalDateTime.class); }
+	}
+}
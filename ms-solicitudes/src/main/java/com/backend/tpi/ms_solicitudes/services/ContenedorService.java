@@ -88,9 +88,7 @@ public class ContenedorService {
      */
     @Transactional(readOnly = true)
     public List<Contenedor> findByClienteId(Long clienteId) {
-        return contenedorRepository.findAll().stream()
-                .filter(c -> clienteId.equals(c.getClienteId()))
-                .toList();
+        return contenedorRepository.findByClienteId(clienteId);
     }
 
     /**
@@ -4,6 +4,7 @@ import com.backend.tpi.ms_solicitudes.dtos.CoordenadaDTO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.stereotype.Service;
@@ -15,6 +16,10 @@ import java.math.BigDecimal;
  * Servicio para geocodificación de direcciones
  * Convierte direcciones de texto a coordenadas geográficas
  * utilizando el microservicio ms-gestion-calculos
+ * Las direcciones de texto ya resueltas (encontradas o no) se guardan en una caché LRU local con clave
+ * normalizada, así las repetidas no vuelven a llamar a ms-gestion-calculos (que a su vez tiene la caché
+ * persistente compartida de geocodificaciones). "No encontrada" se cachea solo cuando la respuesta lo
+ * confirma (404 de ms-gestion-calculos o Nominatim sin resultados); un error (503, red) no se cachea.
  */
 @Service
 public class GeocodificacionService {
@@ -24,6 +29,30 @@ public class GeocodificacionService {
     @Autowired
     private RestClient calculosClient;
 
+    @Autowired
+    private RestClient nominatimClient;
+
+    private static final java.util.regex.Pattern MARCAS = java.util.regex.Pattern.compile("\\p{M}+");
+    private static final java.util.regex.Pattern NO_ALFANUMERICO = java.util.regex.Pattern.compile("[^a-z0-9,]+");
+    private static final java.util.regex.Pattern COMAS = java.util.regex.Pattern.compile("\\s*,[\\s,]*");
+
+    @Value("${app.geocodificacion.cache.max-entradas:5000}")
+    private int maxEntradasCache;
+
+    @Value("${app.geocodificacion.cache.ttl-positivo-horas:24}")
+    private long ttlPositivoHoras;
+
+    @Value("${app.geocodificacion.cache.ttl-negativo-horas:1}")
+    private long ttlNegativoHoras;
+
+    // accessOrder=true: el primer elemento es siempre el menos usado recientemente
+    private final java.util.LinkedHashMap<String, EntradaCache> cache = new java.util.LinkedHashMap<>(256, 0.75f, true);
+
+    /**
+     * Resultado cacheado de una dirección (coordenada null = no encontrada)
+     */
+    private record EntradaCache(CoordenadaDTO coordenada, long venceEn) {}
+
     /**
      * Geocodifica una dirección convirtiéndola a coordenadas
      * Soporta:
@@ -79,10 +108,20 @@ public class GeocodificacionService {
             }
         }
         
-        // 3. Intentar geocodificar como dirección de texto vía ms-gestion-calculos
+        // 3. Intentar geocodificar como dirección de texto vía ms-gestion-calculos (primero en caché)
+        String clave = normalizarDireccion(direccion);
+        EntradaCache cacheada = buscarEnCache(clave);
+        if (cacheada != null) {
+            logger.debug("Geocodificación desde caché para '{}': {}", direccion,
+                    cacheada.coordenada() != null ? cacheada.coordenada() : "no encontrada");
+            return cacheada.coordenada();
+        }
         try {
             logger.debug("Intentando geocodificar dirección de texto vía ms-gestion-calculos: {}", direccion);
-            return geocodificarViaCalculos(direccion);
+            CoordenadaDTO coordenada = geocodificarViaCalculos(direccion);
+            // Los errores (excepciones) no se cachean; "no encontrada" sí, con vencimiento más corto
+            guardarEnCache(clave, coordenada);
+            return coordenada;
         } catch (Exception e) {
             logger.error("Error al geocodificar dirección '{}': {}", direccion, e.getMessage());
             return null;
@@ -95,18 +134,27 @@ public class GeocodificacionService {
      * Utiliza el endpoint /api/v1/gestion/geocode?direccion=...
      *
      * @param direccion Dirección de texto o coordenadas en formato "lat,lon"
-     * @return Coordenadas obtenidas del servicio
+     * @return Coordenadas obtenidas del servicio, o null si la dirección no existe (respuesta confirmada)
+     * @throws RuntimeException si ms-gestion-calculos o Nominatim fallaron (no se sabe si la dirección existe)
      */
     private CoordenadaDTO geocodificarViaCalculos(String direccion) {
         try {
             String token = extractBearerToken();
             logger.debug("Consultando geocodificación vía ms-gestion-calculos para dirección: {}", direccion);
 
-            org.springframework.http.ResponseEntity<java.util.Map<String, Object>> response = calculosClient.get()
-                .uri(uriBuilder -> uriBuilder.path("/api/v1/gestion/geocode").queryParam("direccion", direccion).build())
-                .headers(h -> { if (token != null) h.setBearerAuth(token); })
-                .retrieve()
-                .toEntity(new org.springframework.core.ParameterizedTypeReference<java.util.Map<String, Object>>() {});
+            org.springframework.http.ResponseEntity<java.util.Map<String, Object>> response;
+            try {
+                response = calculosClient.get()
+                    .uri(uriBuilder -> uriBuilder.path("/api/v1/gestion/geocode").queryParam("direccion", direccion).build())
+                    .headers(h -> { if (token != null) h.setBearerAuth(token); })
+                    .retrieve()
+                    .toEntity(new org.springframework.core.ParameterizedTypeReference<java.util.Map<String, Object>>() {});
+            } catch (org.springframework.web.client.HttpClientErrorException.NotFound e) {
+                // ms-gestion-calculos ya consultó Nominatim (y su caché) sin resultado
+                // (si Nominatim falló responde 503, que se propaga como error y no se cachea)
+                logger.info("ms-gestion-calculos no encontró la dirección: {}", direccion);
+                return null;
+            }
 
             java.util.Map<String, Object> responseBody = response != null ? response.getBody() : null;
             if (responseBody != null && responseBody.containsKey("latitud") && responseBody.containsKey("longitud")) {
@@ -122,35 +170,29 @@ public class GeocodificacionService {
                 }
             }
             logger.warn("ms-gestion-calculos no devolvió coordenadas para dirección: {} - intentar fallback externo", direccion);
-            // Fallback directo desde este servicio hacia Nominatim
-            try {
-                String q = java.net.URLEncoder.encode(direccion, java.nio.charset.StandardCharsets.UTF_8);
-                String url = "https://nominatim.openstreetmap.org/search?q=" + q + "&format=json&limit=1&addressdetails=0";
-                java.net.http.HttpClient http = java.net.http.HttpClient.newBuilder().build();
-                java.net.http.HttpRequest req = java.net.http.HttpRequest.newBuilder()
-                        .uri(java.net.URI.create(url))
-                        .header("User-Agent", "TPI-Backend-Geocoder/1.0 (contacto@dominio.example)")
-                        .GET()
-                        .build();
-                java.net.http.HttpResponse<String> resp = http.send(req, java.net.http.HttpResponse.BodyHandlers.ofString());
-                if (resp.statusCode() == 200) {
-                    String body = resp.body();
-                    java.util.regex.Pattern pLat = java.util.regex.Pattern.compile("\\\"lat\\\"\\s*:\\s*\\\"([0-9+\\-\\.]+)\\\"");
-                    java.util.regex.Pattern pLon = java.util.regex.Pattern.compile("\\\"lon\\\"\\s*:\\s*\\\"([0-9+\\-\\.]+)\\\"");
-                    java.util.regex.Matcher mLat = pLat.matcher(body);
-                    java.util.regex.Matcher mLon = pLon.matcher(body);
-                    if (mLat.find() && mLon.find()) {
-                        double lat = Double.parseDouble(mLat.group(1));
-                        double lon = Double.parseDouble(mLon.group(1));
-                        logger.info("Geocodificación externa exitosa para '{}': lat={}, lon={}", direccion, lat, lon);
-                        return new CoordenadaDTO(lat, lon);
-                    }
-                } else {
-                    logger.debug("Nominatim respondió con status {}", resp.statusCode());
+            // Fallback directo desde este servicio hacia Nominatim; si falla, el error se propaga (no se cachea)
+            // Cliente compartido: timeouts y límite de llamadas simultáneas a Nominatim
+            com.fasterxml.jackson.databind.JsonNode resultados = nominatimClient.get()
+                    .uri(b -> b.path("/search")
+                            .queryParam("q", direccion)
+                            .queryParam("format", "json")
+                            .queryParam("limit", 1)
+                            .queryParam("addressdetails", 0)
+                            .build())
+                    .retrieve()
+                    .body(com.fasterxml.jackson.databind.JsonNode.class);
+            if (resultados != null && resultados.isArray() && !resultados.isEmpty()) {
+                // Nominatim devuelve lat/lon como texto
+                String latTexto = resultados.get(0).path("lat").asText(null);
+                String lonTexto = resultados.get(0).path("lon").asText(null);
+                if (latTexto != null && lonTexto != null) {
+                    double lat = Double.parseDouble(latTexto);
+                    double lon = Double.parseDouble(lonTexto);
+                    logger.info("Geocodificación externa exitosa para '{}': lat={}, lon={}", direccion, lat, lon);
+                    return new CoordenadaDTO(lat, lon);
                 }
-            } catch (Exception e) {
-                logger.debug("Error en geocodificación externa desde ms-solicitudes: {}", e.getMessage());
             }
+            logger.info("Nominatim no encontró la dirección: {}", direccion);
             return null;
         } catch (NumberFormatException e) {
             logger.error("Formato inválido en geocodificación (NumberFormatException) para: {}", direccion);
@@ -161,6 +203,48 @@ public class GeocodificacionService {
         }
     }
 
+    /**
+     * Normaliza una dirección para usarla como clave de caché (misma forma que la caché de ms-gestion-calculos)
+     * Minúsculas, sin acentos ni puntuación, espacios simples y comas sin espacios alrededor.
+     * @param direccion dirección de texto
+     * @return dirección normalizada
+     */
+    static String normalizarDireccion(String direccion) {
+        if (direccion == null) return "";
+        String s = MARCAS.matcher(java.text.Normalizer.normalize(direccion, java.text.Normalizer.Form.NFD)).replaceAll("");
+        s = NO_ALFANUMERICO.matcher(s.toLowerCase(java.util.Locale.ROOT)).replaceAll(" ");
+        s = COMAS.matcher(s).replaceAll(",").trim();
+        while (s.startsWith(",")) s = s.substring(1).trim();
+        while (s.endsWith(",")) s = s.substring(0, s.length() - 1).trim();
+        return s;
+    }
+
+    private EntradaCache buscarEnCache(String clave) {
+        if (clave.isEmpty()) return null;
+        synchronized (cache) {
+            EntradaCache entrada = cache.get(clave);
+            if (entrada == null) return null;
+            if (entrada.venceEn() < System.currentTimeMillis()) {
+                cache.remove(clave);
+                return null;
+            }
+            return entrada;
+        }
+    }
+
+    private void guardarEnCache(String clave, CoordenadaDTO coordenada) {
+        if (clave.isEmpty()) return;
+        long ttlMillis = (coordenada != null ? ttlPositivoHoras : ttlNegativoHoras) * 3_600_000L;
+        synchronized (cache) {
+            cache.put(clave, new EntradaCache(coordenada, System.currentTimeMillis() + ttlMillis));
+            java.util.Iterator<String> it = cache.keySet().iterator();
+            while (cache.size() > Math.max(1, maxEntradasCache) && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+    }
+
     /**
      * Verifica si una cadena representa un número entero
      * @param str Cadena a verificar
@@ -67,6 +67,23 @@ public class SolicitudService {
     @Value("${app.rutas.base-url:http://ms-rutas-transportistas:8082}")
     private String rutasBaseUrl;
 
+    @Autowired
+    private com.fasterxml.jackson.databind.ObjectMapper objectMapper;
+
+    @Value("${app.solicitudes.listado.limite-por-defecto:100}")
+    private int limitePorDefecto;
+
+    @Value("${app.solicitudes.listado.limite-maximo:1000}")
+    private int limiteMaximo;
+
+    /**
+     * Página de un listado de solicitudes
+     * @param solicitudes solicitudes de la página
+     * @param siguienteCursor cursor para pedir la página siguiente (null si es la última)
+     */
+    public record PaginaSolicitudes(List<SolicitudDTO> solicitudes, String siguienteCursor) {
+    }
+
     // Manual mapping - removed ModelMapper dependency
 
     /**
@@ -251,36 +268,154 @@ public class SolicitudService {
         }
 
         /**
-         * Busca solicitudes aplicando filtros opcionales por estado y/o clienteId
+         * Busca una página de solicitudes aplicando filtros opcionales por estado y/o clienteId
+         * Paginación por cursor (keyset): cada página se lee con una sola consulta indexada que trae solo las
+         * columnas del listado, sin importar cuántas solicitudes haya antes. Sin limite ni cursor se devuelven
+         * todas las solicitudes que cumplen los filtros, como antes de paginar el listado.
+         * En orden fechaCreacion las solicitudes sin fecha van al final.
          * @param estado Nombre del estado a filtrar (opcional)
          * @param clienteId ID del cliente a filtrar (opcional)
-         * @return Lista de solicitudes que cumplen los criterios
+         * @param orden "id" (ascendente, por defecto) o "fechaCreacion" (más recientes primero)
+         * @param cursor Cursor devuelto por la página anterior (null para la primera)
+         * @param limite Tamaño de página (se acota al máximo configurado; null = todas si no hay cursor, o el
+         *               valor configurado si lo hay)
+         * @return Página con las solicitudes y el cursor de la siguiente
+         * @throws IllegalArgumentException si el orden o el cursor son inválidos
          */
         @org.springframework.transaction.annotation.Transactional(readOnly = true)
-        public List<SolicitudDTO> findAllWithFilters(String estado, Long clienteId) {
-            logger.debug("Buscando solicitudes con filtros - estado: {}, clienteId: {}", estado, clienteId);
-            List<Solicitud> solicitudes;
-        
-            if (estado != null && !estado.isEmpty() && clienteId != null) {
-                // Filtrar por ambos
-                solicitudes = solicitudRepository.findByEstado_Nombre(estado).stream()
-                        .filter(s -> clienteId.equals(s.getClienteId()))
-                        .toList();
-            } else if (estado != null && !estado.isEmpty()) {
-                // Solo por estado
-                solicitudes = solicitudRepository.findByEstado_Nombre(estado);
-            } else if (clienteId != null) {
-                // Solo por cliente
-                solicitudes = solicitudRepository.findByClienteId(clienteId);
+        public PaginaSolicitudes findPagina(String estado, Long clienteId, String orden, String cursor, Integer limite) {
+            logger.debug("Buscando página de solicitudes - estado: {}, clienteId: {}, orden: {}, cursor: {}, limite: {}",
+                    estado, clienteId, orden, cursor, limite);
+            boolean porFecha;
+            if (orden == null || orden.isBlank() || orden.equalsIgnoreCase("id")) {
+                porFecha = false;
+            } else if (orden.equalsIgnoreCase("fechaCreacion")) {
+                porFecha = true;
             } else {
-                // Sin filtros
-                solicitudes = solicitudRepository.findAll();
+                throw new IllegalArgumentException("Orden inválido: " + orden + " (valores posibles: id, fechaCreacion)");
             }
-        
-            logger.debug("Encontradas {} solicitudes con los filtros aplicados", solicitudes.size());
-            return solicitudes.stream()
-                    .map(this::toDto)
-                    .collect(Collectors.toList());
+            boolean sinPaginar = limite == null && (cursor == null || cursor.isBlank());
+            int tamano = limite != null && limite > 0 ? Math.min(limite, limiteMaximo) : limitePorDefecto;
+
+            // El estado se resuelve a su ID para filtrar por la FK (sin join)
+            Long estadoId = null;
+            if (estado != null && !estado.isEmpty()) {
+                Optional<com.backend.tpi.ms_solicitudes.models.EstadoSolicitud> estadoOpt = estadoSolicitudRepository.findByNombre(estado);
+                if (estadoOpt.isEmpty()) {
+                    logger.debug("Estado {} inexistente - página vacía", estado);
+                    return new PaginaSolicitudes(List.of(), null);
+                }
+                estadoId = estadoOpt.get().getId();
+            }
+
+            // Se pide una fila de más para saber si hay página siguiente
+            Integer maximo = sinPaginar ? null : tamano + 1;
+            List<SolicitudRepository.SolicitudResumen> filas;
+            if (porFecha) {
+                String[] partes = decodificarCursor(cursor, 2);
+                java.time.LocalDateTime antesDeFecha = partes != null && !partes[0].equals(SIN_FECHA)
+                        ? java.time.LocalDateTime.parse(partes[0]) : null;
+                Long antesDeId = partes != null ? Long.parseLong(partes[1]) : null;
+                filas = solicitudRepository.findPaginaPorFecha(estadoId, clienteId, antesDeFecha, antesDeId, maximo);
+            } else {
+                String[] partes = decodificarCursor(cursor, 1);
+                Long despuesDeId = partes != null ? Long.parseLong(partes[0]) : null;
+                filas = solicitudRepository.findPaginaPorId(estadoId, clienteId, despuesDeId, maximo);
+            }
+            if (sinPaginar) tamano = filas.size();
+
+            boolean haySiguiente = filas.size() > tamano;
+            List<SolicitudDTO> solicitudes = new java.util.ArrayList<>(Math.min(filas.size(), tamano));
+            for (int i = 0; i < filas.size() && i < tamano; i++) solicitudes.add(toDto(filas.get(i)));
+            String siguienteCursor = null;
+            if (haySiguiente) {
+                SolicitudDTO ultima = solicitudes.get(solicitudes.size() - 1);
+                siguienteCursor = porFecha
+                        ? codificarCursor(ultima.getFechaCreacion() != null ? ultima.getFechaCreacion().toString() : SIN_FECHA,
+                                String.valueOf(ultima.getId()))
+                        : codificarCursor(String.valueOf(ultima.getId()));
+            }
+            logger.debug("Página con {} solicitudes (hay siguiente: {})", solicitudes.size(), haySiguiente);
+            return new PaginaSolicitudes(solicitudes, siguienteCursor);
+        }
+
+        /**
+         * Exporta todas las solicitudes en NDJSON (una por línea, mismo formato que el listado)
+         * Recorre la tabla con un cursor de la base sobre la proyección del listado y escribe cada línea a
+         * medida que la lee, así la memoria no depende de la cantidad de solicitudes.
+         * @param salida stream de la respuesta (no se cierra)
+         * @return cantidad de solicitudes exportadas
+         */
+        @org.springframework.transaction.annotation.Transactional(readOnly = true)
+        public long exportarNdjson(java.io.OutputStream salida) throws java.io.IOException {
+            long inicio = System.currentTimeMillis();
+            long cantidad = 0;
+            // Sin flush por objeto: el buffer de la respuesta se envía cuando se llena
+            com.fasterxml.jackson.databind.ObjectWriter writer = objectMapper.writer()
+                    .without(com.fasterxml.jackson.databind.SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            try (java.util.stream.Stream<SolicitudRepository.SolicitudResumen> filas = solicitudRepository.streamExportacion();
+                 com.fasterxml.jackson.core.JsonGenerator generador = objectMapper.getFactory().createGenerator(salida)) {
+                // El stream de la respuesta lo cierra el contenedor
+                generador.disable(com.fasterxml.jackson.core.JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                java.util.Iterator<SolicitudRepository.SolicitudResumen> it = filas.iterator();
+                while (it.hasNext()) {
+                    writer.writeValue(generador, toDto(it.next()));
+                    generador.writeRaw('\n');
+                    cantidad++;
+                }
+            }
+            logger.info("Exportación de solicitudes finalizada: {} solicitudes en {} ms", cantidad, System.currentTimeMillis() - inicio);
+            return cantidad;
+        }
+
+        // Fecha del cursor cuando la página anterior terminó entre las solicitudes sin fecha de creación
+        private static final String SIN_FECHA = "-";
+
+        private static String codificarCursor(String... partes) {
+            return java.util.Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(String.join("|", partes).getBytes(java.nio.charset.StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Decodifica un cursor opaco en sus partes
+         * @return partes del cursor, o null si no se indicó cursor
+         * @throws IllegalArgumentException si el cursor no tiene el formato esperado
+         */
+        private static String[] decodificarCursor(String cursor, int cantidadPartes) {
+            if (cursor == null || cursor.isBlank()) return null;
+            try {
+                String texto = new String(java.util.Base64.getUrlDecoder().decode(cursor), java.nio.charset.StandardCharsets.UTF_8);
+                String[] partes = texto.split("\\|");
+                if (partes.length != cantidadPartes) throw new IllegalArgumentException("cantidad de partes");
+                // Validar formato de cada parte (la última es siempre un ID)
+                Long.parseLong(partes[cantidadPartes - 1]);
+                if (cantidadPartes == 2 && !partes[0].equals(SIN_FECHA)) java.time.LocalDateTime.parse(partes[0]);
+                return partes;
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Cursor inválido para el orden solicitado");
+            }
+        }
+
+        /**
+         * Convierte una fila del listado a DTO (mismos campos que {@link #toDto(Solicitud)})
+         */
+        private SolicitudDTO toDto(SolicitudRepository.SolicitudResumen fila) {
+            SolicitudDTO dto = new SolicitudDTO();
+            dto.setId(fila.getId());
+            dto.setClienteId(fila.getClienteId());
+            dto.setDireccionOrigen(fila.getDireccionOrigen());
+            dto.setDireccionDestino(fila.getDireccionDestino());
+            if (fila.getOrigenLat() != null) dto.setOrigenLat(fila.getOrigenLat().doubleValue());
+            if (fila.getOrigenLong() != null) dto.setOrigenLong(fila.getOrigenLong().doubleValue());
+            if (fila.getDestinoLat() != null) dto.setDestinoLat(fila.getDestinoLat().doubleValue());
+            if (fila.getDestinoLong() != null) dto.setDestinoLong(fila.getDestinoLong().doubleValue());
+            dto.setEstado(fila.getEstado());
+            dto.setContenedorId(fila.getContenedorId());
+            dto.setRutaId(fila.getRutaId());
+            dto.setTarifaId(fila.getTarifaId());
+            dto.setFechaCreacion(fila.getFechaCreacion());
+            dto.setFechaModificacion(fila.getFechaModificacion());
+            return dto;
         }
 
         /**
@@ -0,0 +1,112 @@
+package com.backend.tpi.ms_solicitudes;
+
+import com.backend.tpi.ms_solicitudes.models.Contenedor;
+import com.backend.tpi.ms_solicitudes.models.EstadoContenedor;
+import com.backend.tpi.ms_solicitudes.models.EstadoSolicitud;
+import com.backend.tpi.ms_solicitudes.models.Solicitud;
+import com.backend.tpi.ms_solicitudes.repositories.ContenedorRepository;
+import com.backend.tpi.ms_solicitudes.repositories.EstadoContenedorRepository;
+import com.backend.tpi.ms_solicitudes.repositories.EstadoSolicitudRepository;
+import com.backend.tpi.ms_solicitudes.repositories.SolicitudRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica que los listados usen una cantidad constante de consultas SQL sin importar cuántas filas devuelven
+ * Cada solicitud y cada contenedor tiene su propio estado, así una relación cargada fila por fila (N+1) supera
+ * el límite.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.backend.tpi.ms_solicitudes.ContadorSentenciasSql")
+@AutoConfigureMockMvc
+@WithMockUser(roles = "ADMIN")
+class ConsultasPorListadoTest {
+
+    private static final int MAX_CONSULTAS_LISTADO = 2;
+    private static final int FILAS = 10;
+    private static final long CLIENTE_ID = -1000L;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SolicitudRepository solicitudRepository;
+
+    @Autowired
+    private ContenedorRepository contenedorRepository;
+
+    @Autowired
+    private EstadoSolicitudRepository estadoSolicitudRepository;
+
+    @Autowired
+    private EstadoContenedorRepository estadoContenedorRepository;
+
+    private final List<Solicitud> solicitudes = new ArrayList<>();
+    private final List<Contenedor> contenedores = new ArrayList<>();
+    private final List<EstadoSolicitud> estadosSolicitud = new ArrayList<>();
+    private final List<EstadoContenedor> estadosContenedor = new ArrayList<>();
+
+    @BeforeEach
+    void crearDatos() {
+        for (int i = 0; i < FILAS; i++) {
+            EstadoContenedor estadoContenedor = new EstadoContenedor();
+            estadoContenedor.setNombre("TEST_ESTADO_CONTENEDOR_" + i);
+            estadosContenedor.add(estadoContenedorRepository.save(estadoContenedor));
+            Contenedor contenedor = new Contenedor();
+            contenedor.setPeso(BigDecimal.valueOf(1000 + i));
+            contenedor.setVolumen(BigDecimal.valueOf(10 + i));
+            contenedor.setEstado(estadoContenedor);
+            contenedor.setClienteId(CLIENTE_ID);
+            contenedores.add(contenedorRepository.save(contenedor));
+
+            EstadoSolicitud estadoSolicitud = new EstadoSolicitud();
+            estadoSolicitud.setNombre("TEST_ESTADO_SOLICITUD_" + i);
+            estadosSolicitud.add(estadoSolicitudRepository.save(estadoSolicitud));
+            Solicitud solicitud = new Solicitud();
+            solicitud.setClienteId(CLIENTE_ID);
+            solicitud.setContenedor(contenedor);
+            solicitud.setEstado(estadoSolicitud);
+            solicitudes.add(solicitudRepository.save(solicitud));
+        }
+    }
+
+    @AfterEach
+    void borrarDatos() {
+        solicitudRepository.deleteAll(solicitudes);
+        contenedorRepository.deleteAll(contenedores);
+        estadoSolicitudRepository.deleteAll(estadosSolicitud);
+        estadoContenedorRepository.deleteAll(estadosContenedor);
+    }
+
+    @Test
+    void listadoDeSolicitudes_usaConsultasConstantes() throws Exception {
+        assertConsultasConstantes("/api/v1/solicitudes?clienteId=" + CLIENTE_ID);
+    }
+
+    @Test
+    void listadoDeContenedores_usaConsultasConstantes() throws Exception {
+        assertConsultasConstantes("/api/v1/contenedores");
+    }
+
+    private void assertConsultasConstantes(String endpoint) throws Exception {
+        ContadorSentenciasSql.reiniciar();
+        mockMvc.perform(get(endpoint)).andExpect(status().isOk());
+        int consultas = ContadorSentenciasSql.cantidad();
+        assertTrue(consultas <= MAX_CONSULTAS_LISTADO,
+                "GET " + endpoint + " ejecutó " + consultas + " consultas (máximo " + MAX_CONSULTAS_LISTADO + ")");
+    }
+}
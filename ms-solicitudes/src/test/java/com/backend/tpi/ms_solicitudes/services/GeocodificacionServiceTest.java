@@ -0,0 +1,31 @@
+package com.backend.tpi.ms_solicitudes.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GeocodificacionServiceTest {
+
+    @Test
+    public void normalizarDireccion_sinAcentosMayusculasNiPuntuacion() {
+        assertEquals("av colon 1234,cordoba", GeocodificacionService.normalizarDireccion("Av. Colón 1234, Córdoba"));
+        assertEquals("san martin 50,rio cuarto,cordoba",
+                GeocodificacionService.normalizarDireccion("  SAN MARTÍN   50 ,Río Cuarto,  CÓRDOBA "));
+    }
+
+    @Test
+    public void normalizarDireccion_variantesDeLaMismaDireccionDanLaMismaClave() {
+        String clave = GeocodificacionService.normalizarDireccion("Bv. San Juan 300, Córdoba");
+
+        assertEquals(clave, GeocodificacionService.normalizarDireccion("bv san juan 300,cordoba"));
+        assertEquals(clave, GeocodificacionService.normalizarDireccion("BV. SAN JUAN 300 ,, CORDOBA."));
+        assertNotEquals(clave, GeocodificacionService.normalizarDireccion("Bv. San Juan 301, Córdoba"));
+    }
+
+    @Test
+    public void normalizarDireccion_comasSobrantesEnLosExtremos() {
+        assertEquals("rosario,santa fe", GeocodificacionService.normalizarDireccion(", Rosario, Santa Fe ,"));
+        assertEquals("", GeocodificacionService.normalizarDireccion(" ,;. "));
+        assertEquals("", GeocodificacionService.normalizarDireccion(null));
+    }
+}
@@ -0,0 +1,22 @@
+-- Migration: 02-camiones-disponible-operativo.sql
+-- camiones.disponible dejó de usarse como marca de ocupación (la ocupación sale de los tramos asignados no
+-- finalizados, por franja horaria). Antes se ponía en false al asignar un tramo y volvía a true al finalizarlo;
+-- ahora solo lo cambia el operador (POST /api/v1/camiones/{dominio}/estado), igual que activo.
+-- Los camiones que quedaron en false por una asignación hecha con la versión anterior no se liberarían nunca:
+-- este script los vuelve a true. Solo toca los que tienen un tramo asignado sin finalizar (tramos.camion_dominio
+-- con fecha_hora_fin_real nula), que son los que la versión anterior dejaba en false; un false sin tramo en curso
+-- lo puso el operador y se respeta. Ejecutarlo una sola vez, al desplegar la versión con calendario de camiones;
+-- después de eso un false es una decisión del operador y no debe pisarse.
+-- Run on the target DB as: psql -h <host> -U <user> -d <db> -f postgres/02-camiones-disponible-operativo.sql
+
+BEGIN;
+
+UPDATE camiones c SET disponible = TRUE
+WHERE c.disponible IS DISTINCT FROM TRUE
+  AND EXISTS (
+      SELECT 1 FROM tramos t
+      WHERE t.camion_dominio = c.dominio
+        AND t.fecha_hora_fin_real IS NULL
+  );
+
+COMMIT;
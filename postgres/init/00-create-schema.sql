@@ -73,6 +73,14 @@ CREATE TABLE IF NOT EXISTS depositos (
 );
 CREATE INDEX IF NOT EXISTS idx_depositos_ciudad ON depositos(id_ciudad);
 
+-- Geocoding cache (ms-gestion-calculos): normalized address -> coordinates; NULL coordinates = not found
+CREATE TABLE IF NOT EXISTS geocodificaciones (
+	direccion_normalizada VARCHAR(512) PRIMARY KEY,
+	latitud DOUBLE PRECISION,
+	longitud DOUBLE PRECISION,
+	fecha_consulta TIMESTAMP NOT NULL
+);
+
 -- Contenedores
 CREATE TABLE IF NOT EXISTS contenedores (
 	id_contenedor BIGSERIAL PRIMARY KEY,
@@ -243,6 +251,11 @@ BEGIN
 	END IF;
 END$$;
 
+-- ID sequences used by ms-solicitudes (pooled allocation: each nextval reserves 50 IDs)
+CREATE SEQUENCE IF NOT EXISTS clientes_ids_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS contenedores_ids_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS solicitudes_ids_seq START WITH 1 INCREMENT BY 50;
+
 -- Seed estado_* tables
 INSERT INTO estado_solicitud (nombre) VALUES ('PENDIENTE'), ('PROGRAMADO'), ('EN_RUTA'), ('ENTREGADO'), ('FINALIZADO') ON CONFLICT DO NOTHING;
 INSERT INTO estado_contenedor (nombre) VALUES ('LIBRE'), ('ASIGNADO'), ('EN_DEPOSITO'), ('EN_TRANSITO') ON CONFLICT DO NOTHING;